@@ -0,0 +1,60 @@
+package worms;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import worms.model.program.ProgramImage;
+
+/**
+ * Precompiles a program file, the result can be passed to Worms with the
+ * -program argument instead of the program text.
+ * 
+ * Usage: ProgramCompiler source [output]. The output defaults to the source
+ * with the extension .wpc, which Worms checks against the source next to it.
+ */
+public class ProgramCompiler {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: ProgramCompiler source [output]");
+			System.exit(2);
+		}
+
+		File source = new File(args[0]);
+		File output = new File(args.length == 2 ? args[1] : toImageName(args[0]));
+		String programText = new String(Files.readAllBytes(source.toPath()),
+				Charset.forName("UTF-8"));
+
+		List<String> errors = new ArrayList<String>();
+		ProgramImage image = ProgramImage.compile(programText, errors);
+		if (image == null) {
+			for (String error : errors) {
+				System.err.println(source + ":" + error);
+			}
+			System.exit(1);
+		}
+
+		OutputStream stream = new BufferedOutputStream(new FileOutputStream(output));
+		try {
+			image.write(stream);
+		} finally {
+			stream.close();
+		}
+		System.out.println("Wrote " + output);
+	}
+
+	private static String toImageName(String sourceName) {
+		int dot = sourceName.lastIndexOf('.');
+		if (dot > sourceName.lastIndexOf(File.separatorChar)) {
+			sourceName = sourceName.substring(0, dot);
+		}
+		return sourceName + ProgramImage.FILE_EXTENSION;
+	}
+}
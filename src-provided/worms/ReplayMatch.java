@@ -0,0 +1,47 @@
+package worms;
+
+import java.io.File;
+import java.io.IOException;
+
+import worms.model.World;
+import worms.model.replay.Replayer;
+import worms.model.replay.WorldHasher;
+
+/**
+ * Replays a match recorded by Worms with the -record argument, without the
+ * GUI.
+ *
+ * Usage: ReplayMatch log [-verify]. With -verify, the replayed world is
+ * checked against the hash recorded at the end of the match.
+ */
+public class ReplayMatch {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2
+				|| (args.length == 2 && !"-verify".equals(args[1]))) {
+			System.err.println("Usage: ReplayMatch log [-verify]");
+			System.exit(2);
+		}
+
+		long start = System.nanoTime();
+		Replayer replayer = Replayer.open(new File(args[0]));
+		World world;
+		try {
+			world = replayer.run(args.length == 2);
+		} catch (IllegalStateException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		long time = System.nanoTime() - start;
+
+		System.out.println("Replayed " + replayer.getEventCount()
+				+ " events in " + String.format("%.2f", time / 1e6) + " ms");
+		if (world != null) {
+			System.out.println("Turns: " + world.getTurnCount() + ", state: "
+					+ world.getState());
+			System.out.println("Hash: "
+					+ Long.toHexString(WorldHasher.hash(world)));
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package worms;
+
+import java.io.File;
+import java.io.IOException;
+
+import worms.gui.Level;
+import worms.model.world.TerrainFile;
+
+/**
+ * Converts the terrain of a level to a terrain file, which Worms maps instead
+ * of decoding the map image of the level.
+ *
+ * Usage: TerrainConverter [-noindices] level.lvl [output]. The output defaults
+ * to the map image of the level with the extension .wterrain, which Worms
+ * checks against the image next to it. The distance field and column floors
+ * are written unless -noindices is given.
+ */
+public class TerrainConverter {
+
+	public static void main(String[] args) throws IOException {
+		int flags = TerrainFile.DISTANCE_FIELD | TerrainFile.COLUMN_FLOORS;
+		int first = 0;
+		if (args.length > 0 && args[0].equals("-noindices")) {
+			flags = 0;
+			first = 1;
+		}
+		if (args.length - first < 1 || args.length - first > 2) {
+			System.err
+					.println("Usage: TerrainConverter [-noindices] level.lvl [output]");
+			System.exit(2);
+		}
+
+		Level level = Level.fromFile(new File(args[first]));
+		level.load();
+
+		File output = args.length - first == 2 ? new File(args[first + 1])
+				: level.getTerrainFile();
+		if (output == null) {
+			System.err.println("The map image isn't a file, give an output.");
+			System.exit(2);
+		}
+
+		TerrainFile.write(output, level.getTerrain(), level.getScale(),
+				level.getMapHash(), flags);
+		System.out.println("Wrote " + output);
+	}
+}
@@ -1,13 +1,78 @@
 package worms;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
 import worms.gui.GUIOptions;
 import worms.gui.WormsGUI;
 import worms.model.Facade;
+import worms.model.program.ProgramProfiler;
+import worms.model.replay.RecordingFacade;
 
 public class Worms {
 
 	public static void main(String[] args) {
-		new WormsGUI(new Facade(), parseOptions(args)).start();
+		GUIOptions options = parseOptions(args);
+		Facade facade = new Facade();
+		if (options.recordFile != null) {
+			facade = createRecordingFacade(options.recordFile,
+					options.randomSeed);
+		}
+		facade.setBytecodeEnabled(options.useBytecode);
+		if (options.profileFile != null) {
+			facade.setProfiler(createProfiler(options.profileFile));
+		}
+		new WormsGUI(facade, options).start();
+	}
+
+	/**
+	 * Create a profiler that writes its reports to the given file when the
+	 * game exits.
+	 */
+	private static ProgramProfiler createProfiler(final String file) {
+		final ProgramProfiler profiler = new ProgramProfiler();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				try (PrintWriter flat = new PrintWriter(new FileWriter(file));
+						PrintWriter folded = new PrintWriter(new FileWriter(file + ".folded"))) {
+					profiler.writeFlatReport(flat);
+					profiler.writeFoldedStacks(folded);
+				} catch (IOException e) {
+					System.err.println("Could not write the profile: " + e.getMessage());
+				}
+			}
+		});
+		return profiler;
+	}
+
+	/**
+	 * Create a facade recording the matches to the given file, the log is
+	 * closed when the game exits.
+	 */
+	private static Facade createRecordingFacade(String file, long seed) {
+		final RecordingFacade facade;
+		try {
+			facade = RecordingFacade.create(new File(file), seed);
+		} catch (IOException e) {
+			System.err.println("Could not record to " + file + ": "
+					+ e.getMessage());
+			return new Facade();
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				try {
+					facade.close();
+				} catch (IOException e) {
+					System.err.println("Could not write the recording: "
+							+ e.getMessage());
+				}
+			}
+		});
+		return facade;
 	}
 
 	private static GUIOptions parseOptions(String[] args) {
@@ -25,6 +90,16 @@ public class Worms {
 			} else if ("-program".equals(arg)) {
 				String program = args[++i];
 				options.programFile = program;
+			} else if ("-bytecode".equals(arg)) {
+				options.useBytecode = true;
+			} else if ("-profile".equals(arg)) {
+				options.profileFile = args[++i];
+			} else if ("-fastforward".equals(arg)) {
+				options.fastForward = true;
+			} else if ("-record".equals(arg)) {
+				options.recordFile = args[++i];
+			} else if ("-fullrepaint".equals(arg)) {
+				options.fullRepaint = true;
 			}
 		}
 
@@ -22,6 +22,19 @@ public final class GUIConstants {
 	 */
 	public static final double TIME_SCALE = 0.7;
 
+	/**
+	 * Rate at which the game time advances, in ticks per worm-second. Commands
+	 * are always updated by whole ticks, so they behave the same whatever the
+	 * actual frame timing is.
+	 */
+	public static final int TICK_RATE = 60;
+
+	/**
+	 * Maximum amount of ticks to execute for a single frame, the time that
+	 * would need more ticks is dropped
+	 */
+	public static final int MAX_TICKS_PER_FRAME = 30;
+
 	/**
 	 * Minimal angle to turn when pressing the 'turn' key a single time
 	 */
@@ -53,6 +66,18 @@ public final class GUIConstants {
 	 */
 	public static final double JUMP_TIME_STEP = 1e-4;
 
+	/**
+	 * Factor the camera zooms in or out by when pressing the 'zoom' keys
+	 * a single time
+	 */
+	public static final double ZOOM_STEP = 1.25;
+
+	/**
+	 * Distance the camera moves when pressing the 'pan' keys a single time,
+	 * in pixels
+	 */
+	public static final int PAN_STEP = 64;
+
 	/* disable instantiations */
 	private GUIConstants() {
 	}
@@ -28,7 +28,54 @@ public class GUIOptions {
      * The program that is executed by computer-controlled worms. Default:
      * "programs/program.txt"
      *
+     * This is either the program text or a program precompiled with
+     * worms.ProgramCompiler (see worms.model.program.ProgramImage).
+     *
      * Can also be set from the command line with the -program argument
      */
     public String programFile = "programs/program.txt";
+
+    /**
+     * Compile the programs of computer-controlled worms to bytecode instead of
+     * interpreting them. Default: false
+     *
+     * Can also be enabled from the command line with the -bytecode argument
+     */
+    public boolean useBytecode = false;
+
+    /**
+     * The file to write a profile of the programs of computer-controlled worms
+     * to when the game exits, the folded stacks are written next to it with
+     * the extension ".folded". Default: null (no profiling)
+     *
+     * Can also be set from the command line with the -profile argument
+     */
+    public String profileFile = null;
+
+    /**
+     * Resolve the actions of computer-controlled worms instantly, without
+     * animations, and only redraw the screen when the turn changes. Default:
+     * false
+     *
+     * Can also be toggled while playing with the F key, or enabled from the
+     * command line with the -fastforward argument
+     */
+    public boolean fastForward = false;
+
+    /**
+     * The file to record the matches to, they can be replayed without the GUI
+     * by worms.ReplayMatch. Default: null (no recording)
+     *
+     * Can also be set from the command line with the -record argument
+     */
+    public String recordFile = null;
+
+    /**
+     * Repaint the whole screen every frame instead of only the parts where
+     * something changed, and draw the terrain straight from the level image
+     * instead of caching it in video memory. Default: false
+     *
+     * Can also be enabled from the command line with the -fullrepaint argument
+     */
+    public boolean fullRepaint = false;
 }
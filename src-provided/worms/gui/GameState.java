@@ -7,6 +7,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import worms.gui.game.commands.Command;
+import worms.model.Facade;
+import worms.model.FixedTimestepEngine;
 import worms.model.IFacade;
 import worms.model.World;
 import worms.model.Worm;
@@ -16,9 +18,20 @@ public class GameState {
 	private final Random random;
 	private final IFacade facade;
 
-	private final BlockingQueue<Double> timeDelta = new LinkedBlockingQueue<Double>(
+	private final BlockingQueue<Integer> timeDelta = new LinkedBlockingQueue<Integer>(
 			1);
 
+	private int pendingTicks;
+
+	private final FixedTimestepEngine engine = new FixedTimestepEngine(
+			GUIConstants.TICK_RATE, GUIConstants.MAX_TICKS_PER_FRAME,
+			new FixedTimestepEngine.Simulation() {
+				@Override
+				public void tick(double tickLength) {
+					pendingTicks++;
+				}
+			});
+
 	private World world;
 
 	private final Level level;
@@ -31,8 +44,15 @@ public class GameState {
 
 	public synchronized void createWorld() {
 		level.load();
-		world = facade.createWorld(level.getWorldWidth(),
-				level.getWorldHeight(), level.getPassableMap(), random);
+		if (facade instanceof Facade) {
+			// shares the terrain instead of copying a passable map
+			world = ((Facade) facade).createWorldOnTerrain(
+					level.getWorldWidth(), level.getWorldHeight(),
+					level.getTerrain(), random);
+		} else {
+			world = facade.createWorld(level.getWorldWidth(),
+					level.getWorldHeight(), level.getPassableMap(), random);
+		}
 	}
 
 	public IFacade getFacade() {
@@ -43,21 +63,54 @@ public class GameState {
 		return getFacade().getWorms(getWorld());
 	}
 
+	/**
+	 * Let the given amount of game time pass. The time is turned into ticks of
+	 * a fixed length, which are handed to the command being executed.
+	 */
 	public void evolve(double dt) {
-		timeDelta.clear(); // nobody was waiting for the previous tick, so
-		// clear it
-		timeDelta.offer(dt);
+		int ticks;
+		synchronized (engine) {
+			pendingTicks = 0;
+			engine.advance(dt);
+			ticks = pendingTicks;
+		}
+		if (ticks > 0) {
+			timeDelta.clear(); // nobody was waiting for the previous ticks, so
+			// clear them
+			timeDelta.offer(ticks);
+		}
+	}
+
+	/**
+	 * How far the game time is between the last tick and the next one, to
+	 * interpolate the positions of sprites with.
+	 */
+	public double getInterpolation() {
+		synchronized (engine) {
+			return engine.getInterpolation();
+		}
+	}
+
+	/**
+	 * The amount of ticks the game time has advanced.
+	 */
+	public long getTickCount() {
+		synchronized (engine) {
+			return engine.getTickCount();
+		}
 	}
 
 	public boolean executeImmediately(Command cmd) {
 		cmd.startExecution();
 		while (!cmd.isTerminated()) {
 			try {
-				Double dt = timeDelta.poll(1000 / GUIConstants.FRAMERATE,
+				Integer ticks = timeDelta.poll(1000 / GUIConstants.FRAMERATE,
 						TimeUnit.MILLISECONDS); // blocks, but allows repainting
 												// if necessary
-				if (dt != null) {
-					cmd.update(dt);
+				if (ticks != null) {
+					for (int i = 0; i < ticks && !cmd.isTerminated(); i++) {
+						cmd.update(engine.getTickLength());
+					}
 				}
 				cmd.getScreen().repaint(); // repaint while executing command
 											// (which might block GUI thread)
@@ -1,8 +1,8 @@
 package worms.gui;
 
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -11,7 +11,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import javax.imageio.ImageIO;
+import worms.model.world.TerrainBitmap;
 
 public class Level {
 
@@ -58,6 +58,19 @@ public class Level {
 		}
 	}
 
+	/**
+	 * The decoded terrain of the levels loaded or preloaded so far.
+	 */
+	private static final LevelCache cache = new LevelCache();
+
+	/**
+	 * The level described by the given .lvl file, its map image is looked up
+	 * next to it.
+	 */
+	public static Level fromFile(File file) throws IOException {
+		return new Level(new LevelFile(file.getName(), file.toURI().toURL()));
+	}
+
 	public static Level[] getAvailableLevels() {
 		LevelFile[] files = getLevelFiles();
 		Level[] levels = new Level[files.length];
@@ -108,7 +121,8 @@ public class Level {
 	}
 
 	private final LevelFile file;
-	private BufferedImage mapImage;
+	private URL mapURL;
+	private LevelCache.Terrain terrain;
 
 	private double scale;
 
@@ -132,18 +146,46 @@ public class Level {
 		}
 	}
 
+	/**
+	 * Decode the terrain of the given levels in the background, so they load
+	 * without decoding it when they're chosen.
+	 */
+	public static void preload(Level[] levels) {
+		for (Level level : levels) {
+			try {
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(level.file.getInputStream()));
+				try {
+					cache.preload(level.toMapURL(level.readAsKeyVal(reader,
+							"map")));
+				} finally {
+					reader.close();
+				}
+			} catch (Exception e) {
+				// reported when the level is loaded
+			}
+		}
+	}
+
 	protected void readFile(BufferedReader reader) throws IOException {
-		this.mapImage = ImageIO.read(GUIUtils.openResource(LEVELS_DIRECTORY
-				+ "/" + readAsKeyVal(reader, "map")));
+		this.mapURL = toMapURL(readAsKeyVal(reader, "map"));
+		this.terrain = cache.get(mapURL);
 		try {
 			double height = Double.parseDouble(readAsKeyVal(reader, "height"));
-			this.scale = height / mapImage.getHeight();
+			this.scale = height / getMapHeight();
 		} catch (IllegalArgumentException e) {
 			double width = Double.parseDouble(readAsKeyVal(reader, "width"));
-			this.scale = width / mapImage.getWidth();
+			this.scale = width / getMapWidth();
 		}
 	}
 
+	/**
+	 * The map images of levels are next to their .lvl file.
+	 */
+	private URL toMapURL(String map) throws IOException {
+		return new URL(file.getURL(), map);
+	}
+
 	protected String readAsKeyVal(BufferedReader reader, String expectedKey)
 			throws IOException {
 		String line = reader.readLine();
@@ -163,16 +205,47 @@ public class Level {
 		return value;
 	}
 
+	/**
+	 * The map image, which is only decoded when it's first asked for.
+	 */
 	public BufferedImage getMapImage() {
-		return mapImage;
+		try {
+			return terrain.getImage();
+		} catch (IOException e) {
+			throw new LoadException("Could not load the map image of "
+					+ file.getName(), e);
+		}
+	}
+
+	/**
+	 * The location of the map image.
+	 */
+	public URL getMapURL() {
+		return mapURL;
+	}
+
+	/**
+	 * The terrain file next to the map image, which is mapped instead of
+	 * decoding the image when it was converted from it, or null if the image
+	 * isn't a file.
+	 */
+	public File getTerrainFile() {
+		return LevelCache.getTerrainFile(mapURL);
+	}
+
+	/**
+	 * The SHA-256 hash of the map image.
+	 */
+	public byte[] getMapHash() {
+		return terrain.getHash();
 	}
 
 	public int getMapHeight() {
-		return mapImage.getHeight();
+		return terrain.getBitmap().getHeight();
 	}
 
 	public int getMapWidth() {
-		return mapImage.getWidth();
+		return terrain.getBitmap().getWidth();
 	}
 
 	/**
@@ -185,31 +258,25 @@ public class Level {
 	}
 
 	public double getWorldWidth() {
-		return scale * mapImage.getWidth();
+		return scale * getMapWidth();
 	}
 
 	public double getWorldHeight() {
-		return scale * mapImage.getHeight();
+		return scale * getMapHeight();
+	}
+
+	/**
+	 * The terrain of this level, shared by every load of the same map image.
+	 */
+	public TerrainBitmap getTerrain() {
+		return terrain.getBitmap();
 	}
 
+	/**
+	 * A new passable map of this level, see getTerrain().
+	 */
 	public boolean[][] getPassableMap() {
-		final boolean[][] result = new boolean[getMapHeight()][getMapWidth()];
-		final byte[] bytes = ((DataBufferByte) mapImage.getRaster()
-				.getDataBuffer()).getData();
-		final int w = getMapWidth();
-		final int h = getMapHeight();
-		for (int row = 0; row < h; row++) {
-			final int offset = w * row;
-			for (int col = 0; col < w; col++) {
-				final byte alpha = bytes[4 * (offset + col)];
-				// alpha < 128 ((alpha & 0xf) == 0) => passable
-				// alpha >= 128 ((alpha & 0xf) != 0) => impassable
-				if (((int) alpha & 0xf0) == 0) {
-					result[row][col] = true;
-				}
-			}
-		}
-		return result;
+		return terrain.getBitmap().toPassableMap();
 	}
 
 	/**
@@ -0,0 +1,269 @@
+package worms.gui;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+
+import worms.model.world.PngTerrainDecoder;
+import worms.model.world.TerrainBitmap;
+import worms.model.world.TerrainFile;
+
+/**
+ * The decoded terrain of levels, by the SHA-256 hash of their map image.
+ *
+ * The map image of a level is still read each time the level is loaded, to
+ * hash it, but its terrain is only decoded the first time it's seen, straight
+ * into a bitmap. The image itself is only decoded when it's shown. Terrains
+ * are decoded at most once, also when they're loaded while being preloaded.
+ *
+ * A terrain isn't decoded at all if a terrain file converted from the same
+ * image sits next to it, see TerrainConverter. The terrain is then mapped
+ * from that file instead.
+ *
+ * All methods are thread-safe.
+ */
+class LevelCache {
+
+	/**
+	 * The terrain of a map image, and the image itself, which is only decoded
+	 * when it's shown. Neither is to be modified.
+	 */
+	static class Terrain {
+
+		private final TerrainBitmap bitmap;
+		private final byte[] hash;
+		private byte[] imageBytes;
+		private BufferedImage image;
+
+		Terrain(TerrainBitmap bitmap, byte[] hash, byte[] imageBytes) {
+			this.bitmap = bitmap;
+			this.hash = hash;
+			this.imageBytes = imageBytes;
+		}
+
+		TerrainBitmap getBitmap() {
+			return bitmap;
+		}
+
+		/**
+		 * The SHA-256 hash of the map image.
+		 */
+		byte[] getHash() {
+			return Arrays.copyOf(hash, hash.length);
+		}
+
+		/**
+		 * The map image, decoded now if it wasn't before.
+		 */
+		synchronized BufferedImage getImage() throws IOException {
+			if (image == null) {
+				image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+				if (image == null) {
+					throw new IOException("Not an image");
+				}
+				imageBytes = null;
+			}
+			return image;
+		}
+	}
+
+	private final Map<String, FutureTask<Terrain>> terrains = new HashMap<String, FutureTask<Terrain>>();
+
+	private final ExecutorService preloader = Executors
+			.newSingleThreadExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "level-preload");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private int nbDecoded;
+	private int nbMapped;
+
+	/**
+	 * The terrain of the map image at the given URL, decoded now if it
+	 * wasn't before. Waits for it if it's being decoded on another thread.
+	 */
+	Terrain get(final URL url) throws IOException {
+		final byte[] bytes = readAll(url);
+		final byte[] digest = digest(bytes);
+		String hash = new BigInteger(1, digest).toString(16);
+
+		FutureTask<Terrain> task;
+		boolean created = false;
+		synchronized (this) {
+			task = terrains.get(hash);
+			if (task == null) {
+				task = new FutureTask<Terrain>(new Callable<Terrain>() {
+
+					@Override
+					public Terrain call() throws IOException {
+						Terrain result = map(url, digest, bytes);
+						return result != null ? result : decode(digest, bytes);
+					}
+				});
+				terrains.put(hash, task);
+				created = true;
+			}
+		}
+		if (created) {
+			task.run();
+		}
+
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while decoding " + url, e);
+		} catch (ExecutionException e) {
+			synchronized (this) {
+				// try again on the next load
+				if (terrains.get(hash) == task) {
+					terrains.remove(hash);
+				}
+			}
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Could not decode " + url, e.getCause());
+		}
+	}
+
+	/**
+	 * Decode the terrain at the given URL in the background, if it isn't
+	 * decoded yet, and its image unless there's no screen to show it on.
+	 */
+	void preload(final URL url) {
+		preloader.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					Terrain terrain = get(url);
+					if (!GraphicsEnvironment.isHeadless()) {
+						terrain.getImage();
+					}
+				} catch (IOException e) {
+					// reported when the level is loaded
+				}
+			}
+		});
+	}
+
+	/**
+	 * The number of terrains decoded so far.
+	 */
+	synchronized int getNbDecoded() {
+		return nbDecoded;
+	}
+
+	/**
+	 * The number of terrains mapped from a terrain file so far.
+	 */
+	synchronized int getNbMapped() {
+		return nbMapped;
+	}
+
+	/**
+	 * The terrain file next to the given map image, whether it exists or not,
+	 * or null if the image isn't a file.
+	 */
+	static File getTerrainFile(URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			String image = new File(url.toURI()).getPath();
+			int dot = image.lastIndexOf('.');
+			if (dot > image.lastIndexOf(File.separatorChar)) {
+				image = image.substring(0, dot);
+			}
+			return new File(image + TerrainFile.FILE_EXTENSION);
+		} catch (URISyntaxException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The terrain mapped from the terrain file next to the given map image,
+	 * or null if there is no such file or it wasn't converted from this
+	 * image.
+	 */
+	private Terrain map(URL url, byte[] digest, byte[] bytes) {
+		File file = getTerrainFile(url);
+		if (file == null || !file.isFile()) {
+			return null;
+		}
+		try {
+			TerrainFile terrainFile = TerrainFile.open(file);
+			if (!terrainFile.isConvertedFrom(digest)) {
+				System.err.println(file + " is older than " + url
+						+ ", decoding the image instead.");
+				return null;
+			}
+			synchronized (this) {
+				nbMapped++;
+			}
+			return new Terrain(terrainFile.getBitmap(), digest, bytes);
+		} catch (IOException e) {
+			System.err.println("Could not open " + file + ", decoding "
+					+ url + " instead: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private Terrain decode(byte[] digest, byte[] bytes) throws IOException {
+		Terrain result = new Terrain(PngTerrainDecoder
+				.decode(new ByteArrayInputStream(bytes)), digest, bytes);
+		synchronized (this) {
+			nbDecoded++;
+		}
+		return result;
+	}
+
+	private static byte[] readAll(URL url) throws IOException {
+		InputStream in = GUIUtils.openResource(url);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static byte[] digest(byte[] bytes) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 isn't supported.", e);
+		}
+	}
+}
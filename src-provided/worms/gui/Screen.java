@@ -3,6 +3,7 @@ package worms.gui;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 
 import javax.swing.JComponent;
@@ -101,6 +102,13 @@ public abstract class Screen {
 		}
 	}
 
+	/**
+	 * Whether a message is shown on this screen at the moment.
+	 */
+	protected boolean isShowingMessage() {
+		return messageDisplay.getMessage() != null;
+	}
+
 	public void addMessage(String message, MessageType type) {
 		messageDisplay.addMessage(message, type);
 		repaint();
@@ -126,6 +134,17 @@ public abstract class Screen {
 
 	}
 
+	/**
+	 * Repaint only the given area of this screen.
+	 */
+	public void repaint(Rectangle area) {
+		if (SwingUtilities.isEventDispatchThread()) {
+			getContents().paintImmediately(area);
+		} else {
+			getContents().repaint(area);
+		}
+	}
+
 	public void screenStopped() {
 		switchInputMode(null);
 	}
@@ -0,0 +1,202 @@
+package worms.gui.game;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * The part of the world shown on the play screen: the point of the world at
+ * the center of the screen and how far the screen is zoomed in.
+ *
+ * At zoom 1 the whole world fits on the screen. When zoomed in, the center is
+ * kept far enough from the edges of the world that the screen never shows
+ * anything beyond them.
+ *
+ * A camera never changes, zooming and panning return a new camera. World
+ * coordinates are in worm-meters with the y-axis pointing up, screen
+ * coordinates are in pixels with the y-axis pointing down.
+ */
+public final class Camera {
+
+	/**
+	 * How far a camera can zoom in.
+	 */
+	public static final double MAX_ZOOM = 16;
+
+	private final double worldWidth;
+	private final double worldHeight;
+	private final int screenWidth;
+	private final int screenHeight;
+	private final double zoom;
+	private final double centerX;
+	private final double centerY;
+
+	/**
+	 * A camera showing the whole world of the given size on a screen of the
+	 * given size.
+	 */
+	public Camera(double worldWidth, double worldHeight, int screenWidth,
+			int screenHeight) {
+		this(worldWidth, worldHeight, screenWidth, screenHeight, 1,
+				worldWidth / 2, worldHeight / 2);
+	}
+
+	private Camera(double worldWidth, double worldHeight, int screenWidth,
+			int screenHeight, double zoom, double centerX, double centerY) {
+		this.worldWidth = worldWidth;
+		this.worldHeight = worldHeight;
+		this.screenWidth = screenWidth;
+		this.screenHeight = screenHeight;
+		this.zoom = Math.max(1, Math.min(zoom, MAX_ZOOM));
+		double scale = getScale();
+		this.centerX = restrict(centerX, screenWidth * scale, worldWidth);
+		this.centerY = restrict(centerY, screenHeight * scale, worldHeight);
+	}
+
+	/**
+	 * The given center, restricted so a view of the given size doesn't extend
+	 * beyond a world of the given size. A view larger than the world is
+	 * centered on it.
+	 */
+	private static double restrict(double center, double view, double world) {
+		if (view >= world) {
+			return world / 2;
+		}
+		return Math.max(view / 2, Math.min(center, world - view / 2));
+	}
+
+	public int getScreenWidth() {
+		return screenWidth;
+	}
+
+	public int getScreenHeight() {
+		return screenHeight;
+	}
+
+	public double getZoom() {
+		return zoom;
+	}
+
+	public double getCenterX() {
+		return centerX;
+	}
+
+	public double getCenterY() {
+		return centerY;
+	}
+
+	/**
+	 * Scale of the displayed world (in worm-meter per pixel)
+	 */
+	public double getScale() {
+		// a screen that isn't shown yet has no size
+		double fit = Math.max(worldWidth / Math.max(1, screenWidth),
+				worldHeight / Math.max(1, screenHeight));
+		return fit / zoom;
+	}
+
+	/**
+	 * Distance in the world (worm-meter) to distance on the screen (pixels)
+	 */
+	public double worldToScreenDistance(double ds) {
+		return ds / getScale();
+	}
+
+	/**
+	 * Distance on the screen (pixels) to distance in the world (worm-meter)
+	 */
+	public double screenToWorldDistance(double ds) {
+		return ds * getScale();
+	}
+
+	/**
+	 * World x coordinate to screen x coordinate
+	 */
+	public double getScreenX(double x) {
+		return screenWidth / 2.0 + worldToScreenDistance(x - centerX);
+	}
+
+	/**
+	 * World y coordinate to screen y coordinate
+	 */
+	public double getScreenY(double y) {
+		return screenHeight / 2.0 - worldToScreenDistance(y - centerY);
+	}
+
+	/**
+	 * Screen x coordinate to world x coordinate
+	 */
+	public double getLogicalX(double screenX) {
+		return centerX + screenToWorldDistance(screenX - screenWidth / 2.0);
+	}
+
+	/**
+	 * Screen y coordinate to world y coordinate
+	 */
+	public double getLogicalY(double screenY) {
+		return centerY - screenToWorldDistance(screenY - screenHeight / 2.0);
+	}
+
+	/**
+	 * The part of the world shown on the screen, in worm-meters.
+	 */
+	public Rectangle2D getViewport() {
+		double width = screenToWorldDistance(screenWidth);
+		double height = screenToWorldDistance(screenHeight);
+		return new Rectangle2D.Double(centerX - width / 2, centerY - height
+				/ 2, width, height);
+	}
+
+	/**
+	 * This camera on a screen of the given size.
+	 */
+	public Camera withScreenSize(int screenWidth, int screenHeight) {
+		return new Camera(worldWidth, worldHeight, screenWidth, screenHeight,
+				zoom, centerX, centerY);
+	}
+
+	/**
+	 * This camera, zoomed in by the given factor (or out, if it's smaller
+	 * than 1).
+	 */
+	public Camera zoomedBy(double factor) {
+		return new Camera(worldWidth, worldHeight, screenWidth, screenHeight,
+				zoom * factor, centerX, centerY);
+	}
+
+	/**
+	 * This camera, moved by the given distance on the screen (in pixels).
+	 */
+	public Camera pannedBy(double dx, double dy) {
+		return new Camera(worldWidth, worldHeight, screenWidth, screenHeight,
+				zoom, centerX + screenToWorldDistance(dx), centerY
+						- screenToWorldDistance(dy));
+	}
+
+	/**
+	 * This camera, centered on the given point of the world.
+	 */
+	public Camera centeredOn(double x, double y) {
+		return new Camera(worldWidth, worldHeight, screenWidth, screenHeight,
+				zoom, x, y);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof Camera)) {
+			return false;
+		}
+		Camera other = (Camera) obj;
+		return worldWidth == other.worldWidth
+				&& worldHeight == other.worldHeight
+				&& screenWidth == other.screenWidth
+				&& screenHeight == other.screenHeight && zoom == other.zoom
+				&& centerX == other.centerX && centerY == other.centerY;
+	}
+
+	@Override
+	public int hashCode() {
+		long bits = Double.doubleToLongBits(zoom) * 31
+				+ Double.doubleToLongBits(centerX) * 17
+				+ Double.doubleToLongBits(centerY);
+		return (int) (bits ^ (bits >>> 32)) + 31 * screenWidth + screenHeight;
+	}
+}
@@ -0,0 +1,117 @@
+package worms.gui.game;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The part of a screen that has to be repainted, found by comparing the
+ * bounds of the sprites on the screen with the bounds they were last painted
+ * at.
+ *
+ * A sprite dirties its old and its new bounds when it moved or when it was
+ * invalidated because something else about it changed. Sprites are compared
+ * by identity.
+ *
+ * All methods are synchronized, the dirty region is collected on another
+ * thread than the one painting.
+ */
+class DirtyRegion {
+
+	private final Map<Object, Rectangle> painted = new IdentityHashMap<Object, Rectangle>();
+
+	private final Set<Object> invalidated = Collections
+			.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+	private boolean full = true;
+
+	/**
+	 * Repaint the sprite the next time, even if it didn't move.
+	 */
+	public synchronized void invalidate(Object sprite) {
+		invalidated.add(sprite);
+	}
+
+	/**
+	 * Repaint the whole screen the next time.
+	 */
+	public synchronized void invalidateAll() {
+		full = true;
+	}
+
+	/**
+	 * The area of the given screen to repaint, given the current bounds of all
+	 * sprites on it. Null if nothing changed since the last time.
+	 *
+	 * Sprites that aren't in the given bounds anymore dirty the area they were
+	 * painted at and are forgotten. Nothing is collected while the screen is
+	 * empty.
+	 */
+	public synchronized Rectangle collect(Map<?, Rectangle> bounds,
+			Rectangle screen) {
+		if (screen.isEmpty()) {
+			// not shown yet
+			return null;
+		}
+		Rectangle result = null;
+		for (Map.Entry<?, Rectangle> entry : bounds.entrySet()) {
+			Rectangle before = painted.get(entry.getKey());
+			if (before == null || !before.equals(entry.getValue())
+					|| invalidated.contains(entry.getKey())) {
+				result = union(result, entry.getValue());
+				result = union(result, before);
+			}
+		}
+		for (Iterator<Map.Entry<Object, Rectangle>> it = painted.entrySet()
+				.iterator(); it.hasNext();) {
+			Map.Entry<Object, Rectangle> entry = it.next();
+			if (!bounds.containsKey(entry.getKey())) {
+				result = union(result, entry.getValue());
+				it.remove();
+			}
+		}
+		invalidated.clear();
+
+		if (full) {
+			full = false;
+			return new Rectangle(screen);
+		}
+		if (result == null) {
+			return null;
+		}
+		result = result.intersection(screen);
+		return result.isEmpty() ? null : result;
+	}
+
+	/**
+	 * Register that the sprite was painted at the given bounds, clipped to the
+	 * given area (null if it wasn't clipped).
+	 *
+	 * A sprite that moved but was only painted in part may have left a part
+	 * of itself at the old bounds, so it keeps dirtying those as well until it
+	 * was painted completely.
+	 */
+	public synchronized void painted(Object sprite, Rectangle bounds,
+			Rectangle clip) {
+		Rectangle before = painted.get(sprite);
+		if (clip == null || clip.contains(bounds) || bounds.equals(before)) {
+			painted.put(sprite, bounds);
+		} else {
+			painted.put(sprite, union(union(null, bounds), before));
+			invalidated.add(sprite);
+		}
+	}
+
+	private static Rectangle union(Rectangle first, Rectangle second) {
+		if (first == null) {
+			return second == null ? null : new Rectangle(second);
+		}
+		if (second != null) {
+			first.add(second);
+		}
+		return first;
+	}
+}
@@ -0,0 +1,333 @@
+package worms.gui.game;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import worms.gui.game.sprites.FoodSprite;
+import worms.gui.game.sprites.ProjectileSprite;
+import worms.gui.game.sprites.WormSprite;
+import worms.model.Worm;
+
+/**
+ * What the play screen shows at one moment: the state of every sprite,
+ * captured at once on the thread updating them.
+ *
+ * A snapshot never changes, so the painter can read it without taking the
+ * locks of the sprites or the model while those are being updated. A new
+ * snapshot is published for every frame, see PlayGameScreen.getFrame().
+ */
+public final class FrameSnapshot {
+
+	/**
+	 * The snapshot of a screen without sprites.
+	 */
+	public static final FrameSnapshot EMPTY = new FrameSnapshot(null, null,
+			Collections.<Sprite<?>> emptyList());
+
+	private final Camera camera;
+	private final Worm selectedWorm;
+	private final FoodState[] food;
+	private final WormState[] worms;
+	private final ProjectileState[] projectiles;
+
+	private FrameSnapshot(Camera camera, Worm selectedWorm,
+			Collection<Sprite<?>> sprites) {
+		this.camera = camera;
+		this.selectedWorm = selectedWorm;
+		List<FoodState> food = new ArrayList<FoodState>();
+		List<WormState> worms = new ArrayList<WormState>();
+		List<ProjectileState> projectiles = new ArrayList<ProjectileState>();
+		for (Sprite<?> sprite : sprites) {
+			// the state of a sprite is guarded by the sprite itself
+			synchronized (sprite) {
+				if (sprite instanceof FoodSprite) {
+					food.add(new FoodState((FoodSprite) sprite));
+				} else if (sprite instanceof WormSprite) {
+					worms.add(new WormState((WormSprite) sprite));
+				} else if (sprite instanceof ProjectileSprite) {
+					projectiles.add(new ProjectileState(
+							(ProjectileSprite) sprite));
+				}
+			}
+		}
+		this.food = food.toArray(new FoodState[food.size()]);
+		this.worms = worms.toArray(new WormState[worms.size()]);
+		this.projectiles = projectiles.toArray(new ProjectileState[projectiles
+				.size()]);
+	}
+
+	/**
+	 * Capture the sprites of the given screen that are in view as they are
+	 * now.
+	 */
+	static FrameSnapshot capture(PlayGameScreen screen) {
+		return new FrameSnapshot(screen.getCamera(), screen.getSelectedWorm(),
+				screen.getVisibleSprites());
+	}
+
+	/**
+	 * The camera the sprites were positioned for, null for the empty
+	 * snapshot.
+	 */
+	public Camera getCamera() {
+		return camera;
+	}
+
+	/**
+	 * The worm that had the turn.
+	 */
+	public Worm getSelectedWorm() {
+		return selectedWorm;
+	}
+
+	public List<FoodState> getFood() {
+		return Collections.unmodifiableList(Arrays.asList(food));
+	}
+
+	public List<WormState> getWorms() {
+		return Collections.unmodifiableList(Arrays.asList(worms));
+	}
+
+	public List<ProjectileState> getProjectiles() {
+		return Collections.unmodifiableList(Arrays.asList(projectiles));
+	}
+
+	/**
+	 * All sprites, in the order they are painted.
+	 */
+	public List<SpriteState> getSprites() {
+		List<SpriteState> result = new ArrayList<SpriteState>(food.length
+				+ worms.length + projectiles.length);
+		result.addAll(Arrays.asList(food));
+		result.addAll(Arrays.asList(worms));
+		result.addAll(Arrays.asList(projectiles));
+		return result;
+	}
+
+	/**
+	 * The state of the given worm, null if it isn't shown.
+	 */
+	public WormState getWorm(Worm worm) {
+		for (WormState state : worms) {
+			if (state.getWorm() == worm) {
+				return state;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The state of a sprite: the object it shows and where it's drawn, in
+	 * pixels.
+	 */
+	public static abstract class SpriteState {
+
+		private final Object object;
+		private final double centerX;
+		private final double centerY;
+		private final double width;
+		private final double height;
+
+		SpriteState(Sprite<?> sprite) {
+			this.object = sprite.getObject();
+			this.centerX = sprite.getCenterX();
+			this.centerY = sprite.getCenterY();
+			this.width = sprite.getWidth(null);
+			this.height = sprite.getHeight(null);
+		}
+
+		public Object getObject() {
+			return object;
+		}
+
+		public double getCenterX() {
+			return centerX;
+		}
+
+		public double getCenterY() {
+			return centerY;
+		}
+
+		public double getWidth() {
+			return width;
+		}
+
+		public double getHeight() {
+			return height;
+		}
+
+		public abstract void draw(Graphics2D g);
+	}
+
+	private static abstract class ImageState extends SpriteState {
+
+		private final Image image;
+
+		ImageState(ImageSprite<?> sprite) {
+			super(sprite);
+			this.image = sprite.getImageToDraw();
+		}
+
+		@Override
+		public void draw(Graphics2D g) {
+			g.drawImage(image, (int) (getCenterX() - getWidth() / 2),
+					(int) (getCenterY() - getHeight() / 2), null);
+		}
+	}
+
+	public static final class FoodState extends ImageState {
+
+		private final double radius;
+
+		FoodState(FoodSprite sprite) {
+			super(sprite);
+			this.radius = sprite.getRadius();
+		}
+
+		/**
+		 * In worm-meters.
+		 */
+		public double getRadius() {
+			return radius;
+		}
+	}
+
+	public static final class WormState extends ImageState {
+
+		private final String selectedWeapon;
+		private final double[][] jumpSteps;
+		private final double orientation;
+		private final String name;
+		private final String teamName;
+		private final boolean atImpassableTerrain;
+		private final int actionPoints;
+		private final int maxActionPoints;
+		private final int hitPoints;
+		private final int maxHitPoints;
+		private final double actualX;
+		private final double actualY;
+		private final double radius;
+
+		WormState(WormSprite sprite) {
+			super(sprite);
+			this.selectedWeapon = sprite.getSelectedWeapon();
+			this.jumpSteps = copy(sprite.getJumpSteps());
+			this.orientation = sprite.getOrientation();
+			this.name = sprite.getName();
+			this.teamName = sprite.getTeamName();
+			this.atImpassableTerrain = sprite.isAtImpassableTerrain();
+			this.actionPoints = sprite.getActionPoints();
+			this.maxActionPoints = sprite.getMaxActionPoints();
+			this.hitPoints = sprite.getHitPoints();
+			this.maxHitPoints = sprite.getMaxHitPoints();
+			this.actualX = sprite.getActualX();
+			this.actualY = sprite.getActualY();
+			this.radius = sprite.getRadius();
+		}
+
+		private static double[][] copy(double[][] xys) {
+			if (xys == null) {
+				return null;
+			}
+			double[][] result = new double[xys.length][];
+			for (int i = 0; i < xys.length; i++) {
+				result[i] = xys[i] == null ? null : xys[i].clone();
+			}
+			return result;
+		}
+
+		public Worm getWorm() {
+			return (Worm) getObject();
+		}
+
+		public String getSelectedWeapon() {
+			return selectedWeapon;
+		}
+
+		/**
+		 * The number of locations of the jump of the worm, 0 if it can't jump.
+		 */
+		public int getNbJumpSteps() {
+			return jumpSteps == null ? 0 : jumpSteps.length;
+		}
+
+		/**
+		 * The location of the worm at the given step of its jump, in
+		 * worm-meters, or null if it's unknown.
+		 */
+		public double[] getJumpStep(int index) {
+			double[] xy = jumpSteps[index];
+			return xy == null ? null : xy.clone();
+		}
+
+		public double getOrientation() {
+			return orientation;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getTeamName() {
+			return teamName;
+		}
+
+		public boolean isAtImpassableTerrain() {
+			return atImpassableTerrain;
+		}
+
+		public int getActionPoints() {
+			return actionPoints;
+		}
+
+		public int getMaxActionPoints() {
+			return maxActionPoints;
+		}
+
+		public int getHitPoints() {
+			return hitPoints;
+		}
+
+		public int getMaxHitPoints() {
+			return maxHitPoints;
+		}
+
+		/**
+		 * The location of the worm in the model, in worm-meters.
+		 */
+		public double getActualX() {
+			return actualX;
+		}
+
+		public double getActualY() {
+			return actualY;
+		}
+
+		/**
+		 * In worm-meters.
+		 */
+		public double getRadius() {
+			return radius;
+		}
+	}
+
+	public static final class ProjectileState extends SpriteState {
+
+		private final double[][] trail;
+
+		ProjectileState(ProjectileSprite sprite) {
+			super(sprite);
+			this.trail = sprite.getTrail();
+		}
+
+		@Override
+		public void draw(Graphics2D g) {
+			ProjectileSprite.drawTrail(g, trail, getWidth());
+		}
+	}
+}
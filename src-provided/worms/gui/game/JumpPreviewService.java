@@ -0,0 +1,241 @@
+package worms.gui.game;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import worms.gui.GUIConstants;
+import worms.model.IFacade;
+import worms.model.ModelException;
+import worms.model.Worm;
+
+/**
+ * Computes the jump markers of worms on another thread than the one updating
+ * the sprites.
+ *
+ * A preview belongs to the state of the worm it was computed for: its
+ * location, radius, orientation and action points. Asking for the jump steps
+ * of a worm returns the last completed preview, and starts computing a new
+ * one if the worm changed since. A preview for which the worm changed while
+ * it was being computed is discarded. A preview whose computation failed is
+ * discarded as well, the worm shows no jump markers until it changes. The listener is told when a new
+ * preview is completed, on the thread that computed it.
+ *
+ * All methods are thread-safe.
+ */
+public final class JumpPreviewService {
+
+	/**
+	 * Time between two jump markers, in worm-seconds.
+	 */
+	private static final double JUMP_MARKER_TIME_DISTANCE = 0.1;
+
+	public interface Listener {
+
+		void previewCompleted(Worm worm);
+	}
+
+	private final IFacade facade;
+	private final Executor executor;
+	private final Listener listener;
+
+	/**
+	 * The previews per worm, guarded by this service.
+	 */
+	private final Map<Worm, Preview> previews = new IdentityHashMap<Worm, Preview>();
+
+	private final AtomicLong computeNanos = new AtomicLong();
+	private final AtomicLong nbCompleted = new AtomicLong();
+	private final AtomicLong nbDiscarded = new AtomicLong();
+
+	private static class Preview {
+
+		boolean pending;
+		JumpState state;
+		double[][] steps;
+	}
+
+	/**
+	 * The state of a worm its jump depends on. The terrain never changes.
+	 */
+	private static class JumpState {
+
+		final double x, y, radius, orientation;
+		final int actionPoints;
+
+		JumpState(IFacade facade, Worm worm) {
+			this.x = facade.getX(worm);
+			this.y = facade.getY(worm);
+			this.radius = facade.getRadius(worm);
+			this.orientation = facade.getOrientation(worm);
+			this.actionPoints = facade.getActionPoints(worm);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof JumpState)) {
+				return false;
+			}
+			JumpState other = (JumpState) obj;
+			return x == other.x && y == other.y && radius == other.radius
+					&& orientation == other.orientation
+					&& actionPoints == other.actionPoints;
+		}
+
+		@Override
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(x) * 31
+					+ Double.doubleToLongBits(y) * 17
+					+ Double.doubleToLongBits(orientation);
+			return (int) (bits ^ (bits >>> 32)) + actionPoints;
+		}
+	}
+
+	/**
+	 * @param facade
+	 *            The facade to compute the jumps with.
+	 * @param executor
+	 *            The executor to compute the previews on.
+	 * @param listener
+	 *            The listener to tell about completed previews.
+	 */
+	public JumpPreviewService(IFacade facade, Executor executor,
+			Listener listener) {
+		this.facade = facade;
+		this.executor = executor;
+		this.listener = listener;
+	}
+
+	/**
+	 * The locations of the given worm at the jump markers of the last
+	 * completed preview, in worm-meters, or null if there is none or the worm
+	 * can't jump.
+	 *
+	 * Never waits for a preview to be computed.
+	 */
+	public double[][] getJumpSteps(Worm worm) {
+		JumpState state = new JumpState(facade, worm);
+		synchronized (this) {
+			Preview preview = previews.get(worm);
+			if (preview == null) {
+				preview = new Preview();
+				previews.put(worm, preview);
+			}
+			if (!preview.pending && !state.equals(preview.state)) {
+				preview.pending = true;
+				submit(worm, preview);
+			}
+			return preview.steps;
+		}
+	}
+
+	/**
+	 * Forget the preview of the given worm, it's no longer shown.
+	 */
+	public synchronized void forget(Worm worm) {
+		previews.remove(worm);
+	}
+
+	private void submit(final Worm worm, Preview preview) {
+		try {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					compute(worm);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// the screen was stopped
+			preview.pending = false;
+		}
+	}
+
+	private void compute(Worm worm) {
+		JumpState before = new JumpState(facade, worm);
+		long start = System.nanoTime();
+		double[][] steps;
+		try {
+			steps = computeJumpSteps(worm);
+		} catch (RuntimeException e) {
+			// not retried for the same state, or it would fail over and over
+			synchronized (this) {
+				Preview preview = previews.get(worm);
+				if (preview != null) {
+					preview.pending = false;
+					preview.state = before;
+					preview.steps = null;
+				}
+			}
+			nbDiscarded.incrementAndGet();
+			return;
+		} finally {
+			computeNanos.addAndGet(System.nanoTime() - start);
+		}
+		JumpState after = new JumpState(facade, worm);
+
+		boolean completed = before.equals(after);
+		synchronized (this) {
+			Preview preview = previews.get(worm);
+			if (preview == null) {
+				return;
+			}
+			preview.pending = false;
+			if (completed) {
+				preview.state = after;
+				preview.steps = steps;
+			} else {
+				// the worm changed while computing, try again for its new state
+				preview.pending = true;
+				submit(worm, preview);
+			}
+		}
+		if (completed) {
+			nbCompleted.incrementAndGet();
+			listener.previewCompleted(worm);
+		} else {
+			nbDiscarded.incrementAndGet();
+		}
+	}
+
+	private double[][] computeJumpSteps(Worm worm) {
+		try {
+			double time = facade.getJumpTime(worm, GUIConstants.JUMP_TIME_STEP);
+
+			int n = 1 + (int) (time / JUMP_MARKER_TIME_DISTANCE);
+			double[][] xys = new double[n][];
+			for (int i = 1; i <= n; i++) {
+				double dt = i * time / n;
+				xys[i - 1] = facade.getJumpStep(worm, dt);
+			}
+			return xys;
+		} catch (ModelException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The time spent computing previews so far, in nanoseconds. This time
+	 * used to be spent on the thread updating the sprites.
+	 */
+	public long getComputeNanos() {
+		return computeNanos.get();
+	}
+
+	/**
+	 * The number of previews completed so far.
+	 */
+	public long getNbCompleted() {
+		return nbCompleted.get();
+	}
+
+	/**
+	 * The number of previews discarded so far, because their worm changed
+	 * while they were being computed or computing them failed.
+	 */
+	public long getNbDiscarded() {
+		return nbDiscarded.get();
+	}
+}
@@ -1,12 +1,19 @@
 package worms.gui.game;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicLong;
 
 import worms.gui.GUIConstants;
@@ -16,33 +23,94 @@ import worms.gui.InputMode;
 import worms.gui.Level;
 import worms.gui.Screen;
 import worms.gui.WormsGUI;
+import worms.gui.game.FrameSnapshot.WormState;
 import worms.gui.game.modes.DefaultInputMode;
 import worms.gui.game.modes.EnteringNameMode;
 import worms.gui.game.modes.GameOverMode;
 import worms.gui.game.modes.SetupInputMode;
 import worms.gui.game.sprites.FoodSprite;
+import worms.gui.game.sprites.ProjectileSprite;
 import worms.gui.game.sprites.WormSprite;
 import worms.gui.messages.MessageType;
 import worms.model.Food;
 import worms.model.IFacade;
 import worms.model.World;
+import worms.model.WorldAdapter;
+import worms.model.WorldListener;
 import worms.model.Worm;
+import worms.model.world.entity.GameObject;
 
 public class PlayGameScreen extends Screen {
 
 	final PlayGameScreenPainter painter;
 	private final GameState gameState;
 
-	private final Set<Sprite<?>> sprites = new HashSet<Sprite<?>>();
+	private final SpriteRegistry sprites = new SpriteRegistry();
+
+	/**
+	 * The number of cells of the spatial grid along the longest side of the
+	 * world.
+	 */
+	private static final int GRID_CELLS = 32;
+
+	/**
+	 * The worms and food, by their location in the model, to find the ones
+	 * in view.
+	 */
+	private final SpatialGrid<Object> grid;
+
+	/**
+	 * The objects whose sprites weren't updated yet for the last changes of
+	 * the model or the camera, because they weren't in view.
+	 */
+	private final Set<Object> staleObjects = newIdentitySet();
+
+	/**
+	 * Pixels around the screen in which objects count as in view, their
+	 * names and bars stick out of them.
+	 */
+	private static final int VIEW_MARGIN = 100;
 	private final DefaultActionHandler userActionHandler;
 	private final IActionHandler programActionHandler;
 
+	private final ExecutorService jumpPreviewExecutor = Executors
+			.newSingleThreadExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "jump-preview");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private final JumpPreviewService jumpPreviews;
+
 	public PlayGameScreen(WormsGUI gui, GameState state) {
 		super(gui);
 		this.gameState = state;
+		this.grid = new SpatialGrid<Object>(Math.max(getLevel()
+				.getWorldWidth(), getLevel().getWorldHeight())
+				/ GRID_CELLS);
+		this.fastForward = gui.getOptions().fastForward;
 		this.painter = createPainter();
+		this.paintDirtyRegions = !gui.getOptions().fullRepaint
+				&& painter.supportsDirtyRegions();
 		this.userActionHandler = createUserActionHandler();
 		this.programActionHandler = createProgramActionHandler();
+		this.jumpPreviews = new JumpPreviewService(getFacade(),
+				jumpPreviewExecutor, new JumpPreviewService.Listener() {
+
+					@Override
+					public void previewCompleted(Worm worm) {
+						// shown with the next frame
+						WormSprite sprite = getWormSprite(worm);
+						if (sprite != null) {
+							sprite.updateJumpSteps();
+							painter.invalidate(worm);
+						}
+					}
+				});
 	}
 
 	protected DefaultActionHandler createUserActionHandler() {
@@ -50,7 +118,7 @@ public class PlayGameScreen extends Screen {
 	}
 
 	protected IActionHandler createProgramActionHandler() {
-		return new DefaultActionHandler(this, false);
+		return new ProgramActionHandler(this);
 	}
 
 	@Override
@@ -60,9 +128,69 @@ public class PlayGameScreen extends Screen {
 
 	@Override
 	public void screenStarted() {
+		getWorld().addListener(modelListener);
 		runGameLoop();
 	}
 
+	@Override
+	public void screenStopped() {
+		getWorld().removeListener(modelListener);
+		jumpPreviewExecutor.shutdownNow();
+		super.screenStopped();
+	}
+
+	/**
+	 * The objects the model reported as changed since the last update, only
+	 * their sprites are updated. Guarded by itself, the model may change on
+	 * another thread than the one updating the sprites.
+	 */
+	private final Set<Object> changedObjects = newIdentitySet();
+	private final Set<Object> addedObjects = newIdentitySet();
+	private final Set<Object> removedObjects = newIdentitySet();
+
+	/**
+	 * Whether every sprite has to be checked on the next update, because the
+	 * changes weren't followed yet.
+	 */
+	private boolean fullUpdate = true;
+
+	private static Set<Object> newIdentitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+	}
+
+	private final WorldListener modelListener = new WorldAdapter() {
+
+		@Override
+		public void objectAdded(GameObject object) {
+			synchronized (changedObjects) {
+				addedObjects.add(object);
+			}
+		}
+
+		@Override
+		public void objectRemoved(GameObject object) {
+			synchronized (changedObjects) {
+				addedObjects.remove(object);
+				changedObjects.remove(object);
+				removedObjects.add(object);
+			}
+		}
+
+		@Override
+		public void objectMoved(GameObject object) {
+			synchronized (changedObjects) {
+				changedObjects.add(object);
+			}
+		}
+
+		@Override
+		public void wormChanged(Worm worm) {
+			synchronized (changedObjects) {
+				changedObjects.add(worm);
+			}
+		}
+	};
+
 	final AtomicLong lastUpdateTimestamp = new AtomicLong();
 
 	final TimerTask gameLoop = new TimerTask() {
@@ -103,17 +231,205 @@ public class PlayGameScreen extends Screen {
 		switchInputMode(new GameOverMode(this, getCurrentInputMode()));
 	}
 
+	/**
+	 * Bring the sprites up to date with the changes of the model. Only the
+	 * sprites in view are updated, the others are updated when they come
+	 * into view.
+	 */
 	public synchronized void update() {
-		removeInactiveSprites();
-		addNewSprites();
-		for (Sprite<?> sprite : sprites) {
-			sprite.update();
+		Object[] added, changed, removed;
+		boolean full;
+		synchronized (changedObjects) {
+			added = addedObjects.toArray();
+			changed = changedObjects.toArray();
+			removed = removedObjects.toArray();
+			addedObjects.clear();
+			changedObjects.clear();
+			removedObjects.clear();
+			full = fullUpdate;
+			fullUpdate = false;
+		}
+
+		if (full) {
+			removeInactiveSprites();
+			addNewSprites();
+			grid.clear();
+			staleObjects.clear();
+			for (Sprite<?> sprite : sprites.getAll()) {
+				placeInGrid(sprite.getObject());
+				staleObjects.add(sprite.getObject());
+			}
+			painter.invalidateAll();
+		} else {
+			for (Object object : removed) {
+				for (Sprite<?> sprite : sprites.getSpritesFor(object)) {
+					removeSprite(sprite);
+				}
+				grid.remove(object);
+				staleObjects.remove(object);
+			}
+			for (Object object : added) {
+				if (object instanceof Worm && getWormSprite((Worm) object) == null) {
+					createWormSprite((Worm) object);
+				} else if (object instanceof Food
+						&& getSpriteOfTypeFor(FoodSprite.class, (Food) object) == null) {
+					createFoodSprite((Food) object);
+				}
+				placeInGrid(object);
+			}
+			for (Object object : changed) {
+				placeInGrid(object);
+				staleObjects.add(object);
+				painter.invalidate(object);
+			}
 		}
+
+		Worm previousWorm = currentWorm;
 		currentWorm = getFacade().getCurrentWorm(getWorld());
+		if (previousWorm != currentWorm) {
+			// the selection and jump markers move to the new worm
+			painter.invalidate(previousWorm);
+			painter.invalidate(currentWorm);
+			if (currentWorm != null && !getObjectsInView().contains(currentWorm)) {
+				setCamera(getCamera().centeredOn(getFacade().getX(currentWorm),
+						getFacade().getY(currentWorm)));
+			}
+		}
+
+		// the screen positions of all sprites change with the camera
+		Camera camera = getCamera();
+		if (!camera.equals(updatedCamera)) {
+			updatedCamera = camera;
+			for (Sprite<?> sprite : sprites.getAll()) {
+				sprite.forgetPreviousLocation();
+				staleObjects.add(sprite.getObject());
+			}
+			painter.invalidateAll();
+		}
+
+		for (Object object : getObjectsInView()) {
+			if (staleObjects.remove(object)) {
+				for (Sprite<?> sprite : sprites.getSpritesFor(object)) {
+					sprite.update();
+				}
+			}
+		}
+	}
+
+	private Camera updatedCamera;
+
+	/**
+	 * Put the given worm or food in the spatial grid at its location in the
+	 * model.
+	 */
+	private void placeInGrid(Object object) {
+		if (object instanceof Worm) {
+			Worm worm = (Worm) object;
+			grid.put(worm, getFacade().getX(worm), getFacade().getY(worm),
+					getFacade().getRadius(worm));
+		} else if (object instanceof Food) {
+			Food food = (Food) object;
+			grid.put(food, getFacade().getX(food), getFacade().getY(food),
+					getFacade().getRadius(food));
+		}
+	}
+
+	/**
+	 * The worms and food in view of the camera.
+	 */
+	Set<Object> getObjectsInView() {
+		Camera camera = getCamera();
+		Rectangle2D view = camera.getViewport();
+		double margin = camera.screenToWorldDistance(VIEW_MARGIN);
+		return grid.query(view.getMinX() - margin, view.getMinY() - margin,
+				view.getMaxX() + margin, view.getMaxY() + margin);
+	}
+
+	/**
+	 * The sprites of the objects in view of the camera, and the projectiles.
+	 */
+	Collection<Sprite<?>> getVisibleSprites() {
+		List<Sprite<?>> result = new ArrayList<Sprite<?>>();
+		for (Object object : getObjectsInView()) {
+			result.addAll(sprites.getSpritesFor(object));
+		}
+		result.addAll(getSpritesOfType(ProjectileSprite.class));
+		return result;
+	}
+
+	private final Object cameraLock = new Object();
+
+	private volatile Camera camera;
+
+	/**
+	 * The camera showing the world on this screen, fitted to the current size
+	 * of the screen.
+	 */
+	public Camera getCamera() {
+		Camera result = camera;
+		if (result == null || result.getScreenWidth() != getScreenWidth()
+				|| result.getScreenHeight() != getScreenHeight()) {
+			synchronized (cameraLock) {
+				result = camera;
+				if (result == null) {
+					result = new Camera(getLevel().getWorldWidth(), getLevel()
+							.getWorldHeight(), getScreenWidth(),
+							getScreenHeight());
+				} else {
+					result = result.withScreenSize(getScreenWidth(),
+							getScreenHeight());
+				}
+				camera = result;
+			}
+		}
+		return result;
+	}
+
+	private void setCamera(Camera camera) {
+		synchronized (cameraLock) {
+			this.camera = camera;
+		}
+	}
+
+	/**
+	 * Zoom the camera in by the given factor, or out if it's smaller than 1.
+	 */
+	public void zoom(double factor) {
+		synchronized (cameraLock) {
+			setCamera(getCamera().zoomedBy(factor));
+		}
+		update();
+		repaint();
+	}
+
+	/**
+	 * Move the camera by the given distance on the screen, in pixels.
+	 */
+	public void pan(int dx, int dy) {
+		synchronized (cameraLock) {
+			setCamera(getCamera().pannedBy(dx, dy));
+		}
+		update();
+		repaint();
+	}
+
+	/**
+	 * Center the camera on the selected worm.
+	 */
+	public void centerOnSelectedWorm() {
+		Worm worm = getSelectedWorm();
+		if (worm != null) {
+			synchronized (cameraLock) {
+				setCamera(getCamera().centeredOn(getFacade().getX(worm),
+						getFacade().getY(worm)));
+			}
+			update();
+			repaint();
+		}
 	}
 
 	protected void removeInactiveSprites() {
-		for (Sprite<?> sprite : new ArrayList<Sprite<?>>(sprites)) {
+		for (Sprite<?> sprite : sprites.getAll()) {
 			if (!sprite.isObjectAlive()) {
 				removeSprite(sprite);
 			}
@@ -172,13 +488,7 @@ public class PlayGameScreen extends Screen {
 	}
 
 	public <T extends Sprite<?>> Set<T> getSpritesOfType(Class<T> type) {
-		Set<T> result = new HashSet<T>();
-		for (Sprite<?> sprite : sprites) {
-			if (type.isInstance(sprite)) {
-				result.add(type.cast(sprite));
-			}
-		}
-		return result;
+		return sprites.getSpritesOfType(type);
 	}
 
 	public <ObjectType, SpriteType extends Sprite<ObjectType>> SpriteType getSpriteOfTypeFor(
@@ -186,12 +496,7 @@ public class PlayGameScreen extends Screen {
 		if (object == null) {
 			return null;
 		}
-		for (SpriteType sprite : getSpritesOfType(type)) {
-			if (object.equals(sprite.getObject())) {
-				return sprite;
-			}
-		}
-		return null;
+		return sprites.getSpriteOfTypeFor(type, object);
 	}
 
 	public WormSprite getWormSprite(Worm worm) {
@@ -256,6 +561,63 @@ public class PlayGameScreen extends Screen {
 		painter.paint(g);
 	}
 
+	private final boolean paintDirtyRegions;
+
+	/**
+	 * Whether only the parts of the screen where something changed are
+	 * repainted, instead of the whole screen every frame.
+	 */
+	public boolean isPaintingDirtyRegions() {
+		return paintDirtyRegions;
+	}
+
+	/**
+	 * Whether something is drawn on top of the game that isn't tracked by the
+	 * dirty regions: a message or the overlay of an input mode other than
+	 * the default one.
+	 */
+	boolean isShowingOverlay() {
+		return isShowingMessage()
+				|| !(getCurrentInputMode() instanceof DefaultInputMode);
+	}
+
+	private volatile FrameSnapshot frame = FrameSnapshot.EMPTY;
+
+	/**
+	 * The last frame published by this screen, which is what is painted.
+	 */
+	public FrameSnapshot getFrame() {
+		return frame;
+	}
+
+	/**
+	 * Capture the sprites as they are now and publish them as the frame to
+	 * paint. Called on the thread updating the sprites, whenever the screen
+	 * has to be repainted.
+	 */
+	protected FrameSnapshot publishFrame() {
+		FrameSnapshot result = FrameSnapshot.capture(this);
+		frame = result;
+		return result;
+	}
+
+	@Override
+	public void repaint() {
+		if (painter == null) {
+			super.repaint();
+			return;
+		}
+		FrameSnapshot published = publishFrame();
+		if (!isPaintingDirtyRegions()) {
+			super.repaint();
+			return;
+		}
+		Rectangle area = painter.collectDirtyRegion(published);
+		if (area != null) {
+			repaint(area);
+		}
+	}
+
 	public static PlayGameScreen create(WormsGUI gui, GameState gameState,
 			boolean debugMode) {
 		if (!debugMode) {
@@ -284,89 +646,58 @@ public class PlayGameScreen extends Screen {
 
 	public void removeSprite(Sprite<?> sprite) {
 		sprites.remove(sprite);
-	}
-
-	/**
-	 * Aspect ratio of the screen
-	 */
-	private double getScreenAspectRatio() {
-		return (double) getScreenWidth() / getScreenHeight();
-	}
-
-	/**
-	 * Width of the world when displayed (in pixels)
-	 */
-	private double getWorldDisplayWidth() {
-		if (getLevel().getMapAspectRatio() >= getScreenAspectRatio()) {
-			return getScreenWidth();
-		} else {
-			return getScreenHeight() * getLevel().getMapAspectRatio();
-		}
-	}
-
-	/**
-	 * Height of the world when displayed (in pixels)
-	 */
-	private double getWorldDisplayHeight() {
-		if (getLevel().getMapAspectRatio() <= getScreenAspectRatio()) {
-			return getScreenHeight();
-		} else {
-			return getScreenWidth() / getLevel().getMapAspectRatio();
+		if (sprite instanceof WormSprite) {
+			jumpPreviews.forget(((WormSprite) sprite).getWorm());
 		}
 	}
 
 	/**
-	 * Scale of the displayed world (in worm-meter per pixel)
+	 * The previews of the jumps of the worms, computed in the background.
 	 */
-	private double getDisplayScale() {
-		return getLevel().getWorldWidth() / getWorldDisplayWidth();
+	public JumpPreviewService getJumpPreviews() {
+		return jumpPreviews;
 	}
 
 	/**
 	 * Distance in the world (worm-meter) to distance on the screen (pixels)
 	 */
 	public double worldToScreenDistance(double ds) {
-		return ds / getDisplayScale();
+		return getCamera().worldToScreenDistance(ds);
 	}
 
 	/**
 	 * Distance on the screen (pixels) to distance in the world (worm-meter)
 	 */
 	public double screenToWorldDistance(double ds) {
-		return ds * getDisplayScale();
+		return getCamera().screenToWorldDistance(ds);
 	}
 
 	/**
 	 * World x coordinate to screen x coordinate
 	 */
 	public double getScreenX(double x) {
-		double offset = (getScreenWidth() - getWorldDisplayWidth()) / 2.0;
-		return offset + worldToScreenDistance(x);
+		return getCamera().getScreenX(x);
 	}
 
 	/**
 	 * Screen x coordinate to world x coordinate
 	 */
 	public double getLogicalX(double screenX) {
-		double offset = (getScreenWidth() - getWorldDisplayWidth()) / 2.0;
-		return screenToWorldDistance(screenX - offset);
+		return getCamera().getLogicalX(screenX);
 	}
 
 	/**
 	 * World y coordinate to screen y coordinate
 	 */
 	public double getScreenY(double y) {
-		double offset = (getScreenHeight() - getWorldDisplayHeight()) / 2.0;
-		return offset + getWorldDisplayHeight() - worldToScreenDistance(y);
+		return getCamera().getScreenY(y);
 	}
 
 	/**
 	 * Screen y coordinate to world y coordinate
 	 */
 	public double getLogicalY(double screenY) {
-		double offset = (getScreenHeight() - getWorldDisplayHeight()) / 2.0;
-		return screenToWorldDistance(-screenY + offset
-				+ getWorldDisplayHeight());
+		return getCamera().getLogicalY(screenY);
 	}
 
 	public void paintTextEntry(Graphics2D g, String message, String enteredName) {
@@ -375,7 +706,8 @@ public class PlayGameScreen extends Screen {
 
 	public void drawTurnAngleIndicator(Graphics2D g, WormSprite wormSprite,
 			double currentAngle) {
-		painter.drawTurnAngleIndicator(g, wormSprite, currentAngle);
+		painter.drawTurnAngleIndicator(g,
+				getFrame().getWorm(wormSprite.getWorm()), currentAngle);
 	}
 
 	public <T, S extends Sprite<T>> void removeSpriteFor(Class<S> type, T object) {
@@ -440,9 +772,9 @@ public class PlayGameScreen extends Screen {
 
 	public void paintShootingInfoForSelectedWorm(Graphics2D g,
 			double propulsionFraction) {
-		WormSprite sprite = getSelectedWormSprite();
-		if (sprite != null) {
-			painter.drawShootingInfo(g, sprite, propulsionFraction);
+		WormState worm = getFrame().getWorm(getFrame().getSelectedWorm());
+		if (worm != null) {
+			painter.drawShootingInfo(g, worm, propulsionFraction);
 		}
 	}
 
@@ -460,4 +792,24 @@ public class PlayGameScreen extends Screen {
 		return programActionHandler;
 	}
 
+	private volatile boolean fastForward;
+
+	/**
+	 * Whether the actions of computer-controlled worms are resolved instantly,
+	 * without animations.
+	 */
+	public boolean isFastForward() {
+		return fastForward;
+	}
+
+	public void setFastForward(boolean fastForward) {
+		this.fastForward = fastForward;
+	}
+
+	public void toggleFastForward() {
+		setFastForward(!isFastForward());
+		addMessage("Fast-forward " + (isFastForward() ? "on" : "off"),
+				MessageType.INFO);
+	}
+
 }
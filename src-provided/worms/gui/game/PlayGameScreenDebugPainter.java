@@ -6,12 +6,14 @@ import java.awt.Image;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D.Double;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 
+import worms.gui.GUIConstants;
 import worms.gui.GUIUtils;
 import worms.gui.Level;
-import worms.gui.game.sprites.FoodSprite;
-import worms.gui.game.sprites.WormSprite;
+import worms.gui.game.FrameSnapshot.FoodState;
+import worms.gui.game.FrameSnapshot.WormState;
 import worms.model.World;
 
 public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
@@ -23,23 +25,64 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 	private static final boolean PAINT_PASSABLE = true;
 
 	private Image passableImage;
+	private Camera passableCamera;
 
 	public PlayGameScreenDebugPainter(PlayGameScreen screen) {
 		super(screen);
 	}
 
+	@Override
+	protected boolean supportsDirtyRegions() {
+		// jump markers and direction lines are drawn for every worm
+		return false;
+	}
+
 	@Override
 	public void paint(Graphics2D g) {
 		super.paint(g);
+		drawJumpPreviewBudget(g);
+	}
+
+	private long budgetSampleStart = System.nanoTime();
+	private long budgetSampleNanos;
+	private int budgetSampleFrames;
+	private String budgetText = "";
+
+	/**
+	 * Draw how much of the time of a frame the jump previews would take if
+	 * they were still computed while updating the sprites, averaged over
+	 * the last second.
+	 */
+	protected void drawJumpPreviewBudget(Graphics2D g) {
+		JumpPreviewService previews = getScreen().getJumpPreviews();
+		budgetSampleFrames++;
+		long now = System.nanoTime();
+		if (now - budgetSampleStart >= 1000000000L) {
+			long nanos = previews.getComputeNanos();
+			double perFrame = (nanos - budgetSampleNanos) / 1e6
+					/ budgetSampleFrames;
+			budgetText = String.format(
+					"jump previews: %.2f ms per frame of %d ms off the frame thread"
+							+ " (%d completed, %d discarded)", perFrame,
+					1000 / GUIConstants.FRAMERATE, previews.getNbCompleted(),
+					previews.getNbDiscarded());
+			budgetSampleStart = now;
+			budgetSampleNanos = nanos;
+			budgetSampleFrames = 0;
+		}
+		g.setColor(Color.WHITE);
+		g.drawString(budgetText, 10, 20);
 	}
 
 	@Override
 	protected void paintLevel() {
 		super.paintLevel();
 
-		if (passableImage == null) {
+		Camera camera = getScreen().getCamera();
+		if (passableImage == null || !camera.equals(passableCamera)) {
 			BufferedImage image = createPassableImage();
 			this.passableImage = image;
+			this.passableCamera = camera;
 		}
 
 		currentGraphics.drawImage(passableImage, 0, 0, null);
@@ -74,9 +117,14 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 																	// pixels
 		double stepSize = getScreen().screenToWorldDistance(3); // 3 screen
 																// pixels
-		for (double x = testRadius; x <= level.getWorldWidth() - testRadius; x += stepSize) {
-			for (double y = testRadius; y <= level.getWorldHeight()
-					- testRadius; y += stepSize) {
+		// only the part of the level in view
+		Rectangle2D view = getScreen().getCamera().getViewport();
+		double minX = Math.max(testRadius, view.getMinX());
+		double maxX = Math.min(level.getWorldWidth() - testRadius, view.getMaxX());
+		double minY = Math.max(testRadius, view.getMinY());
+		double maxY = Math.min(level.getWorldHeight() - testRadius, view.getMaxY());
+		for (double x = minX; x <= maxX; x += stepSize) {
+			for (double y = minY; y <= maxY; y += stepSize) {
 				double randomizedX = x + (-0.5 + Math.random()) * stepSize * 2;
 				double randomizedY = y + (-0.5 + Math.random()) * stepSize * 2;
 				Graphics2D targetGraphics = imGfx;
@@ -107,7 +155,7 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 	}
 
 	@Override
-	protected void paintWorm(WormSprite sprite) {
+	protected void paintWorm(WormState sprite) {
 
 		drawName(sprite);
 
@@ -124,13 +172,12 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 	}
 
 	@Override
-	protected void drawJumpMarkers(WormSprite sprite) {
+	protected void drawJumpMarkers(WormState sprite) {
 
-		double[][] xys = sprite.getJumpSteps();
-		if (xys != null) {
-			double[] prevXY = xys[0];
-			for (int i = 1; i < xys.length; i++) {
-				double[] xy = xys[i];
+		if (sprite.getNbJumpSteps() > 0) {
+			double[] prevXY = sprite.getJumpStep(0);
+			for (int i = 1; i < sprite.getNbJumpSteps(); i++) {
+				double[] xy = sprite.getJumpStep(i);
 				if (xy != null && prevXY != null) {
 					double jumpX = getScreenX(xy[0]);
 					double jumpY = getScreenY(xy[1]);
@@ -150,7 +197,7 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 	 * Draw a marker at the current location of the worm (which is not
 	 * necessarily equal to the sprite's location)
 	 */
-	protected void drawLocationMarker(WormSprite worm) {
+	protected void drawLocationMarker(WormState worm) {
 		double x = worm.getActualX();
 		double y = worm.getActualY();
 
@@ -159,7 +206,7 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 	}
 
 	@Override
-	protected void paintFood(FoodSprite sprite) {
+	protected void paintFood(FoodState sprite) {
 		super.paintFood(sprite);
 		double r = sprite.getRadius();
 		double x = sprite.getCenterX();
@@ -173,7 +220,7 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 		currentGraphics.draw(circle);
 	}
 
-	protected void drawOutline(WormSprite sprite) {
+	protected void drawOutline(WormState sprite) {
 		double r = sprite.getRadius();
 		double x = sprite.getCenterX();
 		double y = sprite.getCenterY();
@@ -185,10 +232,10 @@ public class PlayGameScreenDebugPainter extends PlayGameScreenPainter {
 
 	}
 
-	protected void drawDirectionLine(WormSprite sprite) {
+	protected void drawDirectionLine(WormState sprite) {
 		double x = sprite.getCenterX();
 		double y = sprite.getCenterY();
-		double dist = sprite.getHeight(currentGraphics) / 2.0;
+		double dist = sprite.getHeight() / 2.0;
 		double direction = sprite.getOrientation();
 
 		currentGraphics.setColor(Color.YELLOW);
@@ -2,24 +2,32 @@ package worms.gui.game;
 
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.VolatileImage;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
+import javax.swing.JComponent;
+
 import worms.gui.AbstractPainter;
 import worms.gui.GUIUtils;
 import worms.gui.GameState;
 import worms.gui.Level;
-import worms.gui.game.sprites.FoodSprite;
-import worms.gui.game.sprites.ProjectileSprite;
-import worms.gui.game.sprites.WormSprite;
-import worms.model.ModelException;
+import worms.gui.game.FrameSnapshot.FoodState;
+import worms.gui.game.FrameSnapshot.ProjectileState;
+import worms.gui.game.FrameSnapshot.SpriteState;
+import worms.gui.game.FrameSnapshot.WormState;
 import worms.model.World;
 
 public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
@@ -62,19 +70,52 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 	protected static final int JUMP_MARKER_SIZE = 1;
 	protected static final double DIRECTION_INDICATOR_SIZE = 10;
 
+	/**
+	 * Pixels added around the bounds of a sprite when repainting it, for
+	 * anti-aliasing and outlines.
+	 */
+	private static final int PAINT_MARGIN = 2;
+
 	protected Graphics2D currentGraphics;
-	private Image scaledImage;
+	protected FrameSnapshot currentFrame;
+	/**
+	 * The maximum number of scaled tiles of the level to keep, enough for a
+	 * few screens.
+	 */
+	private static final int MAX_TERRAIN_TILES = 128;
+
+	private TerrainTiles terrainTiles;
+
+	/**
+	 * The level as seen by the camera in video memory, only used when
+	 * painting the dirty regions of the screen.
+	 */
+	private VolatileImage terrain;
+	private Camera terrainCamera;
+
+	private final DirtyRegion dirtyRegion = new DirtyRegion();
+	private boolean overlayShown;
 
 	public PlayGameScreenPainter(PlayGameScreen screen) {
 		super(screen);
 	}
 
-	private void createBackgroundImage() {
-		if (scaledImage == null) {
-			scaledImage = GUIUtils.scaleTo(getState().getLevel().getMapImage(),
-					getScreen().getScreenWidth(),
-					getScreen().getScreenHeight(), Image.SCALE_SMOOTH);
+	private TerrainTiles getTerrainTiles() {
+		if (terrainTiles == null) {
+			terrainTiles = new TerrainTiles(getLevel().getMapImage(),
+					getLevel().getWorldWidth(), getLevel().getWorldHeight(),
+					MAX_TERRAIN_TILES);
 		}
+		return terrainTiles;
+	}
+
+	/**
+	 * Whether this painter can paint only the dirty regions of the screen.
+	 * Painters drawing outside of the bounds of the sprites have to repaint
+	 * the whole screen.
+	 */
+	protected boolean supportsDirtyRegions() {
+		return true;
 	}
 
 	protected GameState getState() {
@@ -89,55 +130,237 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		return getState().getLevel();
 	}
 
+	/**
+	 * Paint the last frame published by the screen. Only that snapshot is
+	 * read, not the sprites or the model, so painting never waits for them
+	 * to be updated.
+	 */
 	public void paint(Graphics2D g) {
 		this.currentGraphics = g;
+		this.currentFrame = getScreen().getFrame();
 
 		paintLevel();
 
-		for (FoodSprite sprite : getScreen().getSpritesOfType(FoodSprite.class)) {
-			paintFood(sprite);
+		for (FoodState sprite : currentFrame.getFood()) {
+			if (isInClip(sprite)) {
+				paintFood(sprite);
+			}
 		}
 
-		for (WormSprite sprite : getScreen().getSpritesOfType(WormSprite.class)) {
-			if (sprite.getWorm() == getScreen().getSelectedWorm()) {
-				drawSelection(sprite);
+		for (WormState sprite : currentFrame.getWorms()) {
+			if (isInClip(sprite)) {
+				if (isSelected(sprite)) {
+					drawSelection(sprite);
+				}
+				paintWorm(sprite);
 			}
-			paintWorm(sprite);
 		}
 
-		for (ProjectileSprite sprite : getScreen().getSpritesOfType(
-				ProjectileSprite.class)) {
-			paintProjectile(sprite);
+		for (ProjectileState sprite : currentFrame.getProjectiles()) {
+			if (isInClip(sprite)) {
+				paintProjectile(sprite);
+			}
 		}
 
+		this.currentFrame = null;
 		this.currentGraphics = null;
 	}
 
-	protected void paintProjectile(ProjectileSprite sprite) {
+	/**
+	 * Whether the given worm had the turn in the frame being painted.
+	 */
+	protected boolean isSelected(WormState sprite) {
+		return sprite.getWorm() == currentFrame.getSelectedWorm();
+	}
+
+	/**
+	 * Whether the given sprite has to be painted because it overlaps the area
+	 * being painted. When painting dirty regions, the bounds it's painted at
+	 * are remembered.
+	 */
+	private boolean isInClip(SpriteState sprite) {
+		if (!getScreen().isPaintingDirtyRegions()) {
+			return true;
+		}
+		Rectangle clip = currentGraphics.getClipBounds();
+		Rectangle bounds = getPaintBounds(sprite, currentFrame);
+		if (clip != null && !clip.intersects(bounds)) {
+			return false;
+		}
+		dirtyRegion.painted(sprite.getObject(), bounds, clip);
+		return true;
+	}
+
+	/**
+	 * The area of the screen that has to be repainted to show the given
+	 * frame, null if nothing changed since the last time.
+	 */
+	Rectangle collectDirtyRegion(FrameSnapshot frame) {
+		boolean overlay = getScreen().isShowingOverlay();
+		if (overlay || overlayShown) {
+			dirtyRegion.invalidateAll();
+		}
+		overlayShown = overlay;
+
+		Map<Object, Rectangle> bounds = new IdentityHashMap<Object, Rectangle>();
+		for (SpriteState sprite : frame.getSprites()) {
+			bounds.put(sprite.getObject(), getPaintBounds(sprite, frame));
+		}
+		return dirtyRegion.collect(bounds, new Rectangle(0, 0, getScreen()
+				.getScreenWidth(), getScreen().getScreenHeight()));
+	}
+
+	/**
+	 * Repaint the sprites of the given object the next time, even if they
+	 * didn't move.
+	 */
+	void invalidate(Object object) {
+		dirtyRegion.invalidate(object);
+	}
+
+	/**
+	 * Repaint the whole screen the next time.
+	 */
+	void invalidateAll() {
+		dirtyRegion.invalidateAll();
+	}
+
+	/**
+	 * The area of the screen the given sprite is painted in, including its
+	 * name, bars and markers, in the given frame.
+	 */
+	protected Rectangle getPaintBounds(SpriteState sprite, FrameSnapshot frame) {
+		double size = Math.max(sprite.getWidth(), sprite.getHeight());
+		Rectangle2D.Double bounds = new Rectangle2D.Double(
+				sprite.getCenterX() - size / 2, sprite.getCenterY() - size / 2,
+				size, size);
+		if (sprite instanceof WormState) {
+			addWormDecorations((WormState) sprite,
+					sprite.getObject() == frame.getSelectedWorm(),
+					getCamera(frame), bounds);
+		}
+		Rectangle result = bounds.getBounds();
+		result.grow(PAINT_MARGIN, PAINT_MARGIN);
+		return result;
+	}
+
+	private void addWormDecorations(WormState sprite, boolean selected,
+			Camera camera, Rectangle2D bounds) {
+		double x = sprite.getCenterX();
+		double y = sprite.getCenterY();
+		double height = sprite.getHeight();
+		double reach = Math.max(sprite.getWidth(), height) / 2
+				+ DIRECTION_INDICATOR_SIZE;
+		bounds.add(new Rectangle2D.Double(x - reach, y - reach, 2 * reach,
+				2 * reach));
+
+		double barsBottom = y + height / 2 + 2 * ACTION_BAR_HEIGHT;
+		bounds.add(new Rectangle2D.Double(x - ACTION_BAR_WIDTH / 2, y,
+				ACTION_BAR_WIDTH, barsBottom - y));
+
+		String name = getLabel(sprite);
+		JComponent contents = getScreen().getContents();
+		FontMetrics metrics = contents.getFontMetrics(contents.getFont());
+		double nameWidth = metrics.stringWidth(name) + 2 * TEXT_BAR_H_MARGIN;
+		double nameTop = y - height / 2 - TEXT_BAR_V_OFFSET
+				- metrics.getHeight() - TEXT_BAR_V_MARGIN;
+		bounds.add(new Rectangle2D.Double(x - nameWidth / 2, nameTop,
+				nameWidth, y - nameTop));
+
+		if (selected) {
+			for (int i = 0; i < sprite.getNbJumpSteps(); i++) {
+				double[] xy = sprite.getJumpStep(i);
+				if (xy != null) {
+					bounds.add(new Rectangle2D.Double(camera.getScreenX(xy[0])
+							- JUMP_MARKER_SIZE, camera.getScreenY(xy[1])
+							- JUMP_MARKER_SIZE, 2 * JUMP_MARKER_SIZE,
+							2 * JUMP_MARKER_SIZE));
+				}
+			}
+		}
+	}
+
+	protected void paintProjectile(ProjectileState sprite) {
 		sprite.draw(currentGraphics);
 	}
 
-	protected void paintFood(FoodSprite sprite) {
+	protected void paintFood(FoodState sprite) {
 		sprite.draw(currentGraphics);
 	}
 
 	protected void paintLevel() {
-		createBackgroundImage();
+		Camera camera = getCamera(currentFrame);
+		if (getScreen().isPaintingDirtyRegions()) {
+			paintCachedLevel(camera);
+		} else {
+			getTerrainTiles().paint(currentGraphics, camera);
+		}
+	}
+
+	/**
+	 * Paint the level from the image in video memory, (re)painting it when it
+	 * was lost or the camera changed.
+	 */
+	private void paintCachedLevel(Camera camera) {
+		GraphicsConfiguration configuration = getScreen().getContents()
+				.getGraphicsConfiguration();
+		int width = camera.getScreenWidth();
+		int height = camera.getScreenHeight();
+		if (configuration == null || width <= 0 || height <= 0) {
+			// not shown yet
+			getTerrainTiles().paint(currentGraphics, camera);
+			return;
+		}
 
-		int x = (int) getScreenX(0);
-		int y = (int) getScreenY(getLevel().getWorldHeight());
-		currentGraphics.drawImage(scaledImage, x, y, null);
+		do {
+			int status = terrain == null ? VolatileImage.IMAGE_INCOMPATIBLE
+					: terrain.validate(configuration);
+			if (status == VolatileImage.IMAGE_INCOMPATIBLE
+					|| terrain.getWidth() != width
+					|| terrain.getHeight() != height) {
+				if (terrain != null) {
+					terrain.flush();
+				}
+				terrain = configuration.createCompatibleVolatileImage(width,
+						height);
+				status = VolatileImage.IMAGE_RESTORED;
+			}
+			if (status == VolatileImage.IMAGE_RESTORED
+					|| !camera.equals(terrainCamera)) {
+				Graphics2D g = terrain.createGraphics();
+				try {
+					g.setColor(getScreen().getContents().getBackground());
+					g.fillRect(0, 0, width, height);
+					getTerrainTiles().paint(g, camera);
+				} finally {
+					g.dispose();
+				}
+				terrainCamera = camera;
+			}
+			currentGraphics.drawImage(terrain, 0, 0, null);
+		} while (terrain.contentsLost());
+	}
+
+	/**
+	 * The camera of the given frame, or the current one of the screen when
+	 * there is no frame or it has no camera.
+	 */
+	private Camera getCamera(FrameSnapshot frame) {
+		if (frame == null || frame.getCamera() == null) {
+			return getScreen().getCamera();
+		}
+		return frame.getCamera();
 	}
 
 	protected double getScreenX(double x) {
-		return getScreen().getScreenX(x);
+		return getCamera(currentFrame).getScreenX(x);
 	}
 
 	protected double getScreenY(double y) {
-		return getScreen().getScreenY(y);
+		return getCamera(currentFrame).getScreenY(y);
 	}
 
-	protected void paintWorm(WormSprite sprite) {
+	protected void paintWorm(WormState sprite) {
 
 		sprite.draw(currentGraphics);
 
@@ -146,30 +369,29 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		drawActionBar(sprite);
 		drawHitpointsBar(sprite);
 
-		if (getScreen().getSelectedWorm() == sprite.getWorm()) {
+		if (isSelected(sprite)) {
 			drawDirectionIndicator(sprite);
 			drawJumpMarkers(sprite);
 		}
 	}
 
-	protected void drawName(WormSprite sprite) {
-		final double voffset = sprite.getHeight(currentGraphics) / 2;
+	private String getLabel(WormState sprite) {
 		String name = sprite.getName();
 
 		if (name == null) {
 			name = "(null)";
 		}
 
-		String teamName = null;
-		try {
-			teamName = sprite.getTeamName();
-		} catch (ModelException e) {
-			// no team
-		}
-
+		String teamName = sprite.getTeamName();
 		if (teamName != null) {
 			name += " (" + teamName + ")";
 		}
+		return name;
+	}
+
+	protected void drawName(WormState sprite) {
+		final double voffset = sprite.getHeight() / 2;
+		String name = getLabel(sprite);
 
 		Rectangle2D bounds = currentGraphics.getFontMetrics().getStringBounds(
 				name, currentGraphics);
@@ -191,10 +413,10 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.drawString(name, (float) x, (float) (y));
 	}
 
-	protected void drawActionBar(WormSprite sprite) {
+	protected void drawActionBar(WormState sprite) {
 		double x = sprite.getCenterX();
 		double y = sprite.getCenterY();
-		double spriteHeight = sprite.getHeight(currentGraphics);
+		double spriteHeight = sprite.getHeight();
 
 		double actionPoints = sprite.getActionPoints();
 		double maxActionPoints = sprite.getMaxActionPoints();
@@ -212,10 +434,10 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.draw(actionBar);
 	}
 
-	protected void drawHitpointsBar(WormSprite sprite) {
+	protected void drawHitpointsBar(WormState sprite) {
 		double x = sprite.getCenterX();
 		double y = sprite.getCenterY();
-		double spriteHeight = sprite.getHeight(currentGraphics);
+		double spriteHeight = sprite.getHeight();
 
 		double hitPoints = sprite.getHitPoints();
 		double maxHitPoints = sprite.getMaxHitPoints();
@@ -234,11 +456,11 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.draw(hitpointsBar);
 	}
 
-	protected void drawSelection(WormSprite sprite) {
+	protected void drawSelection(WormState sprite) {
 		double x = sprite.getCenterX();
 		double y = sprite.getCenterY();
-		double spriteHeight = Math.max(sprite.getWidth(currentGraphics),
-				sprite.getHeight(currentGraphics));
+		double spriteHeight = Math.max(sprite.getWidth(),
+				sprite.getHeight());
 
 		if (sprite.isAtImpassableTerrain()) {
 			currentGraphics.setColor(SELECTION_IMPASSABLE_FILL_COLOR);
@@ -250,11 +472,11 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.fill(circle);
 	}
 
-	protected void drawDirectionIndicator(WormSprite sprite) {
+	protected void drawDirectionIndicator(WormState sprite) {
 		double x = sprite.getCenterX();
 		double y = sprite.getCenterY();
-		double distance = Math.max(sprite.getWidth(currentGraphics),
-				sprite.getHeight(currentGraphics)) / 2;
+		double distance = Math.max(sprite.getWidth(),
+				sprite.getHeight()) / 2;
 		distance += DIRECTION_INDICATOR_SIZE / 2;
 		double direction = GUIUtils.restrictDirection(sprite.getOrientation());
 
@@ -267,15 +489,15 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		currentGraphics.fill(directionIndicator);
 	}
 
-	void drawTurnAngleIndicator(Graphics2D graphics, WormSprite sprite,
+	void drawTurnAngleIndicator(Graphics2D graphics, WormState sprite,
 			double angle) {
 		if (sprite == null) {
 			return;
 		}
 		double x = sprite.getCenterX();
 		double y = sprite.getCenterY();
-		double distance = Math.max(sprite.getWidth(graphics),
-				sprite.getHeight(graphics)) / 2;
+		double distance = Math.max(sprite.getWidth(),
+				sprite.getHeight()) / 2;
 		distance += DIRECTION_INDICATOR_SIZE / 2;
 		double direction = GUIUtils.restrictDirection(sprite.getOrientation()
 				+ angle);
@@ -297,16 +519,14 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 		graphics.fill(directionIndicator);
 	}
 
-	protected void drawJumpMarkers(WormSprite sprite) {
-		double[][] xys = sprite.getJumpSteps();
-		if (xys != null) {
-			for (double[] xy : xys) {
-				if (xy != null) {
-					double jumpX = getScreenX(xy[0]);
-					double jumpY = getScreenY(xy[1]);
-					drawCrossMarker(jumpX, jumpY, JUMP_MARKER_SIZE,
-							JUMP_MARKER_COLOR);
-				}
+	protected void drawJumpMarkers(WormState sprite) {
+		for (int i = 0; i < sprite.getNbJumpSteps(); i++) {
+			double[] xy = sprite.getJumpStep(i);
+			if (xy != null) {
+				double jumpX = getScreenX(xy[0]);
+				double jumpY = getScreenY(xy[1]);
+				drawCrossMarker(jumpX, jumpY, JUMP_MARKER_SIZE,
+						JUMP_MARKER_COLOR);
 			}
 		}
 	}
@@ -328,7 +548,7 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 				getScreen().getScreenWidth(), 100);
 	}
 
-	public void drawShootingInfo(Graphics2D currentGraphics, WormSprite sprite,
+	public void drawShootingInfo(Graphics2D currentGraphics, WormState sprite,
 			double propulsionFraction) {
 		String weaponName = sprite.getSelectedWeapon();
 
@@ -339,8 +559,8 @@ public class PlayGameScreenPainter extends AbstractPainter<PlayGameScreen> {
 
 		double x = sprite.getCenterX();
 		double y = sprite.getCenterY();
-		double hoffset = sprite.getWidth(currentGraphics);
-		double voffset = sprite.getHeight(currentGraphics);
+		double hoffset = sprite.getWidth();
+		double voffset = sprite.getHeight();
 
 		double PROPULSION_BAR_HEIGHT = ACTION_BAR_WIDTH;
 		double PROPULSION_BAR_WIDTH = ACTION_BAR_HEIGHT;
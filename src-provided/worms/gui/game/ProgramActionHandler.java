@@ -0,0 +1,72 @@
+package worms.gui.game;
+
+import worms.gui.messages.MessageType;
+import worms.model.DirectActionHandler;
+import worms.model.Worm;
+
+/**
+ * The action handler of computer-controlled worms.
+ *
+ * Normally the actions are animated, like those of a human player. In
+ * fast-forward mode (see PlayGameScreen.setFastForward(boolean)) they are
+ * resolved instantly on the model, and the screen is only updated when the
+ * turn passes to another worm.
+ */
+class ProgramActionHandler implements IActionHandler {
+
+	private final PlayGameScreen screen;
+	private final IActionHandler animated;
+	private final IActionHandler direct;
+
+	private Worm lastWorm;
+
+	public ProgramActionHandler(PlayGameScreen screen) {
+		this.screen = screen;
+		this.animated = new DefaultActionHandler(screen, false);
+		this.direct = new DirectActionHandler(screen.getFacade());
+	}
+
+	private IActionHandler getHandler(Worm worm) {
+		if (!screen.isFastForward()) {
+			lastWorm = null;
+			return animated;
+		}
+		if (worm != lastWorm) {
+			lastWorm = worm;
+			screen.update();
+			screen.repaint();
+		}
+		return direct;
+	}
+
+	@Override
+	public boolean turn(Worm worm, double angle) {
+		return getHandler(worm).turn(worm, angle);
+	}
+
+	@Override
+	public boolean move(Worm worm) {
+		return getHandler(worm).move(worm);
+	}
+
+	@Override
+	public boolean jump(Worm worm) {
+		return getHandler(worm).jump(worm);
+	}
+
+	@Override
+	public boolean fire(Worm worm, int propulsion) {
+		return getHandler(worm).fire(worm, propulsion);
+	}
+
+	@Override
+	public boolean toggleWeapon(Worm worm) {
+		return getHandler(worm).toggleWeapon(worm);
+	}
+
+	@Override
+	public void print(String message) {
+		screen.addMessage(message, MessageType.INFO);
+	}
+
+}
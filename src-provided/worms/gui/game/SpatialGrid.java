@@ -0,0 +1,184 @@
+package worms.gui.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Objects in the world, bucketed in square cells by their location, so the
+ * objects in an area are found without going over all of them.
+ *
+ * Objects are circles in world coordinates and are compared by identity. A
+ * query only visits the cells overlapping the area (or only the cells that
+ * aren't empty, if there are fewer of those), so its cost depends on the
+ * size of the area and the objects in it, not on the size of the world.
+ *
+ * All methods are synchronized, the grid is queried on another thread than
+ * the one updating it.
+ */
+class SpatialGrid<T> {
+
+	private final double cellSize;
+
+	private final Map<Long, List<T>> cells = new HashMap<Long, List<T>>();
+
+	private final Map<T, Placement> placements = new IdentityHashMap<T, Placement>();
+
+	private static class Placement {
+
+		final double x, y, radius;
+		final int minColumn, minRow, maxColumn, maxRow;
+
+		Placement(double x, double y, double radius, double cellSize) {
+			this.x = x;
+			this.y = y;
+			this.radius = radius;
+			this.minColumn = cell(x - radius, cellSize);
+			this.minRow = cell(y - radius, cellSize);
+			this.maxColumn = cell(x + radius, cellSize);
+			this.maxRow = cell(y + radius, cellSize);
+		}
+
+		boolean sameCells(Placement other) {
+			return other.minColumn == minColumn && other.minRow == minRow
+					&& other.maxColumn == maxColumn && other.maxRow == maxRow;
+		}
+
+		boolean overlaps(double minX, double minY, double maxX, double maxY) {
+			return x + radius >= minX && x - radius <= maxX
+					&& y + radius >= minY && y - radius <= maxY;
+		}
+	}
+
+	/**
+	 * @param cellSize
+	 *            The size of the cells, in worm-meters.
+	 */
+	public SpatialGrid(double cellSize) {
+		if (!(cellSize > 0)) {
+			throw new IllegalArgumentException(
+					"The size of the cells must be positive.");
+		}
+		this.cellSize = cellSize;
+	}
+
+	private static int cell(double coordinate, double cellSize) {
+		return (int) Math.floor(coordinate / cellSize);
+	}
+
+	private static Long key(int column, int row) {
+		return ((long) column << 32) | (row & 0xffffffffL);
+	}
+
+	/**
+	 * Put the given object at the given location, or move it there if it's
+	 * already in this grid.
+	 */
+	public synchronized void put(T object, double x, double y, double radius) {
+		Placement placement = new Placement(x, y, radius, cellSize);
+		Placement old = placements.put(object, placement);
+		if (old != null) {
+			if (old.sameCells(placement)) {
+				return;
+			}
+			removeFromCells(object, old);
+		}
+		for (int column = placement.minColumn; column <= placement.maxColumn; column++) {
+			for (int row = placement.minRow; row <= placement.maxRow; row++) {
+				Long key = key(column, row);
+				List<T> cell = cells.get(key);
+				if (cell == null) {
+					cell = new ArrayList<T>(2);
+					cells.put(key, cell);
+				}
+				cell.add(object);
+			}
+		}
+	}
+
+	public synchronized void remove(T object) {
+		Placement old = placements.remove(object);
+		if (old != null) {
+			removeFromCells(object, old);
+		}
+	}
+
+	private void removeFromCells(T object, Placement placement) {
+		for (int column = placement.minColumn; column <= placement.maxColumn; column++) {
+			for (int row = placement.minRow; row <= placement.maxRow; row++) {
+				Long key = key(column, row);
+				List<T> cell = cells.get(key);
+				for (int i = 0; i < cell.size(); i++) {
+					if (cell.get(i) == object) {
+						cell.remove(i);
+						break;
+					}
+				}
+				if (cell.isEmpty()) {
+					cells.remove(key);
+				}
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		cells.clear();
+		placements.clear();
+	}
+
+	public synchronized int size() {
+		return placements.size();
+	}
+
+	public synchronized boolean contains(T object) {
+		return placements.containsKey(object);
+	}
+
+	/**
+	 * The objects overlapping the given area, in worm-meters.
+	 */
+	public synchronized Set<T> query(double minX, double minY, double maxX,
+			double maxY) {
+		Set<T> result = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+		int minColumn = cell(minX, cellSize);
+		int minRow = cell(minY, cellSize);
+		int maxColumn = cell(maxX, cellSize);
+		int maxRow = cell(maxY, cellSize);
+		long area = ((long) maxColumn - minColumn + 1)
+				* ((long) maxRow - minRow + 1);
+		if (area > cells.size()) {
+			for (Map.Entry<Long, List<T>> entry : cells.entrySet()) {
+				int column = (int) (entry.getKey() >> 32);
+				int row = (int) (long) entry.getKey();
+				if (column >= minColumn && column <= maxColumn
+						&& row >= minRow && row <= maxRow) {
+					addOverlapping(entry.getValue(), minX, minY, maxX, maxY,
+							result);
+				}
+			}
+		} else {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				for (int row = minRow; row <= maxRow; row++) {
+					List<T> cell = cells.get(key(column, row));
+					if (cell != null) {
+						addOverlapping(cell, minX, minY, maxX, maxY, result);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private void addOverlapping(List<T> cell, double minX, double minY,
+			double maxX, double maxY, Set<T> result) {
+		for (T object : cell) {
+			if (placements.get(object).overlaps(minX, minY, maxX, maxY)) {
+				result.add(object);
+			}
+		}
+	}
+}
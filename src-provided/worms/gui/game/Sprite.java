@@ -8,6 +8,9 @@ public abstract class Sprite<T> {
 
 	private double x;
 	private double y;
+	private double previousX;
+	private double previousY;
+	private long movedAtTick = -1;
 	private final PlayGameScreen screen;
 
 	protected Sprite(PlayGameScreen screen) {
@@ -44,17 +47,48 @@ public abstract class Sprite<T> {
 		return new double[] { getCenterX(), getCenterY() };
 	}
 
+	/**
+	 * Move this sprite. Until the next tick, it is drawn between its location
+	 * at the previous tick and the new location, depending on how far the game
+	 * time is between the ticks.
+	 */
 	public synchronized void setCenterLocation(double x, double y) {
+		long tick = getScreen().getGameState().getTickCount();
+		if (movedAtTick < 0) {
+			this.previousX = x;
+			this.previousY = y;
+		} else if (movedAtTick != tick) {
+			this.previousX = this.x;
+			this.previousY = this.y;
+		}
+		this.movedAtTick = tick;
 		this.x = x;
 		this.y = y;
 	}
 
+	/**
+	 * Forget where this sprite was at the previous tick, so it isn't drawn
+	 * moving from there, e.g. because the camera moved.
+	 */
+	public synchronized void forgetPreviousLocation() {
+		this.movedAtTick = -1;
+	}
+
 	public synchronized double getCenterX() {
-		return x;
+		return interpolate(previousX, x);
 	}
 
 	public synchronized double getCenterY() {
-		return y;
+		return interpolate(previousY, y);
+	}
+
+	private double interpolate(double previous, double current) {
+		if (previous == current
+				|| movedAtTick != getScreen().getGameState().getTickCount()) {
+			return current;
+		}
+		double alpha = getScreen().getGameState().getInterpolation();
+		return previous + (current - previous) * alpha;
 	}
 
 	/**
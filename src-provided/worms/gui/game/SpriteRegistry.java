@@ -0,0 +1,124 @@
+package worms.gui.game;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The sprites of a screen, indexed by the model object they show and by their
+ * class, so looking up the sprite of an object doesn't go over all sprites.
+ *
+ * Model objects are compared by identity. The object of a sprite must not
+ * change while it is registered.
+ *
+ * All methods are synchronized, the sprites are painted on another thread
+ * than the one updating them.
+ */
+class SpriteRegistry {
+
+	private final Map<Object, List<Sprite<?>>> byObject = new IdentityHashMap<Object, List<Sprite<?>>>();
+
+	private final Map<Class<?>, Set<Sprite<?>>> byClass = new HashMap<Class<?>, Set<Sprite<?>>>();
+
+	private int size;
+
+	public synchronized void add(Sprite<?> sprite) {
+		Set<Sprite<?>> ofClass = byClass.get(sprite.getClass());
+		if (ofClass == null) {
+			ofClass = new LinkedHashSet<Sprite<?>>();
+			byClass.put(sprite.getClass(), ofClass);
+		}
+		if (!ofClass.add(sprite)) {
+			return;
+		}
+		size++;
+
+		List<Sprite<?>> ofObject = byObject.get(sprite.getObject());
+		if (ofObject == null) {
+			ofObject = new ArrayList<Sprite<?>>(1);
+			byObject.put(sprite.getObject(), ofObject);
+		}
+		ofObject.add(sprite);
+	}
+
+	public synchronized void remove(Sprite<?> sprite) {
+		if (sprite == null) {
+			return;
+		}
+		Set<Sprite<?>> ofClass = byClass.get(sprite.getClass());
+		if (ofClass == null || !ofClass.remove(sprite)) {
+			return;
+		}
+		size--;
+
+		List<Sprite<?>> ofObject = byObject.get(sprite.getObject());
+		ofObject.remove(sprite);
+		if (ofObject.isEmpty()) {
+			byObject.remove(sprite.getObject());
+		}
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * A copy of all sprites.
+	 */
+	public synchronized Collection<Sprite<?>> getAll() {
+		List<Sprite<?>> result = new ArrayList<Sprite<?>>(size);
+		for (Set<Sprite<?>> ofClass : byClass.values()) {
+			result.addAll(ofClass);
+		}
+		return result;
+	}
+
+	/**
+	 * A copy of the sprites that are an instance of the given type.
+	 */
+	public synchronized <T extends Sprite<?>> Set<T> getSpritesOfType(Class<T> type) {
+		Set<T> result = new HashSet<T>();
+		for (Map.Entry<Class<?>, Set<Sprite<?>>> entry : byClass.entrySet()) {
+			if (type.isAssignableFrom(entry.getKey())) {
+				for (Sprite<?> sprite : entry.getValue()) {
+					result.add(type.cast(sprite));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A copy of the sprites showing the given object.
+	 */
+	public synchronized List<Sprite<?>> getSpritesFor(Object object) {
+		List<Sprite<?>> ofObject = byObject.get(object);
+		if (ofObject == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<Sprite<?>>(ofObject);
+	}
+
+	/**
+	 * A sprite of the given type showing the given object, null if there is
+	 * none.
+	 */
+	public synchronized <S extends Sprite<?>> S getSpriteOfTypeFor(Class<S> type, Object object) {
+		List<Sprite<?>> ofObject = byObject.get(object);
+		if (ofObject != null) {
+			for (Sprite<?> sprite : ofObject) {
+				if (type.isInstance(sprite)) {
+					return type.cast(sprite);
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,191 @@
+package worms.gui.game;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The level image, cut in square tiles that are scaled to the zoom of the
+ * camera when they are first shown. Painting the level only draws the tiles
+ * on the screen, so it costs the same at any zoom, whatever the size of the
+ * level.
+ *
+ * The tiles that were shown last are kept, up to a maximum number. Tiles are
+ * scaled from a copy of the level image that was halved until it's less than
+ * twice the size it's shown at, so strongly scaled-down tiles don't alias.
+ *
+ * Not thread-safe, the tiles are only used while painting.
+ */
+class TerrainTiles {
+
+	public static final int TILE_SIZE = 256;
+
+	private final BufferedImage image;
+
+	private final double worldWidth, worldHeight;
+
+	/**
+	 * The level image, halved 0, 1, 2, ... times.
+	 */
+	private final List<BufferedImage> halved = new ArrayList<BufferedImage>();
+
+	private final Map<TileKey, BufferedImage> tiles;
+
+	private static class TileKey {
+
+		final double scale;
+		final int column, row;
+
+		TileKey(double scale, int column, int row) {
+			this.scale = scale;
+			this.column = column;
+			this.row = row;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TileKey)) {
+				return false;
+			}
+			TileKey other = (TileKey) obj;
+			return scale == other.scale && column == other.column
+					&& row == other.row;
+		}
+
+		@Override
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(scale);
+			return (int) (bits ^ (bits >>> 32)) * 31 * 31 + column * 31 + row;
+		}
+	}
+
+	/**
+	 * @param image
+	 *            The level image.
+	 * @param worldWidth
+	 *            The width of the world shown by the image, in worm-meters.
+	 * @param worldHeight
+	 *            The height of the world shown by the image, in worm-meters.
+	 * @param maxTiles
+	 *            The maximum number of scaled tiles to keep.
+	 */
+	@SuppressWarnings("serial")
+	public TerrainTiles(BufferedImage image, double worldWidth,
+			double worldHeight, final int maxTiles) {
+		this.image = image;
+		this.worldWidth = worldWidth;
+		this.worldHeight = worldHeight;
+		this.halved.add(image);
+		this.tiles = new LinkedHashMap<TileKey, BufferedImage>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<TileKey, BufferedImage> eldest) {
+				return size() > maxTiles;
+			}
+		};
+	}
+
+	/**
+	 * The number of scaled tiles kept at the moment.
+	 */
+	public int getNbTiles() {
+		return tiles.size();
+	}
+
+	/**
+	 * Paint the tiles of the level seen by the given camera that overlap the
+	 * clip of the given graphics.
+	 */
+	public void paint(Graphics2D g, Camera camera) {
+		// screen pixels per pixel of the level image
+		double scale = camera.worldToScreenDistance(worldWidth)
+				/ image.getWidth();
+		int left = (int) Math.round(camera.getScreenX(0));
+		int top = (int) Math.round(camera.getScreenY(worldHeight));
+		int width = (int) Math.ceil(image.getWidth() * scale);
+		int height = (int) Math.ceil(image.getHeight() * scale);
+
+		Rectangle area = new Rectangle(left, top, width, height);
+		Rectangle clip = g.getClipBounds();
+		area = area.intersection(clip != null ? clip : new Rectangle(0, 0,
+				camera.getScreenWidth(), camera.getScreenHeight()));
+		if (area.isEmpty()) {
+			return;
+		}
+
+		int minColumn = (area.x - left) / TILE_SIZE;
+		int minRow = (area.y - top) / TILE_SIZE;
+		int maxColumn = (area.x + area.width - 1 - left) / TILE_SIZE;
+		int maxRow = (area.y + area.height - 1 - top) / TILE_SIZE;
+		for (int column = minColumn; column <= maxColumn; column++) {
+			for (int row = minRow; row <= maxRow; row++) {
+				BufferedImage tile = getTile(scale, column, row, width, height);
+				g.drawImage(tile, left + column * TILE_SIZE, top + row
+						* TILE_SIZE, null);
+			}
+		}
+	}
+
+	private BufferedImage getTile(double scale, int column, int row,
+			int width, int height) {
+		TileKey key = new TileKey(scale, column, row);
+		BufferedImage tile = tiles.get(key);
+		if (tile == null) {
+			tile = createTile(scale, column, row, width, height);
+			tiles.put(key, tile);
+		}
+		return tile;
+	}
+
+	private BufferedImage createTile(double scale, int column, int row,
+			int width, int height) {
+		int tileWidth = Math.min(TILE_SIZE, width - column * TILE_SIZE);
+		int tileHeight = Math.min(TILE_SIZE, height - row * TILE_SIZE);
+		BufferedImage tile = new BufferedImage(tileWidth, tileHeight,
+				BufferedImage.TYPE_INT_ARGB);
+
+		int times = 0;
+		while (scale * (1 << (times + 1)) <= 1 && times < 30) {
+			times++;
+		}
+		BufferedImage source = getHalved(times);
+		double sourceScale = (double) width / source.getWidth();
+
+		Graphics2D g = tile.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+					RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.translate(-column * TILE_SIZE, -row * TILE_SIZE);
+			g.scale(sourceScale, (double) height / source.getHeight());
+			g.drawImage(source, 0, 0, null);
+		} finally {
+			g.dispose();
+		}
+		return tile;
+	}
+
+	private BufferedImage getHalved(int times) {
+		while (halved.size() <= times) {
+			BufferedImage last = halved.get(halved.size() - 1);
+			int width = Math.max(1, last.getWidth() / 2);
+			int height = Math.max(1, last.getHeight() / 2);
+			BufferedImage next = new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+						RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(last, 0, 0, width, height, null);
+			} finally {
+				g.dispose();
+			}
+			halved.add(next);
+		}
+		return halved.get(times);
+	}
+}
@@ -1,16 +1,20 @@
 package worms.gui.game.commands;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.List;
 
 import worms.gui.GUIUtils;
 import worms.gui.WormsGUI;
 import worms.gui.game.PlayGameScreen;
+import worms.model.Facade;
 import worms.model.IFacade;
 import worms.model.Program;
+import worms.model.program.ProgramImage;
 import worms.model.programs.ParseOutcome;
 import worms.model.programs.ParseOutcome.Failure;
 import worms.model.programs.ParseOutcome.Success;
@@ -32,10 +36,15 @@ public class AddNewWorm extends InstantaneousCommand {
 	@Override
 	protected void doStartExecution() {
 		if (withProgram) {
-			String programText = readProgramText();
-			if (programText != null) {
-				ParseOutcome<?> parsed = getFacade().parseProgram(programText,
+			ParseOutcome<?> parsed = null;
+			byte[] data = readProgramData(getGUI().getOptions().programFile);
+			if (data != null && ProgramImage.isImage(data)) {
+				parsed = loadImage(data);
+			} else if (data != null) {
+				parsed = getFacade().parseProgram(toText(data),
 						getScreen().getProgramActionHandler());
+			}
+			if (data != null) {
 				if (parsed != null) {
 					if (parsed.isSuccess()) {
 						Program program = ((Success) parsed).getResult();
@@ -70,26 +79,79 @@ public class AddNewWorm extends InstantaneousCommand {
 		return getScreen().getGUI();
 	}
 
-	protected String readProgramText() {
+	/**
+	 * Load a precompiled program. When the program text it was compiled from
+	 * lies next to it (same name, extension .txt) and has changed since, that
+	 * text is parsed instead.
+	 */
+	private ParseOutcome<?> loadImage(byte[] data) {
+		if (!(getFacade() instanceof Facade)) {
+			cancelExecution();
+			getGUI().showError("Precompiled programs can't be loaded by this facade");
+			return null;
+		}
+
+		ProgramImage image;
+		try {
+			image = ProgramImage.read(new ByteArrayInputStream(data));
+		} catch (IOException e) {
+			cancelExecution();
+			getGUI().showError("Error while loading program: " + e.getMessage());
+			return null;
+		}
+
+		String sourceFile = getSourceFile(getGUI().getOptions().programFile);
+		if (sourceFile != null && resourceExists(sourceFile)) {
+			byte[] source = readProgramData(sourceFile);
+			if (source != null && !image.isCompiledFrom(toText(source))) {
+				System.err.println("The precompiled program is older than "
+						+ sourceFile + ", parsing the source instead.");
+				return getFacade().parseProgram(toText(source),
+						getScreen().getProgramActionHandler());
+			}
+		}
+
+		return ((Facade) getFacade()).loadProgram(image,
+				getScreen().getProgramActionHandler());
+	}
+
+	private static String getSourceFile(String imageFile) {
+		if (!imageFile.endsWith(ProgramImage.FILE_EXTENSION))
+			return null;
+		return imageFile.substring(0, imageFile.length()
+				- ProgramImage.FILE_EXTENSION.length()) + ".txt";
+	}
+
+	private static boolean resourceExists(String filename) {
+		try {
+			GUIUtils.toURL(filename);
+			return true;
+		} catch (FileNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static String toText(byte[] data) {
+		return new String(data, Charset.forName("UTF-8"));
+	}
+
+	protected byte[] readProgramData(String filename) {
 		InputStream stream;
 		try {
-			stream = GUIUtils.openResource(getGUI().getOptions().programFile);
+			stream = GUIUtils.openResource(filename);
 		} catch (IOException e) {
 			e.printStackTrace();
 			getGUI().showError(e.getMessage());
 			return null;
 		}
 
-		BufferedReader reader = new BufferedReader(
-				new InputStreamReader(stream));
-		StringBuilder programText = new StringBuilder();
-		String line;
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
 		try {
-			line = reader.readLine();
-			while (line != null) {
-				programText.append(line);
-				programText.append("\n");
-				line = reader.readLine();
+			int read = stream.read(buffer);
+			while (read != -1) {
+				data.write(buffer, 0, read);
+				read = stream.read(buffer);
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -97,12 +159,12 @@ public class AddNewWorm extends InstantaneousCommand {
 			return null;
 		} finally {
 			try {
-				reader.close();
+				stream.close();
 			} catch (IOException e) {
 				// I don't care
 			}
 		}
-		return programText.toString();
+		return data.toByteArray();
 	}
 
 }
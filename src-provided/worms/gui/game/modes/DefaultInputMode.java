@@ -4,6 +4,7 @@ import java.awt.Point;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 
+import worms.gui.GUIConstants;
 import worms.gui.InputMode;
 import worms.gui.game.PlayGameScreen;
 import worms.gui.game.sprites.WormSprite;
@@ -54,6 +55,21 @@ public class DefaultInputMode extends InputMode<PlayGameScreen> {
 		case 'J':
 			getScreen().jump();
 			break;
+		case 'f':
+		case 'F':
+			getScreen().toggleFastForward();
+			break;
+		case '+':
+		case '=':
+			getScreen().zoom(GUIConstants.ZOOM_STEP);
+			break;
+		case '-':
+			getScreen().zoom(1 / GUIConstants.ZOOM_STEP);
+			break;
+		case 'c':
+		case 'C':
+			getScreen().centerOnSelectedWorm();
+			break;
 		case KeyEvent.VK_SUBTRACT:
 		case 'n':
 		case 'N':
@@ -66,7 +82,9 @@ public class DefaultInputMode extends InputMode<PlayGameScreen> {
 	public void keyReleased(KeyEvent e) {
 		switch (e.getKeyCode()) {
 		case KeyEvent.VK_UP:
-			getScreen().move();
+			if (!e.isShiftDown()) { // shift-up pans the camera
+				getScreen().move();
+			}
 			break;
 		case KeyEvent.VK_ESCAPE:
 			getScreen().getGUI().exit();
@@ -79,6 +97,10 @@ public class DefaultInputMode extends InputMode<PlayGameScreen> {
 
 	@Override
 	public void keyPressed(KeyEvent e) {
+		if (e.isShiftDown()) {
+			panCamera(e);
+			return;
+		}
 		switch (e.getKeyCode()) {
 		case KeyEvent.VK_LEFT:
 		case KeyEvent.VK_RIGHT:
@@ -88,4 +110,24 @@ public class DefaultInputMode extends InputMode<PlayGameScreen> {
 		}
 	}
 
+	/**
+	 * Pan the camera with the arrow keys, while 'shift' is held.
+	 */
+	private void panCamera(KeyEvent e) {
+		switch (e.getKeyCode()) {
+		case KeyEvent.VK_LEFT:
+			getScreen().pan(-GUIConstants.PAN_STEP, 0);
+			break;
+		case KeyEvent.VK_RIGHT:
+			getScreen().pan(GUIConstants.PAN_STEP, 0);
+			break;
+		case KeyEvent.VK_UP:
+			getScreen().pan(0, -GUIConstants.PAN_STEP);
+			break;
+		case KeyEvent.VK_DOWN:
+			getScreen().pan(0, GUIConstants.PAN_STEP);
+			break;
+		}
+	}
+
 }
\ No newline at end of file
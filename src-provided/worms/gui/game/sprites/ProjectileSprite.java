@@ -58,15 +58,33 @@ public class ProjectileSprite extends Sprite<Projectile> {
 
 	@Override
 	public synchronized void draw(Graphics2D g) {
-		for (int i = 0; i < lastLocations.size(); i++) {
-			double[] loc = lastLocations.get(i);
+		drawTrail(g, getTrail(), sizeInPixels);
+	}
+
+	/**
+	 * Draw the given last locations of a projectile, the oldest first, as
+	 * circles growing to the given size.
+	 */
+	public static void drawTrail(Graphics2D g, double[][] trail,
+			double sizeInPixels) {
+		for (int i = 0; i < trail.length; i++) {
+			double[] loc = trail[i];
 			g.setColor(colors[i]);
-			double t = (double) (i + 1) / lastLocations.size();
+			double t = (double) (i + 1) / trail.length;
 			double size = sizeInPixels * t * t * t;
 			g.fill(GUIUtils.circleAt(loc[0], loc[1], size));
 		}
 	}
 
+	/**
+	 * A copy of the last locations of this projectile, the oldest first.
+	 */
+	public synchronized double[][] getTrail() {
+		synchronized (lastLocations) {
+			return lastLocations.toArray(new double[lastLocations.size()][]);
+		}
+	}
+
 	@Override
 	public Projectile getObject() {
 		return getProjectile();
@@ -1,6 +1,5 @@
 package worms.gui.game.sprites;
 
-import worms.gui.GUIConstants;
 import worms.gui.GUIUtils;
 import worms.gui.game.ImageSprite;
 import worms.gui.game.PlayGameScreen;
@@ -110,7 +109,7 @@ public class WormSprite extends ImageSprite<Worm> {
 		setRadius(getFacade().getRadius(getWorm()));
 		setDirection(getFacade().getOrientation(getWorm()));
 		setSelectedWeapon(getFacade().getSelectedWeapon(getWorm()));
-		updateJumpTime();
+		updateJumpSteps();
 		setName(getFacade().getName(getWorm()));
 		try {
 			setTeamName(getFacade().getTeamName(getWorm()));
@@ -142,23 +141,12 @@ public class WormSprite extends ImageSprite<Worm> {
 		this.selectedWeapon = selectedWeapon;
 	}
 
-	protected static final double JUMP_MARKER_TIME_DISTANCE = 0.1; // worm-seconds
-
-	private void updateJumpTime() {
-		try {
-			double time = getFacade().getJumpTime(getWorm(),
-					GUIConstants.JUMP_TIME_STEP);
-
-			int n = 1 + (int) (time / JUMP_MARKER_TIME_DISTANCE);
-			xys = new double[n][];
-			for (int i = 1; i <= n; i++) {
-				double dt = i * time / n;
-				double[] xy = getFacade().getJumpStep(getWorm(), dt);
-				xys[i - 1] = xy;
-			}
-		} catch (ModelException e) {
-			this.xys = null;
-		}
+	/**
+	 * Take the last completed preview of the jump of the worm, a new one is
+	 * computed in the background if the worm changed.
+	 */
+	public synchronized void updateJumpSteps() {
+		this.xys = getScreen().getJumpPreviews().getJumpSteps(getWorm());
 	}
 
 	public synchronized double[][] getJumpSteps() {
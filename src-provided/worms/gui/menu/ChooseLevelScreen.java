@@ -26,5 +26,7 @@ class ChooseLevelScreen extends AbstractMenuScreen<Level> {
 
 	@Override
 	public void screenStarted() {
+		// decode the levels while the player chooses one
+		Level.preload(choices);
 	}
 }
@@ -5,6 +5,7 @@ import worms.gui.Level;
 import worms.gui.WormsGUI;
 import worms.gui.game.PlayGameScreen;
 import worms.gui.messages.MessageType;
+import worms.model.Facade;
 
 enum MainMenuOption {
 	Play("Play worms"), PlayDebug("Play worms (debug mode)"), Exit("Exit");
@@ -72,6 +73,10 @@ public class MainMenuScreen extends AbstractMenuScreen<MainMenuOption> {
 					MessageType.NORMAL);
 		}
 
+		if (gui.getFacade() instanceof Facade) {
+			((Facade) gui.getFacade()).setDebugEnabled(debugMode);
+		}
+
 		GameState gameState = new GameState(gui.getFacade(),
 				gui.getOptions().randomSeed, level);
 
@@ -0,0 +1,122 @@
+package worms.model;
+
+import worms.gui.GUIConstants;
+import worms.gui.game.IActionHandler;
+
+/**
+ * An action handler resolving the actions of a worm instantly, by calling the facade directly.
+ * Unlike the handlers of the GUI it doesn't wait for any animations, so programs controlled by it run as fast as they can,
+ * e.g. to play matches between computer-controlled worms.
+ *
+ * The actions have the same effect on the model as when the GUI performs them: a move or jump is followed by a fall
+ * if possible, and a projectile that has been fired jumps right away.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class DirectActionHandler implements IActionHandler {
+
+	/**
+	 * Initialize a direct action handler.
+	 *
+	 * @param facade The facade to perform the actions with.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| facade == null
+	 */
+	public DirectActionHandler(IFacade facade) throws IllegalArgumentException {
+		if(facade == null)
+			throw new IllegalArgumentException("The facade musn't be a null reference.");
+
+		this.facade = facade;
+	}
+
+	private final IFacade facade;
+
+	/**
+	 * Returns the facade the actions are performed with.
+	 */
+	public IFacade getFacade() {
+		return this.facade;
+	}
+
+	@Override
+	public boolean turn(Worm worm, double angle) {
+		try {
+			if(!facade.canTurn(worm, angle))
+				return false;
+			facade.turn(worm, angle);
+			return true;
+		} catch(ModelException ex) {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean move(Worm worm) {
+		try {
+			if(!facade.canMove(worm))
+				return false;
+			facade.move(worm);
+			fallIfPossible(worm);
+			return true;
+		} catch(ModelException ex) {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean jump(Worm worm) {
+		try {
+			facade.jump(worm, GUIConstants.JUMP_TIME_STEP);
+			fallIfPossible(worm);
+			return true;
+		} catch(ModelException ex) {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean fire(Worm worm, int propulsion) {
+		try {
+			World world = worm.getWorld();
+			facade.shoot(worm, propulsion);
+			Projectile projectile = facade.getActiveProjectile(world);
+			if(projectile != null)
+				facade.jump(projectile, GUIConstants.JUMP_TIME_STEP);
+			return true;
+		} catch(ModelException ex) {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean toggleWeapon(Worm worm) {
+		try {
+			facade.selectNextWeapon(worm);
+			return true;
+		} catch(ModelException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Print the message on the standard output.
+	 *
+	 * @param message The message to print.
+	 */
+	@Override
+	public void print(String message) {
+		System.out.println(message);
+	}
+
+	/**
+	 * Let the given worm fall if it can, it might have died by the action it performed.
+	 *
+	 * @param worm The worm to let fall.
+	 */
+	private void fallIfPossible(Worm worm) {
+		if(facade.isAlive(worm) && facade.canFall(worm))
+			facade.fall(worm);
+	}
+}
@@ -0,0 +1,104 @@
+package worms.model;
+
+import worms.model.world.entity.GameObject;
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * A cursor over the living GameObjects of a certain type in a world.
+ *
+ * A cursor is opened on a world with World.open(EntityCursor) and walks the GameObjects of that world in place,
+ * nothing is copied. The same cursor can be opened again and again, so iterating doesn't allocate anything.
+ * Objects that die or leave the world boundaries before the cursor reaches them are skipped,
+ * objects removed from the world while the cursor is open don't make it skip or repeat any other object.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ *
+ * @param <T> The type of the objects this cursor returns.
+ */
+public class EntityCursor<T> {
+
+	/**
+	 * Initialize a closed cursor over the objects of a certain type.
+	 *
+	 * @param type The type of the objects to return.
+	 *
+	 * @post new.getType() == type
+	 * @post !new.isOpen()
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| type == null
+	 */
+	public EntityCursor(Class<T> type) throws IllegalArgumentException {
+		if (type == null)
+			throw new IllegalArgumentException("The type musn't be a null reference.");
+
+		this.type = type;
+	}
+
+	/**
+	 * The type of the objects this cursor returns.
+	 */
+	@Basic @Immutable
+	public Class<T> getType() {
+		return this.type;
+	}
+
+	private final Class<T> type;
+
+	/**
+	 * The world this cursor is open on, null if it is closed.
+	 */
+	@Basic
+	public World getWorld() {
+		return this.world;
+	}
+
+	/**
+	 * Returns whether this cursor is open on a world.
+	 *
+	 * @return | result == (this.getWorld() != null)
+	 */
+	public boolean isOpen() {
+		return this.world != null;
+	}
+
+	World world;
+
+	/**
+	 * The index in the GameObjects of the world of the next object to look at.
+	 * This is maintained by the world when objects before it are removed.
+	 */
+	int position;
+
+	/**
+	 * Returns the next living object of the type of this cursor.
+	 *
+	 * @return The next object, null if there are no more objects.
+	 *
+	 * @throws IllegalStateException
+	 * 			| !this.isOpen()
+	 */
+	public T next() throws IllegalStateException {
+		if (world == null)
+			throw new IllegalStateException("The cursor isn't open.");
+
+		while (position < world.getGameObjectCount()) {
+			GameObject obj = world.getGameObjectAt(position++);
+			if (type.isInstance(obj) && world.isLive(obj))
+				return type.cast(obj);
+		}
+		return null;
+	}
+
+	/**
+	 * Close this cursor, it can be opened again afterwards.
+	 * Closing a closed cursor has no effect.
+	 *
+	 * @post !new.isOpen()
+	 */
+	public void close() {
+		if (world != null)
+			world.close(this);
+	}
+}
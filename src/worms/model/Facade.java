@@ -5,7 +5,10 @@ import java.util.Collection;
 import java.util.Random;
 import worms.gui.game.IActionHandler;
 import worms.model.equipment.weapons.Weapon;
+import worms.model.program.ProgramImage;
+import worms.model.program.ProgramProfiler;
 import worms.model.programs.ParseOutcome;
+import worms.model.world.Terrain;
 import worms.model.world.entity.*;
 import worms.util.Position;
 
@@ -169,6 +172,19 @@ public class Facade implements IFacade {
 		return new World(width, height, passableMap, random);
 	}
 
+	/**
+	 * Create a world on the given terrain, which is shared instead of copied like a passable map.
+	 * 
+	 * @param width The width of the world.
+	 * @param height The height of the world.
+	 * @param terrain The terrain of the world.
+	 * @param random The random generator of the world.
+	 */
+	public World createWorldOnTerrain(double width, double height,
+			Terrain terrain, Random random) {
+		return new World(width, height, terrain, random);
+	}
+
 	@Override
 	public void fall(Worm worm) {
 		worm.fall();
@@ -354,9 +370,81 @@ public class Facade implements IFacade {
 	@Override
 	public ParseOutcome<?> parseProgram(String programText,
 			IActionHandler handler) {
-            return Program.parseProgram(programText,handler);
+            if(this.isBytecodeEnabled())
+                return Program.compileProgram(programText, handler);
+            return Program.parseProgram(programText, handler, this.isDebugEnabled(), this.getProfiler());
+	}
+
+	/**
+	 * Load a precompiled program, see ProgramImage.
+	 * The program is built with the same settings as programs parsed by this facade.
+	 * 
+	 * @param image The precompiled program.
+	 * @param handler The handler to perform the actions of the program with.
+	 * @return The outcome, as parseProgram(...) returns it.
+	 */
+	public ParseOutcome<?> loadProgram(ProgramImage image, IActionHandler handler) {
+		if (this.isBytecodeEnabled())
+			return Program.compileProgram(image, handler);
+		return Program.loadProgram(image, handler, this.isDebugEnabled(), this.getProfiler());
+	}
+
+	/**
+	 * Set whether programs parsed by this facade are compiled to bytecode
+	 * instead of being interpreted from their statements.
+	 * 
+	 * @param enabled Whether to compile to bytecode.
+	 */
+	public void setBytecodeEnabled(boolean enabled) {
+		this.bytecodeEnabled = enabled;
+	}
+
+	/**
+	 * Returns whether programs parsed by this facade are compiled to bytecode.
+	 */
+	public boolean isBytecodeEnabled() {
+		return this.bytecodeEnabled;
 	}
 
+	private boolean bytecodeEnabled = false;
+
+	/**
+	 * Set whether programs parsed by this facade report the simplifications made while building them.
+	 * 
+	 * @param enabled Whether to report them.
+	 */
+	public void setDebugEnabled(boolean enabled) {
+		this.debugEnabled = enabled;
+	}
+
+	/**
+	 * Returns whether programs parsed by this facade report the simplifications made while building them.
+	 */
+	public boolean isDebugEnabled() {
+		return this.debugEnabled;
+	}
+
+	private boolean debugEnabled = false;
+
+	/**
+	 * Set the profiler measuring the statements of programs parsed by this facade from now on.
+	 * Programs compiled to bytecode aren't profiled.
+	 * 
+	 * @param profiler The profiler, null to stop profiling.
+	 */
+	public void setProfiler(ProgramProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Returns the profiler measuring the statements of programs parsed by this facade, null if none is set.
+	 */
+	public ProgramProfiler getProfiler() {
+		return this.profiler;
+	}
+
+	private ProgramProfiler profiler;
+
 	@Override
 	public boolean hasProgram(Worm worm) {
 		return worm.hasProgram();
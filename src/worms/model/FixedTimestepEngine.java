@@ -0,0 +1,194 @@
+package worms.model;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * Advances a simulation in ticks of a fixed length, independent of how the real time passes.
+ *
+ * The real time given to advance(double) is added to an accumulator, and as many whole ticks as fit in it are
+ * executed. The simulation only ever sees ticks of the same length, so its results only depend on the amount of ticks:
+ * they are the same for every run with the same seed, no matter how the frames were timed, and a headless run can
+ * execute ticks as fast as it can with run(long).
+ * The time left in the accumulator gives the interpolation factor to render between the last two ticks.
+ *
+ * @invar	The tick rate is positive and finite.
+ * 			| getTickRate() > 0 && !Double.isInfinite(getTickRate())
+ * @invar	The interpolation factor lies between 0 (inclusive) and 1 (exclusive).
+ * 			| 0 <= getInterpolation() && getInterpolation() < 1
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class FixedTimestepEngine {
+
+	/**
+	 * A simulation that can be advanced by a single tick.
+	 */
+	public static interface Simulation {
+
+		/**
+		 * Advance the simulation by one tick.
+		 *
+		 * @param tickLength The length of the tick, always the same for an engine.
+		 */
+		public void tick(double tickLength);
+	}
+
+	/**
+	 * Initialize a fixed timestep engine.
+	 *
+	 * @param tickRate The amount of ticks per unit of time.
+	 * @param maxTicksPerAdvance The maximum amount of ticks executed by a single advance(double),
+	 * 			time that would need more ticks is dropped so a slow simulation can't fall behind ever further.
+	 * @param simulation The simulation to advance.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| !(tickRate > 0) || Double.isInfinite(tickRate) || maxTicksPerAdvance < 1 || simulation == null
+	 */
+	public FixedTimestepEngine(double tickRate, int maxTicksPerAdvance, Simulation simulation) throws IllegalArgumentException {
+		if(!(tickRate > 0) || Double.isInfinite(tickRate))
+			throw new IllegalArgumentException("The tick rate has to be positive and finite.");
+		if(maxTicksPerAdvance < 1)
+			throw new IllegalArgumentException("At least one tick has to be allowed per advance.");
+		if(simulation == null)
+			throw new IllegalArgumentException("The simulation musn't be a null reference.");
+
+		this.tickRate = tickRate;
+		this.tickLength = 1 / tickRate;
+		this.maxTicksPerAdvance = maxTicksPerAdvance;
+		this.simulation = simulation;
+	}
+
+	private final double tickRate;
+	private final double tickLength;
+	private final int maxTicksPerAdvance;
+	private final Simulation simulation;
+
+	/**
+	 * Returns the amount of ticks per unit of time.
+	 */
+	@Basic
+	public double getTickRate() {
+		return this.tickRate;
+	}
+
+	/**
+	 * Returns the length of a single tick.
+	 *
+	 * @return	| result == 1 / getTickRate()
+	 */
+	public double getTickLength() {
+		return this.tickLength;
+	}
+
+	/**
+	 * Returns the maximum amount of ticks executed by a single advance(double).
+	 */
+	@Basic
+	public int getMaxTicksPerAdvance() {
+		return this.maxTicksPerAdvance;
+	}
+
+	/**
+	 * Returns the simulation advanced by this engine.
+	 */
+	@Basic
+	public Simulation getSimulation() {
+		return this.simulation;
+	}
+
+	/**
+	 * Let the given amount of real time pass and execute the ticks that fit in the accumulated time.
+	 *
+	 * @param elapsed The real time that passed.
+	 * @return The amount of ticks executed.
+	 *
+	 * @post	At most getMaxTicksPerAdvance() ticks are executed, the time that doesn't fit is dropped.
+	 * 			| result <= getMaxTicksPerAdvance() && new.getTickCount() == this.getTickCount() + result
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| !(elapsed >= 0) || Double.isInfinite(elapsed)
+	 */
+	public int advance(double elapsed) throws IllegalArgumentException {
+		if(!(elapsed >= 0) || Double.isInfinite(elapsed))
+			throw new IllegalArgumentException("The elapsed time has to be positive and finite.");
+
+		this.accumulator += elapsed;
+		int ticks = 0;
+		while(this.accumulator >= this.tickLength) {
+			if(ticks == this.maxTicksPerAdvance) {
+				this.droppedTime += this.accumulator - this.accumulator % this.tickLength;
+				this.accumulator %= this.tickLength;
+				break;
+			}
+			this.accumulator -= this.tickLength;
+			this.tick();
+			ticks++;
+		}
+		return ticks;
+	}
+
+	/**
+	 * Execute the given amount of ticks right away, e.g. for a headless simulation.
+	 *
+	 * @param ticks The amount of ticks to execute.
+	 * @post	| new.getTickCount() == this.getTickCount() + ticks
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| ticks < 0
+	 */
+	public void run(long ticks) throws IllegalArgumentException {
+		if(ticks < 0)
+			throw new IllegalArgumentException("The amount of ticks musn't be negative.");
+
+		for(long i = 0; i < ticks; i++)
+			this.tick();
+	}
+
+	private void tick() {
+		this.simulation.tick(this.tickLength);
+		this.tickCount++;
+	}
+
+	/**
+	 * Returns the amount of ticks executed.
+	 */
+	@Basic
+	public long getTickCount() {
+		return this.tickCount;
+	}
+
+	private long tickCount = 0;
+
+	/**
+	 * Returns the simulated time.
+	 * It is computed from the amount of ticks, so it doesn't depend on how the ticks were grouped.
+	 *
+	 * @return	| result == getTickCount() * getTickLength()
+	 */
+	public double getTime() {
+		return this.tickCount * this.tickLength;
+	}
+
+	/**
+	 * Returns how far the real time is between the last tick and the next one,
+	 * to interpolate between the states of those ticks when rendering.
+	 *
+	 * @return	| result == (accumulated time) / getTickLength()
+	 */
+	public double getInterpolation() {
+		return Math.min(this.accumulator / this.tickLength, Math.nextAfter(1.0, 0));
+	}
+
+	private double accumulator = 0;
+
+	/**
+	 * Returns the real time that was dropped because more than getMaxTicksPerAdvance() ticks were needed.
+	 */
+	@Basic
+	public double getDroppedTime() {
+		return this.droppedTime;
+	}
+
+	private double droppedTime = 0;
+}
@@ -73,9 +73,14 @@ public class Food extends GameObject implements Entity {
 	 * 
 	 * @post This food is not alive anymore.
 	 * 		| new.isAlive() == false
+	 * @effect The listeners of the world of this food are notified it is removed.
+	 * 		| if(this.getWorld() != null)
+	 * 		|	this.getWorld().notifyIfDead(this)
 	 */
 	public void setToEaten() {
             this.alive = false;
+            if(this.getWorld() != null)
+                this.getWorld().notifyIfDead(this);
 	}
 	
 	private boolean alive;
@@ -1,16 +1,24 @@
 package worms.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import worms.gui.game.IActionHandler;
 import worms.model.program.ProgramFactoryImpl;
+import worms.model.program.ProgramImage;
+import worms.model.program.ProgramProfiler;
+import worms.model.program.TypeChecker;
 import worms.model.program.Variable;
+import worms.model.program.bytecode.Bytecode;
+import worms.model.program.bytecode.BytecodeProgramFactory;
+import worms.model.program.bytecode.ExpressionNode;
+import worms.model.program.bytecode.Register;
+import worms.model.program.bytecode.StatementNode;
+import worms.model.program.bytecode.VirtualMachine;
 import worms.model.program.expressions.Expression;
-import worms.model.program.statements.AssignmentStatement;
 import worms.model.program.statements.ConditionalStatement;
-import worms.model.program.statements.ForEachStatement;
-import worms.model.program.statements.MultipleStatement;
 import worms.model.program.statements.Statement;
 import worms.model.programs.ParseOutcome;
 import worms.model.programs.ProgramParser;
@@ -21,33 +29,115 @@ public class Program {
 
     /**
      * Create a program with certain variables and a main statement.
+     * The types of all statements are checked once, see getAdditionalErrors().
      *
      * @param factory The factory with which the program was assembled.
-     * @param globalMap The Map with all variables.
      * @param mainStatement The main statement.
+     * @param globalMap The Map with all variables.
      *
      * @throws IllegalArgumentException When globalMap, mainStatement or factory
      * is a null reference. | globalMap == null || mainStatement == null ||
      * factory == null
      *
      */
-    public Program(ProgramFactoryImpl factory, Statement mainStatement) throws IllegalArgumentException {
-        if (mainStatement == null || factory == null) {
+    public Program(ProgramFactoryImpl factory, Statement mainStatement, Map<String, ? extends Variable<?>> globalMap) throws IllegalArgumentException {
+        if (mainStatement == null || factory == null || globalMap == null) {
             throw new IllegalArgumentException("globalMap,mainStatement and factory musn't be a null reference.");
         }
         
         this.mainStatement = mainStatement;
         this.factory = factory;
+        this.machine = null;
+        this.globals = globalMap;
+        this.additionalErrors = new TypeChecker(globalMap).check(mainStatement);
+    }
+
+    /**
+     * Create a program executed by a virtual machine instead of the AST interpreter.
+     *
+     * @param machine The machine holding the compiled program.
+     *
+     * @throws IllegalArgumentException When machine is a null reference.
+     * | machine == null
+     */
+    public Program(VirtualMachine machine) throws IllegalArgumentException {
+        if (machine == null) {
+            throw new IllegalArgumentException("The machine musn't be a null reference.");
+        }
+
+        this.mainStatement = null;
+        this.factory = null;
+        this.machine = machine;
+        this.globals = new HashMap<>();
+        this.additionalErrors = new ArrayList<>();
     }
 
     private ProgramFactoryImpl factory;
 
+    /**
+     * The virtual machine executing this program, null if this program is interpreted from its statements.
+     *
+     * @return The machine.
+     */
+    public VirtualMachine getMachine() {
+        return this.machine;
+    }
+
+    private final VirtualMachine machine;
+
+    /**
+     * The global variables of this program, by name.
+     *
+     * @return The variables, an empty map if this program is executed by a virtual machine.
+     */
+    Map<String, ? extends Variable<?>> getGlobals() {
+        return this.globals;
+    }
+
+    private final Map<String, ? extends Variable<?>> globals;
+
+    /**
+     * The text this program was parsed from.
+     *
+     * @return The text, null if this program was loaded from a precompiled program.
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Set the text this program was built from.
+     *
+     * @param source The text.
+     */
+    void setSource(String source) {
+        this.source = source;
+    }
+
+    private String source;
+
+    /**
+     * The precompiled program this program was loaded from.
+     *
+     * @return The image, null if this program was parsed from its text.
+     */
+    public ProgramImage getImage() {
+        return this.image;
+    }
+
+    private ProgramImage image;
+
     /**
      *
      * @throws IllegalStateException When the factory hasn't got a worm or the
      * worm's world is a null reference.
      */
     public void execute() throws IllegalStateException {
+        if (this.machine != null) {
+            this.machine.run(MAX_STATEMENT_AMOUNT);
+            return;
+        }
+
         if (this.factory.getWorm() == null) {
             throw new IllegalStateException("The factory hasn't got a worm set.");
         }
@@ -56,18 +146,35 @@ public class Program {
         }
 
         counter = MAX_STATEMENT_AMOUNT;
+        this.factory.invalidateSelfReads(); //Other worms had their turn since.
         if (mainStatement.execute(this)) {
             this.setLastStatement(null);
             this.setFinished(true);
         } else {
             this.setFinished(false);
         }
+
+        if (this.factory.getProfiler() != null) {
+            this.factory.getProfiler().endRun(MAX_STATEMENT_AMOUNT - counter);
+        }
+    }
+
+    /**
+     * The profiler measuring the statements of this program, see ProgramFactoryImpl.setProfiler(...).
+     *
+     * @return The profiler, null if this program isn't profiled.
+     */
+    public ProgramProfiler getProfiler() {
+        if (this.factory == null) {
+            return null;
+        }
+        return this.factory.getProfiler();
     }
 
     /**
      * Return a reference to the main statement of this Program.
      *
-     * @return The main statement.
+     * @return The main statement, null if this program is executed by a virtual machine.
      */
     public Statement getMainStatement() {
         return mainStatement;
@@ -75,6 +182,18 @@ public class Program {
 
     private final Statement mainStatement;
 
+    /**
+     * The simplifications made while building this program, see ProgramFactoryImpl.getOptimizations().
+     *
+     * @return The simplifications, an empty list if this program is executed by a virtual machine.
+     */
+    public List<String> getOptimizations() {
+        if (this.factory == null) {
+            return new ArrayList<>();
+        }
+        return this.factory.getOptimizations();
+    }
+
     /**
      * Set the last statement we executed to statement. If this value is not
      * null it means we will start executing the given statement next time.
@@ -152,9 +271,14 @@ public class Program {
      * Set the worm associated with this program.
      *
      * @param worm
-     * @effect this.factory.setWorm(worm)
+     * @effect if (this.getMachine() != null) this.getMachine().setWorm(worm)
+     * @effect if (this.getMachine() == null) this.factory.setWorm(worm)
      */
     public void setWorm(Worm worm) {
+        if (this.machine != null) {
+            this.machine.setWorm(worm);
+            return;
+        }
         this.factory.setWorm(worm);
     }
 
@@ -168,22 +292,46 @@ public class Program {
      */
     public static ParseOutcome<?> parseProgram(String programText,
             IActionHandler handler) {
+        return parseProgram(programText, handler, false);
+    }
+
+    /**
+     * Parse a program, in debug mode the simplifications made while building it are printed.
+     *
+     * @param programText
+     * @param handler
+     * @param debug Whether to print the simplifications.
+     * @see Program.parseProgram(String, IActionHandler)
+     * @return
+     */
+    public static ParseOutcome<?> parseProgram(String programText,
+            IActionHandler handler, boolean debug) {
+        return parseProgram(programText, handler, debug, null);
+    }
+
+    /**
+     * Parse a program of which the statements are measured by a profiler.
+     *
+     * @param programText
+     * @param handler
+     * @param debug Whether to print the simplifications.
+     * @param profiler The profiler to measure the statements with, null to not profile the program.
+     * @see Program.parseProgram(String, IActionHandler)
+     * @return
+     */
+    public static ParseOutcome<?> parseProgram(String programText,
+            IActionHandler handler, boolean debug, ProgramProfiler profiler) {
 
         ProgramFactoryImpl factory = new ProgramFactoryImpl(handler);
+        factory.setDebug(debug);
+        factory.setProfiler(profiler);
         ProgramParser<Expression<?>, Statement, Variable<?>> parser = new ProgramParser<>(factory);
         factory.setProgramParser(parser); //NullPointerException
-        Program program;
 
         parser.parse(programText);
 
         if (parser.getErrors().isEmpty()) {
-            program = new Program(factory, parser.getStatement()); //pass: statement, globals
-            ArrayList<String> list = program.getAdditionalErrors();
-            if (list.isEmpty()) {
-                return ParseOutcome.success(program);
-            } else {
-                return ParseOutcome.failure(list);
-            }
+            return check(factory, parser.getStatement(), parser.getGlobals(), programText, null);
         } else {
 
             return ParseOutcome.failure(parser.getErrors());
@@ -191,60 +339,111 @@ public class Program {
     }
 
     /**
-     * This function checks whether the main Statement is an AssignmentStatement or ForEachStatement and validates them.
-     * If the mainStatement is of type MultipleStatement it will call the auxiliary method with the MultipleStatement.getStatements() as a parameter.
-     * All errors found will be returned in an ArrayList.
+     * Load a precompiled program, it is built the same way parseProgram(...) builds it but without parsing the text.
+     *
+     * @param image The precompiled program.
+     * @param handler
+     * @param debug Whether to print the simplifications.
+     * @param profiler The profiler to measure the statements with, null to not profile the program.
+     * @see Program.parseProgram(String, IActionHandler, boolean, ProgramProfiler)
      * @return
      */
-    public ArrayList<String> getAdditionalErrors() {
-        ArrayList<String> myList = new ArrayList<>();
-
-        if (this.getMainStatement() instanceof AssignmentStatement) {
-            if (!(((AssignmentStatement) this.getMainStatement()).isValidVariableType())) {
-                myList.add("The variable " + ((AssignmentStatement) this.getMainStatement()).getVariableName() + " its type does not match the type of the expression assigned to it in an assignment.");
-            }
-        } else if (this.getMainStatement() instanceof ForEachStatement) {
-            if (!((ForEachStatement) this.getMainStatement()).isValidVariableType()) {
-                myList.add("The variable " + ((ForEachStatement) this.getMainStatement()).getVariableName() + " of a For-each loop does not match type Entity.");
-            }
+    public static ParseOutcome<?> loadProgram(ProgramImage image,
+            IActionHandler handler, boolean debug, ProgramProfiler profiler) {
+
+        ProgramFactoryImpl factory = new ProgramFactoryImpl(handler);
+        factory.setDebug(debug);
+        factory.setProfiler(profiler);
+        Map<String, Variable<?>> globals = new HashMap<>();
+
+        Statement mainStatement = image.replay(factory, globals);
+        return check(factory, mainStatement, globals, null, image);
+    }
+
+    /**
+     * Create a program built from a text or an image and return it if its type check found no errors.
+     */
+    private static ParseOutcome<?> check(ProgramFactoryImpl factory, Statement mainStatement, Map<String, Variable<?>> globals,
+            String source, ProgramImage image) {
+        Program program = new Program(factory, mainStatement, globals);
+        program.source = source;
+        program.image = image;
+        List<String> list = program.getAdditionalErrors();
+        if (list.isEmpty()) {
+            return ParseOutcome.success(program);
+        } else {
+            return ParseOutcome.failure(list);
         }
+    }
+
+    /**
+     * Parse a program and compile it to bytecode, the resulting program is executed by a VirtualMachine.
+     * Errors are reported the same way as parseProgram(...) does.
+     *
+     * @param programText
+     * @param handler
+     * @see Documentation as defined by the assignment (IFacade.parseProgram(...))
+     * @return
+     */
+    public static ParseOutcome<?> compileProgram(String programText,
+            IActionHandler handler) {
+
+        BytecodeProgramFactory factory = new BytecodeProgramFactory();
+        ProgramParser<ExpressionNode, StatementNode, Register> parser = new ProgramParser<>(factory);
 
-        if (this.getMainStatement() instanceof MultipleStatement) {
-            myList = getAdditionalErrors_Aux(((MultipleStatement) this.getMainStatement()).getStatements());
+        parser.parse(programText);
+
+        if (!parser.getErrors().isEmpty()) {
+            return ParseOutcome.failure(parser.getErrors());
         }
-        return myList;
+
+        return compile(factory, parser.getStatement(), parser.getGlobals(), handler, programText, null);
     }
 
     /**
-     * Auxiliary function. This goes trough all the statements provided in the
-     * list, performs the validation checks for ForEach and
-     * AssignmentStatements. Next it checks whether the statement it looped over
-     * is of type MultipleStatement, if so it will get all statements of this
-     * MultipleStatement and call itself with those as a parameter.
+     * Load a precompiled program and compile it to bytecode.
      *
-     * @param statements The statements to go trough.
-     * @return A list of errors found in the statements.
+     * @param image The precompiled program.
+     * @param handler
+     * @see Program.compileProgram(String, IActionHandler)
+     * @return
      */
-    private ArrayList<String> getAdditionalErrors_Aux(List<Statement> statements) {
-        ArrayList<String> myList = new ArrayList<>();
+    public static ParseOutcome<?> compileProgram(ProgramImage image,
+            IActionHandler handler) {
 
-        for (Statement statement : statements) {
-            if (statement instanceof AssignmentStatement) {
-                if (!(((AssignmentStatement) statement).isValidVariableType())) {
-                    myList.add("The variable " + ((AssignmentStatement) statement).getVariableName() + " its type does not match the type of the expression assigned to it in an assignment.");
-                }
-            } else if (statement instanceof ForEachStatement) {
-                if (!((ForEachStatement) statement).isValidVariableType()) {
-                    myList.add("The variable " + ((ForEachStatement) statement).getVariableName() + " of a For-each loop does not match type Entity.");
-                }
-            }
+        BytecodeProgramFactory factory = new BytecodeProgramFactory();
+        Map<String, Register> globals = new HashMap<>();
 
-            if (statement instanceof MultipleStatement) {
-                myList.addAll(getAdditionalErrors_Aux(((MultipleStatement) statement).getStatements()));
-            }
+        StatementNode mainStatement = image.replay(factory, globals);
+        return compile(factory, mainStatement, globals, handler, null, image);
+    }
+
+    /**
+     * Compile a program built from a text or an image to bytecode and return it if no errors were found.
+     */
+    private static ParseOutcome<?> compile(BytecodeProgramFactory factory, StatementNode mainStatement,
+            Map<String, Register> globals, IActionHandler handler, String source, ProgramImage image) {
+        ArrayList<String> list = new ArrayList<>();
+        Bytecode bytecode = factory.compile(mainStatement, globals, list);
+        if (bytecode == null) {
+            return ParseOutcome.failure(list);
         }
+        Program program = new Program(new VirtualMachine(bytecode, handler));
+        program.source = source;
+        program.image = image;
+        return ParseOutcome.success(program);
+    }
 
-        return myList;
+    /**
+     * The type errors found in the statements of this program when it was created, at any depth of nesting.
+     * Only a program without these errors has all its assignments and for-each loops bound to their variable.
+     *
+     * @return The errors, formatted as "line:column type error: message".
+     */
+    public List<String> getAdditionalErrors() {
+        return new ArrayList<>(this.additionalErrors);
     }
 
+    private final List<String> additionalErrors;
+
 }
@@ -214,9 +214,13 @@ public abstract class Projectile extends GameObject {
 	 * 
 	 * @effect The new position of this worm is calculated and set.
 	 * 			| this.setPosition(this.jumpStep(this.jumpTime()))
+	 * @effect The listeners of the world of this projectile are notified it moved.
+	 * 			| this.getWorld().notifyMoved(this)
 	 */
 	public void jump(double timeStep) {
 		this.setPosition(this.jumpStep(this.jumpTime(timeStep)));
+		if(this.getWorld() != null)
+			this.getWorld().notifyMoved(this);
 	}
 
 }
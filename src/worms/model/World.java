@@ -2,9 +2,15 @@ package worms.model;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import worms.model.world.Terrain;
+import worms.model.world.TerrainBitmap;
 import worms.model.world.WorldState;
 import worms.model.world.entity.GameObject;
 import worms.util.*;
@@ -37,12 +43,39 @@ public class World {
 	 * @param passableMap The Terrain of this world.
 	 * @param random The Random of this world to e.g create GameObjects on a random position.
 	 * 
+	 * @effect	The world is initialized with a bitmap of the passable map.
+	 * 			| this(width, height, TerrainBitmap.fromPassableMap(passableMap), random)
+	 * 
+	 * @throws IllegalArgumentException
+	 * 			When passableMap is a null reference
+	 * 			| passableMap == null
+	 * @throws IllegalArgumentException
+	 * 			When the 2 dimensional boolean array isn't 'rectangle shaped' a.k.a. when a row hasn't got the same length as another one.
+	 * 			| !isRectangleDimension(passableMap)
+	 */
+	@Raw
+	public World(double width, double height, boolean[][] passableMap,
+			Random random) throws IllegalArgumentException {
+		this(width, height, toTerrain(passableMap), random);
+	}
+
+	/**
+	 * Initialize a world with a certain width & height, a certain terrain and a certain instance of Random.
+	 * 
+	 * @param width The width of this world.
+	 * @param height The height of this world.
+	 * @param terrain The Terrain of this world, it's shared and not copied. All terrain queries of this world go
+	 * 			through it, so it may be materialised lazily, see ChunkedTerrain.
+	 * @param random The Random of this world to e.g create GameObjects on a random position.
+	 * 
 	 * @post	The width of this world is width.
 	 * 			| new.getWidth() == width
 	 * @post	The height of this world is height.
 	 * 			| new.getHeight() == height
 	 * @post	The Random of this world is random
 	 * 			| new.getRandom() == random
+	 * @post	The terrain of this world is terrain
+	 * 			| new.getTerrain() == terrain
 	 * @post	The amount of GameObjects in this world is zero.
 	 * 			| new.getGameObjects().size() == 0
 	 * 
@@ -50,32 +83,35 @@ public class World {
 	 * 			When the dimension isn't valid for a world.
 	 * 			| !isValidDimension(width, height)
 	 * @throws IllegalArgumentException
-	 * 			When random or passableMap is a null reference
-	 * 			| random == null || passableMap == null
-	 * @throws IllegalArgumentException
-	 * 			When the 2 dimensional boolean array isn't 'rectangle shaped' a.k.a. when a row hasn't got the same length as another one.
-	 * 			| !isRectangleDimension(passableMap)
+	 * 			When random or terrain is a null reference
+	 * 			| random == null || terrain == null
 	 */
 	@Raw
-	public World(double width, double height, boolean[][] passableMap,
+	public World(double width, double height, Terrain terrain,
 			Random random) throws IllegalArgumentException {
 		if (!isValidDimension(width, height))
 			throw new IllegalArgumentException("The dimension provided isn't a valid dimension for a World");
 		if(random == null)
 			throw new IllegalArgumentException("The random parameter was a null reference, which isn't allowed.");
-		if(passableMap == null)
-			throw new IllegalArgumentException("The passableMap musn't be a null reference.");
-		if(!isRectangleDimension(passableMap))
-			throw new IllegalArgumentException("The passableMap must be a rectangle shaped dimension.");
+		if(terrain == null)
+			throw new IllegalArgumentException("The terrain musn't be a null reference.");
 		
 		this.width = width;
 		this.height = height;
-		//Cloned because we don't want anyone to modify our world while we're playing.
-		this.passableMap = getInvertedMap(Util.deepClone(passableMap));
+		//A terrain never changes, so nobody can modify our world while we're playing.
+		this.terrain = terrain;
 		this.random = random;
 		gameObjList = new ArrayList<>();
 		teamList = new ArrayList<>();
 	}
+
+	private static TerrainBitmap toTerrain(boolean[][] passableMap) throws IllegalArgumentException {
+		if(passableMap == null)
+			throw new IllegalArgumentException("The passableMap musn't be a null reference.");
+		if(!isRectangleDimension(passableMap))
+			throw new IllegalArgumentException("The passableMap must be a rectangle shaped dimension.");
+		return TerrainBitmap.fromPassableMap(passableMap);
+	}
 	
 	/**
 	 * Check whether the lengths of the 2-Dimensional array are rectangle shaped. aka The lengths of every row should be equal.
@@ -104,27 +140,6 @@ public class World {
 		return true;
 	}
 
-	/**
-	 * Invert the passableMap. This was needed as the map provided has the (0,0) in the bottom left.
-	 * 
-	 * @param passableMap The 2-dimensional boolean array to invert.
-	 * 
-	 * @return	The same map but with every row switched to [passableMap.length-1-row]
-	 * 			| boolean[][] resultArr = new boolean[passableMap.length][];
-	 * 			| for each row (index rowIndex) in the passableMap
-	 * 			|	resultArr[rowIndex] = passableMap[passableMap.length-rowIndex-1]
-	 * 			| result = resultArr
-	 */
-	private static boolean[][] getInvertedMap(boolean[][] passableMap) {
-		if(passableMap == null)
-			return null;
-		
-		boolean[][] result = new boolean[passableMap.length][];
-		for(int row = 0; row < result.length; row++)
-			result[row] = passableMap[passableMap.length-row-1];
-		return result;
-	}
-
 	/**
 	 * Returns whether the width and height form a valid dimension to be a World.
 	 * 
@@ -165,11 +180,11 @@ public class World {
 	 * Scale of the world (in worm-meter per map pixel)
 	 * 
 	 * @return The scale of the map.
-	 * 			| result == this.getHeight() / passableMap.length
+	 * 			| result == this.getHeight() / this.getTerrain().getHeight()
 	 */
 	@Immutable
 	public double getScale() {
-		return height / passableMap.length;
+		return height / terrain.getHeight();
 	}
 
 	/**
@@ -192,10 +207,34 @@ public class World {
 	private final double height;
 
 	/**
-	 * The terrain map, a clone of the provided one.
+	 * Returns the terrain of this world, row 0 is at the top.
+	 */
+	@Basic @Immutable
+	public Terrain getTerrain() {
+		return this.terrain;
+	}
+
+	private final Terrain terrain;
+
+	/**
+	 * Returns a copy of the terrain map, in the orientation it was provided in.
+	 */
+	public boolean[][] getPassableMap() {
+		boolean[][] result = new boolean[terrain.getHeight()][terrain.getWidth()];
+		for(int row = 0; row < result.length; row++)
+			for(int column = 0; column < result[row].length; column++)
+				result[row][column] = terrain.isPassable(row, column);
+		return result;
+	}
+
+	/**
+	 * Returns whether the pixel at the given row and column is passable. Unlike the rows of the terrain, row 0 is at
+	 * the bottom of this world.
 	 */
 	@Model
-	private final boolean[][] passableMap;
+	private boolean isPassablePixel(int row, int column) {
+		return terrain.isPassable(terrain.getHeight() - 1 - row, column);
+	}
 
 	/**
 	 * Returns a copy of the list holding all teams currently in this world.
@@ -308,6 +347,9 @@ public class World {
 			throw new IllegalArgumentException("The object to be added musn't be in another world.");
 		
 		gameObjList.add(gameObject);
+		announced.add(gameObject);
+		for (WorldListener listener : listeners)
+			listener.objectAdded(gameObject);
 	}
 
 	/**
@@ -357,6 +399,196 @@ public class World {
 	 */
 	private List<GameObject> gameObjList;
 
+	/**
+	 * Open a cursor on the GameObjects of this world, it starts at the first object.
+	 * A cursor that was open on another world is closed first.
+	 * 
+	 * @param cursor The cursor to open.
+	 * 
+	 * @post The cursor is open on this world.
+	 * 			| new.cursor.getWorld() == this
+	 * 
+	 * @throws IllegalArgumentException
+	 * 			When the cursor is a null reference.
+	 * 			| cursor == null
+	 * @throws IllegalStateException
+	 * 			When the cursor is already open on this world.
+	 * 			| cursor.getWorld() == this
+	 */
+	public void open(EntityCursor<?> cursor) throws IllegalArgumentException, IllegalStateException {
+		if (cursor == null)
+			throw new IllegalArgumentException("The cursor musn't be a null reference.");
+		if (cursor.world == this)
+			throw new IllegalStateException("The cursor is already open on this world.");
+		
+		cursor.close();
+		cursor.world = this;
+		cursor.position = 0;
+		openCursors.add(cursor);
+	}
+	
+	/**
+	 * Close a cursor open on this world.
+	 * 
+	 * @param cursor The cursor to close.
+	 */
+	@Model
+	void close(EntityCursor<?> cursor) {
+		openCursors.remove(cursor);
+		cursor.world = null;
+	}
+	
+	/**
+	 * The cursors open on this world, their position is shifted when a GameObject before it is removed.
+	 */
+	private final List<EntityCursor<?>> openCursors = new ArrayList<>();
+	
+	/**
+	 * The amount of GameObjects in this world, living or not.
+	 */
+	@Model
+	int getGameObjectCount() {
+		return gameObjList.size();
+	}
+	
+	/**
+	 * The GameObject at a certain index in this world, living or not.
+	 */
+	@Model
+	GameObject getGameObjectAt(int index) {
+		return gameObjList.get(index);
+	}
+	
+	/**
+	 * Restore the state of this world as it was saved, see WorldSnapshot.
+	 * The GameObjects are put in the given order, replacing the ones added while restoring them.
+	 * 
+	 * @param gameObjects The GameObjects of this world, in order.
+	 * @param state The state of this world.
+	 * @param activeWorm The active worm, null if there is none.
+	 * @param livingProjectile The living projectile, null if there is none.
+	 * @param turnCount The amount of turns started in this world.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 			When a GameObject or the active worm isn't in this world, or the living projectile isn't one of the GameObjects.
+	 * @throws IllegalStateException
+	 * 			When the state of this world isn't INITIALISATION.
+	 * 			| this.getState() != WorldState.INITIALISATION
+	 */
+	@Model
+	void restore(List<GameObject> gameObjects, WorldState state, Worm activeWorm, Projectile livingProjectile, long turnCount)
+			throws IllegalArgumentException, IllegalStateException {
+		if (this.getState() != WorldState.INITIALISATION)
+			throw new IllegalStateException("Only a world in its initialisation can be restored.");
+		for (GameObject gameObject : gameObjects) {
+			if (gameObject.getWorld() != this)
+				throw new IllegalArgumentException("The objects to restore must be in this world.");
+		}
+		if (activeWorm != null && activeWorm.getWorld() != this)
+			throw new IllegalArgumentException("The active worm must be in this world.");
+		if (livingProjectile != null && !gameObjects.contains(livingProjectile))
+			throw new IllegalArgumentException("The living projectile must be one of the objects to restore.");
+
+		this.gameObjList = new ArrayList<>(gameObjects);
+		this.announced.clear();
+		this.announced.addAll(gameObjects);
+		this.state = state;
+		this.activeWorm = activeWorm;
+		this.livingProjectile = livingProjectile;
+		this.turnCount = turnCount;
+	}
+	
+	/**
+	 * Remove the GameObject at a certain index from the list of GameObjects, keeping the open cursors at the object they were at.
+	 */
+	@Model
+	private void removeGameObjectAt(int index) {
+		GameObject gameObject = gameObjList.remove(index);
+		for (int i = 0; i < openCursors.size(); i++) {
+			EntityCursor<?> cursor = openCursors.get(i);
+			if (cursor.position > index)
+				cursor.position--;
+		}
+		if (announced.remove(gameObject)) {
+			for (WorldListener listener : listeners)
+				listener.objectRemoved(gameObject);
+		}
+	}
+
+	/**
+	 * Add a listener to the changes of this world and the objects in it.
+	 * 
+	 * @param listener The listener to add.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 			| listener == null
+	 */
+	public void addListener(WorldListener listener) throws IllegalArgumentException {
+		if (listener == null)
+			throw new IllegalArgumentException("The listener musn't be a null reference.");
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a listener added with addListener(WorldListener), nothing happens if it wasn't added.
+	 * 
+	 * @param listener The listener to remove.
+	 */
+	public void removeListener(WorldListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * The listeners, they can be added and removed from another thread than the one changing this world.
+	 */
+	private final List<WorldListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The objects announced as added to the listeners and not yet announced as removed.
+	 */
+	private final Set<GameObject> announced = Collections.newSetFromMap(new IdentityHashMap<GameObject, Boolean>());
+
+	/**
+	 * Notify the listeners that a GameObject in this world moved, and that it is removed when it isn't alive anymore.
+	 * 
+	 * @param gameObject The object that moved.
+	 */
+	@Model
+	void notifyMoved(GameObject gameObject) {
+		if (listeners.isEmpty() || !announced.contains(gameObject))
+			return;
+		for (WorldListener listener : listeners)
+			listener.objectMoved(gameObject);
+		this.notifyIfDead(gameObject);
+	}
+
+	/**
+	 * Notify the listeners that a property of a worm in this world changed, and that it is removed when it isn't alive anymore.
+	 * 
+	 * @param worm The worm that changed.
+	 */
+	@Model
+	void notifyChanged(Worm worm) {
+		if (listeners.isEmpty() || !announced.contains(worm))
+			return;
+		for (WorldListener listener : listeners)
+			listener.wormChanged(worm);
+		this.notifyIfDead(worm);
+	}
+
+	/**
+	 * Notify the listeners that a GameObject is removed if it isn't alive anymore and it wasn't announced before.
+	 * 
+	 * @param gameObject The object to check.
+	 */
+	@Model
+	void notifyIfDead(GameObject gameObject) {
+		if (listeners.isEmpty() || gameObject.isAlive() || !announced.remove(gameObject))
+			return;
+		for (WorldListener listener : listeners)
+			listener.objectRemoved(gameObject);
+	}
+
 	/**
 	 * Returns the current active worm on this world.
 	 */
@@ -386,6 +618,56 @@ public class World {
 		this.activeWorm = worm;
 	}
 
+	/**
+	 * End the current turn and start the next one if possible.
+	 * 
+	 * Turns are changed by a loop instead of by recursion: when a turn ends while a turn change is already in progress
+	 * (e.g. a worm with a program runs out of action points, or the active worm dies), this only raises a pending flag
+	 * and the loop changes the turn once the current change is done. The stack depth doesn't grow with the amount of
+	 * consecutive worms with a program.
+	 * 
+	 * @effect Start turns as long as a turn ended while starting the previous one.
+	 * 			| while(isNextTurnPending())
+	 * 			|	startTurn()
+	 */
+	public void nextTurn() {
+		this.nextTurnPending = true;
+		if (this.changingTurns)
+			return;
+
+		this.changingTurns = true;
+		try {
+			while (this.nextTurnPending) {
+				this.nextTurnPending = false;
+				this.startTurn();
+			}
+		} finally {
+			this.nextTurnPending = false;
+			this.changingTurns = false;
+		}
+	}
+
+	/**
+	 * Returns whether a turn ended while changing turns, the next turn is started as soon as the current change is done.
+	 */
+	@Basic
+	public boolean isNextTurnPending() {
+		return this.nextTurnPending;
+	}
+
+	private boolean nextTurnPending = false;
+	private boolean changingTurns = false;
+
+	/**
+	 * Returns the amount of turns started in this world.
+	 */
+	@Basic
+	public long getTurnCount() {
+		return this.turnCount;
+	}
+
+	private long turnCount = 0;
+
 	/**
 	 * Initialize next turn if possible.
 	 * If the worldState() isn't WorldState.PLAYING, do nothing.
@@ -397,6 +679,9 @@ public class World {
 	 * @post If the gameEnded the new world's worldState will be ENDED.
 	 * 			| if(gameEnded())
 	 *			| 	new.getState() = WorldState.ENDED;
+	 * @post If the new active worm has a program, the turn ends once it has been executed.
+	 * 			| if(!gameEnded() && new.getActiveWorm().hasProgram())
+	 * 			|	new.isNextTurnPending()
 	 *
 	 * @effect  Else set the next worm to active, clean DeadObjects and give the new worm its turn points.
 	 * 			| else
@@ -404,21 +689,27 @@ public class World {
 	 *			|	cleanDeadObjects()
 	 *			| 	this.getActiveWorm().giveTurnPoints()
 	 */
-	public void nextTurn() {
+	@Model
+	private void startTurn() {
 		if (this.getState() != WorldState.PLAYING)
 			return;
 		
-		if (gameEnded())
+		if (gameEnded()) {
 			this.state = WorldState.ENDED;
-		else {
+			for (WorldListener listener : listeners)
+				listener.gameEnded();
+		} else {
 			this.setLivingProjectile(null);
 			setActiveWorm(getNextWorm());
 			cleanDeadObjects(); // Important we do this after.
 			this.getActiveWorm().giveTurnPoints();
+			this.turnCount++;
+			for (WorldListener listener : listeners)
+				listener.turnStarted(this.getActiveWorm());
                         
                         if(this.getActiveWorm().hasProgram()) {
                             this.getActiveWorm().executeProgram();
-                            this.nextTurn();
+                            this.nextTurnPending = true;
                         }
 		}
 	}
@@ -580,9 +871,15 @@ public class World {
          * 
 	 * @post The living Projectile for the new world is equal to livingProjectile.
 	 * 			| new.getLivingProjectile() == livingProjectile
+	 * @effect The previous living Projectile is announced as removed to the listeners.
+	 * 			| if(this.getLivingProjectile() != null && this.getLivingProjectile() != livingProjectile)
+	 * 			|	this.notifyIfDead(this.getLivingProjectile())
 	 */
 	public void setLivingProjectile(Projectile livingProjectile) {
+		Projectile previous = this.livingProjectile;
 		this.livingProjectile = livingProjectile;
+		if (previous != null && previous != livingProjectile)
+			this.notifyIfDead(previous);
 	}
 
 	private Projectile livingProjectile;
@@ -601,9 +898,9 @@ public class World {
 	 *			| double startColumn = (position.getX() - radius)
 	 *			| double endRow = (position.getY() + radius)
 	 *			| double endColumn = (position.getX() + radius)
-	 *			| for double row = Math.max(startRow, 0) as long as Math.floor(row) <= Math.floor(endRow) && Math.floor(row/this.getScale()) < passableMap.length with step step.
-	 *			|	for double column = Math.max(startColumn, 0) as long as Math.floor(column) <= Math.floor(endColumn) && Math.floor(column/this.getScale()) < passableMap[0].length with step step.
-	 *			|		if (!passableMap[(int) Math.floor(row/this.getScale())][(int) Math.floor(column/this.getScale())])
+	 *			| for double row = Math.max(startRow, 0) as long as Math.floor(row) <= Math.floor(endRow) && Math.floor(row/this.getScale()) < this.getTerrain().getHeight() with step step.
+	 *			|	for double column = Math.max(startColumn, 0) as long as Math.floor(column) <= Math.floor(endColumn) && Math.floor(column/this.getScale()) < this.getTerrain().getWidth() with step step.
+	 *			|		if (!this.isPassablePixel((int) Math.floor(row/this.getScale()), (int) Math.floor(column/this.getScale())))
 	 *			|			if(Util.fuzzyLessThanOrEqualTo(Math.pow(row - position.getY(), 2)
 	 *			|				+ Math.pow(column - position.getX(), 2), Math.pow(radius, 2), 1E-15) && 
 	 *			|				!Util.fuzzyEquals(Math.pow(row - position.getY(), 2)
@@ -621,9 +918,9 @@ public class World {
 		double endRow = (position.getY() + radius);
 		double endColumn = (position.getX() + radius);
 
-		for (double row = Math.max(startRow, 0); Math.floor(row) <= Math.floor(endRow) && Math.floor(row/this.getScale()) < passableMap.length; row += step) {
-			for (double column = Math.max(startColumn, 0); Math.floor(column) <= Math.floor(endColumn) && Math.floor(column/this.getScale()) < passableMap[0].length; column += step) {
-				if (!passableMap[(int) Math.floor(row/this.getScale())][(int) Math.floor(column/this.getScale())]) {
+		for (double row = Math.max(startRow, 0); Math.floor(row) <= Math.floor(endRow) && Math.floor(row/this.getScale()) < terrain.getHeight(); row += step) {
+			for (double column = Math.max(startColumn, 0); Math.floor(column) <= Math.floor(endColumn) && Math.floor(column/this.getScale()) < terrain.getWidth(); column += step) {
+				if (!isPassablePixel((int) Math.floor(row/this.getScale()), (int) Math.floor(column/this.getScale()))) {
 					if(Util.fuzzyLessThanOrEqualTo(Math.pow(row - position.getY(), 2)
 							+ Math.pow(column - position.getX(), 2), Math.pow(radius, 2), 1E-15) 
 								&& !Util.fuzzyEquals(Math.pow(row - position.getY(), 2)
@@ -658,9 +955,9 @@ public class World {
 	 *			| double endRow = (position.getY() + checkingWidth)
 	 *			| double endColumn = (position.getX() + checkingWidth)
 	 *			|
-	 *			| for double row = Math.max(startRow, 0) as long as Math.floor(row) <= Math.floor(endRow) && Math.floor(row/this.getScale()) < passableMap.length with step step.
-	 *			|	for double column = Math.max(startColumn, 0) as long as Math.floor(column) <= Math.floor(endColumn) && Math.floor(column/this.getScale()) < passableMap[0].length with step step.
-	 *			|		if (!passableMap[(int) Math.floor(row/this.getScale())][(int) Math.floor(column/this.getScale())]
+	 *			| for double row = Math.max(startRow, 0) as long as Math.floor(row) <= Math.floor(endRow) && Math.floor(row/this.getScale()) < this.getTerrain().getHeight() with step step.
+	 *			|	for double column = Math.max(startColumn, 0) as long as Math.floor(column) <= Math.floor(endColumn) && Math.floor(column/this.getScale()) < this.getTerrain().getWidth() with step step.
+	 *			|		if (!this.isPassablePixel((int) Math.floor(row/this.getScale()), (int) Math.floor(column/this.getScale()))
 	 *			|			if(Util.fuzzyGreaterThanOrEqualTo((Math.pow(row - position.getY(), 2)
 	 *			|				+ Math.pow(column - position.getX(), 2)),Math.pow(radius, 2), 1E-15)
 	 *			|				&& Util.fuzzyLessThanOrEqualTo(Math.pow(row - position.getY(), 2)
@@ -681,9 +978,9 @@ public class World {
 		double endRow = (position.getY() + checkingWidth);
 		double endColumn = (position.getX() + checkingWidth);
 
-		for (double row = Math.max(startRow, 0); Math.floor(row) <= Math.floor(endRow) && Math.floor(row/this.getScale()) < passableMap.length; row += step) {
-			for (double column = Math.max(startColumn, 0); Math.floor(column) <= Math.floor(endColumn) && Math.floor(column/this.getScale()) < passableMap[0].length; column += step) {
-				if (!passableMap[(int) Math.floor(row/this.getScale())][(int) Math.floor(column/this.getScale())]) {
+		for (double row = Math.max(startRow, 0); Math.floor(row) <= Math.floor(endRow) && Math.floor(row/this.getScale()) < terrain.getHeight(); row += step) {
+			for (double column = Math.max(startColumn, 0); Math.floor(column) <= Math.floor(endColumn) && Math.floor(column/this.getScale()) < terrain.getWidth(); column += step) {
+				if (!isPassablePixel((int) Math.floor(row/this.getScale()), (int) Math.floor(column/this.getScale()))) {
 					if(Util.fuzzyGreaterThanOrEqualTo((Math.pow(row - position.getY(), 2)
 							+ Math.pow(column - position.getX(), 2)),Math.pow(radius, 2), 1E-15)
 								&& Util.fuzzyLessThanOrEqualTo(Math.pow(row - position.getY(), 2)
@@ -740,11 +1037,14 @@ public class World {
 	 * 			| return = result
 	 */
 	public ArrayList<Food> eatableFood(Position position, double radius) {
+		//Called for every position a worm is set to, so the living food is found without copying the list of GameObjects.
 		ArrayList<Food> result = new ArrayList<Food>();
-		for(Food food: this.getFood()) {
-			double distance = food.getPosition().distance(position);
-			if(distance < food.getRadius() + radius) {
-				result.add(food);
+		for(GameObject obj : gameObjList) {
+			if(obj instanceof Food && this.isLive(obj)) {
+				double distance = obj.getPosition().distance(position);
+				if(distance < obj.getRadius() + radius) {
+					result.add((Food) obj);
+				}
 			}
 		}
 		return result;
@@ -887,17 +1187,33 @@ public class World {
 	 */
 	@Model
 	private void cleanDeadObjects() {
-		for (GameObject obj : this.getGameObjects()) {
-			if (obj instanceof Projectile && obj != this.getLivingProjectile()) {
-				this.gameObjList.remove(obj);
-			} else if (!obj.isAlive() || !this.liesWithinBoundaries(obj)) {
-				this.gameObjList.remove(obj);
+		for (int i = gameObjList.size() - 1; i >= 0; i--) {
+			GameObject obj = gameObjList.get(i);
+			if (!this.isLive(obj)) {
+				this.removeGameObjectAt(i);
 				if(obj == this.getLivingProjectile())
 					this.setLivingProjectile(null);
 			}
 		}
 	}
 	
+	/**
+	 * Returns whether a GameObject in this world counts as living, the objects which aren't are removed by cleanDeadObjects().
+	 * 
+	 * @param obj The GameObject to check.
+	 * 
+	 * @return	| if (obj instanceof Projectile && obj != this.getLivingProjectile())
+	 * 			|	result == false
+	 * 			| else
+	 * 			|	result == obj.isAlive() && this.liesWithinBoundaries(obj)
+	 */
+	@Model
+	boolean isLive(GameObject obj) {
+		if (obj instanceof Projectile && obj != this.getLivingProjectile())
+			return false;
+		return obj.isAlive() && this.liesWithinBoundaries(obj);
+	}
+	
 	/**
 	 * Remove a gameObject from the GameObjects in this world.
 	 * 
@@ -916,10 +1232,11 @@ public class World {
 	public void remove(GameObject gameObject) throws IllegalArgumentException {
 		if(gameObject == null)
 			throw new IllegalArgumentException("The gameObject to remove musn't be a null reference");
-		if(!this.gameObjList.contains(gameObject))
+		int index = this.gameObjList.indexOf(gameObject);
+		if(index < 0)
 			throw new IllegalArgumentException("The GameObject wasn't in this world's List.");
 		
-		this.gameObjList.remove(gameObject);
+		this.removeGameObjectAt(index);
 		gameObject.removeWorld();
 	}
 
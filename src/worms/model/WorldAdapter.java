@@ -0,0 +1,36 @@
+package worms.model;
+
+import worms.model.world.entity.GameObject;
+
+/**
+ * A WorldListener ignoring every change, to extend by listeners that only need a few of them.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public abstract class WorldAdapter implements WorldListener {
+
+	@Override
+	public void objectAdded(GameObject object) {
+	}
+
+	@Override
+	public void objectRemoved(GameObject object) {
+	}
+
+	@Override
+	public void objectMoved(GameObject object) {
+	}
+
+	@Override
+	public void wormChanged(Worm worm) {
+	}
+
+	@Override
+	public void turnStarted(Worm worm) {
+	}
+
+	@Override
+	public void gameEnded() {
+	}
+}
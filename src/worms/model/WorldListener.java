@@ -0,0 +1,57 @@
+package worms.model;
+
+import worms.model.world.entity.GameObject;
+
+/**
+ * Listens to the changes of a world and the objects in it, see World.addListener(WorldListener).
+ *
+ * The listeners are notified on the thread changing the world, right after the change. Objects that were already in
+ * the world when a listener was added aren't announced to it, they can be read with World.getGameObjects().
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public interface WorldListener {
+
+	/**
+	 * A GameObject has been added to the world.
+	 *
+	 * @param object The added object.
+	 */
+	void objectAdded(GameObject object);
+
+	/**
+	 * A GameObject left the world or stopped being alive in it (e.g. eaten food, a dead worm or a spent projectile).
+	 * This is reported once per object, it isn't reported again when the world cleans it up.
+	 *
+	 * @param object The removed object.
+	 */
+	void objectRemoved(GameObject object);
+
+	/**
+	 * A GameObject in the world moved.
+	 *
+	 * @param object The object that moved.
+	 */
+	void objectMoved(GameObject object);
+
+	/**
+	 * A property of a worm other than its position changed: its hit points, action points, direction, radius, name,
+	 * team or selected weapon.
+	 *
+	 * @param worm The worm that changed.
+	 */
+	void wormChanged(Worm worm);
+
+	/**
+	 * A new turn started.
+	 *
+	 * @param worm The worm that has the turn.
+	 */
+	void turnStarted(Worm worm);
+
+	/**
+	 * The game in the world ended.
+	 */
+	void gameEnded();
+}
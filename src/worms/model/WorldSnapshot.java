@@ -0,0 +1,686 @@
+package worms.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import worms.gui.game.IActionHandler;
+import worms.model.equipment.weapons.Weapon;
+import worms.model.program.ProgramImage;
+import worms.model.program.Variable;
+import worms.model.program.bytecode.Bytecode;
+import worms.model.program.bytecode.VirtualMachine;
+import worms.model.program.statements.ConditionalStatement;
+import worms.model.program.statements.MultipleStatement;
+import worms.model.program.statements.Statement;
+import worms.model.programs.ParseOutcome;
+import worms.model.world.Terrain;
+import worms.model.world.TerrainBitmap;
+import worms.model.world.WorldState;
+import worms.model.world.entity.GameObject;
+import worms.model.world.entity.WeaponProjectile;
+import worms.util.BinaryInput;
+import worms.util.BinaryOutput;
+import worms.util.Position;
+
+/**
+ * Saves the full state of a world to a compact binary snapshot and loads it again.
+ *
+ * A snapshot holds the terrain (bit-packed and deflated), the random generator, the teams, every living GameObject in
+ * the order of the world, the active worm, the state and the turn count. Worms are saved with their program: the text or
+ * precompiled image it was built from, the values of its variables and the statement it resumes at.
+ * Snapshots are read from a memory-mapped file. Every distinct program is compiled to an image once while loading, the
+ * programs of the worms are built from that image. The images of the last few program texts loaded are kept, so they
+ * aren't parsed again by the next load.
+ *
+ * The random generator is saved through serialization, so only a plain java.util.Random can be saved and loaded, a
+ * snapshot holding any other class is rejected.
+ *
+ * A program executed by a virtual machine that is suspended inside a for-each loop can't be resumed there,
+ * it starts over from the beginning (with its variables kept) after loading.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class WorldSnapshot {
+
+	private WorldSnapshot() {
+	}
+
+	/**
+	 * The first four bytes of every snapshot, "WRMS".
+	 */
+	public static final int MAGIC = 0x57524D53;
+
+	/**
+	 * The version of the snapshots written by this class, only this version can be read.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The extension of snapshot files.
+	 */
+	public static final String FILE_EXTENSION = ".wsv";
+
+	private static final int WORM = 1, FOOD = 2, PROJECTILE = 3;
+	private static final int SOURCE = 0, IMAGE = 1;
+	private static final int INTERPRETED = 0, MACHINE = 1;
+	private static final int NULL = 0, DOUBLE = 1, FALSE = 2, TRUE = 3, ENTITY = 4;
+
+	/**
+	 * The number of program texts whose compiled image is kept between loads.
+	 */
+	private static final int COMPILED_CACHE_SIZE = 32;
+
+	/**
+	 * The images compiled from the program texts of the snapshots loaded so far, the least recently used dropped first.
+	 * An image never changes once compiled, so loading the snapshots of one match again doesn't parse its programs again.
+	 */
+	private static final Map<String, ProgramImage> compiled = new LinkedHashMap<String, ProgramImage>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ProgramImage> eldest) {
+			return size() > COMPILED_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Save a world to a file.
+	 *
+	 * @param world The world to save.
+	 * @param file The file to save to, it is overwritten.
+	 * @throws IOException
+	 * 			When the file can't be written.
+	 * @throws IllegalArgumentException
+	 * 			| world == null || world.getRandom().getClass() != Random.class
+	 */
+	public static void save(World world, File file) throws IOException, IllegalArgumentException {
+		ByteBuffer snapshot = write(world);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while(snapshot.hasRemaining())
+				channel.write(snapshot);
+		}
+	}
+
+	/**
+	 * Load a world from a file, the file is memory-mapped.
+	 *
+	 * @param file The file to load.
+	 * @param handler The handler to perform the actions of the programs of the worms with.
+	 * @return The world.
+	 * @throws IOException
+	 * 			When the file can't be read or isn't a snapshot of this version.
+	 */
+	public static World load(File file, IActionHandler handler) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), handler);
+		}
+	}
+
+	/**
+	 * Write a snapshot of a world.
+	 *
+	 * @param world The world to save.
+	 * @return A buffer holding the snapshot, from its position to its limit.
+	 * @throws IllegalArgumentException
+	 * 			| world == null || world.getRandom().getClass() != Random.class
+	 */
+	public static ByteBuffer write(World world) throws IllegalArgumentException {
+		if(world == null)
+			throw new IllegalArgumentException("The world musn't be a null reference.");
+		if(world.getRandom().getClass() != Random.class)
+			throw new IllegalArgumentException("Only a world with a java.util.Random as its random generator can be saved.");
+
+		List<GameObject> objects = new ArrayList<>();
+		for(GameObject object : world.getGameObjects()) {
+			if(world.isLive(object))
+				objects.add(object);
+		}
+		Map<Object, Integer> indices = new IdentityHashMap<>();
+		for(int i = 0; i < objects.size(); i++)
+			indices.put(objects.get(i), i);
+
+		Terrain terrain = world.getTerrain();
+		BinaryOutput out = new BinaryOutput(256 + 64 * objects.size());
+		out.putInt(MAGIC);
+		out.putByte(VERSION);
+
+		out.putDouble(world.getWidth());
+		out.putDouble(world.getHeight());
+		out.putVarInt(terrain.getHeight());
+		out.putVarInt(terrain.getWidth());
+		out.putBytes(deflate(terrain));
+		out.putBytes(serialize(world.getRandom()));
+
+		List<Team> teams = world.getTeams();
+		out.putVarInt(teams.size());
+		for(Team team : teams)
+			out.putString(team.getName());
+
+		//The distinct programs, most worms share theirs with others.
+		List<Program> programs = new ArrayList<>();
+		List<Object> sources = new ArrayList<>();
+		Map<Object, Integer> sourceIndices = new HashMap<>();
+		for(GameObject object : objects) {
+			if(object instanceof Worm && ((Worm) object).hasProgram()) {
+				Program program = ((Worm) object).getProgram();
+				programs.add(program);
+				Object source = program.getSource() != null ? program.getSource() : program.getImage();
+				if(source != null && !sourceIndices.containsKey(source)) {
+					sourceIndices.put(source, sources.size());
+					sources.add(source);
+				}
+			}
+		}
+		out.putVarInt(sources.size());
+		for(Object source : sources) {
+			if(source instanceof String) {
+				out.putByte(SOURCE);
+				out.putString((String) source);
+			} else {
+				out.putByte(IMAGE);
+				ByteArrayOutputStream image = new ByteArrayOutputStream();
+				try {
+					((ProgramImage) source).write(image);
+				} catch(IOException ex) {
+					throw new IllegalStateException("The image couldn't be written to memory.", ex);
+				}
+				out.putBytes(image.toByteArray());
+			}
+		}
+
+		out.putVarInt(objects.size());
+		for(GameObject object : objects) {
+			if(object instanceof Worm) {
+				Worm worm = (Worm) object;
+				out.putByte(WORM);
+				out.putDouble(worm.getPosition().getX());
+				out.putDouble(worm.getPosition().getY());
+				out.putDouble(worm.getAngle());
+				out.putDouble(worm.getRadius());
+				out.putString(worm.getName());
+				out.putVarInt(worm.getCurrentActionPoints());
+				out.putVarInt(worm.getCurrentHitPoints());
+				out.putVarInt(worm.getWeaponList().indexOf(worm.getCurrentWeapon()) + 1);
+				out.putVarInt(teams.indexOf(worm.getTeam()) + 1);
+				Program program = worm.getProgram();
+				if(program == null) {
+					out.putVarInt(0);
+				} else {
+					Object source = program.getSource() != null ? program.getSource() : program.getImage();
+					if(source == null)
+						throw new IllegalArgumentException("The program of " + worm.getName() + " wasn't built from a text or an image.");
+					out.putVarInt(sourceIndices.get(source) + 1);
+					out.putByte(program.getMachine() != null ? MACHINE : INTERPRETED);
+				}
+			} else if(object instanceof Food) {
+				out.putByte(FOOD);
+				out.putDouble(object.getPosition().getX());
+				out.putDouble(object.getPosition().getY());
+			} else if(object instanceof WeaponProjectile) {
+				WeaponProjectile projectile = (WeaponProjectile) object;
+				Weapon weapon = projectile.getUsedWeapon();
+				out.putByte(PROJECTILE);
+				out.putDouble(projectile.getPosition().getX());
+				out.putDouble(projectile.getPosition().getY());
+				out.putDouble(projectile.getAngle());
+				out.putDouble(projectile.getForceTime());
+				out.putDouble(projectile.getPropulsionYield());
+				out.putVarInt(indices.get(weapon.getOwner()));
+				out.putVarInt(weapon.getOwner().getWeaponList().indexOf(weapon));
+			} else {
+				throw new IllegalArgumentException("Objects of " + object.getClass().getSimpleName() + " can't be saved.");
+			}
+		}
+
+		//The resume points refer to the objects, so they come after all of them.
+		for(Program program : programs) {
+			if(program.getMachine() != null)
+				writeMachine(out, program.getMachine(), indices);
+			else
+				writeInterpreted(out, program, indices);
+		}
+
+		out.putByte(world.getState().ordinal());
+		Integer active = indices.get(world.getActiveWorm());
+		out.putVarInt(active == null ? 0 : active + 1);
+		out.putVarLong(world.getTurnCount());
+
+		return out.toBuffer();
+	}
+
+	private static void writeInterpreted(BinaryOutput out, Program program, Map<Object, Integer> indices) {
+		out.putByte(program.isFinished() ? 1 : 0);
+		int last = -1;
+		if(program.getLastStatement() != null)
+			last = statements(program).indexOf(program.getLastStatement());
+		out.putVarInt(last + 1);
+
+		out.putVarInt(program.getGlobals().size());
+		for(Map.Entry<String, ? extends Variable<?>> global : program.getGlobals().entrySet()) {
+			out.putString(global.getKey());
+			putValue(out, global.getValue().getValue(), indices);
+		}
+	}
+
+	private static void writeMachine(BinaryOutput out, VirtualMachine machine, Map<Object, Integer> indices) {
+		Bytecode bytecode = machine.getBytecode();
+		out.putVarInt(machine.isIterating() ? 0 : machine.getProgramCounter());
+		for(int i = 0; i < bytecode.getDoubleRegisters(); i++)
+			out.putDouble(machine.getDouble(i));
+		for(int i = 0; i < bytecode.getBooleanRegisters(); i++)
+			out.putByte(machine.getBoolean(i) ? 1 : 0);
+		for(int i = 0; i < bytecode.getEntityRegisters(); i++) {
+			Integer index = indices.get(machine.getEntity(i));
+			out.putVarInt(index == null ? 0 : index + 1);
+		}
+	}
+
+	private static void putValue(BinaryOutput out, Object value, Map<Object, Integer> indices) {
+		if(value instanceof Double) {
+			out.putByte(DOUBLE);
+			out.putDouble((Double) value);
+		} else if(value instanceof Boolean) {
+			out.putByte((Boolean) value ? TRUE : FALSE);
+		} else if(value != null && indices.containsKey(value)) {
+			out.putByte(ENTITY);
+			out.putVarInt(indices.get(value));
+		} else {
+			//Also entities that died since they were assigned, they aren't saved.
+			out.putByte(NULL);
+		}
+	}
+
+	/**
+	 * Read a snapshot of a world.
+	 *
+	 * @param snapshot The snapshot, from its position to its limit.
+	 * @param handler The handler to perform the actions of the programs of the worms with.
+	 * @return The world.
+	 * @throws IOException
+	 * 			When the snapshot is malformed or of another version.
+	 */
+	public static World read(ByteBuffer snapshot, IActionHandler handler) throws IOException {
+		try {
+			return new Input(snapshot, handler).readWorld();
+		} catch(IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException | ClassCastException ex) {
+			throw new IOException("The snapshot is malformed: " + ex.getMessage(), ex);
+		}
+	}
+
+	private static class Input {
+
+		private Input(ByteBuffer buffer, IActionHandler handler) {
+			this.in = new BinaryInput(buffer, "the snapshot");
+			this.handler = handler;
+		}
+
+		private final BinaryInput in;
+		private final IActionHandler handler;
+
+		private World readWorld() throws IOException {
+			if(in.remaining() < 5 || in.getInt() != MAGIC)
+				throw new IOException("This isn't a world snapshot.");
+			int version = in.getByte();
+			if(version != VERSION)
+				throw new IOException("World snapshots of version " + version + " aren't supported.");
+
+			double width = in.getDouble();
+			double height = in.getDouble();
+			int rows = in.getVarInt();
+			int columns = in.getVarInt();
+			long length = ((long) rows * columns + 7) / 8;
+			if(length > Integer.MAX_VALUE)
+				throw new IOException("The terrain in the snapshot is too large.");
+			TerrainBitmap terrain = unpack(inflate(in.getBytes(), (int) length), rows, columns);
+			Random random = deserialize(in.getBytes());
+			World world = new World(width, height, terrain, random);
+
+			int teamCount = in.getVarInt();
+			List<Team> teams = new ArrayList<>(teamCount);
+			for(int i = 0; i < teamCount; i++) {
+				Team team = new Team(in.getString());
+				world.add(team);
+				teams.add(team);
+			}
+
+			int sourceCount = in.getVarInt();
+			List<String> texts = new ArrayList<>(sourceCount);
+			List<ProgramImage> images = new ArrayList<>(sourceCount);
+			for(int i = 0; i < sourceCount; i++) {
+				int kind = in.getByte();
+				if(kind == SOURCE) {
+					String text = in.getString();
+					texts.add(text);
+					images.add(compile(text));
+				} else if(kind == IMAGE) {
+					texts.add(null);
+					images.add(ProgramImage.read(new ByteArrayInputStream(in.getBytes())));
+				} else {
+					throw new IOException("Unknown kind of program " + kind + ".");
+				}
+			}
+
+			//Worms are created before the food, so none of it is eaten while restoring. The order is restored afterwards.
+			int objectCount = in.getVarInt();
+			GameObject[] objects = new GameObject[objectCount];
+			List<Worm> programWorms = new ArrayList<>();
+			List<Integer> foodIndices = new ArrayList<>();
+			List<Position> foodPositions = new ArrayList<>();
+			int projectileIndex = -1;
+			double[] projectile = null;
+			for(int i = 0; i < objectCount; i++) {
+				int kind = in.getByte();
+				if(kind == WORM) {
+					Position position = new Position(in.getDouble(), in.getDouble());
+					double angle = in.getDouble();
+					double radius = in.getDouble();
+					String name = in.getString();
+					int actionPoints = in.getVarInt();
+					int hitPoints = in.getVarInt();
+					int weapon = in.getVarInt() - 1;
+					int team = in.getVarInt() - 1;
+					int source = in.getVarInt() - 1;
+					Program program = null;
+					if(source >= 0)
+						program = buildProgram(texts.get(source), images.get(source), in.getByte() == MACHINE);
+
+					Worm worm = new Worm(world, position, angle, radius, name, actionPoints, hitPoints, program);
+					if(weapon >= 0)
+						worm.setCurrentWeapon(worm.getWeaponList().get(weapon));
+					if(team >= 0)
+						teams.get(team).add(worm);
+					if(program != null)
+						programWorms.add(worm);
+					objects[i] = worm;
+				} else if(kind == FOOD) {
+					foodIndices.add(i);
+					foodPositions.add(new Position(in.getDouble(), in.getDouble()));
+				} else if(kind == PROJECTILE) {
+					if(projectile != null)
+						throw new IOException("The snapshot holds more than one living projectile.");
+					projectileIndex = i;
+					projectile = new double[] { in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble(),
+							in.getDouble(), in.getVarInt(), in.getVarInt() };
+				} else {
+					throw new IOException("Unknown kind of object " + kind + ".");
+				}
+			}
+			for(int i = 0; i < foodIndices.size(); i++)
+				objects[foodIndices.get(i)] = new Food(world, foodPositions.get(i));
+			Projectile livingProjectile = null;
+			if(projectile != null) {
+				Worm owner = (Worm) objects[(int) projectile[5]];
+				livingProjectile = new WeaponProjectile(new Position(projectile[0], projectile[1]), projectile[2],
+						projectile[3], projectile[4], owner.getWeaponList().get((int) projectile[6]));
+				objects[projectileIndex] = livingProjectile;
+			}
+
+			for(Worm worm : programWorms) {
+				if(worm.getProgram().getMachine() != null)
+					readMachine(worm.getProgram().getMachine(), objects);
+				else
+					readInterpreted(worm.getProgram(), objects);
+			}
+
+			int state = in.getByte();
+			if(state >= WorldState.values().length)
+				throw new IOException("Unknown state " + state + ".");
+			int active = in.getVarInt() - 1;
+			long turnCount = in.getVarLong();
+			List<GameObject> order = new ArrayList<>(objectCount);
+			for(GameObject object : objects)
+				order.add(object);
+			world.restore(order, WorldState.values()[state], active < 0 ? null : (Worm) objects[active], livingProjectile, turnCount);
+			return world;
+		}
+
+		private ProgramImage compile(String text) throws IOException {
+			synchronized(compiled) {
+				ProgramImage image = compiled.get(text);
+				if(image != null)
+					return image;
+			}
+
+			List<String> errors = new ArrayList<>();
+			ProgramImage image = ProgramImage.compile(text, errors);
+			if(image == null)
+				throw new IOException("A program in the snapshot doesn't compile: " + errors);
+			synchronized(compiled) {
+				compiled.put(text, image);
+			}
+			return image;
+		}
+
+		private Program buildProgram(String text, ProgramImage image, boolean machine) throws IOException {
+			ParseOutcome<?> outcome;
+			if(machine)
+				outcome = Program.compileProgram(image, handler);
+			else
+				outcome = Program.loadProgram(image, handler, false, null);
+			if(!outcome.isSuccess())
+				throw new IOException("A program in the snapshot doesn't compile: " + outcome.getResult());
+
+			Program program = (Program) outcome.getResult();
+			if(text != null)
+				program.setSource(text);
+			return program;
+		}
+
+		private void readInterpreted(Program program, GameObject[] objects) throws IOException {
+			program.setFinished(in.getByte() != 0);
+			int last = in.getVarInt() - 1;
+			if(last >= 0) {
+				Statement statement = statements(program).get(last);
+				if(!(statement instanceof ConditionalStatement))
+					throw new IOException("The program doesn't resume at a conditional statement.");
+				program.setLastStatement((ConditionalStatement) statement);
+			}
+
+			int globalCount = in.getVarInt();
+			for(int i = 0; i < globalCount; i++) {
+				String name = in.getString();
+				Object value = getValue(objects);
+				Variable<?> variable = program.getGlobals().get(name);
+				if(variable == null)
+					throw new IOException("The program hasn't got a variable " + name + ".");
+				if(value != null)
+					setValue(variable, value);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void setValue(Variable<?> variable, Object value) throws IOException {
+			if(!variable.getType().isInstance(value))
+				throw new IOException("The value of " + value + " doesn't fit its variable.");
+			((Variable<Object>) variable).setValue(value);
+		}
+
+		private Object getValue(GameObject[] objects) throws IOException {
+			int type = in.getByte();
+			switch(type) {
+			case NULL:
+				return null;
+			case DOUBLE:
+				return in.getDouble();
+			case FALSE:
+				return false;
+			case TRUE:
+				return true;
+			case ENTITY:
+				return objects[in.getVarInt()];
+			default:
+				throw new IOException("Unknown type of value " + type + ".");
+			}
+		}
+
+		private void readMachine(VirtualMachine machine, GameObject[] objects) throws IOException {
+			Bytecode bytecode = machine.getBytecode();
+			int pc = in.getVarInt();
+			double[] doubles = new double[bytecode.getDoubleRegisters()];
+			for(int i = 0; i < doubles.length; i++)
+				doubles[i] = in.getDouble();
+			boolean[] booleans = new boolean[bytecode.getBooleanRegisters()];
+			for(int i = 0; i < booleans.length; i++)
+				booleans[i] = in.getByte() != 0;
+			Entity[] entities = new Entity[bytecode.getEntityRegisters()];
+			for(int i = 0; i < entities.length; i++) {
+				int index = in.getVarInt() - 1;
+				entities[i] = index < 0 ? null : (Entity) objects[index];
+			}
+			machine.restore(pc, doubles, booleans, entities);
+		}
+	}
+
+	/**
+	 * All statements of an interpreted program, in preorder. A resume point is saved as its index in this list.
+	 */
+	private static List<Statement> statements(Program program) {
+		List<Statement> result = new ArrayList<>();
+		List<Statement> stack = new ArrayList<>();
+		stack.add(program.getMainStatement());
+		while(!stack.isEmpty()) {
+			Statement statement = stack.remove(stack.size() - 1);
+			result.add(statement);
+			if(statement instanceof MultipleStatement) {
+				List<Statement> children = ((MultipleStatement) statement).getStatements();
+				for(int i = children.size() - 1; i >= 0; i--)
+					stack.add(children.get(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Pack the pixels of a terrain into bits, row by row and most significant bit first, and deflate them. The bits
+	 * are deflated as the terrain is read, so a large or chunked terrain isn't copied.
+	 */
+	private static byte[] deflate(Terrain terrain) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			ByteArrayOutputStream result = new ByteArrayOutputStream();
+			DeflaterOutputStream out = new DeflaterOutputStream(result, deflater, 8192);
+			byte[] bits = new byte[8192];
+			int bit = 0;
+			for(int row = 0; row < terrain.getHeight(); row++) {
+				for(int column = 0; column < terrain.getWidth(); column++) {
+					if(terrain.isPassable(row, column))
+						bits[bit >>> 3] |= 0x80 >>> (bit & 7);
+					if(++bit == 8 * bits.length) {
+						out.write(bits);
+						Arrays.fill(bits, (byte) 0);
+						bit = 0;
+					}
+				}
+			}
+			out.write(bits, 0, (bit + 7) / 8);
+			out.finish();
+			return result.toByteArray();
+		} catch(IOException ex) {
+			throw new IllegalStateException("The terrain couldn't be written to memory.", ex);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Returns a bitmap of the given packed bits, see deflate(Terrain).
+	 */
+	private static TerrainBitmap unpack(final byte[] bits, final int rows, final int columns) {
+		return TerrainBitmap.copyOf(new Terrain() {
+
+			@Override
+			public int getWidth() {
+				return columns;
+			}
+
+			@Override
+			public int getHeight() {
+				return rows;
+			}
+
+			@Override
+			public boolean isPassable(int row, int column) {
+				long bit = (long) row * columns + column;
+				return (bits[(int) (bit >>> 3)] & (0x80 >>> (bit & 7))) != 0;
+			}
+		});
+	}
+
+	private static byte[] inflate(byte[] data, int length) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+			byte[] result = new byte[length];
+			int read = 0;
+			while(read < length && !inflater.finished()) {
+				int count = inflater.inflate(result, read, length - read);
+				if(count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				read += count;
+			}
+			if(read != length)
+				throw new IOException("The terrain in the snapshot is truncated.");
+			return result;
+		} catch(DataFormatException ex) {
+			throw new IOException("The terrain in the snapshot is malformed.", ex);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * The state of a Random can only be read through serialization.
+	 */
+	private static byte[] serialize(Random random) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(random);
+		} catch(IOException ex) {
+			throw new IllegalStateException("The random generator couldn't be written to memory.", ex);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Only a java.util.Random is read, any other class in the snapshot is rejected before it's loaded, so a crafted
+	 * snapshot can't make it deserialize arbitrary objects.
+	 */
+	private static Random deserialize(byte[] bytes) throws IOException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+
+			@Override
+			protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+				if(!description.getName().equals(Random.class.getName()))
+					throw new InvalidClassException(description.getName(), "Only a java.util.Random can be read from a snapshot.");
+				return super.resolveClass(description);
+			}
+		}) {
+			return (Random) in.readObject();
+		} catch(ClassNotFoundException ex) {
+			throw new IOException("The random generator in the snapshot can't be read.", ex);
+		}
+	}
+}
@@ -388,7 +388,10 @@ public class Worm extends GameObject implements Entity {
 	 */
 	private void setAngle(double angle) {
 		assert isValidAngle(angle);
+		if (angle == this.angle)
+			return;
 		this.angle = angle;
+		this.notifyChanged();
 	}
 
 	private double angle;
@@ -422,7 +425,10 @@ public class Worm extends GameObject implements Entity {
 			throw new IllegalArgumentException("The radius has to be greater than or equal to the minimum radius " + this.minRadius);
 		if (Double.isNaN(radius))
 			throw new IllegalArgumentException("The radius must be a number.");
+		if (radius == this.radius)
+			return;
 		this.radius = radius;
+		this.notifyChanged();
 	}
 
 	/**
@@ -482,7 +488,10 @@ public class Worm extends GameObject implements Entity {
 	public void setName(String name) throws IllegalArgumentException {
 		if (!isValidName(name))
 			throw new IllegalArgumentException("Invalid name.");
+		if (name.equals(this.name))
+			return;
 		this.name = name;
+		this.notifyChanged();
 	}
 
 	/**
@@ -526,7 +535,8 @@ public class Worm extends GameObject implements Entity {
 	 * @post	If the hitPoints is less than zero, zero will be set for the new Worm's HP.
 	 * 			| if(hitPoints < 0)
 	 * 			| new.getCurrentHitPoints() == 0
-	 * @effect If hitPoints is less than or equal to zero, the currentHP is different and the active worm in the world is this one, call this.getWorld().nextTurn().
+	 * @effect If hitPoints is less than or equal to zero, the currentHP is different and the active worm in the world is this one, end the turn.
+	 * 			When the turn is already being changed (e.g. while executing a program) this only raises the pending flag of the world.
 	 * 			| if(hitPoints <= 0 && this.getCurrentHitPoints() > hitPoints && this.getWorld() != null && this.getWorld().getActiveWorm() == this)
 	 * 			|		this.getWorld().nextTurn()
 	 */
@@ -534,6 +544,8 @@ public class Worm extends GameObject implements Entity {
 	private void setCurrentHitPoints(int hitPoints) {
 		int oldHP = this.currentHitPoints;
 		this.currentHitPoints = (hitPoints <= 0) ? 0 : Math.min(hitPoints, getMaximumHitPoints());
+		if (this.currentHitPoints != oldHP)
+			this.notifyChanged();
 		if (hitPoints <= 0 && oldHP > hitPoints && this.getWorld() != null && this.getWorld().getActiveWorm() == this) //so this doesn't get called by this.getCurrentHP()
 				this.getWorld().nextTurn();
 	}
@@ -584,7 +596,8 @@ public class Worm extends GameObject implements Entity {
 	 *      	| if(actionPoints > 0)
 	 *      	| 	new.getCurrentActionPoints() == Math.min(actionPoints,this.getMaximumActionPoints)
 	 * 
-	 * @effect If actionPoints is less than or equal to zero, the currentAP is different and the active worm is this one, call this.getWorld().nextTurn().
+	 * @effect If actionPoints is less than or equal to zero, the currentAP is different and the active worm is this one, end the turn.
+	 * 			When the turn is already being changed (e.g. while executing a program) this only raises the pending flag of the world.
 	 * 			| if(actionPoints <= 0 && this.getCurrentActionPoints() > actionPoints && this.getWorld() != null && this.getWorld().getActiveWorm() == this)
 	 * 			|		this.getWorld().nextTurn()
 	 */
@@ -592,6 +605,8 @@ public class Worm extends GameObject implements Entity {
 	private void setCurrentActionPoints(int actionPoints) {
 		int oldAP = this.currentActionPoints;
 		this.currentActionPoints = (actionPoints <= 0) ? 0 : Math.min(actionPoints, getMaximumActionPoints());
+		if (this.currentActionPoints != oldAP)
+			this.notifyChanged();
 		
 		if (actionPoints <= 0 && oldAP > actionPoints && this.getWorld() != null && this.getWorld().getActiveWorm() == this) //so this doesn't get called by this.getCurrentAP()
 				this.getWorld().nextTurn();
@@ -653,7 +668,10 @@ public class Worm extends GameObject implements Entity {
 	public void setTeam(Team team) throws IllegalArgumentException {
 		if (!team.isMember(this))
 			throw new IllegalArgumentException("This worm also has to be a member of the team.");
+		if (team == this.team)
+			return;
 		this.team = team;
+		this.notifyChanged();
 	}
 
 	/**
@@ -721,7 +739,23 @@ public class Worm extends GameObject implements Entity {
 			throw new IllegalArgumentException("The weapon provided to set to isn't allowed to be a null reference.");
 		if (!weaponList.contains(weapon))
 			throw new IllegalArgumentException("The weapon must be in our weaponList.");
-		this.currentWeaponIndex = weaponList.indexOf(weapon);
+		int index = weaponList.indexOf(weapon);
+		if (index == this.currentWeaponIndex)
+			return;
+		this.currentWeaponIndex = index;
+		this.notifyChanged();
+	}
+
+	/**
+	 * Notify the listeners of the world of this worm that a property other than its position changed.
+	 * 
+	 * @effect | if(this.getWorld() != null)
+	 * 			|	this.getWorld().notifyChanged(this)
+	 */
+	@Model
+	private void notifyChanged() {
+		if (this.getWorld() != null)
+			this.getWorld().notifyChanged(this);
 	}
 
 	private int currentWeaponIndex = -1;
@@ -1020,12 +1054,16 @@ public class Worm extends GameObject implements Entity {
 	 * 
 	 * @effect set the position for the worm.
 	 * 		| super.setPosition(position)
+	 * @effect The listeners of the world of this worm are notified it moved.
+	 * 		| if(this.getWorld() != null)
+	 * 		|	this.getWorld().notifyMoved(this)
 	 */
         @Override
 	public void setPosition(Position position) {
 		super.setPosition(position);
 		
 		if(this.getWorld() != null) {
+			this.getWorld().notifyMoved(this);
 			for(Food food : this.getWorld().eatableFood(this.getPosition(), this.getRadius())) {
 				this.setRadius(Constants.FOOD_RADIUS_GROWTH*this.getRadius());
 				food.setToEaten();
@@ -1142,6 +1180,14 @@ public class Worm extends GameObject implements Entity {
     public boolean hasProgram() {
         return this.program != null;
     }
+
+    /**
+     * Returns the program of this worm, null if it hasn't got one.
+     */
+    @Basic
+    public Program getProgram() {
+        return this.program;
+    }
     
     private Program program;
 	
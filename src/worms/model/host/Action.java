@@ -0,0 +1,138 @@
+package worms.model.host;
+
+import worms.model.Worm;
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * An action an external controller submits for a worm in a hosted match, see Match.submit(Action).
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class Action {
+
+	/**
+	 * The kinds of actions, the same as the actions of a program plus ending the turn.
+	 */
+	public static enum Kind {
+		TURN, MOVE, JUMP, FIRE, TOGGLE_WEAPON, END_TURN
+	}
+
+	private Action(Kind kind, Worm worm, double angle, int propulsion) throws IllegalArgumentException {
+		if(worm == null)
+			throw new IllegalArgumentException("The worm musn't be a null reference.");
+
+		this.kind = kind;
+		this.worm = worm;
+		this.angle = angle;
+		this.propulsion = propulsion;
+	}
+
+	/**
+	 * Returns an action turning a worm.
+	 *
+	 * @param worm The worm to turn.
+	 * @param angle The angle to turn by.
+	 * @throws IllegalArgumentException
+	 * 			| worm == null
+	 */
+	public static Action turn(Worm worm, double angle) throws IllegalArgumentException {
+		return new Action(Kind.TURN, worm, angle, 0);
+	}
+
+	/**
+	 * Returns an action moving a worm.
+	 *
+	 * @param worm The worm to move.
+	 * @throws IllegalArgumentException
+	 * 			| worm == null
+	 */
+	public static Action move(Worm worm) throws IllegalArgumentException {
+		return new Action(Kind.MOVE, worm, 0, 0);
+	}
+
+	/**
+	 * Returns an action letting a worm jump.
+	 *
+	 * @param worm The worm to jump.
+	 * @throws IllegalArgumentException
+	 * 			| worm == null
+	 */
+	public static Action jump(Worm worm) throws IllegalArgumentException {
+		return new Action(Kind.JUMP, worm, 0, 0);
+	}
+
+	/**
+	 * Returns an action letting a worm fire its current weapon.
+	 *
+	 * @param worm The worm to fire.
+	 * @param propulsion The propulsion yield to fire with.
+	 * @throws IllegalArgumentException
+	 * 			| worm == null
+	 */
+	public static Action fire(Worm worm, int propulsion) throws IllegalArgumentException {
+		return new Action(Kind.FIRE, worm, 0, propulsion);
+	}
+
+	/**
+	 * Returns an action selecting the next weapon of a worm.
+	 *
+	 * @param worm The worm.
+	 * @throws IllegalArgumentException
+	 * 			| worm == null
+	 */
+	public static Action toggleWeapon(Worm worm) throws IllegalArgumentException {
+		return new Action(Kind.TOGGLE_WEAPON, worm, 0, 0);
+	}
+
+	/**
+	 * Returns an action ending the turn of a worm.
+	 *
+	 * @param worm The worm.
+	 * @throws IllegalArgumentException
+	 * 			| worm == null
+	 */
+	public static Action endTurn(Worm worm) throws IllegalArgumentException {
+		return new Action(Kind.END_TURN, worm, 0, 0);
+	}
+
+	/**
+	 * Returns the kind of this action.
+	 */
+	@Basic
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	private final Kind kind;
+
+	/**
+	 * Returns the worm performing this action.
+	 */
+	@Basic
+	public Worm getWorm() {
+		return this.worm;
+	}
+
+	private final Worm worm;
+
+	/**
+	 * Returns the angle to turn by, only used by TURN.
+	 */
+	@Basic
+	public double getAngle() {
+		return this.angle;
+	}
+
+	private final double angle;
+
+	/**
+	 * Returns the propulsion yield to fire with, only used by FIRE.
+	 */
+	@Basic
+	public int getPropulsion() {
+		return this.propulsion;
+	}
+
+	private final int propulsion;
+}
@@ -0,0 +1,504 @@
+package worms.model.host;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import worms.gui.game.IActionHandler;
+import worms.model.DirectActionHandler;
+import worms.model.Facade;
+import worms.model.Program;
+import worms.model.Team;
+import worms.model.World;
+import worms.model.Worm;
+import worms.model.programs.ParseOutcome;
+import worms.model.world.Terrain;
+import worms.model.world.WorldState;
+import worms.util.Position;
+
+/**
+ * A match hosted by a MatchHost.
+ *
+ * A match is set up on the thread that created it: teams, worms and food are added before it is started. After that
+ * its world is only touched by the slices the host runs, one at a time, and external controllers only interact with it
+ * by submitting actions for their worms. Actions of a worm that hasn't got the turn are ignored.
+ *
+ * Worms with a program are played by the match itself instead of by the world, so the world never plays more than
+ * one turn at a time and the match can yield to other matches between turns.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class Match {
+
+	/**
+	 * The states of a match.
+	 */
+	public static enum Status {
+		SETUP, RUNNING, ENDED, STOPPED, FAILED
+	}
+
+	/**
+	 * Initialize a match in its setup.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			When the world can't be created with the given dimension and terrain.
+	 */
+	Match(MatchHost host, double width, double height, boolean[][] passableMap, long seed) throws IllegalArgumentException {
+		this.host = host;
+		this.world = facade.createWorld(width, height, passableMap, new Random(seed));
+	}
+
+	/**
+	 * Initialize a match in its setup on the given terrain.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			When the world can't be created with the given dimension and terrain.
+	 */
+	Match(MatchHost host, double width, double height, Terrain terrain, long seed) throws IllegalArgumentException {
+		this.host = host;
+		this.world = facade.createWorldOnTerrain(width, height, terrain, new Random(seed));
+	}
+
+	private final MatchHost host;
+	private final Facade facade = new Facade();
+	private final IActionHandler handler = new TurnHandler(new DirectActionHandler(facade));
+
+	/**
+	 * Returns the world of this match.
+	 * It may only be inspected during the setup of this match or once it is over, see isOver().
+	 */
+	public World getWorld() {
+		return this.world;
+	}
+
+	private final World world;
+
+	/**
+	 * The programs of the worms played by this match.
+	 */
+	private final Map<Worm, Program> programs = new IdentityHashMap<>();
+
+	/**
+	 * Returns the status of this match.
+	 */
+	public Status getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * Returns whether this match is over: it ended, it was stopped or it failed.
+	 */
+	public boolean isOver() {
+		return this.status.ordinal() >= Status.ENDED.ordinal();
+	}
+
+	private volatile Status status = Status.SETUP;
+
+	/**
+	 * Returns the exception this match failed with, null if it didn't fail.
+	 */
+	public RuntimeException getFailure() {
+		return this.failure;
+	}
+
+	private volatile RuntimeException failure;
+
+	/**
+	 * Returns the amount of turns played in this match, as of the end of its last slice.
+	 */
+	public long getTurnCount() {
+		return this.turnCount;
+	}
+
+	private volatile long turnCount = 0;
+
+	/**
+	 * Returns the winner of this match, null if it isn't over or nobody won.
+	 */
+	public String getWinner() {
+		return this.winner;
+	}
+
+	private volatile String winner;
+
+	/**
+	 * Returns the maximum amount of turns played in this match, 0 if there is none.
+	 */
+	public long getTurnLimit() {
+		return this.turnLimit;
+	}
+
+	/**
+	 * Set the maximum amount of turns played in this match, the match ends when it is reached.
+	 *
+	 * @param turnLimit The limit, 0 for none.
+	 * @throws IllegalArgumentException
+	 * 			| turnLimit < 0
+	 * @throws IllegalStateException
+	 * 			| getStatus() != Status.SETUP
+	 */
+	public void setTurnLimit(long turnLimit) throws IllegalArgumentException, IllegalStateException {
+		if(turnLimit < 0)
+			throw new IllegalArgumentException("The turn limit musn't be negative.");
+		checkSetup();
+		this.turnLimit = turnLimit;
+	}
+
+	private long turnLimit = 0;
+
+	/**
+	 * Add a team, the worms added after it join it.
+	 *
+	 * @param name The name of the team.
+	 * @throws IllegalArgumentException
+	 * 			When the team can't be added to the world.
+	 * @throws IllegalStateException
+	 * 			| getStatus() != Status.SETUP
+	 */
+	public void addTeam(String name) throws IllegalArgumentException, IllegalStateException {
+		checkSetup();
+		world.add(new Team(name));
+	}
+
+	/**
+	 * Add a worm controlled by an external controller on a random position, it joins the team added last.
+	 *
+	 * @param name The name of the worm.
+	 * @return The worm, to submit actions for.
+	 * @throws IllegalArgumentException
+	 * 			When the name isn't valid.
+	 * @throws IllegalStateException
+	 * 			When this match isn't in its setup or no position was found for the worm.
+	 */
+	public Worm addPlayer(String name) throws IllegalArgumentException, IllegalStateException {
+		checkSetup();
+		return this.addWorm(name);
+	}
+
+	/**
+	 * Add a worm controlled by a program on a random position, it joins the team added last.
+	 * Programs are compiled once per host and built for every worm from that image.
+	 *
+	 * @param name The name of the worm.
+	 * @param programText The text of the program.
+	 * @return The worm.
+	 * @throws IllegalArgumentException
+	 * 			When the name isn't valid or the program has errors.
+	 * @throws IllegalStateException
+	 * 			When this match isn't in its setup or no position was found for the worm.
+	 */
+	public Worm addBot(String name, String programText) throws IllegalArgumentException, IllegalStateException {
+		checkSetup();
+		ParseOutcome<?> outcome = facade.loadProgram(host.getImage(programText), handler);
+		if(!outcome.isSuccess())
+			throw new IllegalArgumentException("The program has errors: " + outcome.getResult());
+
+		Program program = (Program) outcome.getResult();
+		Worm worm = this.addWorm(name);
+		program.setWorm(worm);
+		programs.put(worm, program);
+		return worm;
+	}
+
+	/**
+	 * Add a worm to the world the same way Facade.addNewWorm(...) does, but with a given name.
+	 */
+	private Worm addWorm(String name) throws IllegalArgumentException, IllegalStateException {
+		Position position = world.getRandomPassablePos(0.5);
+		if(position == null)
+			throw new IllegalStateException("No position was found for the worm.");
+
+		Worm worm = facade.createWorm(world, position.getX(), position.getY(), 0, 0.5, name, null);
+		worm.softFall();
+		List<Team> teams = world.getTeams();
+		if(teams.size() > 0)
+			teams.get(teams.size() - 1).add(worm);
+		return worm;
+	}
+
+	/**
+	 * Add food on a random position.
+	 *
+	 * @throws IllegalStateException
+	 * 			| getStatus() != Status.SETUP
+	 */
+	public void addFood() throws IllegalStateException {
+		checkSetup();
+		facade.addNewFood(world);
+	}
+
+	private void checkSetup() throws IllegalStateException {
+		if(this.status != Status.SETUP)
+			throw new IllegalStateException("The match has already been started.");
+	}
+
+	/**
+	 * Start this match, the host plays it from now on.
+	 *
+	 * @throws IllegalStateException
+	 * 			| getStatus() != Status.SETUP
+	 */
+	public void start() throws IllegalStateException {
+		checkSetup();
+		this.status = Status.RUNNING;
+		this.schedule();
+	}
+
+	/**
+	 * Stop this match after the slice it is playing, if it isn't over yet.
+	 */
+	public void stop() {
+		this.stopRequested = true;
+		if(this.status == Status.SETUP)
+			this.finish(Status.STOPPED);
+		else
+			this.schedule();
+	}
+
+	private volatile boolean stopRequested = false;
+
+	/**
+	 * Submit an action for a worm of this match, it is performed if that worm has the turn by then.
+	 *
+	 * @param action The action.
+	 * @return False if the action was refused because this match isn't running or too many actions are waiting.
+	 * @throws IllegalArgumentException
+	 * 			| action == null
+	 */
+	public boolean submit(Action action) throws IllegalArgumentException {
+		if(action == null)
+			throw new IllegalArgumentException("The action musn't be a null reference.");
+		if(this.status != Status.RUNNING || !actions.offer(action))
+			return false;
+		this.schedule();
+		return true;
+	}
+
+	private final BlockingQueue<Action> actions = new LinkedBlockingQueue<>(MatchHost.ACTION_QUEUE_CAPACITY);
+
+	/**
+	 * Wait until this match is over.
+	 *
+	 * @param timeout The maximum time to wait.
+	 * @param unit The unit of timeout.
+	 * @return Whether this match is over.
+	 * @throws InterruptedException
+	 * 			When interrupted while waiting.
+	 */
+	public boolean awaitOver(long timeout, TimeUnit unit) throws InterruptedException {
+		return over.await(timeout, unit);
+	}
+
+	private final CountDownLatch over = new CountDownLatch(1);
+
+	private void finish(Status status) {
+		this.status = status;
+		host.remove(this);
+		over.countDown();
+	}
+
+	/**
+	 * Whether a slice of this match is running or waiting to run.
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	private void schedule() {
+		if(!isOver() && scheduled.compareAndSet(false, true)) {
+			if(!host.execute(slice)) {
+				//The host has been shut down, no slice will run anymore.
+				this.finish(Status.STOPPED);
+			}
+		}
+	}
+
+	private final Runnable slice = new Runnable() {
+
+		@Override
+		public void run() {
+			boolean more = false;
+			try {
+				more = playSlice();
+			} catch(RuntimeException ex) {
+				failure = ex;
+				finish(Status.FAILED);
+			} finally {
+				scheduled.set(false);
+			}
+			if(more || !actions.isEmpty() || stopRequested)
+				schedule();
+		}
+	};
+
+	private final Runnable wakeUp = new Runnable() {
+
+		@Override
+		public void run() {
+			schedule();
+		}
+	};
+
+	/**
+	 * The turn the deadline of an external controller was set for, and that deadline.
+	 */
+	private long deadlineTurn = -1;
+	private long deadline;
+
+	/**
+	 * Play a slice of this match.
+	 *
+	 * @return Whether the match can play on right away, without waiting for actions.
+	 */
+	private boolean playSlice() {
+		if(isOver())
+			return false;
+		if(stopRequested) {
+			finish(Status.STOPPED);
+			return false;
+		}
+		if(world.getState() == WorldState.INITIALISATION)
+			facade.startGame(world);
+
+		int turns = 0;
+		int performed = 0;
+		boolean more = false;
+		while(world.getState() == WorldState.PLAYING && !limitReached()) {
+			if(turns >= MatchHost.TURNS_PER_SLICE || performed >= MatchHost.ACTIONS_PER_SLICE) {
+				more = true;
+				break;
+			}
+
+			Worm active = world.getActiveWorm();
+			Program program = programs.get(active);
+			if(program != null) {
+				program.execute();
+				endTurnOf(active);
+				turns++;
+				continue;
+			}
+
+			if(deadlineTurn != world.getTurnCount()) {
+				deadlineTurn = world.getTurnCount();
+				deadline = System.nanoTime() + host.getTurnTimeout();
+				host.schedule(wakeUp, host.getTurnTimeout());
+			}
+			if(System.nanoTime() - deadline >= 0) {
+				endTurnOf(active);
+				turns++;
+				continue;
+			}
+
+			Action action = actions.poll();
+			if(action == null)
+				break;
+			performed++;
+			perform(action);
+			if(world.getActiveWorm() != active)
+				turns++;
+		}
+
+		this.turnCount = world.getTurnCount();
+		if(world.getState() == WorldState.ENDED || limitReached()) {
+			if(world.getState() == WorldState.ENDED)
+				this.winner = world.getWinner();
+			finish(Status.ENDED);
+			return false;
+		}
+		return more;
+	}
+
+	private boolean limitReached() {
+		return turnLimit > 0 && world.getTurnCount() >= turnLimit;
+	}
+
+	/**
+	 * End the turn of a worm, unless it already ended (e.g. the worm ran out of action points).
+	 */
+	private void endTurnOf(Worm worm) {
+		if(world.getState() == WorldState.PLAYING && world.getActiveWorm() == worm)
+			facade.startNextTurn(world);
+	}
+
+	private void perform(Action action) {
+		Worm worm = action.getWorm();
+		if(worm.getWorld() != world || world.getActiveWorm() != worm)
+			return;
+
+		switch(action.getKind()) {
+		case TURN:
+			handler.turn(worm, action.getAngle());
+			break;
+		case MOVE:
+			handler.move(worm);
+			break;
+		case JUMP:
+			handler.jump(worm);
+			break;
+		case FIRE:
+			handler.fire(worm, action.getPropulsion());
+			break;
+		case TOGGLE_WEAPON:
+			handler.toggleWeapon(worm);
+			break;
+		case END_TURN:
+			endTurnOf(worm);
+			break;
+		}
+	}
+
+	/**
+	 * Performs actions with a direct action handler, but only for the worm that has the turn: when a worm with a program
+	 * runs out of action points the turn changes while its program is still running, its further actions are refused
+	 * and it resumes at them next turn.
+	 */
+	private class TurnHandler implements IActionHandler {
+
+		private TurnHandler(IActionHandler handler) {
+			this.handler = handler;
+		}
+
+		private final IActionHandler handler;
+
+		private boolean hasTurn(Worm worm) {
+			return world.getState() == WorldState.PLAYING && world.getActiveWorm() == worm;
+		}
+
+		@Override
+		public boolean turn(Worm worm, double angle) {
+			return hasTurn(worm) && handler.turn(worm, angle);
+		}
+
+		@Override
+		public boolean move(Worm worm) {
+			return hasTurn(worm) && handler.move(worm);
+		}
+
+		@Override
+		public boolean jump(Worm worm) {
+			return hasTurn(worm) && handler.jump(worm);
+		}
+
+		@Override
+		public boolean fire(Worm worm, int propulsion) {
+			return hasTurn(worm) && handler.fire(worm, propulsion);
+		}
+
+		@Override
+		public boolean toggleWeapon(Worm worm) {
+			return hasTurn(worm) && handler.toggleWeapon(worm);
+		}
+
+		/**
+		 * Hosted matches have no console, messages are dropped.
+		 */
+		@Override
+		public void print(String message) {
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package worms.model.host;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import worms.model.program.ProgramImage;
+import worms.model.world.Terrain;
+import worms.model.world.TerrainFile;
+
+/**
+ * Hosts many independent matches in one JVM.
+ *
+ * Every match has a facade, a world and a random generator of its own. The matches are played on a fixed pool of
+ * worker threads, one per processor by default: a match runs in short slices, at most one at a time, and is scheduled
+ * again when it has work to do (a worm with a program has the turn, actions were submitted or a turn timed out).
+ * A slice plays at most TURNS_PER_SLICE turns and performs at most ACTIONS_PER_SLICE submitted actions,
+ * so a busy match can't starve the others. The programs of the worms are bounded by Program.MAX_STATEMENT_AMOUNT
+ * statements per turn and an external controller by the turn timeout.
+ *
+ * The only state the matches share are the precompiled programs, which are immutable.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class MatchHost {
+
+	/**
+	 * The maximum amount of turns played by a single slice of a match.
+	 */
+	public static final int TURNS_PER_SLICE = 16;
+
+	/**
+	 * The maximum amount of submitted actions performed by a single slice of a match.
+	 */
+	public static final int ACTIONS_PER_SLICE = 64;
+
+	/**
+	 * The maximum amount of actions waiting to be performed in a match, further actions are refused.
+	 */
+	public static final int ACTION_QUEUE_CAPACITY = 256;
+
+	/**
+	 * Initialize a host.
+	 *
+	 * @param threads The amount of worker threads.
+	 * @param turnTimeout The time an external controller gets to end the turn of its worm, the turn is ended after it.
+	 * @param unit The unit of turnTimeout.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| threads < 1 || turnTimeout <= 0 || unit == null
+	 */
+	public MatchHost(int threads, long turnTimeout, TimeUnit unit) throws IllegalArgumentException {
+		if(threads < 1)
+			throw new IllegalArgumentException("There has to be at least one thread.");
+		if(turnTimeout <= 0 || unit == null)
+			throw new IllegalArgumentException("The turn timeout has to be positive.");
+
+		this.turnTimeout = unit.toNanos(turnTimeout);
+		this.executor = new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "match-host-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	/**
+	 * Initialize a host with a worker thread for each available processor and a turn timeout of 30 seconds.
+	 *
+	 * @effect this(Runtime.getRuntime().availableProcessors(), 30, TimeUnit.SECONDS)
+	 */
+	public MatchHost() {
+		this(Runtime.getRuntime().availableProcessors(), 30, TimeUnit.SECONDS);
+	}
+
+	private final ScheduledThreadPoolExecutor executor;
+
+	/**
+	 * Returns the time an external controller gets to end the turn of its worm, in nanoseconds.
+	 */
+	public long getTurnTimeout() {
+		return this.turnTimeout;
+	}
+
+	private final long turnTimeout;
+
+	/**
+	 * Create a match. Teams, worms and food are added to it before it is started, see Match.start().
+	 *
+	 * @param width The width of the world.
+	 * @param height The height of the world.
+	 * @param passableMap The terrain of the world.
+	 * @param seed The seed of the random generator of the world.
+	 * @return The match.
+	 *
+	 * @throws IllegalStateException
+	 * 			When this host has been shut down.
+	 * 			| isShutdown()
+	 * @throws IllegalArgumentException
+	 * 			When the world can't be created with the given dimension and terrain.
+	 */
+	public Match createMatch(double width, double height, boolean[][] passableMap, long seed)
+			throws IllegalStateException, IllegalArgumentException {
+		if(this.isShutdown())
+			throw new IllegalStateException("The host has been shut down.");
+
+		Match match = new Match(this, width, height, passableMap, seed);
+		matches.add(match);
+		return match;
+	}
+
+	/**
+	 * Create a match on the given terrain, which is shared with every other match on it without copying it. A very
+	 * large terrain can be a ChunkedTerrain. Teams, worms and food are added to it before it is started, see
+	 * Match.start().
+	 *
+	 * @param width The width of the world.
+	 * @param height The height of the world.
+	 * @param terrain The terrain of the world.
+	 * @param seed The seed of the random generator of the world.
+	 * @return The match.
+	 *
+	 * @throws IllegalStateException
+	 * 			When this host has been shut down.
+	 * 			| isShutdown()
+	 * @throws IllegalArgumentException
+	 * 			When the world can't be created with the given dimension and terrain.
+	 */
+	public Match createMatch(double width, double height, Terrain terrain, long seed)
+			throws IllegalStateException, IllegalArgumentException {
+		if(this.isShutdown())
+			throw new IllegalStateException("The host has been shut down.");
+
+		Match match = new Match(this, width, height, terrain, seed);
+		matches.add(match);
+		return match;
+	}
+
+	/**
+	 * Create a match on the terrain of a terrain file, which is shared with every other match on it without copying it.
+	 * Teams, worms and food are added to it before it is started, see Match.start().
+	 *
+	 * @param terrain The terrain file, the dimension of the world is the one of its terrain.
+	 * @param seed The seed of the random generator of the world.
+	 * @return The match.
+	 *
+	 * @throws IllegalStateException
+	 * 			When this host has been shut down.
+	 * 			| isShutdown()
+	 * @throws IllegalArgumentException
+	 * 			When the world can't be created on the given terrain.
+	 * 			| terrain == null
+	 */
+	public Match createMatch(TerrainFile terrain, long seed) throws IllegalStateException, IllegalArgumentException {
+		if(this.isShutdown())
+			throw new IllegalStateException("The host has been shut down.");
+		if(terrain == null)
+			throw new IllegalArgumentException("The terrain musn't be a null reference.");
+
+		return createMatch(terrain.getWorldWidth(), terrain.getWorldHeight(), terrain.getBitmap(), seed);
+	}
+
+	/**
+	 * Returns the amount of matches that haven't ended yet.
+	 */
+	public int getMatchCount() {
+		return matches.size();
+	}
+
+	private final Set<Match> matches = Collections.newSetFromMap(new ConcurrentHashMap<Match, Boolean>());
+
+	/**
+	 * Forget a match that has ended.
+	 */
+	void remove(Match match) {
+		matches.remove(match);
+	}
+
+	/**
+	 * Returns the precompiled program for a program text, every text is compiled once.
+	 *
+	 * @param programText The program text.
+	 * @return The image.
+	 * @throws IllegalArgumentException
+	 * 			When the program has errors.
+	 */
+	ProgramImage getImage(String programText) throws IllegalArgumentException {
+		ProgramImage image = images.get(programText);
+		if(image == null) {
+			List<String> errors = new ArrayList<>();
+			image = ProgramImage.compile(programText, errors);
+			if(image == null)
+				throw new IllegalArgumentException("The program has errors: " + errors);
+			ProgramImage previous = images.putIfAbsent(programText, image);
+			if(previous != null)
+				image = previous;
+		}
+		return image;
+	}
+
+	private final ConcurrentMap<String, ProgramImage> images = new ConcurrentHashMap<>();
+
+	/**
+	 * Run a slice of a match on a worker thread.
+	 *
+	 * @return False if this host has been shut down and no longer runs slices.
+	 */
+	boolean execute(Runnable slice) {
+		try {
+			executor.execute(slice);
+			return true;
+		} catch(RejectedExecutionException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Run a slice of a match on a worker thread after a certain delay.
+	 */
+	void schedule(Runnable slice, long delay) {
+		try {
+			executor.schedule(slice, delay, TimeUnit.NANOSECONDS);
+		} catch(RejectedExecutionException ex) {
+			//Shut down, the match has been stopped.
+		}
+	}
+
+	/**
+	 * Returns whether this host has been shut down.
+	 */
+	public boolean isShutdown() {
+		return this.shutdown;
+	}
+
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Shut this host down gracefully: no matches can be created anymore, every match that hasn't ended is stopped after
+	 * the slice it is playing, and the worker threads end once all matches are stopped.
+	 *
+	 * @param timeout The time to wait for the matches to stop.
+	 * @param unit The unit of timeout.
+	 * @return Whether all matches stopped in time.
+	 *
+	 * @throws InterruptedException
+	 * 			When interrupted while waiting.
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		this.shutdown = true;
+		for(Match match : new ArrayList<>(matches))
+			match.stop();
+		executor.shutdown();
+		return executor.awaitTermination(timeout, unit);
+	}
+}
@@ -0,0 +1,209 @@
+package worms.model.program;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import worms.gui.game.IActionHandler;
+import worms.model.Facade;
+import worms.model.programs.ParseOutcome;
+
+/**
+ * Parses many programs at once on a pool of worker threads.
+ *
+ * Every program gets its own parser and factory, as Facade.parseProgram(...) does, so the programs don't share any state.
+ * The lexer and parser generated by ANTLR keep their DFA and prediction context caches in static fields:
+ * these are shared by all threads and filled while parsing. The first programs parsed pay for filling them,
+ * so warmUp(...) parses a representative corpus once before the real work is spread over the threads.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ParallelProgramParser {
+
+    /**
+     * The outcome of parsing a single program.
+     */
+    public static class Result {
+
+        private Result(String name, ParseOutcome<?> outcome, long nanos) {
+            this.name = name;
+            this.outcome = outcome;
+            this.nanos = nanos;
+        }
+
+        private final String name;
+        private final ParseOutcome<?> outcome;
+        private final long nanos;
+
+        /**
+         * The name of the program, e.g. its file name.
+         * @return
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * The outcome, as Facade.parseProgram(...) returns it.
+         * @return
+         */
+        public ParseOutcome<?> getOutcome() {
+            return this.outcome;
+        }
+
+        /**
+         * The time spent parsing the program.
+         * @return
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+    }
+
+    /**
+     * Initialize a parser with a pool of worker threads.
+     *
+     * @param facade The facade parsing the programs, with the settings (e.g. bytecode) to parse them with.
+     * @param threads The amount of worker threads.
+     *
+     * @throws IllegalArgumentException
+     *          | facade == null || threads < 1
+     */
+    public ParallelProgramParser(Facade facade, int threads) throws IllegalArgumentException {
+        if (facade == null || threads < 1)
+            throw new IllegalArgumentException("The facade musn't be a null reference and there has to be at least one thread.");
+
+        this.facade = facade;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Initialize a parser with a worker thread for each available processor.
+     *
+     * @param facade The facade parsing the programs.
+     * @effect this(facade, Runtime.getRuntime().availableProcessors())
+     */
+    public ParallelProgramParser(Facade facade) {
+        this(facade, Runtime.getRuntime().availableProcessors());
+    }
+
+    private final Facade facade;
+    private final ExecutorService executor;
+
+    /**
+     * Fill the caches shared by all ANTLR parsers by parsing a corpus of programs on the calling thread.
+     * The outcomes are thrown away, programs with errors warm up the caches as well.
+     *
+     * @param corpus The program texts.
+     * @param handler The handler to build the programs with.
+     */
+    public void warmUp(Collection<String> corpus, IActionHandler handler) {
+        for (String text : corpus)
+            facade.parseProgram(text, handler);
+        this.warmedUp = true;
+    }
+
+    /**
+     * Returns whether warmUp(...) has been called.
+     * @return
+     */
+    public boolean isWarmedUp() {
+        return this.warmedUp;
+    }
+
+    private boolean warmedUp = false;
+
+    /**
+     * Parse programs in parallel.
+     *
+     * @param programs The program texts by name, the results are in the same order.
+     * @param handler The handler to build the programs with, it is shared by all programs.
+     * @return The results.
+     *
+     * @throws IllegalStateException
+     *          When this parser has been shut down.
+     */
+    public List<Result> parseAll(Map<String, String> programs, final IActionHandler handler) throws IllegalStateException {
+        if (executor.isShutdown())
+            throw new IllegalStateException("This parser has been shut down.");
+
+        List<Future<Result>> futures = new ArrayList<>();
+        for (final Map.Entry<String, String> program : programs.entrySet()) {
+            futures.add(executor.submit(new Callable<Result>() {
+                @Override
+                public Result call() {
+                    long start = System.nanoTime();
+                    ParseOutcome<?> outcome;
+                    try {
+                        outcome = facade.parseProgram(program.getValue(), handler);
+                    } catch (RuntimeException e) {
+                        //The factory throws its errors instead of reporting them.
+                        outcome = ParseOutcome.failure(Arrays.asList(String.valueOf(e.getMessage())));
+                    }
+                    return new Result(program.getKey(), outcome, System.nanoTime() - start);
+                }
+            }));
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while parsing.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Parsing failed unexpectedly.", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Parse all .txt files in a directory in parallel, in the order of their names.
+     * If this parser hasn't been warmed up yet, the first program is used to warm it up.
+     *
+     * @param directory The directory.
+     * @param handler The handler to build the programs with, it is shared by all programs.
+     * @return The results, named after the files.
+     * @throws IOException
+     *          When the directory or a file can't be read.
+     */
+    public List<Result> parseDirectory(File directory, IActionHandler handler) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null)
+            throw new IOException("Can't list " + directory + ".");
+        Arrays.sort(files);
+
+        Map<String, String> programs = new LinkedHashMap<>();
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(".txt"))
+                programs.put(file.getName(), new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8")));
+        }
+
+        if (!this.isWarmedUp() && !programs.isEmpty())
+            this.warmUp(Arrays.asList(programs.values().iterator().next()), handler);
+
+        return this.parseAll(programs, handler);
+    }
+
+    /**
+     * Stop the worker threads, this parser can't be used afterwards.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
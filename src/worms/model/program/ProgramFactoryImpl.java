@@ -1,5 +1,6 @@
 package worms.model.program;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import worms.gui.game.IActionHandler;
@@ -8,9 +9,12 @@ import worms.model.Program;
 import worms.model.program.exceptions.IllegalArgException;
 import worms.model.program.exceptions.IllegalTypeException;
 import worms.model.program.expressions.BooleanExpression;
+import worms.model.program.expressions.BooleanLiteralExpression;
 import worms.model.program.expressions.DoubleExpression;
+import worms.model.program.expressions.DoubleLiteralExpression;
 import worms.model.program.expressions.EntityExpression;
 import worms.model.program.expressions.Expression;
+import worms.model.program.expressions.NotExpression;
 import worms.model.program.expressions.VariableExpression;
 import worms.model.program.statements.*;
 import worms.model.programs.ProgramFactory;
@@ -27,6 +31,12 @@ import worms.util.Util;
  * 
  * When a wrong type of expression or .. is presented an exception will be thrown.
  * This is not stated in the function itself since we don't allow anyone to catch them as we want the program to terminate.
+ * 
+ * As the parser builds the program bottom-up, this factory simplifies it while building:
+ * arithmetic and logic on literals is folded, !!x becomes x, the dead branch of if(true)/if(false) and the body of while(false) are dropped
+ * and reads of the worm's own properties (e.g. getx self) are only computed once until the worm performs an action or a new turn starts.
+ * The statements themselves are kept, so they still count the same towards Program.MAX_STATEMENT_AMOUNT.
+ * Every simplification is listed in getOptimizations(), in debug mode they are printed through the action handler as well.
  *
  * @author Derkinderen Vincent
  * @author Coosemans Brent
@@ -75,31 +85,176 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     private Worm worm;
     private ProgramParser<Expression<?>, Statement, Variable<?>> parser;
     
+    /**
+     * Set whether the simplifications made by this factory are printed.
+     * @param debug Whether to print them.
+     */
+    public void setDebug(boolean debug) {
+        this.debug = debug;
+    }
+    
+    /**
+     * Whether the simplifications made by this factory are printed.
+     * @return 
+     */
+    public boolean isDebug() {
+        return this.debug;
+    }
+    
+    private boolean debug = false;
+    
+    /**
+     * The simplifications made by this factory so far, each prefixed with the line and column of the simplified expression or statement.
+     * @return 
+     */
+    public List<String> getOptimizations() {
+        return this.optimizations;
+    }
+    
+    private final List<String> optimizations = new ArrayList<>();
+    
+    /**
+     * Report a simplification.
+     */
+    private void report(int line, int column, String message) {
+        String optimization = line + ":" + column + " " + message;
+        optimizations.add(optimization);
+        if (this.isDebug() && handler != null)
+            handler.print("[optimizer] " + optimization);
+    }
+    
+    /**
+     * Forget all cached reads of the worm's own properties.
+     * This has to happen whenever the worm could have changed: after each action and at the start of each execution of the program.
+     */
+    public void invalidateSelfReads() {
+        this.selfReadEpoch++;
+    }
+    
+    private int selfReadEpoch = 0;
+    
+    /**
+     * Set the profiler measuring the statements built by this factory from now on.
+     * Without a profiler the statements are built as they are, so they cost nothing extra while executing.
+     * @param profiler The profiler, null to stop profiling.
+     */
+    public void setProfiler(ProgramProfiler profiler) {
+        this.profiler = profiler;
+    }
+    
+    /**
+     * The profiler measuring the statements built by this factory, null if none is set.
+     * @return 
+     */
+    public ProgramProfiler getProfiler() {
+        return this.profiler;
+    }
+    
+    private ProgramProfiler profiler;
+    
+    /**
+     * Wrap a statement in a ProfiledStatement if this factory has a profiler set.
+     */
+    private Statement profile(String kind, int line, int column, Statement statement) {
+        if (this.profiler == null)
+            return statement;
+        return new ProfiledStatement(profiler, profiler.getSite(kind, line, column), statement);
+    }
+    
+    /**
+     * Returns whether an expression is a double or boolean literal.
+     */
+    private static boolean isLiteral(Expression<?> e) {
+        return e instanceof DoubleLiteralExpression || e instanceof BooleanLiteralExpression;
+    }
+    
+    /**
+     * Returns a literal with the value of a folded double expression.
+     */
+    private DoubleExpression fold(int line, int column, String operation, double value) {
+        this.report(line, column, "folded " + operation + " of literals to " + value);
+        return new DoubleLiteralExpression(value);
+    }
+    
+    /**
+     * Returns a literal with the value of a folded boolean expression.
+     */
+    private BooleanExpression fold(int line, int column, String operation, boolean value) {
+        this.report(line, column, "folded " + operation + " of literals to " + value);
+        return new BooleanLiteralExpression(value);
+    }
+    
+    /**
+     * The expression self, recognisable so reads of the worm's properties can be cached.
+     */
+    private class SelfExpression extends EntityExpression {
+        @Override
+        public Entity getResult() {
+            if(ProgramFactoryImpl.this.getWorm() == null)
+                throw new IllegalStateException("The ProgramFactory has to have its worm set before we try to execute any statements created by the factory.");
+            return worm;
+        }
+    }
+    
+    /**
+     * A read of a property of self. The value is kept until invalidateSelfReads() is called,
+     * since the worm can only change by performing an action or when other worms get their turn.
+     */
+    private abstract class SelfRead extends DoubleExpression {
+        
+        SelfRead(int line, int column, String name) {
+            ProgramFactoryImpl.this.report(line, column, "hoisted " + name + " self, it is read once per action");
+        }
+        
+        @Override
+        public Double getResult() {
+            if (this.epoch != selfReadEpoch) {
+                this.value = this.read(selfExpression.getResult());
+                this.epoch = selfReadEpoch;
+            }
+            return this.value;
+        }
+        
+        /**
+         * Read the property.
+         * @param self The worm executing the program.
+         * @return 
+         */
+        protected abstract double read(Entity self);
+        
+        private Double value;
+        private int epoch = -1;
+    }
+    
+    private final SelfExpression selfExpression = new SelfExpression();
+    
     @Override
     public DoubleExpression createDoubleLiteral(int line, int column, final double d) {
-        return new DoubleExpression() {
-            @Override
-            public Double getResult() {
-                return d;
-            }
-        };
+        return new DoubleLiteralExpression(d);
     }
 
     @Override
     public BooleanExpression createBooleanLiteral(int line, int column, final boolean b) {
-        return new BooleanExpression() {
-            @Override
-            public Boolean getResult() {
-                return b;
-            }
-        };
+        return new BooleanLiteralExpression(b);
     }
 
     @Override
-    public BooleanExpression createAnd(final int line, final int column, final Expression e1, final Expression e2) {
+    public Expression<?> createAnd(final int line, final int column, final Expression e1, final Expression e2) {
         if (!e1.getType().isAssignableFrom(Boolean.class) || !e2.getType().isAssignableFrom(Boolean.class))
             throw new IllegalTypeException(line, column, "An &&-expression must consist of atleast 2 boolean types.");
         
+        //e2 is never evaluated after a false e1, x && true is x.
+        if (e1 instanceof BooleanLiteralExpression) {
+            if (!(Boolean) e1.getResult())
+                return fold(line, column, "&&", false);
+            this.report(line, column, "simplified true && x to x");
+            return e2;
+        }
+        if (e2 instanceof BooleanLiteralExpression && (Boolean) e2.getResult()) {
+            this.report(line, column, "simplified x && true to x");
+            return e1;
+        }
+        
         return new BooleanExpression() {
             @Override
             public Boolean getResult() {
@@ -109,10 +264,22 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     }
 
     @Override
-    public BooleanExpression createOr(final int line, final int column, final Expression e1, final Expression e2) {
+    public Expression<?> createOr(final int line, final int column, final Expression e1, final Expression e2) {
       if (!e1.getType().isAssignableFrom(Boolean.class) || !e2.getType().isAssignableFrom(Boolean.class))
           throw new IllegalTypeException(line, column, "An ||-expression must consist of atleast 2 boolean types.");
         
+        //e2 is never evaluated after a true e1, x || false is x.
+        if (e1 instanceof BooleanLiteralExpression) {
+            if ((Boolean) e1.getResult())
+                return fold(line, column, "||", true);
+            this.report(line, column, "simplified false || x to x");
+            return e2;
+        }
+        if (e2 instanceof BooleanLiteralExpression && !(Boolean) e2.getResult()) {
+            this.report(line, column, "simplified x || false to x");
+            return e1;
+        }
+        
         return new BooleanExpression() {
             @Override
             public Boolean getResult() {
@@ -122,16 +289,18 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     }
 
     @Override
-    public BooleanExpression createNot(final int line, final int column, final Expression e) {
+    public Expression<?> createNot(final int line, final int column, final Expression e) {
         if (!e.getType().isAssignableFrom(Boolean.class))
             throw new IllegalTypeException(line, column, "An !-expression must consist of a boolean type.");
+        
+        if (e instanceof BooleanLiteralExpression)
+            return fold(line, column, "!", !(Boolean) e.getResult());
+        if (e instanceof NotExpression) {
+            this.report(line, column, "simplified !!x to x");
+            return ((NotExpression) e).getOperand();
+        }
        
-        return new BooleanExpression() {
-            @Override
-            public Boolean getResult() {
-                return !((Boolean) e.getResult());
-            }
-        };
+        return new NotExpression(e);
     }
 
     @Override
@@ -146,14 +315,7 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
 
     @Override
     public EntityExpression createSelf(int line, int column) {
-        return new EntityExpression() {
-            @Override
-            public Entity getResult() {
-                if(ProgramFactoryImpl.this.getWorm() == null)
-                    throw new IllegalStateException("The ProgramFactory has to have its worm set before we try to execute any statements created by the factory.");
-                return worm;
-            }
-        };
+        return selfExpression;
     }
 
     @Override
@@ -161,6 +323,15 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e.getType().isAssignableFrom(Entity.class))
             throw new IllegalTypeException(line, column, "The parameter must be an Entity type.");
         
+        if (e == selfExpression) {
+            return new SelfRead(line, column, "getx") {
+                @Override
+                protected double read(Entity self) {
+                    return self.getPosition().getX();
+                }
+            };
+        }
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -175,6 +346,15 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e.getType().isAssignableFrom(Entity.class))
             throw new IllegalTypeException(line, column, "The parameter must be an Entity type.");
         
+        if (e == selfExpression) {
+            return new SelfRead(line, column, "gety") {
+                @Override
+                protected double read(Entity self) {
+                    return self.getPosition().getY();
+                }
+            };
+        }
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -187,6 +367,15 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     public DoubleExpression createGetRadius(final int line, final int column, final Expression e) {
         if(!e.getType().isAssignableFrom(Entity.class))
             throw new IllegalTypeException(line, column, "The parameter must be an Entity type.");
+        
+        if (e == selfExpression) {
+            return new SelfRead(line, column, "getradius") {
+                @Override
+                protected double read(Entity self) {
+                    return self.getRadius();
+                }
+            };
+        }
 
         return new DoubleExpression() {
             @Override
@@ -200,6 +389,15 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     public DoubleExpression createGetDir(final int line, final int column, final Expression e) {
         if(!e.getType().isAssignableFrom(Entity.class))
             throw new IllegalTypeException(line, column, "The parameter must be an Entity type.");
+        
+        if (e == selfExpression) {
+            return new SelfRead(line, column, "getdir") {
+                @Override
+                protected double read(Entity self) {
+                    return self.getAngle();
+                }
+            };
+        }
 
         return new DoubleExpression() {
             @Override
@@ -213,6 +411,15 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     public DoubleExpression createGetAP(final int line, final int column, final Expression e) {
         if(!e.getType().isAssignableFrom(Entity.class))
             throw new IllegalTypeException(line, column, "The parameter must be an Entity type.");
+        
+        if (e == selfExpression) {
+            return new SelfRead(line, column, "getap") {
+                @Override
+                protected double read(Entity self) {
+                    return self.getAP();
+                }
+            };
+        }
 
         return new DoubleExpression() {
             @Override
@@ -226,6 +433,15 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     public DoubleExpression createGetMaxAP(final int line, final int column, final Expression e) {
         if(!e.getType().isAssignableFrom(Entity.class))
             throw new IllegalTypeException(line, column, "The parameter must be an Entity type.");
+        
+        if (e == selfExpression) {
+            return new SelfRead(line, column, "getmaxap") {
+                @Override
+                protected double read(Entity self) {
+                    return self.getMaxAP();
+                }
+            };
+        }
 
         return new DoubleExpression() {
             @Override
@@ -239,6 +455,15 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     public DoubleExpression createGetHP(final int line, final int column, final Expression e) {
         if(!e.getType().isAssignableFrom(Entity.class))
             throw new IllegalTypeException(line, column, "The parameter must be an Entity type.");
+        
+        if (e == selfExpression) {
+            return new SelfRead(line, column, "gethp") {
+                @Override
+                protected double read(Entity self) {
+                    return self.getHP();
+                }
+            };
+        }
 
         return new DoubleExpression() {
             @Override
@@ -252,6 +477,15 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     public DoubleExpression createGetMaxHP(final int line, final int column, final Expression e) {
         if(!e.getType().isAssignableFrom(Entity.class))
             throw new IllegalTypeException(line, column, "The parameter must be an Entity type.");
+        
+        if (e == selfExpression) {
+            return new SelfRead(line, column, "getmaxhp") {
+                @Override
+                protected double read(Entity self) {
+                    return self.getMaxHP();
+                }
+            };
+        }
 
         return new DoubleExpression() {
             @Override
@@ -330,6 +564,11 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e1.getType().isAssignableFrom(Double.class) || !e2.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "Both expressions must be of the type Double.");
         
+        if (isLiteral(e1) && isLiteral(e2)) {
+            double v1 = (Double) e1.getResult(), v2 = (Double) e2.getResult();
+            return fold(line, column, "<", v1 < v2);
+        }
+        
         return new BooleanExpression() {
             @Override
             public Boolean getResult() {
@@ -343,6 +582,11 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
          if(!e1.getType().isAssignableFrom(Double.class) || !e2.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "Both expressions must be of the type Double.");
         
+        if (isLiteral(e1) && isLiteral(e2)) {
+            double v1 = (Double) e1.getResult(), v2 = (Double) e2.getResult();
+            return fold(line, column, ">", v1 > v2);
+        }
+        
         return new BooleanExpression() {
             @Override
             public Boolean getResult() {
@@ -358,6 +602,11 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e1.getType().isAssignableFrom(Double.class) || !e2.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "Both expressions must be of the type Double.");
         
+        if (isLiteral(e1) && isLiteral(e2)) {
+            double v1 = (Double) e1.getResult(), v2 = (Double) e2.getResult();
+            return fold(line, column, "<=", Util.fuzzyLessThanOrEqualTo(v1, v2));
+        }
+        
         return new BooleanExpression() {
             @Override
             public Boolean getResult() {
@@ -371,6 +620,11 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e1.getType().isAssignableFrom(Double.class) || !e2.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "Both expressions must be of the type Double.");
         
+        if (isLiteral(e1) && isLiteral(e2)) {
+            double v1 = (Double) e1.getResult(), v2 = (Double) e2.getResult();
+            return fold(line, column, ">=", Util.fuzzyGreaterThanOrEqualTo(v1, v2));
+        }
+        
         return new BooleanExpression() {
             @Override
             public Boolean getResult() {
@@ -384,6 +638,10 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(e1.getType() != e2.getType())
             throw new IllegalTypeException(line, column, "Both expressions must have the same type.");
         
+        //Doubles are compared as references, only boolean literals can be folded safely.
+        if (e1 instanceof BooleanLiteralExpression && e2 instanceof BooleanLiteralExpression)
+            return fold(line, column, "==", e1.getResult() == e2.getResult());
+        
         return new BooleanExpression() {
             @Override
             public Boolean getResult() {
@@ -393,7 +651,7 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     }
 
     @Override
-    public BooleanExpression createInequality(int line, int column, Expression e1, Expression e2) {
+    public Expression<?> createInequality(int line, int column, Expression e1, Expression e2) {
         return this.createNot(line, column, this.createEquality(line, column, e1, e2));
     }
 
@@ -402,6 +660,9 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e1.getType().isAssignableFrom(Double.class) || !e2.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "Both expressions must be of the type Double.");
         
+        if (isLiteral(e1) && isLiteral(e2))
+            return fold(line, column, "addition", (Double) e1.getResult() + (Double) e2.getResult());
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -415,6 +676,9 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e1.getType().isAssignableFrom(Double.class) || !e2.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "Both expressions must be of the type Double.");
         
+        if (isLiteral(e1) && isLiteral(e2))
+            return fold(line, column, "subtraction", (Double) e1.getResult() - (Double) e2.getResult());
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -428,6 +692,9 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e1.getType().isAssignableFrom(Double.class) || !e2.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "Both expressions must be of the type Double.");
         
+        if (isLiteral(e1) && isLiteral(e2))
+            return fold(line, column, "multiplication", (Double) e1.getResult() * (Double) e2.getResult());
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -441,6 +708,9 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e1.getType().isAssignableFrom(Double.class) || !e2.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "Both expressions must be of the type Double.");
         
+        if (isLiteral(e1) && isLiteral(e2))
+            return fold(line, column, "division", (Double) e1.getResult() / (Double) e2.getResult());
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -454,6 +724,9 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "The argument must be of the type Double.");
         
+        if (isLiteral(e))
+            return fold(line, column, "sqrt", Math.sqrt((Double) e.getResult()));
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -467,6 +740,9 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "The argument must be of the type Double.");
         
+        if (isLiteral(e))
+            return fold(line, column, "sin", Math.sin((Double) e.getResult()));
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -480,6 +756,9 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
         if(!e.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "The argument must be of the type Double.");
         
+        if (isLiteral(e))
+            return fold(line, column, "cos", Math.cos((Double) e.getResult()));
+        
         return new DoubleExpression() {
             @Override
             public Double getResult() {
@@ -489,97 +768,110 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     }
 
     @Override
-    public ActionStatement createTurn(final int line, final int column, final Expression angle) {
+    public Statement createTurn(final int line, final int column, final Expression angle) {
         if (!angle.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "The argument must be of the type Double.");
 
-        return new ActionStatement() {
+        return profile("turn", line, column, new ActionStatement() {
             @Override
             public boolean perform(Program program) {
-                return handler.turn(ProgramFactoryImpl.this.getWorm(), (Double) angle.getResult());
+                boolean result = handler.turn(ProgramFactoryImpl.this.getWorm(), (Double) angle.getResult());
+                invalidateSelfReads();
+                return result;
             }
-        };
+        });
     }
 
     @Override
-    public ActionStatement createMove(int line, int column) {
-        return new ActionStatement() {
+    public Statement createMove(int line, int column) {
+        return profile("move", line, column, new ActionStatement() {
             @Override
             public boolean perform(Program program) {
-                return handler.move(ProgramFactoryImpl.this.getWorm());
+                boolean result = handler.move(ProgramFactoryImpl.this.getWorm());
+                invalidateSelfReads();
+                return result;
             }
-        };
+        });
     }
 
     @Override
-    public ActionStatement createJump(int line, int column) {
-        return new ActionStatement() {
+    public Statement createJump(int line, int column) {
+        return profile("jump", line, column, new ActionStatement() {
             @Override
             public boolean perform(Program program) {
-                return handler.jump(ProgramFactoryImpl.this.getWorm());
+                boolean result = handler.jump(ProgramFactoryImpl.this.getWorm());
+                invalidateSelfReads();
+                return result;
             }
-        };
+        });
     }
 
     @Override
-    public ActionStatement createToggleWeap(int line, int column) {
-        return new ActionStatement() {
+    public Statement createToggleWeap(int line, int column) {
+        return profile("toggleweap", line, column, new ActionStatement() {
             @Override
             public boolean perform(Program program) {
-                return handler.toggleWeapon(ProgramFactoryImpl.this.getWorm());
+                boolean result = handler.toggleWeapon(ProgramFactoryImpl.this.getWorm());
+                invalidateSelfReads();
+                return result;
             }
-        };
+        });
     }
 
     @Override
-    public ActionStatement createFire(final int line, final int column, final Expression yield) {
+    public Statement createFire(final int line, final int column, final Expression yield) {
         if (!yield.getType().isAssignableFrom(Double.class))
             throw new IllegalTypeException(line, column, "The argument must be of the type Double.");
 
-        return new ActionStatement() {
+        return profile("fire", line, column, new ActionStatement() {
             @Override
             public boolean perform(Program program) {
-                return handler.fire(ProgramFactoryImpl.this.getWorm(), (int) ((double) yield.getResult()));
+                boolean result = handler.fire(ProgramFactoryImpl.this.getWorm(), (int) ((double) yield.getResult()));
+                invalidateSelfReads();
+                return result;
             }
-        };
+        });
     }
 
     @Override
-    public ActionStatement createSkip(int line, int column) {
-        return new ActionStatement() {
+    public Statement createSkip(int line, int column) {
+        return profile("skip", line, column, new ActionStatement() {
             @Override
             public boolean perform(Program program) {
                 return true;
             }
-        };
+        });
     }
 
     @Override
-    public AssignmentStatement createAssignment(int line, int column, String variableName, Expression rhs) {
-        //We cannot check for this error before executing the program since 
-        //we don't have any acces to the globalList before the parser is done parsing.
-        
-        /*if(parser.getGlobals().containsKey(variableName)) {
-            Variable variable = (Variable) parser.getGlobals().get(variableName);
-            if(variable.isValidValueType(rhs))*/
-                return new AssignmentStatement(parser, variableName, rhs);
-           /* else
-                throw new IllegalTypeException(line, column, "The type of the variable must be of type " + variable.getType());
-        } else {
-            throw new IllegalArgException(line, column, "The variable " + variableName + " doesn't exists");
-        }*/
+    public Statement createAssignment(int line, int column, String variableName, Expression rhs) {
+        //The globals aren't known before the parser is done parsing,
+        //the variable is looked up and its type checked by the TypeChecker afterwards.
+        return profile("assignment", line, column, new AssignmentStatement(line, column, variableName, rhs));
     }
 
     @Override
-    public IfStatement createIf(int line, int column, Expression condition, Statement then, Statement otherwise) {
+    public Statement createIf(int line, int column, Expression condition, Statement then, Statement otherwise) {
         if(!condition.getType().isAssignableFrom(Boolean.class))
             throw new IllegalTypeException(line, column, "The condition must be of type Boolean.");
         
+        //The if-statement itself stays, it still counts as a statement.
+        //The dead branch stays as well, so it is still type checked and checked for actions.
+        if (condition instanceof BooleanLiteralExpression && then != null && otherwise != null) {
+            if ((Boolean) condition.getResult()) {
+                this.report(line, column, "skipped the else branch of if(true)");
+                otherwise = new DeadStatement(otherwise);
+            } else {
+                this.report(line, column, "skipped the then branch of if(false)");
+                then = new DeadStatement(then);
+            }
+        }
+        
         try {
             if(condition instanceof BooleanExpression)
-                return new IfStatement((BooleanExpression) condition, then, otherwise);
+                return profile("if", line, column, new IfStatement(line, column, (BooleanExpression) condition, then, otherwise));
             if(condition instanceof VariableExpression)
-                return new IfStatement((VariableExpression) condition, then, otherwise);
+                return profile("if", line, column, new IfStatement(line, column, (VariableExpression) condition, then, otherwise));
         } catch(IllegalArgumentException ex) {
             throw new IllegalTypeException(line, column, ex.getMessage());
         }
@@ -587,15 +879,20 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     }
 
     @Override
-    public WhileStatement createWhile(int line, int column, Expression condition, Statement body) {
+    public Statement createWhile(int line, int column, Expression condition, Statement body) {
         if(!condition.getType().isAssignableFrom(Boolean.class))
             throw new IllegalTypeException(line, column, "The condition must be of type Boolean.");
         
+        if (condition instanceof BooleanLiteralExpression && !(Boolean) condition.getResult() && body != null) {
+            this.report(line, column, "skipped the body of while(false)");
+            body = new DeadStatement(body);
+        }
+        
         try {
             if(condition instanceof BooleanExpression)
-                return new WhileStatement((BooleanExpression) condition, body);
+                return profile("while", line, column, new WhileStatement(line, column, (BooleanExpression) condition, body));
             if(condition instanceof VariableExpression)
-                return new WhileStatement((VariableExpression) condition, body);
+                return profile("while", line, column, new WhileStatement(line, column, (VariableExpression) condition, body));
         } catch(IllegalArgumentException ex) {
             throw new IllegalTypeException(line, column, ex.getMessage());
         }
@@ -603,9 +900,9 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     }
 
     @Override
-    public ForEachStatement createForeach(int line, int column, ForeachType type, String variableName, Statement body) {
+    public Statement createForeach(int line, int column, ForeachType type, String variableName, Statement body) {
         try {
-            return new ForEachStatement(this, type, variableName, body);
+            return profile("foreach", line, column, new ForEachStatement(line, column, this, type, variableName, body));
         } catch(IllegalArgumentException ex) {
             throw new IllegalArgException(line, column, ex.getMessage());
         }
@@ -617,8 +914,8 @@ public class ProgramFactoryImpl implements ProgramFactory<Expression<?>, Stateme
     }
 
     @Override
-    public PrintStatement createPrint(int line, int column, Expression e) {
-        return new PrintStatement(handler, e);
+    public Statement createPrint(int line, int column, Expression e) {
+        return profile("print", line, column, new PrintStatement(handler, e));
     }
 
     @Override
@@ -0,0 +1,819 @@
+package worms.model.program;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import worms.gui.game.IActionHandler;
+import worms.model.Program;
+import worms.model.Worm;
+import worms.model.programs.ParseOutcome;
+import worms.model.programs.ProgramFactory;
+import worms.model.programs.ProgramFactory.ForeachType;
+import worms.model.programs.ProgramParser;
+
+/**
+ * A precompiled program: the calls the parser made on its ProgramFactory while parsing the program text, stored in a compact binary form.
+ *
+ * Loading an image replays those calls on a factory, so the program is built exactly as if it was parsed, without lexing and parsing the text.
+ * Only programs without any errors are turned into an image (see compile(String)), so a loaded image only has to be type checked again.
+ *
+ * Format: the magic "WRMP", a format version, the SHA-256 hash of the program text (to detect a stale image),
+ * the types created for the global variables, the globals by name and finally the main statement, written depth first.
+ * Every node is an operation followed by its line and column, its own data and the nodes it was created from.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ProgramImage {
+
+    /**
+     * The first four bytes of every image: "WRMP".
+     */
+    public static final int MAGIC = 0x57524D50;
+
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The extension used for images.
+     */
+    public static final String FILE_EXTENSION = ".wpc";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /* The operations, one for each method of ProgramFactory. 0 stands for a null reference. */
+    private static final int NONE = 0, DOUBLE_LITERAL = 1, BOOLEAN_LITERAL = 2, AND = 3, OR = 4, NOT = 5, NULL = 6, SELF = 7,
+            GETX = 8, GETY = 9, GETRADIUS = 10, GETDIR = 11, GETAP = 12, GETMAXAP = 13, GETHP = 14, GETMAXHP = 15,
+            SAMETEAM = 16, SEARCHOBJ = 17, ISWORM = 18, ISFOOD = 19, VARIABLE = 20,
+            LT = 21, GT = 22, LE = 23, GE = 24, EQ = 25, NE = 26, ADD = 27, SUB = 28, MUL = 29, DIV = 30, SQRT = 31, SIN = 32, COS = 33,
+            TURN = 34, MOVE = 35, JUMP = 36, TOGGLEWEAP = 37, FIRE = 38, SKIP = 39,
+            ASSIGNMENT = 40, IF = 41, WHILE = 42, FOREACH = 43, SEQUENCE = 44, PRINT = 45;
+
+    /* The amount of nodes each operation was created from, -1 for a sequence which writes its own count. */
+    private static final int[] ARITY = {
+        0, 0, 0, 2, 2, 1, 0, 0,
+        1, 1, 1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 0,
+        2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 1, 1, 1,
+        1, 0, 0, 0, 1, 0,
+        1, 3, 2, 1, -1, 1
+    };
+
+    /* The kinds of types of global variables. */
+    private static final int DOUBLE_TYPE = 0, BOOLEAN_TYPE = 1, ENTITY_TYPE = 2;
+
+    /**
+     * A call on the factory.
+     */
+    private static class Node {
+
+        private Node(int operation, int line, int column, Node... children) {
+            this.operation = operation;
+            this.line = line;
+            this.column = column;
+            this.children = children;
+        }
+
+        private final int operation;
+        private final int line;
+        private final int column;
+        private final Node[] children;
+
+        /* The data of literals, variables and for-each loops. */
+        private double number;
+        private String name;
+        private int type = -1;
+    }
+
+    private ProgramImage(byte[] sourceHash, int[] types, Map<String, Integer> globals, Node main) {
+        this.sourceHash = sourceHash;
+        this.types = types;
+        this.globals = globals;
+        this.main = main;
+    }
+
+    private final byte[] sourceHash;
+    private final int[] types;
+    private final Map<String, Integer> globals;
+    private final Node main;
+
+    /**
+     * Parse and check a program and turn it into an image.
+     *
+     * @param programText The program text.
+     * @param errors The list to add the errors found in the program to, as reported by Program.parseProgram(...).
+     * @return The image, null if errors were found.
+     */
+    public static ProgramImage compile(String programText, List<String> errors) {
+        ParseOutcome<?> checked = Program.parseProgram(programText, NO_ACTIONS);
+        if (!checked.isSuccess()) {
+            errors.addAll(((ParseOutcome.Failure) checked).getResult());
+            return null;
+        }
+
+        Recorder recorder = new Recorder();
+        ProgramParser<Node, Node, Node> parser = new ProgramParser<>(recorder);
+        parser.parse(programText);
+
+        Map<String, Integer> globals = new LinkedHashMap<>();
+        for (Map.Entry<String, Node> global : parser.getGlobals().entrySet())
+            globals.put(global.getKey(), global.getValue().type);
+
+        int[] types = new int[recorder.types.size()];
+        for (int i = 0; i < types.length; i++)
+            types[i] = recorder.types.get(i);
+
+        return new ProgramImage(hash(programText), types, globals, parser.getStatement());
+    }
+
+    /**
+     * Returns whether this image was compiled from a certain program text.
+     *
+     * @param programText The program text.
+     * @return | result == Arrays.equals(hash(programText), this.getSourceHash())
+     */
+    public boolean isCompiledFrom(String programText) {
+        return Arrays.equals(hash(programText), sourceHash);
+    }
+
+    /**
+     * The SHA-256 hash of the text this image was compiled from.
+     * @return
+     */
+    public byte[] getSourceHash() {
+        return sourceHash.clone();
+    }
+
+    /**
+     * The SHA-256 hash of a program text. Line endings don't matter and neither does a missing newline at the end.
+     *
+     * @param programText The program text.
+     * @return The hash.
+     */
+    public static byte[] hash(String programText) {
+        String text = programText.replace("\r\n", "\n").replace('\r', '\n');
+        if (!text.endsWith("\n"))
+            text += "\n";
+
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(UTF8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't supported.", e);
+        }
+    }
+
+    /**
+     * Build the program on a factory, making the same calls the parser made on it.
+     *
+     * @param factory The factory to build the program with.
+     * @param globals The map to put the global variables of the program in, by name.
+     * @return The main statement of the program.
+     */
+    public <E, S, T> S replay(ProgramFactory<E, S, T> factory, Map<String, T> globals) {
+        List<T> created = new ArrayList<>();
+        for (int type : types) {
+            switch (type) {
+                case DOUBLE_TYPE:
+                    created.add(factory.createDoubleType());
+                    break;
+                case BOOLEAN_TYPE:
+                    created.add(factory.createBooleanType());
+                    break;
+                default:
+                    created.add(factory.createEntityType());
+            }
+        }
+
+        for (Map.Entry<String, Integer> global : this.globals.entrySet())
+            globals.put(global.getKey(), created.get(global.getValue()));
+
+        return this.statement(factory, created, main);
+    }
+
+    private <E, S, T> S statement(ProgramFactory<E, S, T> factory, List<T> types, Node node) {
+        if (node == null)
+            return null;
+
+        int line = node.line, column = node.column;
+        switch (node.operation) {
+            case TURN:
+                return factory.createTurn(line, column, this.expression(factory, types, node.children[0]));
+            case MOVE:
+                return factory.createMove(line, column);
+            case JUMP:
+                return factory.createJump(line, column);
+            case TOGGLEWEAP:
+                return factory.createToggleWeap(line, column);
+            case FIRE:
+                return factory.createFire(line, column, this.expression(factory, types, node.children[0]));
+            case SKIP:
+                return factory.createSkip(line, column);
+            case ASSIGNMENT:
+                return factory.createAssignment(line, column, node.name, this.expression(factory, types, node.children[0]));
+            case IF:
+                return factory.createIf(line, column, this.expression(factory, types, node.children[0]),
+                        this.statement(factory, types, node.children[1]), this.statement(factory, types, node.children[2]));
+            case WHILE:
+                return factory.createWhile(line, column, this.expression(factory, types, node.children[0]),
+                        this.statement(factory, types, node.children[1]));
+            case FOREACH:
+                return factory.createForeach(line, column, ForeachType.values()[node.type], node.name,
+                        this.statement(factory, types, node.children[0]));
+            case SEQUENCE:
+                List<S> statements = new ArrayList<>();
+                for (Node child : node.children)
+                    statements.add(this.statement(factory, types, child));
+                return factory.createSequence(line, column, statements);
+            case PRINT:
+                return factory.createPrint(line, column, this.expression(factory, types, node.children[0]));
+            default:
+                throw new IllegalStateException("Operation " + node.operation + " isn't a statement.");
+        }
+    }
+
+    private <E, S, T> E expression(ProgramFactory<E, S, T> factory, List<T> types, Node node) {
+        if (node == null)
+            return null;
+
+        int line = node.line, column = node.column;
+        E e1 = node.children.length > 0 ? this.expression(factory, types, node.children[0]) : null;
+        E e2 = node.children.length > 1 ? this.expression(factory, types, node.children[1]) : null;
+        switch (node.operation) {
+            case DOUBLE_LITERAL:
+                return factory.createDoubleLiteral(line, column, node.number);
+            case BOOLEAN_LITERAL:
+                return factory.createBooleanLiteral(line, column, node.number != 0);
+            case AND:
+                return factory.createAnd(line, column, e1, e2);
+            case OR:
+                return factory.createOr(line, column, e1, e2);
+            case NOT:
+                return factory.createNot(line, column, e1);
+            case NULL:
+                return factory.createNull(line, column);
+            case SELF:
+                return factory.createSelf(line, column);
+            case GETX:
+                return factory.createGetX(line, column, e1);
+            case GETY:
+                return factory.createGetY(line, column, e1);
+            case GETRADIUS:
+                return factory.createGetRadius(line, column, e1);
+            case GETDIR:
+                return factory.createGetDir(line, column, e1);
+            case GETAP:
+                return factory.createGetAP(line, column, e1);
+            case GETMAXAP:
+                return factory.createGetMaxAP(line, column, e1);
+            case GETHP:
+                return factory.createGetHP(line, column, e1);
+            case GETMAXHP:
+                return factory.createGetMaxHP(line, column, e1);
+            case SAMETEAM:
+                return factory.createSameTeam(line, column, e1);
+            case SEARCHOBJ:
+                return factory.createSearchObj(line, column, e1);
+            case ISWORM:
+                return factory.createIsWorm(line, column, e1);
+            case ISFOOD:
+                return factory.createIsFood(line, column, e1);
+            case VARIABLE: {
+                //The same fallback as the parser's listener.
+                E access = factory.createVariableAccess(line, column, node.name, node.type < 0 ? null : types.get(node.type));
+                if (access == null)
+                    access = factory.createVariableAccess(line, column, node.name);
+                return access;
+            }
+            case LT:
+                return factory.createLessThan(line, column, e1, e2);
+            case GT:
+                return factory.createGreaterThan(line, column, e1, e2);
+            case LE:
+                return factory.createLessThanOrEqualTo(line, column, e1, e2);
+            case GE:
+                return factory.createGreaterThanOrEqualTo(line, column, e1, e2);
+            case EQ:
+                return factory.createEquality(line, column, e1, e2);
+            case NE:
+                return factory.createInequality(line, column, e1, e2);
+            case ADD:
+                return factory.createAdd(line, column, e1, e2);
+            case SUB:
+                return factory.createSubtraction(line, column, e1, e2);
+            case MUL:
+                return factory.createMul(line, column, e1, e2);
+            case DIV:
+                return factory.createDivision(line, column, e1, e2);
+            case SQRT:
+                return factory.createSqrt(line, column, e1);
+            case SIN:
+                return factory.createSin(line, column, e1);
+            case COS:
+                return factory.createCos(line, column, e1);
+            default:
+                throw new IllegalStateException("Operation " + node.operation + " isn't an expression.");
+        }
+    }
+
+    /**
+     * Write this image.
+     *
+     * @param stream The stream to write to, it isn't closed.
+     * @throws IOException
+     */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.write(sourceHash);
+
+        writeVarInt(out, types.length);
+        for (int type : types)
+            out.writeByte(type);
+
+        writeVarInt(out, globals.size());
+        for (Map.Entry<String, Integer> global : globals.entrySet()) {
+            out.writeUTF(global.getKey());
+            writeVarInt(out, global.getValue());
+        }
+
+        writeNode(out, main);
+        out.flush();
+    }
+
+    private static void writeNode(DataOutput out, Node node) throws IOException {
+        if (node == null) {
+            out.writeByte(NONE);
+            return;
+        }
+
+        out.writeByte(node.operation);
+        writeVarInt(out, node.line);
+        writeVarInt(out, node.column);
+        switch (node.operation) {
+            case DOUBLE_LITERAL:
+                out.writeDouble(node.number);
+                break;
+            case BOOLEAN_LITERAL:
+                out.writeBoolean(node.number != 0);
+                break;
+            case VARIABLE:
+                out.writeUTF(node.name);
+                writeVarInt(out, node.type + 1);
+                break;
+            case ASSIGNMENT:
+                out.writeUTF(node.name);
+                break;
+            case FOREACH:
+                out.writeUTF(node.name);
+                out.writeByte(node.type);
+                break;
+            case SEQUENCE:
+                writeVarInt(out, node.children.length);
+                break;
+        }
+
+        for (Node child : node.children)
+            writeNode(out, child);
+    }
+
+    /**
+     * Returns whether some data starts like an image.
+     *
+     * @param data The data, at least the first four bytes of it.
+     * @return Whether the data starts with MAGIC.
+     */
+    public static boolean isImage(byte[] data) {
+        return data.length >= 4 && ((data[0] & 0xFF) << 24 | (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8 | (data[3] & 0xFF)) == MAGIC;
+    }
+
+    /**
+     * Read an image.
+     *
+     * @param stream The stream to read from, it isn't closed.
+     * @return The image.
+     * @throws IOException
+     *          When the data isn't an image of the version written by this class or it's truncated.
+     */
+    public static ProgramImage read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC)
+            throw new IOException("This isn't a precompiled program.");
+        int version = in.readUnsignedShort();
+        if (version != VERSION)
+            throw new IOException("Precompiled programs of version " + version + " aren't supported, recompile the program.");
+
+        byte[] sourceHash = new byte[32];
+        in.readFully(sourceHash);
+
+        int[] types = new int[readVarInt(in)];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = in.readUnsignedByte();
+            if (types[i] > ENTITY_TYPE)
+                throw new IOException("Invalid type " + types[i] + ".");
+        }
+
+        int globalCount = readVarInt(in);
+        Map<String, Integer> globals = new LinkedHashMap<>();
+        for (int i = 0; i < globalCount; i++) {
+            String name = in.readUTF();
+            int type = readVarInt(in);
+            if (type >= types.length)
+                throw new IOException("Invalid type index " + type + ".");
+            globals.put(name, type);
+        }
+
+        return new ProgramImage(sourceHash, types, globals, readNode(in, types.length));
+    }
+
+    private static Node readNode(DataInput in, int typeCount) throws IOException {
+        int operation = in.readUnsignedByte();
+        if (operation == NONE)
+            return null;
+        if (operation >= ARITY.length)
+            throw new IOException("Invalid operation " + operation + ".");
+
+        int line = readVarInt(in);
+        int column = readVarInt(in);
+        double number = 0;
+        String name = null;
+        int type = -1;
+        int arity = ARITY[operation];
+        switch (operation) {
+            case DOUBLE_LITERAL:
+                number = in.readDouble();
+                break;
+            case BOOLEAN_LITERAL:
+                number = in.readBoolean() ? 1 : 0;
+                break;
+            case VARIABLE:
+                name = in.readUTF();
+                type = readVarInt(in) - 1;
+                if (type >= typeCount)
+                    throw new IOException("Invalid type index " + type + ".");
+                break;
+            case ASSIGNMENT:
+                name = in.readUTF();
+                break;
+            case FOREACH:
+                name = in.readUTF();
+                type = in.readUnsignedByte();
+                if (type >= ForeachType.values().length)
+                    throw new IOException("Invalid for-each type " + type + ".");
+                break;
+            case SEQUENCE:
+                arity = readVarInt(in);
+                break;
+        }
+
+        Node[] children = new Node[arity];
+        for (int i = 0; i < arity; i++)
+            children[i] = readNode(in, typeCount);
+
+        Node node = new Node(operation, line, column, children);
+        node.number = number;
+        node.name = name;
+        node.type = type;
+        return node;
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Invalid variable length integer.");
+    }
+
+    /**
+     * A handler for checking programs that are never executed.
+     */
+    private static final IActionHandler NO_ACTIONS = new IActionHandler() {
+        @Override
+        public boolean turn(Worm worm, double angle) {
+            return false;
+        }
+
+        @Override
+        public boolean move(Worm worm) {
+            return false;
+        }
+
+        @Override
+        public boolean jump(Worm worm) {
+            return false;
+        }
+
+        @Override
+        public boolean toggleWeapon(Worm worm) {
+            return false;
+        }
+
+        @Override
+        public boolean fire(Worm worm, int propulsion) {
+            return false;
+        }
+
+        @Override
+        public void print(String message) {
+        }
+    };
+
+    /**
+     * A factory recording the calls made on it.
+     */
+    private static class Recorder implements ProgramFactory<Node, Node, Node> {
+
+        private final List<Integer> types = new ArrayList<>();
+
+        private Node type(int kind) {
+            Node node = new Node(NONE, 0, 0);
+            node.type = types.size();
+            types.add(kind);
+            return node;
+        }
+
+        @Override
+        public Node createDoubleLiteral(int line, int column, double d) {
+            Node node = new Node(DOUBLE_LITERAL, line, column);
+            node.number = d;
+            return node;
+        }
+
+        @Override
+        public Node createBooleanLiteral(int line, int column, boolean b) {
+            Node node = new Node(BOOLEAN_LITERAL, line, column);
+            node.number = b ? 1 : 0;
+            return node;
+        }
+
+        @Override
+        public Node createAnd(int line, int column, Node e1, Node e2) {
+            return new Node(AND, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createOr(int line, int column, Node e1, Node e2) {
+            return new Node(OR, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createNot(int line, int column, Node e) {
+            return new Node(NOT, line, column, e);
+        }
+
+        @Override
+        public Node createNull(int line, int column) {
+            return new Node(NULL, line, column);
+        }
+
+        @Override
+        public Node createSelf(int line, int column) {
+            return new Node(SELF, line, column);
+        }
+
+        @Override
+        public Node createGetX(int line, int column, Node e) {
+            return new Node(GETX, line, column, e);
+        }
+
+        @Override
+        public Node createGetY(int line, int column, Node e) {
+            return new Node(GETY, line, column, e);
+        }
+
+        @Override
+        public Node createGetRadius(int line, int column, Node e) {
+            return new Node(GETRADIUS, line, column, e);
+        }
+
+        @Override
+        public Node createGetDir(int line, int column, Node e) {
+            return new Node(GETDIR, line, column, e);
+        }
+
+        @Override
+        public Node createGetAP(int line, int column, Node e) {
+            return new Node(GETAP, line, column, e);
+        }
+
+        @Override
+        public Node createGetMaxAP(int line, int column, Node e) {
+            return new Node(GETMAXAP, line, column, e);
+        }
+
+        @Override
+        public Node createGetHP(int line, int column, Node e) {
+            return new Node(GETHP, line, column, e);
+        }
+
+        @Override
+        public Node createGetMaxHP(int line, int column, Node e) {
+            return new Node(GETMAXHP, line, column, e);
+        }
+
+        @Override
+        public Node createSameTeam(int line, int column, Node e) {
+            return new Node(SAMETEAM, line, column, e);
+        }
+
+        @Override
+        public Node createSearchObj(int line, int column, Node e) {
+            return new Node(SEARCHOBJ, line, column, e);
+        }
+
+        @Override
+        public Node createIsWorm(int line, int column, Node e) {
+            return new Node(ISWORM, line, column, e);
+        }
+
+        @Override
+        public Node createIsFood(int line, int column, Node e) {
+            return new Node(ISFOOD, line, column, e);
+        }
+
+        @Override
+        public Node createVariableAccess(int line, int column, String name) {
+            return this.createVariableAccess(line, column, name, null);
+        }
+
+        @Override
+        public Node createVariableAccess(int line, int column, String name, Node type) {
+            Node node = new Node(VARIABLE, line, column);
+            node.name = name;
+            node.type = type == null ? -1 : type.type;
+            return node;
+        }
+
+        @Override
+        public Node createLessThan(int line, int column, Node e1, Node e2) {
+            return new Node(LT, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createGreaterThan(int line, int column, Node e1, Node e2) {
+            return new Node(GT, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createLessThanOrEqualTo(int line, int column, Node e1, Node e2) {
+            return new Node(LE, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createGreaterThanOrEqualTo(int line, int column, Node e1, Node e2) {
+            return new Node(GE, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createEquality(int line, int column, Node e1, Node e2) {
+            return new Node(EQ, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createInequality(int line, int column, Node e1, Node e2) {
+            return new Node(NE, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createAdd(int line, int column, Node e1, Node e2) {
+            return new Node(ADD, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createSubtraction(int line, int column, Node e1, Node e2) {
+            return new Node(SUB, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createMul(int line, int column, Node e1, Node e2) {
+            return new Node(MUL, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createDivision(int line, int column, Node e1, Node e2) {
+            return new Node(DIV, line, column, e1, e2);
+        }
+
+        @Override
+        public Node createSqrt(int line, int column, Node e) {
+            return new Node(SQRT, line, column, e);
+        }
+
+        @Override
+        public Node createSin(int line, int column, Node e) {
+            return new Node(SIN, line, column, e);
+        }
+
+        @Override
+        public Node createCos(int line, int column, Node e) {
+            return new Node(COS, line, column, e);
+        }
+
+        @Override
+        public Node createTurn(int line, int column, Node angle) {
+            return new Node(TURN, line, column, angle);
+        }
+
+        @Override
+        public Node createMove(int line, int column) {
+            return new Node(MOVE, line, column);
+        }
+
+        @Override
+        public Node createJump(int line, int column) {
+            return new Node(JUMP, line, column);
+        }
+
+        @Override
+        public Node createToggleWeap(int line, int column) {
+            return new Node(TOGGLEWEAP, line, column);
+        }
+
+        @Override
+        public Node createFire(int line, int column, Node yield) {
+            return new Node(FIRE, line, column, yield);
+        }
+
+        @Override
+        public Node createSkip(int line, int column) {
+            return new Node(SKIP, line, column);
+        }
+
+        @Override
+        public Node createAssignment(int line, int column, String variableName, Node rhs) {
+            Node node = new Node(ASSIGNMENT, line, column, rhs);
+            node.name = variableName;
+            return node;
+        }
+
+        @Override
+        public Node createIf(int line, int column, Node condition, Node then, Node otherwise) {
+            return new Node(IF, line, column, condition, then, otherwise);
+        }
+
+        @Override
+        public Node createWhile(int line, int column, Node condition, Node body) {
+            return new Node(WHILE, line, column, condition, body);
+        }
+
+        @Override
+        public Node createForeach(int line, int column, ForeachType type, String variableName, Node body) {
+            Node node = new Node(FOREACH, line, column, body);
+            node.name = variableName;
+            node.type = type.ordinal();
+            return node;
+        }
+
+        @Override
+        public Node createSequence(int line, int column, List<Node> statements) {
+            return new Node(SEQUENCE, line, column, statements.toArray(new Node[statements.size()]));
+        }
+
+        @Override
+        public Node createPrint(int line, int column, Node e) {
+            return new Node(PRINT, line, column, e);
+        }
+
+        @Override
+        public Node createDoubleType() {
+            return this.type(DOUBLE_TYPE);
+        }
+
+        @Override
+        public Node createBooleanType() {
+            return this.type(BOOLEAN_TYPE);
+        }
+
+        @Override
+        public Node createEntityType() {
+            return this.type(ENTITY_TYPE);
+        }
+    }
+}
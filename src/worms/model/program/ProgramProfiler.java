@@ -0,0 +1,259 @@
+package worms.model.program;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how often each statement of a program runs, how long it takes and how much of Program.MAX_STATEMENT_AMOUNT it uses.
+ *
+ * Statements are only measured when the factory building them has a profiler set (ProgramFactoryImpl.setProfiler(...)),
+ * the factory then wraps every statement in a ProfiledStatement. Programs built without a profiler are not touched at all.
+ * Statements are identified by their kind, line and column, so several programs parsed from the same text add up.
+ *
+ * The results can be written as a flat report, one line per statement, or as folded stacks, the input format of flame graph tools.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ProgramProfiler {
+
+    /**
+     * A statement in the program text, identified by its kind, line and column.
+     */
+    public static class Site {
+
+        private Site(String kind, int line, int column) {
+            this.kind = kind;
+            this.line = line;
+            this.column = column;
+        }
+
+        private final String kind;
+        private final int line;
+        private final int column;
+
+        private long count;
+        private long totalNanos;
+        private long selfNanos;
+        private long budget;
+
+        /**
+         * The kind of the statement, e.g. "while".
+         * @return
+         */
+        public String getKind() {
+            return this.kind;
+        }
+
+        public int getLine() {
+            return this.line;
+        }
+
+        public int getColumn() {
+            return this.column;
+        }
+
+        /**
+         * How often the statement was executed.
+         * Passing the statement while a program resumes at a statement further on doesn't count.
+         * @return
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * The time spent in the statement, including the statements nested in it.
+         * @return
+         */
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        /**
+         * The time spent in the statement, excluding the statements nested in it.
+         * @return
+         */
+        public long getSelfNanos() {
+            return this.selfNanos;
+        }
+
+        /**
+         * The amount of the statement budget used by the statement, including the statements nested in it.
+         * @return
+         */
+        public long getBudget() {
+            return this.budget;
+        }
+
+        @Override
+        public String toString() {
+            return kind + "@" + line + ":" + column;
+        }
+    }
+
+    /**
+     * A node in the tree of nested statements as they were executed, one per distinct stack.
+     */
+    private static class Frame {
+
+        private Frame(Site site, Frame parent) {
+            this.site = site;
+            this.parent = parent;
+        }
+
+        private final Site site;
+        private final Frame parent;
+        private final Map<Site, Frame> children = new HashMap<>();
+        private long selfNanos;
+
+        private Frame child(Site site) {
+            Frame child = children.get(site);
+            if (child == null) {
+                child = new Frame(site, this);
+                children.put(site, child);
+            }
+            return child;
+        }
+    }
+
+    /**
+     * Returns the site of a statement, every statement with the same kind, line and column has the same site.
+     * Programs can be parsed on several threads at once (see ParallelProgramParser), so the sites are looked up synchronized.
+     *
+     * @param kind The kind of the statement.
+     * @param line The line of the statement.
+     * @param column The column of the statement.
+     * @return The site.
+     */
+    public synchronized Site getSite(String kind, int line, int column) {
+        String key = kind + "@" + line + ":" + column;
+        Site site = sites.get(key);
+        if (site == null) {
+            site = new Site(kind, line, column);
+            sites.put(key, site);
+        }
+        return site;
+    }
+
+    private final Map<String, Site> sites = new HashMap<>();
+
+    /**
+     * All sites, in the order of the most time spent first.
+     * @return
+     */
+    public List<Site> getSites() {
+        List<Site> result;
+        synchronized (this) {
+            result = new ArrayList<>(sites.values());
+        }
+        Collections.sort(result, new Comparator<Site>() {
+            @Override
+            public int compare(Site s1, Site s2) {
+                return Long.compare(s2.totalNanos, s1.totalNanos);
+            }
+        });
+        return result;
+    }
+
+    private final Frame root = new Frame(null, null);
+    private Frame current = root;
+    private long[] childNanos = new long[16];
+    private int depth = 0;
+
+    /**
+     * Start measuring a statement, nested in the statement measured last.
+     *
+     * @param site The site of the statement.
+     */
+    public void enter(Site site) {
+        current = current.child(site);
+        if (++depth == childNanos.length)
+            childNanos = Arrays.copyOf(childNanos, depth * 2);
+        childNanos[depth] = 0;
+    }
+
+    /**
+     * Stop measuring the statement entered last.
+     *
+     * @param nanos The time spent in the statement.
+     * @param budget The amount of the statement budget used.
+     * @param counted Whether the statement was really executed, rather than passed while resuming.
+     */
+    public void exit(long nanos, int budget, boolean counted) {
+        Site site = current.site;
+        long self = nanos - childNanos[depth];
+
+        site.totalNanos += nanos;
+        site.selfNanos += self;
+        site.budget += budget;
+        if (counted)
+            site.count++;
+        current.selfNanos += self;
+
+        current = current.parent;
+        childNanos[--depth] += nanos;
+    }
+
+    /**
+     * Record the end of an execution of a program.
+     *
+     * @param budget The amount of the statement budget the execution used.
+     */
+    public void endRun(int budget) {
+        this.runs++;
+        this.runBudget += budget;
+    }
+
+    /**
+     * The amount of executions of programs recorded.
+     * @return
+     */
+    public long getRuns() {
+        return this.runs;
+    }
+
+    private long runs;
+    private long runBudget;
+
+    /**
+     * Write one line per statement: its position, kind, count, budget used and time spent, the most time spent first.
+     *
+     * @param writer The writer to write to, it is flushed afterwards.
+     */
+    public void writeFlatReport(PrintWriter writer) {
+        writer.println("runs: " + runs + "; statements: " + runBudget);
+        writer.println(String.format("%-10s %-11s %10s %10s %12s %12s", "position", "statement", "count", "budget", "total ms", "self ms"));
+        for (Site site : this.getSites()) {
+            writer.println(String.format("%-10s %-11s %10d %10d %12.3f %12.3f", site.line + ":" + site.column, site.kind,
+                    site.count, site.budget, site.totalNanos / 1e6, site.selfNanos / 1e6));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Write the folded stacks of the executed statements: one line per stack, the frames separated by semicolons,
+     * followed by the time spent in the innermost statement in nanoseconds.
+     *
+     * @param writer The writer to write to, it is flushed afterwards.
+     */
+    public void writeFoldedStacks(PrintWriter writer) {
+        for (Frame child : root.children.values())
+            this.writeFoldedStacks(writer, child, "program");
+        writer.flush();
+    }
+
+    private void writeFoldedStacks(PrintWriter writer, Frame frame, String prefix) {
+        String stack = prefix + ";" + frame.site;
+        if (frame.selfNanos > 0)
+            writer.println(stack + " " + frame.selfNanos);
+        for (Frame child : frame.children.values())
+            this.writeFoldedStacks(writer, child, stack);
+    }
+}
@@ -0,0 +1,110 @@
+package worms.model.program;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import worms.model.Entity;
+import worms.model.program.expressions.Expression;
+import worms.model.program.statements.AssignmentStatement;
+import worms.model.program.statements.ForEachStatement;
+import worms.model.program.statements.IfStatement;
+import worms.model.program.statements.MultipleStatement;
+import worms.model.program.statements.Statement;
+import worms.model.program.statements.WhileStatement;
+
+/**
+ * Checks the types of a parsed program once, before it is executed.
+ *
+ * The globals of a program are only known after the parser is done parsing, so assignments and for-each loops
+ * can't look up their variable while they are created. This checker walks every statement, however deeply nested,
+ * looks up those variables, checks their types and binds them to the statements.
+ * The statements themselves don't check any types while executing.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class TypeChecker {
+
+    /**
+     * Initialize a type checker for a program with certain global variables.
+     *
+     * @param globals The global variables of the program, by name.
+     *
+     * @throws IllegalArgumentException
+     *          | globals == null
+     */
+    public TypeChecker(Map<String, ? extends Variable<?>> globals) throws IllegalArgumentException {
+        if (globals == null)
+            throw new IllegalArgumentException("The globals musn't be a null reference.");
+
+        this.globals = globals;
+    }
+
+    private final Map<String, ? extends Variable<?>> globals;
+
+    /**
+     * Check a statement and every statement nested in it.
+     * Every assignment and for-each statement without errors gets its variable bound.
+     *
+     * @param statement The statement to check.
+     * @return The errors found, formatted as "line:column type error: message".
+     */
+    public List<String> check(Statement statement) {
+        List<String> errors = new ArrayList<>();
+        this.check(statement, errors);
+        return errors;
+    }
+
+    private void check(Statement statement, List<String> errors) {
+        if (statement instanceof AssignmentStatement) {
+            this.checkAssignment((AssignmentStatement) statement, errors);
+        } else if (statement instanceof ForEachStatement) {
+            this.checkForEach((ForEachStatement) statement, errors);
+        } else if (statement instanceof IfStatement) {
+            IfStatement ifStatement = (IfStatement) statement;
+            this.checkCondition(ifStatement.getLine(), ifStatement.getColumn(), ifStatement.getCondition(), errors);
+        } else if (statement instanceof WhileStatement) {
+            WhileStatement whileStatement = (WhileStatement) statement;
+            this.checkCondition(whileStatement.getLine(), whileStatement.getColumn(), whileStatement.getCondition(), errors);
+        }
+
+        if (statement instanceof MultipleStatement) {
+            for (Statement nested : ((MultipleStatement) statement).getStatements())
+                this.check(nested, errors);
+        }
+    }
+
+    private void checkAssignment(AssignmentStatement assignment, List<String> errors) {
+        Variable<?> variable = globals.get(assignment.getVariableName());
+        if (variable == null) {
+            this.error(assignment.getLine(), assignment.getColumn(), "The variable " + assignment.getVariableName() + " does not exist.", errors);
+        } else if (!assignment.getExpression().getType().isAssignableFrom(variable.getType())) {
+            this.error(assignment.getLine(), assignment.getColumn(), "The variable " + assignment.getVariableName() + " of type "
+                    + variable.getType().getSimpleName() + " can't be assigned an expression of type "
+                    + assignment.getExpression().getType().getSimpleName() + ".", errors);
+        } else {
+            assignment.bind(variable);
+        }
+    }
+
+    private void checkForEach(ForEachStatement forEach, List<String> errors) {
+        Variable<?> variable = globals.get(forEach.getVariableName());
+        if (variable == null) {
+            this.error(forEach.getLine(), forEach.getColumn(), "The variable " + forEach.getVariableName() + " does not exist.", errors);
+        } else if (variable.getType() != Entity.class) {
+            this.error(forEach.getLine(), forEach.getColumn(), "The variable " + forEach.getVariableName() + " of a for-each loop must be of type Entity.", errors);
+        } else {
+            forEach.bind(variable);
+        }
+    }
+
+    private void checkCondition(int line, int column, Expression<?> condition, List<String> errors) {
+        if (condition.getType() != Boolean.class)
+            this.error(line, column, "The condition must be of type Boolean.", errors);
+    }
+
+    private void error(int line, int column, String message, List<String> errors) {
+        errors.add(line + ":" + column + " type error: " + message);
+    }
+}
@@ -0,0 +1,101 @@
+package worms.model.program.bytecode;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * The compiled form of a program: its instructions, constant pool and the sizes of the register files it needs.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class Bytecode {
+
+    /**
+     * Initialize compiled code.
+     *
+     * @param code The instructions.
+     * @param constants The constant pool.
+     * @param doubleRegisters The amount of double registers used.
+     * @param booleanRegisters The amount of boolean registers used.
+     * @param entityRegisters The amount of entity registers used.
+     * @param iterators The amount of for-each iterator slots used.
+     */
+    public Bytecode(int[] code, double[] constants, int doubleRegisters, int booleanRegisters, int entityRegisters, int iterators) {
+        this.code = code;
+        this.constants = constants;
+        this.doubleRegisters = doubleRegisters;
+        this.booleanRegisters = booleanRegisters;
+        this.entityRegisters = entityRegisters;
+        this.iterators = iterators;
+    }
+
+    /**
+     * Returns a copy of the instructions.
+     * @return
+     */
+    public int[] getCode() {
+        return code.clone();
+    }
+
+    final int[] code;
+
+    /**
+     * Returns a copy of the constant pool.
+     * @return
+     */
+    public double[] getConstants() {
+        return constants.clone();
+    }
+
+    final double[] constants;
+
+    @Basic @Immutable
+    public int getDoubleRegisters() {
+        return doubleRegisters;
+    }
+
+    private final int doubleRegisters;
+
+    @Basic @Immutable
+    public int getBooleanRegisters() {
+        return booleanRegisters;
+    }
+
+    private final int booleanRegisters;
+
+    @Basic @Immutable
+    public int getEntityRegisters() {
+        return entityRegisters;
+    }
+
+    private final int entityRegisters;
+
+    @Basic @Immutable
+    public int getIterators() {
+        return iterators;
+    }
+
+    private final int iterators;
+
+    /**
+     * Returns a listing of the instructions, one per line.
+     * @return
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc];
+            builder.append(pc).append(": ").append(Opcodes.NAMES[opcode]);
+            for (int i = 1; i <= Opcodes.OPERANDS[opcode]; i++)
+                builder.append(i == 1 ? " " : ", ").append(code[pc + i]);
+            if (opcode == Opcodes.DCONST)
+                builder.append(" (").append(constants[code[pc + 2]]).append(")");
+            builder.append('\n');
+            pc += Opcodes.OPERANDS[opcode] + 1;
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,560 @@
+package worms.model.program.bytecode;
+
+import static worms.model.program.bytecode.RegisterType.*;
+
+import java.util.List;
+import java.util.Map;
+
+import worms.model.program.exceptions.IllegalArgException;
+import worms.model.program.exceptions.IllegalTypeException;
+import worms.model.programs.ProgramFactory;
+
+/**
+ * A ProgramFactory lowering a program to instructions for the VirtualMachine instead of building an AST to interpret.
+ *
+ * The callbacks of the parser build light-weight nodes, once parsing is done compile(...) turns them into Bytecode.
+ * Globals are handed out registers as they are declared. Assignments and for-each loops refer to their variable by name only,
+ * those names are resolved when compiling since the globals aren't known before the parser is done.
+ *
+ * Type errors are reported the same way as ProgramFactoryImpl does, by throwing an IllegalTypeException.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class BytecodeProgramFactory implements ProgramFactory<ExpressionNode, StatementNode, Register> {
+
+    private final int[] globalCounts = new int[RegisterType.values().length];
+
+    /**
+     * Compile a parsed program.
+     *
+     * @param main The main statement as returned by the parser.
+     * @param globals The globals as returned by the parser.
+     * @param errors The list to add the errors found while compiling to.
+     *
+     * @return The compiled program, or null if errors were found.
+     */
+    public Bytecode compile(StatementNode main, Map<String, Register> globals, List<String> errors) {
+        CodeBuilder builder = new CodeBuilder(globals, globalCounts);
+        if (main != null)
+            main.emit(builder);
+        builder.emit(Opcodes.HALT);
+
+        if (!builder.getErrors().isEmpty()) {
+            errors.addAll(builder.getErrors());
+            return null;
+        }
+        return builder.build();
+    }
+
+    private static void checkType(int line, int column, ExpressionNode e, RegisterType type, String message) throws IllegalTypeException {
+        if (e.getType() != type)
+            throw new IllegalTypeException(line, column, message);
+    }
+
+    private static ExpressionNode unary(final int opcode, RegisterType resultType, final ExpressionNode e) {
+        return new ExpressionNode(resultType) {
+            @Override
+            public int emit(CodeBuilder builder) {
+                return builder.emitValue(opcode, getType(), e.emit(builder));
+            }
+        };
+    }
+
+    private static ExpressionNode binary(final int opcode, RegisterType resultType, final ExpressionNode e1, final ExpressionNode e2) {
+        return new ExpressionNode(resultType) {
+            @Override
+            public int emit(CodeBuilder builder) {
+                int a = e1.emit(builder);
+                int b = e2.emit(builder);
+                return builder.emitValue(opcode, getType(), a, b);
+            }
+        };
+    }
+
+    private static ExpressionNode inspect(int line, int column, int opcode, RegisterType resultType, ExpressionNode e) {
+        checkType(line, column, e, ENTITY, "The parameter must be an Entity type.");
+        return unary(opcode, resultType, e);
+    }
+
+    private static ExpressionNode arithmetic(int line, int column, int opcode, ExpressionNode e1, ExpressionNode e2) {
+        checkType(line, column, e1, DOUBLE, "Both expressions must be of the type Double.");
+        checkType(line, column, e2, DOUBLE, "Both expressions must be of the type Double.");
+        return binary(opcode, DOUBLE, e1, e2);
+    }
+
+    private static ExpressionNode comparison(int line, int column, int opcode, ExpressionNode e1, ExpressionNode e2) {
+        checkType(line, column, e1, DOUBLE, "Both expressions must be of the type Double.");
+        checkType(line, column, e2, DOUBLE, "Both expressions must be of the type Double.");
+        return binary(opcode, BOOLEAN, e1, e2);
+    }
+
+    private static ExpressionNode function(int line, int column, int opcode, ExpressionNode e) {
+        checkType(line, column, e, DOUBLE, "The argument must be of the type Double.");
+        return unary(opcode, DOUBLE, e);
+    }
+
+    /**
+     * A short-circuiting && or ||, the right operand is skipped when jumpOpcode jumps on the left operand.
+     */
+    private static ExpressionNode logical(final int jumpOpcode, final ExpressionNode e1, final ExpressionNode e2) {
+        return new ExpressionNode(BOOLEAN) {
+            @Override
+            public int emit(CodeBuilder builder) {
+                int result = builder.temp(BOOLEAN);
+                builder.emitMove(BOOLEAN, result, e1.emit(builder));
+                int end = builder.emitJump(jumpOpcode, result);
+                builder.emitMove(BOOLEAN, result, e2.emit(builder));
+                builder.patch(end);
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public ExpressionNode createDoubleLiteral(int line, int column, final double d) {
+        return new ExpressionNode(DOUBLE) {
+            @Override
+            public int emit(CodeBuilder builder) {
+                return builder.emitValue(Opcodes.DCONST, DOUBLE, builder.constant(d));
+            }
+        };
+    }
+
+    @Override
+    public ExpressionNode createBooleanLiteral(int line, int column, final boolean b) {
+        return new ExpressionNode(BOOLEAN) {
+            @Override
+            public int emit(CodeBuilder builder) {
+                return builder.emitValue(Opcodes.BCONST, BOOLEAN, b ? 1 : 0);
+            }
+        };
+    }
+
+    @Override
+    public ExpressionNode createAnd(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        checkType(line, column, e1, BOOLEAN, "An &&-expression must consist of atleast 2 boolean types.");
+        checkType(line, column, e2, BOOLEAN, "An &&-expression must consist of atleast 2 boolean types.");
+        return logical(Opcodes.JMPF, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createOr(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        checkType(line, column, e1, BOOLEAN, "An ||-expression must consist of atleast 2 boolean types.");
+        checkType(line, column, e2, BOOLEAN, "An ||-expression must consist of atleast 2 boolean types.");
+        return logical(Opcodes.JMPT, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createNot(int line, int column, ExpressionNode e) {
+        checkType(line, column, e, BOOLEAN, "An !-expression must consist of a boolean type.");
+        return unary(Opcodes.BNOT, BOOLEAN, e);
+    }
+
+    @Override
+    public ExpressionNode createNull(int line, int column) {
+        return new ExpressionNode(ENTITY) {
+            @Override
+            public int emit(CodeBuilder builder) {
+                return builder.emitValue(Opcodes.ENULL, ENTITY);
+            }
+        };
+    }
+
+    @Override
+    public ExpressionNode createSelf(int line, int column) {
+        return new ExpressionNode(ENTITY) {
+            @Override
+            public int emit(CodeBuilder builder) {
+                return builder.emitValue(Opcodes.ESELF, ENTITY);
+            }
+        };
+    }
+
+    @Override
+    public ExpressionNode createGetX(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.GETX, DOUBLE, e);
+    }
+
+    @Override
+    public ExpressionNode createGetY(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.GETY, DOUBLE, e);
+    }
+
+    @Override
+    public ExpressionNode createGetRadius(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.GETRADIUS, DOUBLE, e);
+    }
+
+    @Override
+    public ExpressionNode createGetDir(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.GETDIR, DOUBLE, e);
+    }
+
+    @Override
+    public ExpressionNode createGetAP(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.GETAP, DOUBLE, e);
+    }
+
+    @Override
+    public ExpressionNode createGetMaxAP(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.GETMAXAP, DOUBLE, e);
+    }
+
+    @Override
+    public ExpressionNode createGetHP(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.GETHP, DOUBLE, e);
+    }
+
+    @Override
+    public ExpressionNode createGetMaxHP(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.GETMAXHP, DOUBLE, e);
+    }
+
+    @Override
+    public ExpressionNode createSameTeam(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.SAMETEAM, BOOLEAN, e);
+    }
+
+    @Override
+    public ExpressionNode createSearchObj(int line, int column, ExpressionNode e) {
+        checkType(line, column, e, DOUBLE, "The parameter must be a Double type.");
+        return unary(Opcodes.SEARCH, ENTITY, e);
+    }
+
+    @Override
+    public ExpressionNode createIsWorm(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.ISWORM, BOOLEAN, e);
+    }
+
+    @Override
+    public ExpressionNode createIsFood(int line, int column, ExpressionNode e) {
+        return inspect(line, column, Opcodes.ISFOOD, BOOLEAN, e);
+    }
+
+    @Override
+    public ExpressionNode createVariableAccess(int line, int column, String name) {
+        return null;
+    }
+
+    @Override
+    public ExpressionNode createVariableAccess(int line, int column, String name, final Register type) {
+        if (type == null)
+            throw new IllegalArgException(line, column, "The variable " + name + " does not exist.");
+
+        return new ExpressionNode(type.getType()) {
+            @Override
+            public int emit(CodeBuilder builder) {
+                return type.getIndex();
+            }
+        };
+    }
+
+    @Override
+    public ExpressionNode createLessThan(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return comparison(line, column, Opcodes.DLT, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createGreaterThan(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return comparison(line, column, Opcodes.DGT, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createLessThanOrEqualTo(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return comparison(line, column, Opcodes.DLE, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createGreaterThanOrEqualTo(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return comparison(line, column, Opcodes.DGE, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createEquality(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        if (e1.getType() != e2.getType())
+            throw new IllegalTypeException(line, column, "Both expressions must have the same type.");
+
+        switch (e1.getType()) {
+            case DOUBLE:
+                return binary(Opcodes.DEQ, BOOLEAN, e1, e2);
+            case BOOLEAN:
+                return binary(Opcodes.BEQ, BOOLEAN, e1, e2);
+            default:
+                return binary(Opcodes.EEQ, BOOLEAN, e1, e2);
+        }
+    }
+
+    @Override
+    public ExpressionNode createInequality(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return this.createNot(line, column, this.createEquality(line, column, e1, e2));
+    }
+
+    @Override
+    public ExpressionNode createAdd(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return arithmetic(line, column, Opcodes.DADD, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createSubtraction(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return arithmetic(line, column, Opcodes.DSUB, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createMul(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return arithmetic(line, column, Opcodes.DMUL, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createDivision(int line, int column, ExpressionNode e1, ExpressionNode e2) {
+        return arithmetic(line, column, Opcodes.DDIV, e1, e2);
+    }
+
+    @Override
+    public ExpressionNode createSqrt(int line, int column, ExpressionNode e) {
+        return function(line, column, Opcodes.DSQRT, e);
+    }
+
+    @Override
+    public ExpressionNode createSin(int line, int column, ExpressionNode e) {
+        return function(line, column, Opcodes.DSIN, e);
+    }
+
+    @Override
+    public ExpressionNode createCos(int line, int column, ExpressionNode e) {
+        return function(line, column, Opcodes.DCOS, e);
+    }
+
+    /**
+     * An action statement: a statement boundary, the evaluation of the (optional) argument and the action itself.
+     */
+    private static StatementNode action(final int opcode, final ExpressionNode argument) {
+        return new StatementNode() {
+            @Override
+            public void emit(CodeBuilder builder) {
+                builder.tick();
+                if (argument == null)
+                    builder.emit(opcode);
+                else
+                    builder.emit(opcode, argument.emit(builder));
+            }
+
+            @Override
+            public boolean hasActionStatement() {
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public StatementNode createTurn(int line, int column, ExpressionNode angle) {
+        checkType(line, column, angle, DOUBLE, "The argument must be of the type Double.");
+        return action(Opcodes.TURN, angle);
+    }
+
+    @Override
+    public StatementNode createMove(int line, int column) {
+        return action(Opcodes.MOVE, null);
+    }
+
+    @Override
+    public StatementNode createJump(int line, int column) {
+        return action(Opcodes.JUMP, null);
+    }
+
+    @Override
+    public StatementNode createToggleWeap(int line, int column) {
+        return action(Opcodes.TOGGLE, null);
+    }
+
+    @Override
+    public StatementNode createFire(int line, int column, ExpressionNode yield) {
+        checkType(line, column, yield, DOUBLE, "The argument must be of the type Double.");
+        return action(Opcodes.FIRE, yield);
+    }
+
+    @Override
+    public StatementNode createSkip(int line, int column) {
+        return new StatementNode() {
+            @Override
+            public void emit(CodeBuilder builder) {
+                builder.tick();
+            }
+
+            @Override
+            public boolean hasActionStatement() {
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public StatementNode createAssignment(final int line, final int column, final String variableName, final ExpressionNode rhs) {
+        return new StatementNode() {
+            @Override
+            public void emit(CodeBuilder builder) {
+                Register variable = builder.getGlobal(variableName);
+                if (variable == null) {
+                    builder.error(line, column, "The variable " + variableName + " doesn't exist.");
+                    return;
+                }
+                if (variable.getType() != rhs.getType()) {
+                    builder.error(line, column, "The variable " + variableName + " its type does not match the type of the expression assigned to it in an assignment.");
+                    return;
+                }
+
+                builder.tick();
+                builder.emitMove(variable.getType(), variable.getIndex(), rhs.emit(builder));
+            }
+
+            @Override
+            public boolean hasActionStatement() {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public StatementNode createIf(int line, int column, final ExpressionNode condition, final StatementNode then, final StatementNode otherwise) {
+        checkType(line, column, condition, BOOLEAN, "The condition must be of type Boolean.");
+
+        return new StatementNode() {
+            @Override
+            public void emit(CodeBuilder builder) {
+                builder.tick();
+                int otherwiseJump = builder.emitJump(Opcodes.JMPF, condition.emit(builder));
+                then.emit(builder);
+                int endJump = builder.emitJump(Opcodes.JMP);
+                builder.patch(otherwiseJump);
+                otherwise.emit(builder);
+                builder.patch(endJump);
+            }
+
+            @Override
+            public boolean hasActionStatement() {
+                return then.hasActionStatement() || otherwise.hasActionStatement();
+            }
+        };
+    }
+
+    @Override
+    public StatementNode createWhile(int line, int column, final ExpressionNode condition, final StatementNode body) {
+        checkType(line, column, condition, BOOLEAN, "The condition must be of type Boolean.");
+
+        return new StatementNode() {
+            @Override
+            public void emit(CodeBuilder builder) {
+                builder.tick();
+                int top = builder.mark();
+                int endJump = builder.emitJump(Opcodes.JMPF, condition.emit(builder));
+                body.emit(builder);
+                builder.emit(Opcodes.JMP, top);
+                builder.patch(endJump);
+            }
+
+            @Override
+            public boolean hasActionStatement() {
+                return body.hasActionStatement();
+            }
+        };
+    }
+
+    @Override
+    public StatementNode createForeach(final int line, final int column, final ForeachType type, final String variableName, final StatementNode body) {
+        if (body.hasActionStatement())
+            throw new IllegalArgException(line, column, "The body statement contains an action statement");
+        if (type == null || variableName == null)
+            throw new IllegalArgException(line, column, "a null reference was passed.");
+
+        return new StatementNode() {
+            @Override
+            public void emit(CodeBuilder builder) {
+                Register variable = builder.getGlobal(variableName);
+                if (variable == null || variable.getType() != ENTITY) {
+                    builder.error(line, column, "The variable " + variableName + " of a For-each loop does not match type Entity.");
+                    return;
+                }
+
+                builder.tick();
+                int slot = builder.iterator();
+                builder.emit(Opcodes.ITER, type.ordinal(), slot);
+                int top = builder.mark();
+                int endJump = builder.emitJump(Opcodes.NEXT, slot, variable.getIndex());
+                body.emit(builder);
+                builder.emit(Opcodes.JMP, top);
+                builder.patch(endJump);
+            }
+
+            @Override
+            public boolean hasActionStatement() {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public StatementNode createSequence(int line, int column, final List<StatementNode> statements) {
+        return new StatementNode() {
+            @Override
+            public void emit(CodeBuilder builder) {
+                for (StatementNode statement : statements)
+                    statement.emit(builder);
+            }
+
+            @Override
+            public boolean hasActionStatement() {
+                for (StatementNode statement : statements) {
+                    if (statement.hasActionStatement())
+                        return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public StatementNode createPrint(int line, int column, final ExpressionNode e) {
+        return new StatementNode() {
+            @Override
+            public void emit(CodeBuilder builder) {
+                builder.tick();
+                int register = e.emit(builder);
+                switch (e.getType()) {
+                    case DOUBLE:
+                        builder.emit(Opcodes.DPRINT, register);
+                        break;
+                    case BOOLEAN:
+                        builder.emit(Opcodes.BPRINT, register);
+                        break;
+                    default:
+                        builder.emit(Opcodes.EPRINT, register);
+                }
+            }
+
+            @Override
+            public boolean hasActionStatement() {
+                return false;
+            }
+        };
+    }
+
+    private Register createRegister(RegisterType type) {
+        return new Register(type, globalCounts[type.ordinal()]++);
+    }
+
+    @Override
+    public Register createDoubleType() {
+        return createRegister(DOUBLE);
+    }
+
+    @Override
+    public Register createBooleanType() {
+        return createRegister(BOOLEAN);
+    }
+
+    @Override
+    public Register createEntityType() {
+        return createRegister(ENTITY);
+    }
+
+}
@@ -0,0 +1,272 @@
+package worms.model.program.bytecode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembles the instructions of a program while lowering its statement and expression nodes.
+ *
+ * Temporaries are handed out per statement: no value lives longer than the statement computing it,
+ * so the temporary registers are reused starting from every new statement.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class CodeBuilder {
+
+    /**
+     * Initialize a code builder for a program with certain globals.
+     *
+     * @param globals The global variables of the program, by name.
+     * @param globalCounts The amount of global registers of each type, indexed by RegisterType.ordinal().
+     */
+    public CodeBuilder(Map<String, Register> globals, int[] globalCounts) {
+        this.globals = globals;
+        this.globalCounts = globalCounts.clone();
+        this.tempCounts = globalCounts.clone();
+        this.maxCounts = globalCounts.clone();
+    }
+
+    private final Map<String, Register> globals;
+    private final int[] globalCounts;
+    private final int[] tempCounts;
+    private final int[] maxCounts;
+
+    private int[] code = new int[64];
+    private int size = 0;
+
+    private final List<Double> constants = new ArrayList<>();
+    private final Map<Double, Integer> constantIndices = new HashMap<>();
+
+    private int iterators = 0;
+
+    private final List<String> errors = new ArrayList<>();
+
+    /* Bookkeeping for folding a move into the instruction producing its source. */
+    private int lastDestination = -1;
+    private int lastEnd = -1;
+    private RegisterType lastType;
+    private int boundAt = -1;
+
+    /**
+     * Start a new statement, every temporary register is free again.
+     */
+    public void beginStatement() {
+        System.arraycopy(globalCounts, 0, tempCounts, 0, tempCounts.length);
+    }
+
+    /**
+     * Emit a statement boundary, this costs one statement of the budget at runtime.
+     */
+    public void tick() {
+        this.beginStatement();
+        this.emit(Opcodes.TICK);
+    }
+
+    /**
+     * Retrieve a free temporary register of a certain type.
+     *
+     * @param type The type of the register.
+     * @return The index of the register.
+     */
+    public int temp(RegisterType type) {
+        int index = tempCounts[type.ordinal()]++;
+        if (index >= maxCounts[type.ordinal()])
+            maxCounts[type.ordinal()] = index + 1;
+        return index;
+    }
+
+    /**
+     * Retrieve the index of a double in the constant pool, adding it if necessary.
+     *
+     * @param value The constant.
+     * @return Its index in the constant pool.
+     */
+    public int constant(double value) {
+        Integer index = constantIndices.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndices.put(value, index);
+        }
+        return index;
+    }
+
+    /**
+     * Reserve a new iterator slot for a for-each loop.
+     *
+     * @return The index of the slot.
+     */
+    public int iterator() {
+        return iterators++;
+    }
+
+    /**
+     * Emit an instruction without a result.
+     *
+     * @param opcode The opcode.
+     * @param operands The operands.
+     */
+    public void emit(int opcode, int... operands) {
+        this.append(opcode, operands);
+        this.lastEnd = -1;
+    }
+
+    /**
+     * Emit an instruction writing a new temporary register.
+     *
+     * @param opcode The opcode.
+     * @param type The type of the result.
+     * @param operands The operands, excluding the destination register.
+     * @return The index of the destination register.
+     */
+    public int emitValue(int opcode, RegisterType type, int... operands) {
+        int destination = this.temp(type);
+        int[] all = new int[operands.length + 1];
+        all[0] = destination;
+        System.arraycopy(operands, 0, all, 1, operands.length);
+
+        this.append(opcode, all);
+        this.lastDestination = size - all.length;
+        this.lastEnd = size;
+        this.lastType = type;
+        return destination;
+    }
+
+    /**
+     * Emit a move of a register into another register of the same type.
+     * If the source was produced by the previous instruction, that instruction writes the destination directly instead.
+     *
+     * @param type The type of both registers.
+     * @param destination The register to write.
+     * @param source The register to read.
+     */
+    public void emitMove(RegisterType type, int destination, int source) {
+        if (destination == source)
+            return;
+
+        if (lastEnd == size && boundAt != size && lastType == type && code[lastDestination] == source
+                && source >= globalCounts[type.ordinal()]) {
+            code[lastDestination] = destination;
+            return;
+        }
+
+        switch (type) {
+            case DOUBLE:
+                this.emit(Opcodes.DMOV, destination, source);
+                break;
+            case BOOLEAN:
+                this.emit(Opcodes.BMOV, destination, source);
+                break;
+            default:
+                this.emit(Opcodes.EMOV, destination, source);
+        }
+    }
+
+    /**
+     * Emit a jump to a position which is not known yet.
+     *
+     * @param opcode The jump opcode.
+     * @param operands The operands preceding the target.
+     * @return The position of the target operand, to be passed to patch(int).
+     */
+    public int emitJump(int opcode, int... operands) {
+        int[] all = Arrays.copyOf(operands, operands.length + 1);
+        this.emit(opcode, all);
+        return size - 1;
+    }
+
+    /**
+     * Let the jump target at a certain position point to the next instruction.
+     *
+     * @param position The position of the target operand.
+     */
+    public void patch(int position) {
+        code[position] = this.mark();
+    }
+
+    /**
+     * Mark the next instruction as a jump target and return its position.
+     *
+     * @return The position of the next instruction.
+     */
+    public int mark() {
+        this.boundAt = size;
+        return size;
+    }
+
+    /**
+     * Look up a global variable by name.
+     *
+     * @param name The name of the variable.
+     * @return The register of the variable or null if it doesn't exist.
+     */
+    public Register getGlobal(String name) {
+        return globals.get(name);
+    }
+
+    /**
+     * Report an error found while lowering the program.
+     *
+     * @param line The line of the offending statement.
+     * @param column The column of the offending statement.
+     * @param message The message.
+     */
+    public void error(int line, int column, String message) {
+        errors.add(line + ":" + column + " " + message);
+    }
+
+    /**
+     * The errors found while lowering the program.
+     * @return
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Build the assembled code.
+     *
+     * @return The bytecode.
+     */
+    public Bytecode build() {
+        this.threadJumps();
+
+        double[] pool = new double[constants.size()];
+        for (int i = 0; i < pool.length; i++)
+            pool[i] = constants.get(i);
+
+        return new Bytecode(Arrays.copyOf(code, size), pool, maxCounts[RegisterType.DOUBLE.ordinal()],
+                maxCounts[RegisterType.BOOLEAN.ordinal()], maxCounts[RegisterType.ENTITY.ordinal()], iterators);
+    }
+
+    /**
+     * Let every jump whose target is an unconditional jump go to the final target at once.
+     * Nested if-statements at the end of loop bodies otherwise produce chains of jumps.
+     */
+    private void threadJumps() {
+        int pc = 0;
+        while (pc < size) {
+            int opcode = code[pc];
+            int length = Opcodes.OPERANDS[opcode] + 1;
+            if (opcode == Opcodes.JMP || opcode == Opcodes.JMPF || opcode == Opcodes.JMPT || opcode == Opcodes.NEXT) {
+                int target = pc + length - 1;
+                for (int hops = 0; hops < size && code[code[target]] == Opcodes.JMP; hops++)
+                    code[target] = code[code[target] + 1];
+            }
+            pc += length;
+        }
+    }
+
+    private void append(int opcode, int[] operands) {
+        if (size + operands.length + 1 > code.length)
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + operands.length + 1));
+
+        code[size++] = opcode;
+        for (int operand : operands)
+            code[size++] = operand;
+    }
+}
@@ -0,0 +1,39 @@
+package worms.model.program.bytecode;
+
+/**
+ * An expression as built by the BytecodeProgramFactory.
+ * It knows the type of its result and how to lower itself into instructions.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public abstract class ExpressionNode {
+
+    /**
+     * Initialize an expression node with the type of its result.
+     *
+     * @param type The type of the result of this expression.
+     */
+    protected ExpressionNode(RegisterType type) {
+        this.type = type;
+    }
+
+    /**
+     * The type of the result of this expression.
+     * @return
+     */
+    public final RegisterType getType() {
+        return this.type;
+    }
+
+    private final RegisterType type;
+
+    /**
+     * Emit the instructions evaluating this expression.
+     *
+     * @param builder The builder to emit into.
+     * @return The index of the register (of type getType()) holding the result.
+     */
+    public abstract int emit(CodeBuilder builder);
+
+}
@@ -0,0 +1,122 @@
+package worms.model.program.bytecode;
+
+/**
+ * The instruction set of the worm program virtual machine.
+ *
+ * Every instruction is stored in the code array as its opcode followed by its operands.
+ * Operands are register indices in the register file of the matching type, indices in the constant pool,
+ * jump targets (absolute code positions) or small immediate values.
+ *
+ * The register files are split by type: one for doubles, one for booleans and one for entities.
+ * The first registers of each file hold the global variables of the program, the remaining ones are temporaries.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class Opcodes {
+
+    private Opcodes() {
+    }
+
+    /* Statement boundary: costs one statement of the budget, the program suspends here when the budget is spent. */
+    public static final int TICK = 0;
+    /* End of the program. */
+    public static final int HALT = 1;
+
+    /* Loads and moves: dst, src */
+    public static final int DCONST = 2;
+    public static final int BCONST = 3;
+    public static final int ENULL = 4;
+    public static final int ESELF = 5;
+    public static final int DMOV = 6;
+    public static final int BMOV = 7;
+    public static final int EMOV = 8;
+
+    /* Double arithmetic: dst, a, b / dst, a */
+    public static final int DADD = 9;
+    public static final int DSUB = 10;
+    public static final int DMUL = 11;
+    public static final int DDIV = 12;
+    public static final int DSQRT = 13;
+    public static final int DSIN = 14;
+    public static final int DCOS = 15;
+
+    /* Comparisons: boolean dst, a, b */
+    public static final int DLT = 16;
+    public static final int DGT = 17;
+    public static final int DLE = 18;
+    public static final int DGE = 19;
+    public static final int DEQ = 20;
+    public static final int BEQ = 21;
+    public static final int EEQ = 22;
+    public static final int BNOT = 23;
+
+    /* Entity inspection: dst, entity */
+    public static final int GETX = 24;
+    public static final int GETY = 25;
+    public static final int GETRADIUS = 26;
+    public static final int GETDIR = 27;
+    public static final int GETAP = 28;
+    public static final int GETMAXAP = 29;
+    public static final int GETHP = 30;
+    public static final int GETMAXHP = 31;
+    public static final int SAMETEAM = 32;
+    public static final int ISWORM = 33;
+    public static final int ISFOOD = 34;
+    /* entity dst, double angle */
+    public static final int SEARCH = 35;
+
+    /* Control flow: target / boolean condition, target */
+    public static final int JMP = 36;
+    public static final int JMPF = 37;
+    public static final int JMPT = 38;
+
+    /* For-each iteration: kind, slot / slot, entity dst, exit target */
+    public static final int ITER = 39;
+    public static final int NEXT = 40;
+
+    /* Actions, the program suspends at its last TICK when an action fails. */
+    public static final int TURN = 41;
+    public static final int MOVE = 42;
+    public static final int JUMP = 43;
+    public static final int TOGGLE = 44;
+    public static final int FIRE = 45;
+
+    /* Printing: register */
+    public static final int DPRINT = 46;
+    public static final int BPRINT = 47;
+    public static final int EPRINT = 48;
+
+    /**
+     * The mnemonic of every opcode, indexed by opcode.
+     */
+    static final String[] NAMES = {
+        "tick", "halt",
+        "dconst", "bconst", "enull", "eself", "dmov", "bmov", "emov",
+        "dadd", "dsub", "dmul", "ddiv", "dsqrt", "dsin", "dcos",
+        "dlt", "dgt", "dle", "dge", "deq", "beq", "eeq", "bnot",
+        "getx", "gety", "getradius", "getdir", "getap", "getmaxap", "gethp", "getmaxhp",
+        "sameteam", "isworm", "isfood", "search",
+        "jmp", "jmpf", "jmpt",
+        "iter", "next",
+        "turn", "move", "jump", "toggle", "fire",
+        "dprint", "bprint", "eprint"
+    };
+
+    /**
+     * The amount of operands of every opcode, indexed by opcode.
+     */
+    static final int[] OPERANDS = {
+        0, 0,
+        2, 2, 1, 1, 2, 2, 2,
+        3, 3, 3, 3, 2, 2, 2,
+        3, 3, 3, 3, 3, 3, 3, 2,
+        2, 2, 2, 2, 2, 2, 2, 2,
+        2, 2, 2, 2,
+        1, 2, 2,
+        2, 3,
+        1, 0, 0, 0, 1,
+        1, 1, 1
+    };
+
+}
@@ -0,0 +1,48 @@
+package worms.model.program.bytecode;
+
+/**
+ * A register holding a global variable of a compiled program.
+ * Registers are handed out in order of declaration, so the globals occupy the first registers of each register file.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class Register {
+
+    /**
+     * Initialize a register of a certain type at a certain index.
+     *
+     * @param type The type of the register.
+     * @param index The index in the register file of that type.
+     *
+     * @throws IllegalArgumentException
+     *          | type == null || index < 0
+     */
+    public Register(RegisterType type, int index) throws IllegalArgumentException {
+        if (type == null || index < 0)
+            throw new IllegalArgumentException("A register needs a type and a non-negative index.");
+
+        this.type = type;
+        this.index = index;
+    }
+
+    /**
+     * The type of this register.
+     * @return
+     */
+    public RegisterType getType() {
+        return this.type;
+    }
+
+    private final RegisterType type;
+
+    /**
+     * The index of this register in the register file of its type.
+     * @return
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    private final int index;
+}
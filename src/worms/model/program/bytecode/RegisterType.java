@@ -0,0 +1,12 @@
+package worms.model.program.bytecode;
+
+/**
+ * The types a register of the virtual machine can hold.
+ * Every type has its own register file.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public enum RegisterType {
+    DOUBLE, BOOLEAN, ENTITY;
+}
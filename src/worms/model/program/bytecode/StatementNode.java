@@ -0,0 +1,24 @@
+package worms.model.program.bytecode;
+
+/**
+ * A statement as built by the BytecodeProgramFactory.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public abstract class StatementNode {
+
+    /**
+     * Emit the instructions executing this statement.
+     *
+     * @param builder The builder to emit into.
+     */
+    public abstract void emit(CodeBuilder builder);
+
+    /**
+     * Returns whether or not this statement contains or is an action statement.
+     * @return
+     */
+    public abstract boolean hasActionStatement();
+
+}
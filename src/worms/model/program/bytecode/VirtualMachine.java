@@ -0,0 +1,450 @@
+package worms.model.program.bytecode;
+
+import static worms.model.program.bytecode.Opcodes.*;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import worms.gui.game.IActionHandler;
+import worms.model.Entity;
+import worms.model.Food;
+import worms.model.Worm;
+import worms.model.World;
+import worms.model.programs.ProgramFactory.ForeachType;
+import worms.util.Util;
+
+/**
+ * Executes compiled programs.
+ *
+ * All state of a running program lives in this machine: the register files, the program counter and the for-each iterators.
+ * The statement budget is counted by the TICK instructions at the start of every statement. When the budget is spent
+ * or an action fails the machine simply keeps its program counter, the next run continues at that exact statement.
+ * After HALT the next run starts again from the beginning.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class VirtualMachine {
+
+    /**
+     * Initialize a machine for certain compiled code.
+     *
+     * @param bytecode The code to execute.
+     * @param handler The handler to perform the actions with.
+     *
+     * @throws IllegalArgumentException
+     *          | bytecode == null || handler == null
+     */
+    public VirtualMachine(Bytecode bytecode, IActionHandler handler) throws IllegalArgumentException {
+        if (bytecode == null || handler == null)
+            throw new IllegalArgumentException("The bytecode and handler musn't be a null reference.");
+
+        this.bytecode = bytecode;
+        this.handler = handler;
+        this.doubles = new double[bytecode.getDoubleRegisters()];
+        this.booleans = new boolean[bytecode.getBooleanRegisters()];
+        this.entities = new Entity[bytecode.getEntityRegisters()];
+        this.iterators = new Iterator<?>[bytecode.getIterators()];
+    }
+
+    private final Bytecode bytecode;
+    private final IActionHandler handler;
+
+    private final double[] doubles;
+    private final boolean[] booleans;
+    private final Entity[] entities;
+    private final Iterator<?>[] iterators;
+
+    /**
+     * The compiled code this machine executes.
+     * @return
+     */
+    public Bytecode getBytecode() {
+        return this.bytecode;
+    }
+
+    /**
+     * Set the worm executing the program.
+     *
+     * @param worm The worm.
+     * @throws IllegalStateException
+     *          When this machine already has a worm set.
+     */
+    public void setWorm(Worm worm) throws IllegalStateException {
+        if (this.worm != null)
+            throw new IllegalStateException("This machine already has a worm set.");
+
+        this.worm = worm;
+    }
+
+    /**
+     * The worm executing the program.
+     * @return
+     */
+    public Worm getWorm() {
+        return this.worm;
+    }
+
+    private Worm worm;
+
+    /**
+     * The position of the instruction the next run starts at.
+     * @return
+     */
+    public int getProgramCounter() {
+        return this.pc;
+    }
+
+    private int pc = 0;
+
+    /**
+     * Returns whether the machine is suspended inside a for-each loop, so the next run continues iterating.
+     * @return
+     */
+    public boolean isIterating() {
+        for (Iterator<?> iterator : iterators) {
+            if (iterator != null)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Restore the state of a machine suspended outside of any for-each loop, as saved from a machine with the same bytecode.
+     *
+     * @param pc The position of the instruction the next run starts at.
+     * @param doubles The values of the double registers.
+     * @param booleans The values of the boolean registers.
+     * @param entities The values of the entity registers.
+     *
+     * @throws IllegalArgumentException
+     *          When the amount of registers or the program counter don't fit the bytecode.
+     *          | doubles.length != getBytecode().getDoubleRegisters() || booleans.length != getBytecode().getBooleanRegisters()
+     *          |   || entities.length != getBytecode().getEntityRegisters() || pc < 0 || pc >= getBytecode().getCode().length
+     */
+    public void restore(int pc, double[] doubles, boolean[] booleans, Entity[] entities) throws IllegalArgumentException {
+        if (doubles.length != this.doubles.length || booleans.length != this.booleans.length || entities.length != this.entities.length)
+            throw new IllegalArgumentException("The registers don't fit the bytecode of this machine.");
+        if (pc < 0 || pc >= bytecode.code.length)
+            throw new IllegalArgumentException("The program counter doesn't fit the bytecode of this machine.");
+
+        System.arraycopy(doubles, 0, this.doubles, 0, doubles.length);
+        System.arraycopy(booleans, 0, this.booleans, 0, booleans.length);
+        System.arraycopy(entities, 0, this.entities, 0, entities.length);
+        for (int i = 0; i < iterators.length; i++)
+            iterators[i] = null;
+        this.pc = pc;
+    }
+
+    /**
+     * Returns whether the last run reached the end of the program.
+     * @return
+     */
+    public boolean isFinished() {
+        return this.pc == 0;
+    }
+
+    /**
+     * Run the program until it ends, the budget is spent or an action fails.
+     *
+     * @param budget The amount of statements that may be executed.
+     * @return The amount of statements executed.
+     *
+     * @throws IllegalStateException
+     *          When no worm was set or the worm isn't in a world.
+     */
+    public int run(int budget) throws IllegalStateException {
+        if (worm == null)
+            throw new IllegalStateException("The machine hasn't got a worm set.");
+        if (worm.getWorld() == null)
+            throw new IllegalStateException("The machine's worm hasn't got a world set.");
+
+        final int[] code = bytecode.code;
+        final double[] constants = bytecode.constants;
+        final double[] d = this.doubles;
+        final boolean[] b = this.booleans;
+        final Entity[] e = this.entities;
+
+        int pc = this.pc;
+        int statement = pc;
+        int remaining = budget;
+
+        while (true) {
+            switch (code[pc]) {
+                case TICK:
+                    if (remaining <= 0) {
+                        this.pc = pc;
+                        return budget - remaining;
+                    }
+                    remaining--;
+                    statement = pc;
+                    pc += 1;
+                    break;
+                case HALT:
+                    this.pc = 0;
+                    return budget - remaining;
+
+                case DCONST:
+                    d[code[pc + 1]] = constants[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case BCONST:
+                    b[code[pc + 1]] = code[pc + 2] != 0;
+                    pc += 3;
+                    break;
+                case ENULL:
+                    e[code[pc + 1]] = null;
+                    pc += 2;
+                    break;
+                case ESELF:
+                    e[code[pc + 1]] = worm;
+                    pc += 2;
+                    break;
+                case DMOV:
+                    d[code[pc + 1]] = d[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case BMOV:
+                    b[code[pc + 1]] = b[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case EMOV:
+                    e[code[pc + 1]] = e[code[pc + 2]];
+                    pc += 3;
+                    break;
+
+                case DADD:
+                    d[code[pc + 1]] = d[code[pc + 2]] + d[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DSUB:
+                    d[code[pc + 1]] = d[code[pc + 2]] - d[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DMUL:
+                    d[code[pc + 1]] = d[code[pc + 2]] * d[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DDIV:
+                    d[code[pc + 1]] = d[code[pc + 2]] / d[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DSQRT:
+                    d[code[pc + 1]] = Math.sqrt(d[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case DSIN:
+                    d[code[pc + 1]] = Math.sin(d[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case DCOS:
+                    d[code[pc + 1]] = Math.cos(d[code[pc + 2]]);
+                    pc += 3;
+                    break;
+
+                case DLT:
+                    b[code[pc + 1]] = d[code[pc + 2]] < d[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DGT:
+                    b[code[pc + 1]] = d[code[pc + 2]] > d[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DLE:
+                    b[code[pc + 1]] = Util.fuzzyLessThanOrEqualTo(d[code[pc + 2]], d[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case DGE:
+                    b[code[pc + 1]] = Util.fuzzyGreaterThanOrEqualTo(d[code[pc + 2]], d[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case DEQ:
+                    b[code[pc + 1]] = d[code[pc + 2]] == d[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case BEQ:
+                    b[code[pc + 1]] = b[code[pc + 2]] == b[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case EEQ:
+                    b[code[pc + 1]] = e[code[pc + 2]] == e[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case BNOT:
+                    b[code[pc + 1]] = !b[code[pc + 2]];
+                    pc += 3;
+                    break;
+
+                case GETX:
+                    d[code[pc + 1]] = e[code[pc + 2]].getPosition().getX();
+                    pc += 3;
+                    break;
+                case GETY:
+                    d[code[pc + 1]] = e[code[pc + 2]].getPosition().getY();
+                    pc += 3;
+                    break;
+                case GETRADIUS:
+                    d[code[pc + 1]] = e[code[pc + 2]].getRadius();
+                    pc += 3;
+                    break;
+                case GETDIR:
+                    d[code[pc + 1]] = e[code[pc + 2]].getAngle();
+                    pc += 3;
+                    break;
+                case GETAP:
+                    d[code[pc + 1]] = e[code[pc + 2]].getAP();
+                    pc += 3;
+                    break;
+                case GETMAXAP:
+                    d[code[pc + 1]] = e[code[pc + 2]].getMaxAP();
+                    pc += 3;
+                    break;
+                case GETHP:
+                    d[code[pc + 1]] = e[code[pc + 2]].getHP();
+                    pc += 3;
+                    break;
+                case GETMAXHP:
+                    d[code[pc + 1]] = e[code[pc + 2]].getMaxHP();
+                    pc += 3;
+                    break;
+                case SAMETEAM:
+                    b[code[pc + 1]] = worm.getTeam() == e[code[pc + 2]].getTeam() && worm.getTeam() != null;
+                    pc += 3;
+                    break;
+                case ISWORM:
+                    b[code[pc + 1]] = e[code[pc + 2]] instanceof Worm;
+                    pc += 3;
+                    break;
+                case ISFOOD:
+                    b[code[pc + 1]] = e[code[pc + 2]] instanceof Food;
+                    pc += 3;
+                    break;
+                case SEARCH:
+                    e[code[pc + 1]] = worm.getWorld().searchObject(worm.getPosition(), worm.getAngle() + d[code[pc + 2]]);
+                    pc += 3;
+                    break;
+
+                case JMP:
+                    pc = code[pc + 1];
+                    break;
+                case JMPF:
+                    pc = b[code[pc + 1]] ? pc + 3 : code[pc + 2];
+                    break;
+                case JMPT:
+                    pc = b[code[pc + 1]] ? code[pc + 2] : pc + 3;
+                    break;
+
+                case ITER:
+                    iterators[code[pc + 2]] = this.collect(ForeachType.values()[code[pc + 1]]).iterator();
+                    pc += 3;
+                    break;
+                case NEXT: {
+                    Iterator<?> iterator = iterators[code[pc + 1]];
+                    if (iterator.hasNext()) {
+                        e[code[pc + 2]] = (Entity) iterator.next();
+                        pc += 4;
+                    } else {
+                        iterators[code[pc + 1]] = null;
+                        pc = code[pc + 3];
+                    }
+                    break;
+                }
+
+                case TURN:
+                    if (!handler.turn(worm, d[code[pc + 1]]))
+                        return this.suspend(statement, budget, remaining);
+                    pc += 2;
+                    break;
+                case MOVE:
+                    if (!handler.move(worm))
+                        return this.suspend(statement, budget, remaining);
+                    pc += 1;
+                    break;
+                case JUMP:
+                    if (!handler.jump(worm))
+                        return this.suspend(statement, budget, remaining);
+                    pc += 1;
+                    break;
+                case TOGGLE:
+                    if (!handler.toggleWeapon(worm))
+                        return this.suspend(statement, budget, remaining);
+                    pc += 1;
+                    break;
+                case FIRE:
+                    if (!handler.fire(worm, (int) d[code[pc + 1]]))
+                        return this.suspend(statement, budget, remaining);
+                    pc += 2;
+                    break;
+
+                case DPRINT:
+                    handler.print(String.valueOf(d[code[pc + 1]]));
+                    pc += 2;
+                    break;
+                case BPRINT:
+                    handler.print(String.valueOf(b[code[pc + 1]]));
+                    pc += 2;
+                    break;
+                case EPRINT:
+                    handler.print(String.valueOf(e[code[pc + 1]]));
+                    pc += 2;
+                    break;
+
+                default:
+                    throw new IllegalStateException("Invalid opcode " + code[pc] + " at " + pc + ".");
+            }
+        }
+    }
+
+    /**
+     * Suspend at the start of the statement whose action failed, so it is retried next time.
+     */
+    private int suspend(int statement, int budget, int remaining) {
+        this.pc = statement;
+        return budget - remaining;
+    }
+
+    /**
+     * The entities a for-each loop of a certain type iterates over.
+     */
+    private Collection<? extends Entity> collect(ForeachType type) {
+        World world = worm.getWorld();
+        switch (type) {
+            case WORM:
+                return world.getWorms();
+            case FOOD:
+                return world.getFood();
+            default:
+                return world.getEntities();
+        }
+    }
+
+    /**
+     * The value of a double register.
+     *
+     * @param index The index of the register.
+     * @return
+     */
+    public double getDouble(int index) {
+        return doubles[index];
+    }
+
+    /**
+     * The value of a boolean register.
+     *
+     * @param index The index of the register.
+     * @return
+     */
+    public boolean getBoolean(int index) {
+        return booleans[index];
+    }
+
+    /**
+     * The value of an entity register.
+     *
+     * @param index The index of the register.
+     * @return
+     */
+    public Entity getEntity(int index) {
+        return entities[index];
+    }
+}
@@ -0,0 +1,30 @@
+package worms.model.program.expressions;
+
+/**
+ * A boolean literal (true or false).
+ * Literals are recognisable so the factory can fold expressions of which all operands are known while parsing.
+ * 
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class BooleanLiteralExpression extends BooleanExpression {
+
+    /**
+     * Initialize a literal with a certain value.
+     * @param value The value of the literal.
+     */
+    public BooleanLiteralExpression(boolean value) {
+        this.value = value;
+    }
+
+    /**
+     * The value of this literal.
+     * @return The value.
+     */
+    @Override
+    public Boolean getResult() {
+        return value;
+    }
+
+    private final boolean value;
+}
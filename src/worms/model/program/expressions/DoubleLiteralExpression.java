@@ -0,0 +1,30 @@
+package worms.model.program.expressions;
+
+/**
+ * A double literal (e.g. 3.14).
+ * Literals are recognisable so the factory can fold expressions of which all operands are known while parsing.
+ * 
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class DoubleLiteralExpression extends DoubleExpression {
+
+    /**
+     * Initialize a literal with a certain value.
+     * @param value The value of the literal.
+     */
+    public DoubleLiteralExpression(double value) {
+        this.value = value;
+    }
+
+    /**
+     * The value of this literal.
+     * @return The value.
+     */
+    @Override
+    public Double getResult() {
+        return value;
+    }
+
+    private final Double value;
+}
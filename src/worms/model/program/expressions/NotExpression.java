@@ -0,0 +1,33 @@
+package worms.model.program.expressions;
+
+/**
+ * The negation of a boolean expression (e.g. !x).
+ * 
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class NotExpression extends BooleanExpression {
+
+    /**
+     * Initialize the negation of an expression.
+     * @param operand The expression to negate, this must be of the type Boolean.
+     */
+    public NotExpression(Expression<?> operand) {
+        this.operand = operand;
+    }
+
+    /**
+     * The negated expression.
+     * @return The operand.
+     */
+    public Expression<?> getOperand() {
+        return this.operand;
+    }
+
+    private final Expression<?> operand;
+
+    @Override
+    public Boolean getResult() {
+        return !((Boolean) operand.getResult());
+    }
+}
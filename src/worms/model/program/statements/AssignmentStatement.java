@@ -3,12 +3,11 @@ package worms.model.program.statements;
 import worms.model.Program;
 import worms.model.program.Variable;
 import worms.model.program.expressions.Expression;
-import worms.model.programs.ProgramParser;
 
 /**
  * This statement is an assignment (e.g x := 5).
  * This statement will give the value calculated using the right hand side expression to the variableName (left side) provided.
- * A check is performed during setting the value to make sure the type of the variable matches the type of the expression.
+ * The variable is looked up and its type checked once by the TypeChecker, which binds it to this statement before the program is executed.
  * 
  * 
  * @author Derkinderen Vincent
@@ -16,16 +15,44 @@ import worms.model.programs.ProgramParser;
  */
 public class AssignmentStatement implements Statement {
 	
-    public AssignmentStatement(ProgramParser<Expression<?>, Statement, Variable<?>> parser, String variableName, Expression<?> rhs) {
-        this.parser = parser;
+    /**
+     * Initialize an assignment.
+     * 
+     * @param line The line of the assignment.
+     * @param column The column of the assignment.
+     * @param variableName The name of the variable assigned to.
+     * @param rhs The expression of which the result is assigned.
+     */
+    public AssignmentStatement(int line, int column, String variableName, Expression<?> rhs) {
+        this.line = line;
+        this.column = column;
         this.variableName = variableName;
         this.rhs = rhs;
     }
 
-    private final ProgramParser<Expression<?>, Statement, Variable<?>> parser;
     private final String variableName;
     private final Expression<?> rhs;
     
+    /**
+     * The line of this assignment in the program text.
+     * @return 
+     */
+    public int getLine() {
+        return this.line;
+    }
+    
+    private final int line;
+    
+    /**
+     * The column of this assignment in the program text.
+     * @return 
+     */
+    public int getColumn() {
+        return this.column;
+    }
+    
+    private final int column;
+    
     /**
      * The name of the variable used in this assignment (left hand side).
      * @return 
@@ -33,33 +60,54 @@ public class AssignmentStatement implements Statement {
     public String getVariableName() {
         return this.variableName;
     }
+    
+    /**
+     * The expression of which the result is assigned (right hand side).
+     * @return 
+     */
+    public Expression<?> getExpression() {
+        return this.rhs;
+    }
+    
+    /**
+     * Bind the variable this assignment assigns to.
+     * 
+     * @param variable The variable, of which the type has been checked against the type of the expression.
+     * 
+     * @throws IllegalArgumentException
+     *          When the variable is a null reference or its type does not match the type of the expression.
+     *          | variable == null || !variable.isValidValueType(getExpression())
+     */
+    @SuppressWarnings("unchecked")
+    public void bind(Variable<?> variable) throws IllegalArgumentException {
+        if (variable == null || !((Variable) variable).isValidValueType(rhs))
+            throw new IllegalArgumentException("The variable " + variableName + " can't be assigned the expression.");
+        
+        this.variable = (Variable<Object>) variable;
+    }
+    
+    private Variable<Object> variable;
 
     /**
-     * Will perform a check before executing the assignment.
-     * It will make sure the type of the expression matches the type of the variable.
+     * Assign the result of the expression to the bound variable.
      * 
      * @param program The program to perform this assignment on.
      * @return 
-     * @see Variable.isValidValueType(Expression)
+     * @throws IllegalStateException
+     *          When no variable was bound to this assignment.
      */
     @Override
-    public boolean execute(Program program) {
+    public boolean execute(Program program) throws IllegalStateException {
         if (program.getCounter() <= 0) {
             return false;
         }
         
-        if (parser.getGlobals().containsKey(variableName)) {
-            Variable variable = (Variable) parser.getGlobals().get(variableName);
-            if (variable.isValidValueType(rhs)) {
-                if (program.isFinished()) {
-                    variable.setValue(rhs.getResult());
-                    program.subtractFromCounter();
-                }             
-            } else {
-                throw new IllegalStateException("The " + rhs.getResult() + " isn't a valid type for variable " + variableName);
-            }
-        } else {
-            throw new IllegalStateException("The variable " + variableName + " isn't an existing variable anymore.");
+        if (program.isFinished()) {
+            if (variable == null)
+                throw new IllegalStateException("The variable " + variableName + " hasn't been bound to this assignment.");
+            
+            variable.setValue(rhs.getResult());
+            program.subtractFromCounter();
         }
 
         return true;
@@ -73,17 +121,5 @@ public class AssignmentStatement implements Statement {
     public boolean hasActionStatement() {
         return false;
     }
-    
-    /**
-     * Returns whether the type of the variable matches the type of the expression.
-     * @return False when the variable doesn't exist or when !variable.isValidValueType(expression)
-     */
-    public boolean isValidVariableType() {
-        Variable variable = (Variable) parser.getGlobals().get(variableName);
-        if(variable == null)
-            return false;
-        
-        return variable.isValidValueType(rhs);
-    }
 
 }
@@ -0,0 +1,58 @@
+package worms.model.program.statements;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import worms.model.Program;
+
+/**
+ * A statement which can never be reached, e.g. the else branch of if(true) or the body of while(false).
+ * It's kept in the program so it is checked like any other statement (types, action statements in a for-each loop),
+ * but it's never executed, also not while looking for the last statement.
+ * 
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class DeadStatement implements Statement, MultipleStatement {
+
+    /**
+     * Initialize a dead statement.
+     * 
+     * @param statement The statement which can never be reached.
+     * 
+     * @throws IllegalArgumentException
+     *          When statement is a null reference.
+     */
+    public DeadStatement(Statement statement) throws IllegalArgumentException {
+        if(statement == null)
+            throw new IllegalArgumentException("The statement musn't be a null reference.");
+        this.statement = statement;
+    }
+    
+    private final Statement statement;
+
+    /**
+     * Nothing is executed, the statement can't contain the last statement either.
+     * @return True
+     */
+    @Override
+    public boolean execute(Program program) {
+        return true;
+    }
+
+    /**
+     * Whether the unreachable statement contains an ActionStatement, which is as illegal as if it were reachable.
+     */
+    @Override
+    public boolean hasActionStatement() {
+        return statement.hasActionStatement();
+    }
+
+    @Override
+    public List<Statement> getStatements() {
+        List<Statement> result = new ArrayList<>();
+        result.add(statement);
+        return result;
+    }
+    
+}
@@ -1,10 +1,12 @@
 package worms.model.program.statements;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import worms.model.Entity;
+import worms.model.EntityCursor;
+import worms.model.Food;
 import worms.model.Program;
+import worms.model.Worm;
 import worms.model.program.ProgramFactoryImpl;
 import worms.model.program.Variable;
 import worms.model.programs.*;
@@ -24,27 +26,29 @@ public class ForEachStatement extends ConditionalStatement implements MultipleSt
     /**
      * ForEach statement.
      *
+     * @param line The line of the statement.
+     * @param column The column of the statement.
      * @param factory The factory we use to retrieve the worm its world.
      * @param type The type of for each we loop trough
      * @param variableName The name of the variable we change.
      * @param body The statement we will execute each time.
      * 
      * @throws IllegalArgumentException
-     *          | !isValidArgument(factory, type, variableName, body) || factory.getProgramParser() == null
+     *          | containsNullReference(factory, type, variableName, body) || body.hasActionStatement()
      */
-    public ForEachStatement(ProgramFactoryImpl factory, ProgramFactory.ForeachType type, String variableName, Statement body) throws IllegalArgumentException {
-        if(body.hasActionStatement())
-            throw new IllegalArgumentException("The body statement contains an action statement");
+    public ForEachStatement(int line, int column, ProgramFactoryImpl factory, ProgramFactory.ForeachType type, String variableName, Statement body) throws IllegalArgumentException {
         if (containsNullReference(factory, type, variableName, body)) {
             throw new IllegalArgumentException("a null reference was passed.");
         }
-        
-        if(factory.getProgramParser() == null)
-            throw new IllegalArgumentException("The factory provided did not have a ProgramParser");
+        if(body.hasActionStatement())
+            throw new IllegalArgumentException("The body statement contains an action statement");
 
+        this.line = line;
+        this.column = column;
         this.factory = factory;
         this.type = type;
         this.variableName = variableName;
+        this.cursor = new EntityCursor<>(getEntityType(type));
         this.body = body;
     }
 
@@ -60,6 +64,45 @@ public class ForEachStatement extends ConditionalStatement implements MultipleSt
     public String getVariableName() {
         return this.variableName;
     }
+    
+    /**
+     * The line of this statement in the program text.
+     * @return 
+     */
+    public int getLine() {
+        return this.line;
+    }
+    
+    private final int line;
+    
+    /**
+     * The column of this statement in the program text.
+     * @return 
+     */
+    public int getColumn() {
+        return this.column;
+    }
+    
+    private final int column;
+    
+    /**
+     * Bind the variable this statement iterates with.
+     * 
+     * @param variable The variable, of which the type has been checked to be Entity.
+     * 
+     * @throws IllegalArgumentException
+     *          When the variable is a null reference or not of the type Entity.
+     *          | variable == null || variable.getType() != Entity.class
+     */
+    @SuppressWarnings("unchecked")
+    public void bind(Variable<?> variable) throws IllegalArgumentException {
+        if (variable == null || variable.getType() != Entity.class)
+            throw new IllegalArgumentException("The variable used in the for each statement is not of the Entity type.");
+        
+        this.variable = (Variable<Entity>) variable;
+    }
+    
+    private Variable<Entity> variable;
 
     /**
      *  Checks if any reference is null. 
@@ -85,49 +128,55 @@ public class ForEachStatement extends ConditionalStatement implements MultipleSt
      * @param program The program to perform on.
      * 
      * @return Whether the execution of certain statements failed.
+     * 
+     * @throws IllegalStateException
+     *          When no variable was bound to this statement.
      */
     @Override
-    public boolean perform(Program program) {
-        //To be 100% secure we should check if body does not contain an ActionStatement once again.
-        //Since someone could've changed the reference.
-        Variable givenVariable = (Variable) this.factory.getProgramParser().getGlobals().get(variableName);
-        
-        if(givenVariable == null)
-            throw new IllegalArgumentException("The variable used in the for each statement does not exist.");
+    public boolean perform(Program program) throws IllegalStateException {
+        if(variable == null)
+            throw new IllegalStateException("The variable " + variableName + " hasn't been bound to the for each statement.");
         
-        if(givenVariable.getType() != Entity.class)
-            throw new IllegalArgumentException("The variable used in the for each statement is not of the Entity type.");
-        
-        Collection<?> collection = null;
+        factory.getWorm().getWorld().open(cursor);
+        try {
+            /* Execute atleast once if not finished, else execute for all items in the world. */
+            boolean performedOnceFlag = false;
+            Entity obj;
+            while ((obj = cursor.next()) != null) {
+                if(performedOnceFlag && !program.isFinished()) //Already checked for lastStatement.
+                    break;
+
+                variable.setValue(obj);
+                if (!body.execute(program))
+                    return false;
 
+                performedOnceFlag = true;
+            }
+        } finally {
+            cursor.close();
+        }
+        
+        return true;
+    }
+    
+    /**
+     * The cursor over the entities of the type of this statement, opened again on every execution.
+     * (A statement can't be nested in itself, so it's never open twice at the same time.)
+     */
+    private final EntityCursor<? extends Entity> cursor;
+    
+    /**
+     * The type of the cursor for a certain type of for each.
+     */
+    private static Class<? extends Entity> getEntityType(ForeachType type) {
         switch (type) {
             case WORM:
-                collection = factory.getWorm().getWorld().getWorms();
-                break;
+                return Worm.class;
             case FOOD:
-                collection = factory.getWorm().getWorld().getFood();
-                break;
-            case ANY:
-                collection = factory.getWorm().getWorld().getEntities();
-                break;
+                return Food.class;
             default:
-                throw new IllegalStateException("No valid type was found.");
-        }
-
-        /* Execute atleast once if not finished, else execute for all items in the collection. */
-        boolean performedOnceFlag = false;
-        for (Object obj : collection) {
-            if(performedOnceFlag && !program.isFinished()) //Already checked for lastStatement.
-                break;
-            
-            givenVariable.setValue(obj);
-            if (!body.execute(program))
-                return false;
- 
-            performedOnceFlag = true;
+                return Entity.class;
         }
-        
-        return true;
     }
 
     /**
@@ -146,16 +195,4 @@ public class ForEachStatement extends ConditionalStatement implements MultipleSt
         myList.add(body);
         return myList;
     }
-
-    /**
-     * Returns whether this ForEachStatement is valid.
-     * This means the type of the variable must match the type of collection we run through.
-     * @return false if the variable does not exist, false if the type of the variable isn't Entity.class
-     */
-    public boolean isValidVariableType() {
-        Variable givenVariable = (Variable) this.factory.getProgramParser().getGlobals().get(variableName);
-        if(givenVariable == null)
-            return false;
-        return givenVariable.getType() == Entity.class;   
-    }
 }
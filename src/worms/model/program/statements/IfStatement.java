@@ -19,16 +19,20 @@ public class IfStatement extends ConditionalStatement implements MultipleStateme
 
     /**
      * Initialize an If-Statement.
+     * @param line The line of the statement.
+     * @param column The column of the statement.
      * @param condition The condition of the If.
      * @param then The statement to execute if the condition is true
      * @param otherwise The statement to execute if the condition is false.
      * @throws IllegalArgumentException
      *          When at least one of the statements or the condition is a null reference.
      */
-    public IfStatement(BooleanExpression condition, Statement then, Statement otherwise) throws IllegalArgumentException {
+    public IfStatement(int line, int column, BooleanExpression condition, Statement then, Statement otherwise) throws IllegalArgumentException {
         if(then == null || otherwise == null || condition == null)
             throw new IllegalArgumentException("The if/else statements or the condition musn't be a null reference.");
         
+        this.line = line;
+        this.column = column;
         this.condition = condition;
         this.thenStatement = then;
         this.otherwiseStatement = otherwise;
@@ -36,13 +40,15 @@ public class IfStatement extends ConditionalStatement implements MultipleStateme
     
     /**
      * Initialize an If-Statement.
+     * @param line The line of the statement.
+     * @param column The column of the statement.
      * @param condition The condition of the If.
      * @param then The statement to execute if the condition is true
      * @param otherwise The statement to execute if the condition is false.
      * @throws IllegalArgumentException
      *          When at least one of the statements or the condition is a null reference.
      */
-    public IfStatement(VariableExpression<?> condition, Statement then, Statement otherwise) throws IllegalArgumentException {
+    public IfStatement(int line, int column, VariableExpression<?> condition, Statement then, Statement otherwise) throws IllegalArgumentException {
         if(then == null || otherwise == null || condition == null)
             throw new IllegalArgumentException("The if/else statements or the condition musn't be a null reference.");
         
@@ -50,14 +56,45 @@ public class IfStatement extends ConditionalStatement implements MultipleStateme
             throw new IllegalArgumentException("The condition of the if-statement must be of type Boolean.");
         }
         
+        this.line = line;
+        this.column = column;
         this.condition = condition;
         this.thenStatement = then;
         this.otherwiseStatement = otherwise;
     }
     
     private final Expression<?> condition;
+    
+    /**
+     * The condition of this statement, its type is checked to be Boolean when the statement is created.
+     * @return 
+     */
+    public Expression<?> getCondition() {
+        return this.condition;
+    }
+    
     private final Statement thenStatement;
     private final Statement otherwiseStatement;
+    
+    /**
+     * The line of this statement in the program text.
+     * @return 
+     */
+    public int getLine() {
+        return this.line;
+    }
+    
+    private final int line;
+    
+    /**
+     * The column of this statement in the program text.
+     * @return 
+     */
+    public int getColumn() {
+        return this.column;
+    }
+    
+    private final int column;
 
     /**
      * Whether the then or else Statements contain an ActionStatement.
@@ -74,17 +111,9 @@ public class IfStatement extends ConditionalStatement implements MultipleStateme
      * 
      * @param program The program where we perform this on.
      * @return Whether performing the statements worked out well or failed.
-     * 
-     * @throws IllegalStateException
-     *          When the type of the condition isn't a Boolean.
-     *          | condition.getType() != Boolean.class  //Can only be possible for variables.
      */
     @Override
-    public boolean perform(Program program) throws IllegalStateException {
-        if(condition.getType() != Boolean.class) {
-            throw new IllegalStateException("The condition of the if-statement is a variable with a type different of Boolean.class. Type: " + condition.getType() + "; value: " + condition.getResult() +";");
-        }
-        
+    public boolean perform(Program program) {
         /* Perform the statement, if we're searching for the last statement -> perform both if necessary */
         if(program.isFinished()) { //We're executing like usual
             if((Boolean) condition.getResult()) {
@@ -0,0 +1,83 @@
+package worms.model.program.statements;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import worms.model.Program;
+import worms.model.program.ProgramProfiler;
+
+/**
+ * Wraps a statement to measure its executions with a ProgramProfiler.
+ * The factory only wraps statements when it has a profiler set, so unprofiled programs don't pay for this.
+ *
+ * This is a MultipleStatement containing only the wrapped statement, so anything walking the statements of a program
+ * (e.g. the TypeChecker) sees the wrapped statement as well.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ProfiledStatement implements Statement, MultipleStatement {
+
+    /**
+     * Initialize a profiled statement.
+     *
+     * @param profiler The profiler to record the executions with.
+     * @param site The site of the statement in the profiler.
+     * @param statement The statement to measure.
+     *
+     * @throws IllegalArgumentException
+     *          | profiler == null || site == null || statement == null
+     */
+    public ProfiledStatement(ProgramProfiler profiler, ProgramProfiler.Site site, Statement statement) throws IllegalArgumentException {
+        if (profiler == null || site == null || statement == null)
+            throw new IllegalArgumentException("The profiler, site and statement musn't be a null reference.");
+
+        this.profiler = profiler;
+        this.site = site;
+        this.statement = statement;
+    }
+
+    private final ProgramProfiler profiler;
+    private final ProgramProfiler.Site site;
+    private final Statement statement;
+
+    /**
+     * The statement measured.
+     * @return
+     */
+    public Statement getStatement() {
+        return this.statement;
+    }
+
+    /**
+     * Execute the wrapped statement and record the time spent and the budget used.
+     *
+     * @param program The program to execute on.
+     * @return The result of the wrapped statement.
+     */
+    @Override
+    public boolean execute(Program program) {
+        boolean counted = program.isFinished();
+        int counter = program.getCounter();
+
+        profiler.enter(site);
+        long start = System.nanoTime();
+        try {
+            return statement.execute(program);
+        } finally {
+            profiler.exit(System.nanoTime() - start, counter - program.getCounter(), counted);
+        }
+    }
+
+    @Override
+    public boolean hasActionStatement() {
+        return statement.hasActionStatement();
+    }
+
+    @Override
+    public List<Statement> getStatements() {
+        List<Statement> myList = new ArrayList<>();
+        myList.add(statement);
+        return myList;
+    }
+}
@@ -16,16 +16,36 @@ import worms.model.program.expressions.VariableExpression;
  */
 public class WhileStatement extends ConditionalStatement implements MultipleStatement {
 
-    public WhileStatement(BooleanExpression condition, Statement body) {
+    /**
+     * Initialize a while statement.
+     * @param line The line of the statement.
+     * @param column The column of the statement.
+     * @param condition The condition of the while.
+     * @param body The statement to execute as long as the condition is true.
+     * @throws IllegalArgumentException
+     *          When the body or the condition is a null reference.
+     */
+    public WhileStatement(int line, int column, BooleanExpression condition, Statement body) throws IllegalArgumentException {
         if (body == null || condition == null) {
             throw new IllegalArgumentException("The body statements or the condition musn't be a null reference.");
         }
 
+        this.line = line;
+        this.column = column;
         this.condition = condition;
         this.body = body;
     }
     
-    public WhileStatement(VariableExpression<?> condition, Statement body) {
+    /**
+     * Initialize a while statement.
+     * @param line The line of the statement.
+     * @param column The column of the statement.
+     * @param condition The condition of the while.
+     * @param body The statement to execute as long as the condition is true.
+     * @throws IllegalArgumentException
+     *          When the body or the condition is a null reference or the condition isn't of the type Boolean.
+     */
+    public WhileStatement(int line, int column, VariableExpression<?> condition, Statement body) throws IllegalArgumentException {
         if (body == null || condition == null) {
             throw new IllegalArgumentException("The body statements or the condition musn't be a null reference.");
         }
@@ -33,12 +53,43 @@ public class WhileStatement extends ConditionalStatement implements MultipleStat
             throw new IllegalArgumentException("The condition of the while statement must be of type Boolean.");
         }
 
+        this.line = line;
+        this.column = column;
         this.condition = condition;
         this.body = body;
     }
 
     private final Expression<?> condition;
+    
+    /**
+     * The condition of this statement, its type is checked to be Boolean when the statement is created.
+     * @return 
+     */
+    public Expression<?> getCondition() {
+        return this.condition;
+    }
+    
     private final Statement body;
+    
+    /**
+     * The line of this statement in the program text.
+     * @return 
+     */
+    public int getLine() {
+        return this.line;
+    }
+    
+    private final int line;
+    
+    /**
+     * The column of this statement in the program text.
+     * @return 
+     */
+    public int getColumn() {
+        return this.column;
+    }
+    
+    private final int column;
 
     /**
      * Returns whether the body contains an ActionStatement.
@@ -52,10 +103,6 @@ public class WhileStatement extends ConditionalStatement implements MultipleStat
     
     @Override
     public boolean perform(Program program) {
-        if(condition.getType() != Boolean.class) {
-            throw new IllegalStateException("The condition of the if-statement is a variable with a type different of Boolean.class. Type: " + condition.getType() + "; value: " + condition.getResult() +";");
-        }
-               
         /* Perform the statement, if we're searching for the last statement -> perform atleast once */
         boolean performedOnceFlag = false;
         while ((!performedOnceFlag && !program.isFinished()) || ((Boolean) condition.getResult() && program.isFinished())) {
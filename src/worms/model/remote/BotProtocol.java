@@ -0,0 +1,58 @@
+package worms.model.remote;
+
+/**
+ * The binary protocol between a BotServer and its clients.
+ *
+ * Every message is a frame: the length of the rest of the frame (int), the type of the frame (byte) and its payload.
+ * All numbers are big-endian, strings are written as their length (short) followed by their UTF-8 bytes.
+ *
+ * A client claims a worm with HELLO, after which it receives a STATE frame at the start of every turn of that worm.
+ * It answers with a single ACTIONS frame holding all actions of that turn, the server performs them in order, sends
+ * back a RESULT frame and ends the turn. When the game is over every client receives an END frame.
+ *
+ * <pre>
+ * HELLO    client to server   int token
+ * STATE    server to client   long turn, short self, byte teams, teams * string name,
+ *                             short worms, worms * (double x, double y, double angle, double radius,
+ *                                                   int actionPoints, int hitPoints, byte team),
+ *                             short food, food * (double x, double y)
+ * ACTIONS  client to server   long turn, short actions, actions * (byte action, [double angle | int yield])
+ * RESULT   server to client   long turn, short actions, actions * byte performed
+ * END      server to client   string winner (empty if there is none)
+ * </pre>
+ *
+ * A team index of -1 means the worm isn't in a team. Only TURN has an angle and only FIRE has a yield.
+ *
+ * A STATE frame holds at most MAX_TEAMS teams and has to fit in MAX_FRAME_LENGTH, that is about 1,590 worms without
+ * food or 4,090 food with a single worm. A server refuses to start for a larger world, since no worms, teams or food
+ * are added once the game started. A frame holding an unknown action, or more or less bytes than its actions, closes
+ * the connection without any of its actions performed.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class BotProtocol {
+
+	private BotProtocol() {
+	}
+
+	/**
+	 * The maximum length of a frame, the length prefix excluded. Longer frames close the connection.
+	 */
+	public static final int MAX_FRAME_LENGTH = 1 << 16;
+
+	/**
+	 * The maximum number of teams in a STATE frame, the team of a worm is a signed byte.
+	 */
+	public static final int MAX_TEAMS = Byte.MAX_VALUE;
+
+	/**
+	 * The types of the frames.
+	 */
+	public static final int HELLO = 1, STATE = 2, ACTIONS = 3, RESULT = 4, END = 5;
+
+	/**
+	 * The actions in an ACTIONS frame.
+	 */
+	public static final int TURN = 1, MOVE = 2, JUMP = 3, FIRE = 4, TOGGLE_WEAPON = 5;
+}
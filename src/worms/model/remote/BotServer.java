@@ -0,0 +1,639 @@
+package worms.model.remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import worms.model.DirectActionHandler;
+import worms.model.Food;
+import worms.model.IFacade;
+import worms.model.World;
+import worms.model.Worm;
+import worms.model.world.WorldState;
+
+/**
+ * Serves the worms of a world to external controllers over a loopback socket, see BotProtocol.
+ *
+ * The worms are claimed before the server starts, every claim gives a token the controller of that worm sends in its
+ * HELLO frame. At the start of every turn of a claimed worm its controller receives the state of the world and
+ * answers with all actions of that turn in a single frame, instead of a round trip per action. The actions are
+ * performed as a DirectActionHandler performs them. The turn of a claimed worm ends after its actions or when its
+ * controller doesn't answer within the turn timeout, also when it hasn't connected yet. The turn of a worm whose
+ * controller disconnected, or of a worm that isn't claimed and hasn't got a program, ends right away. When no claimed
+ * worm and no worm with a program is alive anymore the game can't go on, the server then stops. When the controllers of
+ * all living claimed worms disconnected and no worm has a program, the server waits for one of them to connect again.
+ *
+ * The actions of a frame are all decoded before any of them is performed, a malformed frame closes the connection
+ * without changing the world. The state of the world has to fit in a single frame, see BotProtocol.
+ *
+ * The server runs a single thread with a selector, all sockets are non-blocking. Once the server is started that
+ * thread is the only one touching the world.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class BotServer implements Closeable {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * The maximum amount of turns ended without serving the sockets in between.
+	 */
+	private static final int TURNS_PER_ADVANCE = 64;
+
+	/**
+	 * Initialize a server for the worms of a world.
+	 *
+	 * @param facade The facade to play the game with.
+	 * @param world The world.
+	 * @param turnTimeout The time a controller gets to answer the state of its turn.
+	 * @param unit The unit of turnTimeout.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| facade == null || world == null || turnTimeout <= 0 || unit == null
+	 */
+	public BotServer(IFacade facade, World world, long turnTimeout, TimeUnit unit) throws IllegalArgumentException {
+		if(facade == null || world == null)
+			throw new IllegalArgumentException("The facade and world musn't be a null reference.");
+		if(turnTimeout <= 0 || unit == null)
+			throw new IllegalArgumentException("The turn timeout has to be positive.");
+
+		this.facade = facade;
+		this.world = world;
+		this.handler = new DirectActionHandler(facade);
+		this.turnTimeout = unit.toNanos(turnTimeout);
+	}
+
+	/**
+	 * Initialize a server for the worms of a world, with a turn timeout of 30 seconds.
+	 *
+	 * @effect this(facade, world, 30, TimeUnit.SECONDS)
+	 */
+	public BotServer(IFacade facade, World world) throws IllegalArgumentException {
+		this(facade, world, 30, TimeUnit.SECONDS);
+	}
+
+	private final IFacade facade;
+	private final World world;
+	private final DirectActionHandler handler;
+	private final long turnTimeout;
+
+	/**
+	 * Let a worm be controlled by a client of this server.
+	 *
+	 * @param worm The worm.
+	 * @return The token the client has to send in its HELLO frame.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			When the worm isn't in the world of this server or has already been claimed.
+	 * @throws IllegalStateException
+	 * 			When this server has already been started.
+	 */
+	public int claim(Worm worm) throws IllegalArgumentException, IllegalStateException {
+		if(this.thread != null)
+			throw new IllegalStateException("Worms can only be claimed before the server is started.");
+		if(worm == null || worm.getWorld() != world)
+			throw new IllegalArgumentException("The worm has to be in the world of this server.");
+		if(tokens.containsValue(worm))
+			throw new IllegalArgumentException("The worm has already been claimed.");
+
+		int token;
+		do {
+			token = random.nextInt();
+		} while(tokens.containsKey(token));
+		tokens.put(token, worm);
+		return token;
+	}
+
+	private final SecureRandom random = new SecureRandom();
+	private final Map<Integer, Worm> tokens = new HashMap<>();
+
+	/**
+	 * Start serving on a free port of the loopback address, see getPort().
+	 *
+	 * @throws IOException
+	 * 			When the socket can't be opened.
+	 * @throws IllegalStateException
+	 * 			When this server has already been started, or the state of its world doesn't fit in a STATE frame.
+	 */
+	public void start() throws IOException, IllegalStateException {
+		if(this.thread != null)
+			throw new IllegalStateException("The server has already been started.");
+		//No worms, teams or food can be added once the game started, so the state never outgrows a frame later on.
+		if(this.getTeams().size() > BotProtocol.MAX_TEAMS)
+			throw new IllegalStateException("A STATE frame holds at most " + BotProtocol.MAX_TEAMS + " teams.");
+		if(1 + this.getStateLength() > BotProtocol.MAX_FRAME_LENGTH)
+			throw new IllegalStateException("The state of the world doesn't fit in a frame of "
+					+ BotProtocol.MAX_FRAME_LENGTH + " bytes.");
+
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.configureBlocking(false);
+		server.socket().bind(new InetSocketAddress(InetAddress.getByName(null), 0));
+		server.register(selector, SelectionKey.OP_ACCEPT);
+
+		thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				serve();
+			}
+		}, "bot-server");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private Selector selector;
+	private ServerSocketChannel server;
+	private Thread thread;
+	private volatile boolean running = true;
+
+	/**
+	 * Returns the port this server listens on.
+	 *
+	 * @throws IllegalStateException
+	 * 			When this server hasn't been started.
+	 */
+	public int getPort() throws IllegalStateException {
+		if(server == null)
+			throw new IllegalStateException("The server hasn't been started.");
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * Wait until the game is over, or this server stopped.
+	 *
+	 * @param timeout The maximum time to wait.
+	 * @param unit The unit of timeout.
+	 * @return Whether the game is over or this server stopped.
+	 * @throws InterruptedException
+	 * 			When interrupted while waiting.
+	 */
+	public boolean awaitEnd(long timeout, TimeUnit unit) throws InterruptedException {
+		return ended.await(timeout, unit);
+	}
+
+	private final CountDownLatch ended = new CountDownLatch(1);
+
+	/**
+	 * Returns the exception this server stopped with, null if there is none.
+	 */
+	public IOException getFailure() {
+		return this.failure;
+	}
+
+	private volatile IOException failure;
+
+	/**
+	 * Stop serving and close all connections.
+	 *
+	 * @throws IOException
+	 * 			When interrupted while waiting for the server to stop.
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		if(thread != null) {
+			selector.wakeup();
+			try {
+				thread.join();
+			} catch(InterruptedException ex) {
+				throw new IOException("Interrupted while stopping the server.", ex);
+			}
+		}
+	}
+
+	/**
+	 * The connections by the worm they claimed.
+	 */
+	private final Map<Worm, Connection> connections = new IdentityHashMap<>();
+
+	/**
+	 * The claimed worms whose controller disconnected.
+	 */
+	private final Map<Worm, Boolean> disconnected = new IdentityHashMap<>();
+
+	/**
+	 * The turn of a claimed worm that is being waited for, its deadline and whether its state was sent.
+	 */
+	private long stateTurn = -1;
+	private long deadline;
+	private boolean stateSent;
+	private boolean gameOver = false;
+
+	private void serve() {
+		try {
+			while(running) {
+				long wait = advance();
+				if(wait < 0)
+					selector.selectNow();
+				else
+					selector.select(wait);
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while(keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if(!key.isValid())
+						continue;
+					if(key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					Connection connection = (Connection) key.attachment();
+					try {
+						if(key.isReadable())
+							connection.read();
+						if(key.isValid() && key.isWritable())
+							connection.write();
+					} catch(IOException ex) {
+						connection.close();
+					}
+				}
+			}
+		} catch(IOException ex) {
+			failure = ex;
+		} finally {
+			for(SelectionKey key : selector.keys()) {
+				if(key.attachment() instanceof Connection)
+					((Connection) key.attachment()).close();
+			}
+			try {
+				server.close();
+				selector.close();
+			} catch(IOException ex) {
+				//Closing anyway.
+			}
+			ended.countDown();
+		}
+	}
+
+	/**
+	 * Play the game up to the turn of a claimed worm, and send it the state if its controller is connected.
+	 *
+	 * @return The time to wait for the sockets in milliseconds, 0 to wait until one of them is ready,
+	 * 			negative to not wait at all.
+	 */
+	private long advance() {
+		if(gameOver)
+			return 0;
+		if(world.getState() == WorldState.INITIALISATION)
+			facade.startGame(world);
+
+		for(int i = 0; i < TURNS_PER_ADVANCE; i++) {
+			if(facade.isGameFinished(world)) {
+				endGame();
+				return 0;
+			}
+
+			Worm active = facade.getCurrentWorm(world);
+			if(!tokens.containsValue(active) || disconnected.containsKey(active)) {
+				if(!this.canProgress()) {
+					running = false;
+					return -1;
+				}
+				if(this.awaitsReconnect())
+					return Math.max(1, TimeUnit.NANOSECONDS.toMillis(turnTimeout));
+				facade.startNextTurn(world);
+				continue;
+			}
+
+			long now = System.nanoTime();
+			if(stateTurn != world.getTurnCount()) {
+				//The deadline starts now, also when the controller still has to connect.
+				stateTurn = world.getTurnCount();
+				deadline = now + turnTimeout;
+				stateSent = false;
+			}
+			Connection connection = connections.get(active);
+			if(connection != null && !stateSent) {
+				stateSent = true;
+				connection.send(this.encodeState(active));
+			}
+			if(now - deadline >= 0) {
+				facade.startNextTurn(world);
+				continue;
+			}
+			return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - now));
+		}
+		return -1;
+	}
+
+	/**
+	 * Whether a claimed worm or a worm with a program is still alive, otherwise nothing can change the world anymore.
+	 */
+	private boolean canProgress() {
+		for(Worm worm : tokens.values()) {
+			if(facade.isAlive(worm))
+				return true;
+		}
+		for(Worm worm : facade.getWorms(world)) {
+			if(worm.hasProgram())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Whether the controllers of all living claimed worms disconnected and no worm has a program, then only a controller
+	 * connecting again can change the world.
+	 */
+	private boolean awaitsReconnect() {
+		for(Worm worm : tokens.values()) {
+			if(facade.isAlive(worm) && !disconnected.containsKey(worm))
+				return false;
+		}
+		for(Worm worm : facade.getWorms(world)) {
+			if(worm.hasProgram())
+				return false;
+		}
+		return true;
+	}
+
+	private void endGame() {
+		gameOver = true;
+		String winner = facade.getWinner(world);
+		byte[] name = (winner == null ? "" : winner).getBytes(UTF8);
+		ByteBuffer frame = frame(BotProtocol.END, 2 + name.length);
+		frame.putShort((short) name.length).put(name);
+		frame.flip();
+		for(Connection connection : new ArrayList<>(connections.values())) {
+			connection.send(frame.duplicate());
+			connection.closeWhenSent = true;
+		}
+		ended.countDown();
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = server.accept();
+		if(channel == null)
+			return;
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Connection connection = new Connection(channel);
+		connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+	}
+
+	/**
+	 * The names of the teams in a STATE frame, in the order of the worms.
+	 */
+	private List<String> getTeams() {
+		List<String> teams = new ArrayList<>();
+		for(Worm worm : facade.getWorms(world)) {
+			String team = facade.getTeamName(worm);
+			if(team != null && !teams.contains(team))
+				teams.add(team);
+		}
+		return teams;
+	}
+
+	/**
+	 * The length of the payload of a STATE frame of the world.
+	 */
+	private int getStateLength() {
+		int length = 8 + 2 + 1 + 2 + facade.getWorms(world).size() * 41 + 2 + facade.getFood(world).size() * 16;
+		for(String team : this.getTeams())
+			length += 2 + team.getBytes(UTF8).length;
+		return length;
+	}
+
+	private ByteBuffer encodeState(Worm self) {
+		List<Worm> worms = new ArrayList<>(facade.getWorms(world));
+		Collection<Food> food = facade.getFood(world);
+		List<String> teams = this.getTeams();
+
+		ByteBuffer frame = frame(BotProtocol.STATE, this.getStateLength());
+		frame.putLong(world.getTurnCount());
+		frame.putShort((short) worms.indexOf(self));
+		frame.put((byte) teams.size());
+		for(String team : teams) {
+			byte[] name = team.getBytes(UTF8);
+			frame.putShort((short) name.length).put(name);
+		}
+		frame.putShort((short) worms.size());
+		for(Worm worm : worms) {
+			frame.putDouble(facade.getX(worm)).putDouble(facade.getY(worm));
+			frame.putDouble(facade.getOrientation(worm)).putDouble(facade.getRadius(worm));
+			frame.putInt(facade.getActionPoints(worm)).putInt(facade.getHitPoints(worm));
+			frame.put((byte) teams.indexOf(facade.getTeamName(worm)));
+		}
+		frame.putShort((short) food.size());
+		for(Food item : food)
+			frame.putDouble(facade.getX(item)).putDouble(facade.getY(item));
+		frame.flip();
+		return frame;
+	}
+
+	/**
+	 * Allocate a frame with its header written, with room for a payload of a certain length.
+	 */
+	private static ByteBuffer frame(int type, int payloadLength) {
+		ByteBuffer frame = ByteBuffer.allocate(4 + 1 + payloadLength);
+		frame.putInt(1 + payloadLength);
+		frame.put((byte) type);
+		return frame;
+	}
+
+	/**
+	 * Perform the actions of a controller for its worm and end the turn.
+	 * All actions are decoded first, so a malformed frame doesn't leave part of them performed.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			When an action is unknown or the frame holds more bytes than its actions.
+	 * @throws BufferUnderflowException
+	 * 			When the frame holds less bytes than its actions.
+	 */
+	private void perform(Connection connection, ByteBuffer payload) throws IllegalArgumentException, BufferUnderflowException {
+		long turn = payload.getLong();
+		int count = payload.getShort() & 0xFFFF;
+		int[] actions = new int[count];
+		double[] arguments = new double[count];
+		for(int i = 0; i < count; i++) {
+			actions[i] = payload.get();
+			switch(actions[i]) {
+			case BotProtocol.TURN:
+				arguments[i] = payload.getDouble();
+				break;
+			case BotProtocol.FIRE:
+				arguments[i] = payload.getInt();
+				break;
+			case BotProtocol.MOVE:
+			case BotProtocol.JUMP:
+			case BotProtocol.TOGGLE_WEAPON:
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown action " + actions[i] + ".");
+			}
+		}
+		if(payload.hasRemaining())
+			throw new IllegalArgumentException("The frame holds more than its actions.");
+
+		Worm worm = connection.worm;
+		if(gameOver || turn != world.getTurnCount() || stateTurn != turn || !stateSent || facade.getCurrentWorm(world) != worm)
+			return; //Too late, the turn already ended.
+
+		ByteBuffer result = frame(BotProtocol.RESULT, 8 + 2 + count);
+		result.putLong(turn).putShort((short) count);
+		for(int i = 0; i < count; i++) {
+			boolean performed = false;
+			if(this.hasTurn(worm)) {
+				switch(actions[i]) {
+				case BotProtocol.TURN:
+					performed = handler.turn(worm, arguments[i]);
+					break;
+				case BotProtocol.MOVE:
+					performed = handler.move(worm);
+					break;
+				case BotProtocol.JUMP:
+					performed = handler.jump(worm);
+					break;
+				case BotProtocol.FIRE:
+					performed = handler.fire(worm, (int) arguments[i]);
+					break;
+				case BotProtocol.TOGGLE_WEAPON:
+					performed = handler.toggleWeapon(worm);
+					break;
+				}
+			}
+			result.put((byte) (performed ? 1 : 0));
+		}
+		result.flip();
+		connection.send(result);
+
+		if(this.hasTurn(worm))
+			facade.startNextTurn(world);
+	}
+
+	/**
+	 * Whether a worm still has the turn, an action can end it (e.g. by running out of action points).
+	 */
+	private boolean hasTurn(Worm worm) {
+		return !facade.isGameFinished(world) && facade.getCurrentWorm(world) == worm;
+	}
+
+	/**
+	 * A connection of a client, it reads frames and writes the queued ones when the socket is ready.
+	 */
+	private class Connection {
+
+		private Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		private final SocketChannel channel;
+		private SelectionKey key;
+		private Worm worm;
+
+		private final ByteBuffer input = ByteBuffer.allocate(4 + BotProtocol.MAX_FRAME_LENGTH);
+		private final Queue<ByteBuffer> output = new ArrayDeque<>();
+		private boolean closeWhenSent = false;
+
+		private void read() throws IOException {
+			if(channel.read(input) < 0) {
+				close();
+				return;
+			}
+
+			input.flip();
+			while(input.remaining() >= 4) {
+				int length = input.getInt(input.position());
+				if(length < 1 || length > BotProtocol.MAX_FRAME_LENGTH)
+					throw new IOException("Invalid frame length " + length + ".");
+				if(input.remaining() < 4 + length)
+					break;
+
+				input.position(input.position() + 4);
+				ByteBuffer payload = input.slice();
+				payload.limit(length);
+				input.position(input.position() + length);
+				try {
+					receive(payload.get(), payload);
+				} catch(BufferUnderflowException | IllegalArgumentException ex) {
+					throw new IOException("Malformed frame.", ex);
+				}
+				if(!channel.isOpen())
+					return;
+			}
+			input.compact();
+		}
+
+		private void receive(int type, ByteBuffer payload) throws IOException {
+			switch(type) {
+			case BotProtocol.HELLO:
+				Worm claimed = tokens.get(payload.getInt());
+				if(worm != null || claimed == null || connections.containsKey(claimed))
+					throw new IOException("Invalid claim.");
+				worm = claimed;
+				connections.put(worm, this);
+				disconnected.remove(worm);
+				//A controller connecting again during the turn of its worm gets the state of that turn.
+				if(!gameOver && facade.getCurrentWorm(world) == worm)
+					stateSent = false;
+				if(gameOver)
+					endGame();
+				break;
+			case BotProtocol.ACTIONS:
+				if(worm == null)
+					throw new IOException("Actions before a claim.");
+				perform(this, payload);
+				break;
+			default:
+				throw new IOException("Unknown frame type " + type + ".");
+			}
+		}
+
+		private void send(ByteBuffer frame) {
+			output.add(frame);
+			if(key.isValid())
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+
+		private void write() throws IOException {
+			while(!output.isEmpty()) {
+				ByteBuffer frame = output.peek();
+				channel.write(frame);
+				if(frame.hasRemaining())
+					return;
+				output.remove();
+			}
+			if(closeWhenSent)
+				close();
+			else
+				key.interestOps(SelectionKey.OP_READ);
+		}
+
+		private void close() {
+			if(worm != null && connections.get(worm) == this) {
+				connections.remove(worm);
+				disconnected.put(worm, true);
+			}
+			if(key != null)
+				key.cancel();
+			try {
+				channel.close();
+			} catch(IOException ex) {
+				//Closed anyway.
+			}
+		}
+	}
+}
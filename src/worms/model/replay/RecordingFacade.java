@@ -0,0 +1,353 @@
+package worms.model.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import worms.model.Facade;
+import worms.model.Food;
+import worms.model.Program;
+import worms.model.Projectile;
+import worms.model.World;
+import worms.model.Worm;
+import worms.model.world.Terrain;
+import worms.model.world.TerrainBits;
+
+/**
+ * A facade recording every call that changes the model into a replay log, so the match can be replayed by a Replayer
+ * without the GUI.
+ *
+ * Worms and food added at a random position are logged with the position they got, so a replay doesn't depend on the
+ * random generator. The seed is logged as well, for reference.
+ * The actions of programs are logged as the facade calls they make, a replay runs them again without the program.
+ *
+ * A facade records a single match at a time, and isn't thread safe.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class RecordingFacade extends Facade {
+
+	/**
+	 * Initialize a recording facade.
+	 *
+	 * @param channel The channel to write the log to.
+	 * @param seed The seed of the random generator that will be given to createWorld(...).
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| channel == null
+	 */
+	public RecordingFacade(WritableByteChannel channel, long seed) throws IllegalArgumentException {
+		this.writer = new ReplayWriter(channel);
+		this.seed = seed;
+	}
+
+	/**
+	 * Create a facade recording to the given file.
+	 *
+	 * @param file The file to write the log to, it is overwritten.
+	 * @param seed The seed of the random generator that will be given to createWorld(...).
+	 * @return The facade.
+	 * @throws IOException
+	 * 			When the file can't be opened.
+	 */
+	public static RecordingFacade create(File file, long seed) throws IOException {
+		return new RecordingFacade(FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), seed);
+	}
+
+	private final ReplayWriter writer;
+	private final long seed;
+
+	/**
+	 * Returns the world being recorded, null if no world has been created yet.
+	 */
+	public World getWorld() {
+		return this.world;
+	}
+
+	private World world;
+	private final Map<Worm, Integer> wormIds = new IdentityHashMap<>();
+
+	/**
+	 * The depth of the recorded calls in progress, events logged at a depth greater than zero are nested.
+	 */
+	private int depth = 0;
+	private boolean adding = false;
+
+	/**
+	 * Write the hash of the current world to the log and flush it.
+	 *
+	 * @throws IOException
+	 * 			When the log can't be written.
+	 */
+	public void writeHash() throws IOException {
+		if(world != null) {
+			writer.putByte(ReplayLog.HASH);
+			writer.putLong(WorldHasher.hash(world));
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Write the hash of the current world and close the log.
+	 *
+	 * @throws IOException
+	 * 			When the log can't be written.
+	 */
+	public void close() throws IOException {
+		try {
+			writeHash();
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Log the start of a call, the arguments follow. Every call to begin is matched by a call to end() once the call
+	 * is done, also when it fails.
+	 */
+	private void begin(int opcode) {
+		if(depth > 0) {
+			writer.putByte(opcode | ReplayLog.NESTED);
+			writer.putVarLong(world.getTurnCount());
+		} else {
+			writer.putByte(opcode);
+		}
+		depth++;
+	}
+
+	private void end() {
+		depth--;
+	}
+
+	/**
+	 * Log the start of a call on a worm, followed by the id of the worm.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			When the worm wasn't created by this facade in the recorded world, nothing is logged then.
+	 */
+	private void begin(int opcode, Worm worm) throws IllegalArgumentException {
+		Integer id = wormIds.get(worm);
+		if(id == null)
+			throw new IllegalArgumentException("The worm wasn't created by this facade in the recorded world.");
+		begin(opcode);
+		writer.putVarLong(id);
+	}
+
+	@Override
+	public World createWorld(double width, double height, boolean[][] passableMap, Random random) {
+		World result = super.createWorld(width, height, passableMap, random);
+		recordWorld(result);
+		return result;
+	}
+
+	@Override
+	public World createWorldOnTerrain(double width, double height, Terrain terrain, Random random) {
+		World result = super.createWorldOnTerrain(width, height, terrain, random);
+		recordWorld(result);
+		return result;
+	}
+
+	private void recordWorld(World world) {
+		this.world = world;
+		this.wormIds.clear();
+		writer.putByte(ReplayLog.WORLD);
+		writer.putSignedVarLong(seed);
+		writer.putDouble(world.getWidth());
+		writer.putDouble(world.getHeight());
+		TerrainBits.write(world.getTerrain(), writer);
+	}
+
+	@Override
+	public void addEmptyTeam(World world, String newName) {
+		begin(ReplayLog.TEAM);
+		try {
+			writer.putString(newName);
+			super.addEmptyTeam(world, newName);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void addNewWorm(World world, Program program) {
+		adding = true;
+		try {
+			super.addNewWorm(world, program);
+		} finally {
+			adding = false;
+		}
+	}
+
+	@Override
+	public Worm createWorm(World world, double x, double y, double direction, double radius, String name, Program program) {
+		boolean added = adding;
+		adding = false;
+		Worm worm = super.createWorm(world, x, y, direction, radius, name, program);
+		if(world == this.world) {
+			wormIds.put(worm, wormIds.size());
+			begin(ReplayLog.WORM);
+			try {
+				writer.putByte((program != null ? ReplayLog.PROGRAM : 0) | (added ? ReplayLog.ADDED : 0));
+				writer.putDouble(x);
+				writer.putDouble(y);
+				writer.putDouble(direction);
+				writer.putDouble(radius);
+				writer.putString(name);
+			} finally {
+				end();
+			}
+		}
+		return worm;
+	}
+
+	@Override
+	public void addNewFood(World world) {
+		adding = true;
+		try {
+			super.addNewFood(world);
+		} finally {
+			adding = false;
+		}
+	}
+
+	@Override
+	public Food createFood(World world, double x, double y) {
+		boolean added = adding;
+		adding = false;
+		Food food = super.createFood(world, x, y);
+		if(world == this.world) {
+			begin(ReplayLog.FOOD);
+			try {
+				writer.putByte(added ? ReplayLog.ADDED : 0);
+				writer.putDouble(x);
+				writer.putDouble(y);
+			} finally {
+				end();
+			}
+		}
+		return food;
+	}
+
+	@Override
+	public void startGame(World world) {
+		begin(ReplayLog.START_GAME);
+		try {
+			super.startGame(world);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void startNextTurn(World world) {
+		begin(ReplayLog.NEXT_TURN);
+		try {
+			super.startNextTurn(world);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void turn(Worm worm, double angle) {
+		begin(ReplayLog.TURN, worm);
+		try {
+			writer.putDouble(angle);
+			super.turn(worm, angle);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void move(Worm worm) {
+		begin(ReplayLog.MOVE, worm);
+		try {
+			super.move(worm);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void jump(Worm worm, double timeStep) {
+		begin(ReplayLog.JUMP, worm);
+		try {
+			writer.putDouble(timeStep);
+			super.jump(worm, timeStep);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void fall(Worm worm) {
+		begin(ReplayLog.FALL, worm);
+		try {
+			super.fall(worm);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void shoot(Worm worm, int yield) {
+		begin(ReplayLog.SHOOT, worm);
+		try {
+			writer.putSignedVarLong(yield);
+			super.shoot(worm, yield);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void selectNextWeapon(Worm worm) {
+		begin(ReplayLog.SELECT_WEAPON, worm);
+		try {
+			super.selectNextWeapon(worm);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void rename(Worm worm, String newName) {
+		begin(ReplayLog.RENAME, worm);
+		try {
+			writer.putString(newName);
+			super.rename(worm, newName);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void setRadius(Worm worm, double newRadius) {
+		begin(ReplayLog.SET_RADIUS, worm);
+		try {
+			writer.putDouble(newRadius);
+			super.setRadius(worm, newRadius);
+		} finally {
+			end();
+		}
+	}
+
+	@Override
+	public void jump(Projectile projectile, double timeStep) {
+		begin(ReplayLog.PROJECTILE_JUMP);
+		try {
+			writer.putDouble(timeStep);
+			super.jump(projectile, timeStep);
+		} finally {
+			end();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package worms.model.replay;
+
+/**
+ * The binary format of a replay log, written by RecordingFacade and read by Replayer.
+ *
+ * A log starts with MAGIC and VERSION (4 bytes each), followed by events. Every event is an opcode byte followed by
+ * its arguments. Integers are varints (signed ones zigzag encoded), doubles are their 8 raw bytes so they are replayed
+ * bit for bit, strings are a varint length followed by their UTF-8 bytes.
+ *
+ * Events caused by another event (e.g. the actions of a program executed when the turn passes to its worm) have the
+ * NESTED bit set in their opcode, followed by the turn count of the world when they happened.
+ * Worms are referred to by the order in which they were created in the current world.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class ReplayLog {
+
+	private ReplayLog() {
+	}
+
+	/**
+	 * The first 4 bytes of every replay log, "WRML".
+	 */
+	public static final int MAGIC = 0x57524D4C;
+
+	/**
+	 * The version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The extension of replay log files.
+	 */
+	public static final String FILE_EXTENSION = ".wrl";
+
+	/**
+	 * The bit set in the opcode of nested events.
+	 */
+	static final int NESTED = 0x80;
+
+	/**
+	 * seed, width, height, rows, columns, passable map (bits, row by row)
+	 */
+	static final int WORLD = 1;
+	/**
+	 * name
+	 */
+	static final int TEAM = 2;
+	/**
+	 * flags (PROGRAM, ADDED), x, y, direction, radius, name
+	 */
+	static final int WORM = 3;
+	/**
+	 * flags (ADDED), x, y
+	 */
+	static final int FOOD = 4;
+	static final int START_GAME = 5;
+	static final int NEXT_TURN = 6;
+	/**
+	 * worm, angle
+	 */
+	static final int TURN = 7;
+	/**
+	 * worm
+	 */
+	static final int MOVE = 8;
+	/**
+	 * worm, time step
+	 */
+	static final int JUMP = 9;
+	/**
+	 * worm
+	 */
+	static final int FALL = 10;
+	/**
+	 * worm, yield
+	 */
+	static final int SHOOT = 11;
+	/**
+	 * worm
+	 */
+	static final int SELECT_WEAPON = 12;
+	/**
+	 * worm, name
+	 */
+	static final int RENAME = 13;
+	/**
+	 * worm, radius
+	 */
+	static final int SET_RADIUS = 14;
+	/**
+	 * time step, for the active projectile
+	 */
+	static final int PROJECTILE_JUMP = 15;
+	/**
+	 * hash (8 bytes), see WorldHasher
+	 */
+	static final int HASH = 16;
+
+	/**
+	 * The worm is controlled by a program.
+	 */
+	static final int PROGRAM = 1;
+
+	/**
+	 * The worm or food was added at a random position by the facade, and fell down afterwards.
+	 */
+	static final int ADDED = 2;
+}
@@ -0,0 +1,31 @@
+package worms.model.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import worms.util.BinaryInput;
+
+/**
+ * Reads the values written by a ReplayWriter from a buffer.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+class ReplayReader extends BinaryInput {
+
+	/**
+	 * Initialize a reader and check the header of the log.
+	 *
+	 * @param buffer The log.
+	 * @throws IOException
+	 * 			When the buffer doesn't start with the header of a replay log of this version.
+	 */
+	ReplayReader(ByteBuffer buffer) throws IOException {
+		super(buffer, "the replay log");
+		if(remaining() < 8 || getInt() != ReplayLog.MAGIC)
+			throw new IOException("Not a replay log.");
+		int version = getInt();
+		if(version != ReplayLog.VERSION)
+			throw new IOException("Unsupported replay log version " + version + ".");
+	}
+}
@@ -0,0 +1,35 @@
+package worms.model.replay;
+
+import java.io.Closeable;
+import java.nio.channels.WritableByteChannel;
+
+import worms.util.BinaryOutput;
+
+/**
+ * Writes the values of a replay log to a channel, through a buffer that is only written out when it is full,
+ * on flush() or on close().
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ReplayWriter extends BinaryOutput implements Closeable {
+
+	/**
+	 * The size of the buffer, in bytes.
+	 */
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Initialize a writer and write the header of the log.
+	 *
+	 * @param channel The channel to write to.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| channel == null
+	 */
+	public ReplayWriter(WritableByteChannel channel) throws IllegalArgumentException {
+		super(channel, BUFFER_SIZE);
+		this.putInt(ReplayLog.MAGIC);
+		this.putInt(ReplayLog.VERSION);
+	}
+}
@@ -0,0 +1,275 @@
+package worms.model.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import worms.model.Facade;
+import worms.model.Food;
+import worms.model.ModelException;
+import worms.model.Program;
+import worms.model.Projectile;
+import worms.model.Team;
+import worms.model.World;
+import worms.model.Worm;
+import worms.model.program.ProgramFactoryImpl;
+import worms.model.program.Variable;
+import worms.model.program.statements.Statement;
+import worms.model.world.TerrainBitmap;
+import worms.model.world.TerrainBits;
+
+/**
+ * Replays a log written by a RecordingFacade on a facade of its own, without the GUI and as fast as possible.
+ *
+ * Worms controlled by a program are given a program replaying the actions logged during their turn, so the turns
+ * change exactly as they did while recording.
+ * Calls that failed while recording (e.g. a move without enough action points) fail the same way while replaying,
+ * their failure is ignored.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class Replayer {
+
+	/**
+	 * Initialize a replayer for the given log.
+	 *
+	 * @param log The log, from its current position to its limit.
+	 * @throws IOException
+	 * 			When the log doesn't start with the header of a replay log.
+	 */
+	public Replayer(ByteBuffer log) throws IOException {
+		this.reader = new ReplayReader(log);
+	}
+
+	/**
+	 * Create a replayer for the log in the given file.
+	 *
+	 * @param file The file.
+	 * @return The replayer.
+	 * @throws IOException
+	 * 			When the file can't be read or isn't a replay log.
+	 */
+	public static Replayer open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException("The replay log is too large.");
+			ByteBuffer log = ByteBuffer.allocate((int) channel.size());
+			while(log.hasRemaining() && channel.read(log) >= 0) {
+			}
+			log.flip();
+			return new Replayer(log);
+		}
+	}
+
+	private final ReplayReader reader;
+	private final Facade facade = new Facade();
+
+	/**
+	 * Returns the facade the log is replayed on.
+	 */
+	public Facade getFacade() {
+		return this.facade;
+	}
+
+	/**
+	 * Returns the world created last by the log, null if none has been replayed yet.
+	 */
+	public World getWorld() {
+		return this.world;
+	}
+
+	private World world;
+	private final List<Worm> worms = new ArrayList<>();
+
+	/**
+	 * Returns the amount of events replayed.
+	 */
+	public long getEventCount() {
+		return this.eventCount;
+	}
+
+	private long eventCount = 0;
+
+	/**
+	 * Returns the last hash found in the log, see WorldHasher.
+	 *
+	 * @return The hash, null if none has been replayed yet.
+	 */
+	public Long getRecordedHash() {
+		return this.recordedHash;
+	}
+
+	private Long recordedHash;
+
+	private IOException failure;
+
+	/**
+	 * Replay the whole log.
+	 *
+	 * @param verify Whether to check the state of the world against every hash in the log.
+	 * @return The world created last by the log.
+	 *
+	 * @throws IOException
+	 * 			When the log is malformed.
+	 * @throws IllegalStateException
+	 * 			When verifying and the replayed world differs from the recorded one.
+	 */
+	public World run(boolean verify) throws IOException, IllegalStateException {
+		while(reader.hasRemaining()) {
+			int opcode = reader.getByte();
+			if((opcode & ReplayLog.NESTED) != 0)
+				throw new IllegalStateException("The replay diverged: an action of a program was left over.");
+			apply(opcode);
+			if(failure != null)
+				throw failure;
+
+			if(opcode == ReplayLog.HASH && verify && recordedHash != WorldHasher.hash(world))
+				throw new IllegalStateException("The replayed world differs from the recorded one.");
+		}
+		return world;
+	}
+
+	private void apply(int opcode) throws IOException {
+		eventCount++;
+		try {
+			switch(opcode) {
+			case ReplayLog.WORLD:
+				long seed = reader.getSignedVarLong();
+				double width = reader.getDouble();
+				double height = reader.getDouble();
+				TerrainBitmap terrain = TerrainBits.read(reader);
+				world = facade.createWorldOnTerrain(width, height, terrain, new Random(seed));
+				worms.clear();
+				break;
+			case ReplayLog.TEAM:
+				facade.addEmptyTeam(getWorldOrFail(), reader.getString());
+				break;
+			case ReplayLog.WORM:
+				addWorm(reader.getByte(), reader.getDouble(), reader.getDouble(), reader.getDouble(),
+						reader.getDouble(), reader.getString());
+				break;
+			case ReplayLog.FOOD:
+				int flags = reader.getByte();
+				Food food = facade.createFood(getWorldOrFail(), reader.getDouble(), reader.getDouble());
+				if((flags & ReplayLog.ADDED) != 0)
+					food.fall();
+				break;
+			case ReplayLog.START_GAME:
+				facade.startGame(getWorldOrFail());
+				break;
+			case ReplayLog.NEXT_TURN:
+				facade.startNextTurn(getWorldOrFail());
+				break;
+			case ReplayLog.TURN:
+				Worm worm = readWorm();
+				facade.turn(worm, reader.getDouble());
+				break;
+			case ReplayLog.MOVE:
+				facade.move(readWorm());
+				break;
+			case ReplayLog.JUMP:
+				worm = readWorm();
+				facade.jump(worm, reader.getDouble());
+				break;
+			case ReplayLog.FALL:
+				facade.fall(readWorm());
+				break;
+			case ReplayLog.SHOOT:
+				worm = readWorm();
+				facade.shoot(worm, (int) reader.getSignedVarLong());
+				break;
+			case ReplayLog.SELECT_WEAPON:
+				facade.selectNextWeapon(readWorm());
+				break;
+			case ReplayLog.RENAME:
+				worm = readWorm();
+				facade.rename(worm, reader.getString());
+				break;
+			case ReplayLog.SET_RADIUS:
+				worm = readWorm();
+				facade.setRadius(worm, reader.getDouble());
+				break;
+			case ReplayLog.PROJECTILE_JUMP:
+				double timeStep = reader.getDouble();
+				Projectile projectile = facade.getActiveProjectile(getWorldOrFail());
+				if(projectile == null)
+					throw new IllegalStateException("The replay diverged: there is no projectile to jump.");
+				facade.jump(projectile, timeStep);
+				break;
+			case ReplayLog.HASH:
+				recordedHash = reader.getLong();
+				break;
+			default:
+				throw new IOException("Unknown event " + opcode + " in the replay log.");
+			}
+		} catch(ModelException | IllegalArgumentException ex) {
+			//Failed the same way while recording.
+		}
+	}
+
+	private void addWorm(int flags, double x, double y, double direction, double radius, String name) throws IOException {
+		World world = getWorldOrFail();
+		Program program = null;
+		if((flags & ReplayLog.PROGRAM) != 0)
+			program = new Program(new ProgramFactoryImpl(null), new ReplayStatement(), new HashMap<String, Variable<?>>());
+
+		Worm worm = facade.createWorm(world, x, y, direction, radius, name, program);
+		worms.add(worm);
+		if((flags & ReplayLog.ADDED) != 0) {
+			//The same as Facade.addNewWorm(...) does after creating the worm.
+			worm.softFall();
+			List<Team> teams = world.getTeams();
+			if(teams.size() > 0)
+				teams.get(teams.size() - 1).add(worm);
+		}
+	}
+
+	private World getWorldOrFail() throws IOException {
+		if(world == null)
+			throw new IOException("The replay log doesn't create a world first.");
+		return world;
+	}
+
+	private Worm readWorm() throws IOException {
+		int id = reader.getVarInt();
+		if(id >= worms.size())
+			throw new IOException("Unknown worm " + id + " in the replay log.");
+		return worms.get(id);
+	}
+
+	/**
+	 * The main statement of the program of a replayed worm: replays the actions logged during the current turn.
+	 */
+	private class ReplayStatement implements Statement {
+
+		@Override
+		public boolean execute(Program program) {
+			try {
+				while(failure == null && reader.hasRemaining()) {
+					int position = reader.position();
+					int opcode = reader.getByte();
+					if((opcode & ReplayLog.NESTED) == 0 || reader.getVarLong() != world.getTurnCount()) {
+						reader.position(position);
+						break;
+					}
+					apply(opcode & ~ReplayLog.NESTED);
+				}
+			} catch(IOException ex) {
+				failure = ex;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean hasActionStatement() {
+			return true;
+		}
+	}
+}
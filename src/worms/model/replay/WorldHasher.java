@@ -0,0 +1,82 @@
+package worms.model.replay;
+
+import worms.model.Food;
+import worms.model.Projectile;
+import worms.model.World;
+import worms.model.Worm;
+import worms.model.world.entity.GameObject;
+
+/**
+ * Computes a hash of the state of a world, to check whether two worlds ended up in exactly the same state.
+ *
+ * The hash covers the state of the world, its turn count, the active worm and every game object in the order of the world:
+ * its kind, position, radius and whether it is alive, and for worms also their direction, action and hit points, name,
+ * team and selected weapon. Doubles are hashed by their bits, so the slightest difference changes the hash.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class WorldHasher {
+
+	private WorldHasher() {
+	}
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Returns the hash of the given world.
+	 *
+	 * @param world The world to hash.
+	 * @return The hash (64-bit FNV-1a).
+	 * @throws IllegalArgumentException
+	 * 			| world == null
+	 */
+	public static long hash(World world) throws IllegalArgumentException {
+		if(world == null)
+			throw new IllegalArgumentException("The world musn't be a null reference.");
+
+		long hash = FNV_OFFSET;
+		hash = mix(hash, world.getState().ordinal());
+		hash = mix(hash, world.getTurnCount());
+		hash = mix(hash, world.getGameObjects().indexOf(world.getActiveWorm()));
+		for(GameObject object : world.getGameObjects()) {
+			hash = mix(hash, object instanceof Worm ? 1 : object instanceof Food ? 2 : object instanceof Projectile ? 3 : 0);
+			hash = mix(hash, object.getPosition().getX());
+			hash = mix(hash, object.getPosition().getY());
+			hash = mix(hash, object.getRadius());
+			hash = mix(hash, object.isAlive() ? 1 : 0);
+			if(object instanceof Worm) {
+				Worm worm = (Worm) object;
+				hash = mix(hash, worm.getAngle());
+				hash = mix(hash, worm.getCurrentActionPoints());
+				hash = mix(hash, worm.getCurrentHitPoints());
+				hash = mix(hash, worm.getName());
+				hash = mix(hash, worm.getTeam() == null ? null : worm.getTeam().getName());
+				hash = mix(hash, worm.getCurrentWeapon() == null ? null : worm.getCurrentWeapon().getName());
+			}
+		}
+		return hash;
+	}
+
+	private static long mix(long hash, double value) {
+		return mix(hash, Double.doubleToLongBits(value));
+	}
+
+	private static long mix(long hash, long value) {
+		for(int i = 0; i < 8; i++) {
+			hash ^= (value >>> (8 * i)) & 0xFF;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	private static long mix(long hash, String value) {
+		if(value == null)
+			return mix(hash, -1L);
+		hash = mix(hash, value.length());
+		for(int i = 0; i < value.length(); i++)
+			hash = mix(hash, (long) value.charAt(i));
+		return hash;
+	}
+}
@@ -0,0 +1,231 @@
+package worms.model.spectate;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import worms.model.Food;
+import worms.model.Projectile;
+import worms.model.World;
+import worms.model.Worm;
+import worms.model.world.Terrain;
+import worms.model.world.TerrainBits;
+import worms.model.world.entity.GameObject;
+import worms.util.BinaryOutput;
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * Encodes the state of a world as a stream of frames for spectators, see DeltaFormat.
+ *
+ * Every frame only holds what changed since the previous frame, except for keyframes which hold everything. The
+ * encoder doesn't listen to the world, it compares the world with what it sent before whenever a frame is asked for,
+ * so frames can be taken per turn, per tick or whenever a spectator can keep up.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class DeltaEncoder {
+
+	/**
+	 * Initialize an encoder for a world.
+	 *
+	 * @param world The world to encode.
+	 * @param keyframeInterval The amount of frames from one keyframe to the next, 0 to only start with a keyframe.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| world == null || keyframeInterval < 0
+	 */
+	public DeltaEncoder(World world, int keyframeInterval) throws IllegalArgumentException {
+		if(world == null)
+			throw new IllegalArgumentException("The world musn't be a null reference.");
+		if(keyframeInterval < 0)
+			throw new IllegalArgumentException("The keyframe interval can't be negative.");
+
+		this.world = world;
+		this.keyframeInterval = keyframeInterval;
+		this.terrain = world.getTerrain();
+	}
+
+	private final World world;
+	private final int keyframeInterval;
+
+	/**
+	 * The terrain doesn't change, it's written to every keyframe as it is, without copying it.
+	 */
+	private final Terrain terrain;
+
+	/**
+	 * Returns the sequence number of the next frame.
+	 */
+	@Basic
+	public long getSequence() {
+		return this.sequence;
+	}
+
+	private long sequence = 0;
+
+	/**
+	 * Make the next frame a keyframe, e.g. because a spectator joined.
+	 */
+	public void requestKeyframe() {
+		this.keyframeRequested = true;
+	}
+
+	private boolean keyframeRequested = true;
+
+	/**
+	 * The entities as they were sent in the previous frame, by the game object they stand for.
+	 */
+	private Map<GameObject, SpectatedEntity> entities = new IdentityHashMap<>();
+	private int nextId = 0;
+
+	/**
+	 * Encode the changes of the world since the previous frame.
+	 *
+	 * @return The frame, from its position to its limit.
+	 */
+	public ByteBuffer nextFrame() {
+		boolean keyframe = keyframeRequested || (keyframeInterval > 0 && sequence % keyframeInterval == 0);
+		keyframeRequested = false;
+
+		Map<GameObject, SpectatedEntity> current = new IdentityHashMap<>();
+		List<SpectatedEntity> changed = new ArrayList<>();
+		List<SpectatedEntity> changedFrom = new ArrayList<>();
+		for(GameObject object : world.getGameObjects()) {
+			int kind = kindOf(object);
+			if(kind == 0 || !object.isAlive())
+				continue;
+
+			SpectatedEntity previous = entities.remove(object);
+			SpectatedEntity entity = capture(previous == null ? nextId++ : previous.id, kind, object);
+			current.put(object, entity);
+			if(keyframe || difference(previous, entity) != 0) {
+				changed.add(entity);
+				changedFrom.add(keyframe ? null : previous);
+			}
+		}
+		//The entities that are left weren't found in the world anymore.
+		Collection<SpectatedEntity> removed = entities.values();
+		SpectatedEntity active = world.getActiveWorm() == null ? null : current.get(world.getActiveWorm());
+
+		BinaryOutput out = new BinaryOutput(64 + 48 * changed.size());
+		out.putByte(keyframe ? DeltaFormat.KEYFRAME : DeltaFormat.DELTA);
+		out.putVarLong(sequence);
+		out.putVarLong(world.getTurnCount());
+		out.putByte(world.getState().ordinal());
+		out.putVarLong(active == null ? 0 : active.id + 1);
+		if(keyframe) {
+			out.putDouble(world.getWidth());
+			out.putDouble(world.getHeight());
+			TerrainBits.write(terrain, out);
+			out.putVarLong(0);
+		} else {
+			out.putVarLong(removed.size());
+			for(SpectatedEntity entity : removed)
+				out.putVarLong(entity.id);
+		}
+
+		out.putVarLong(changed.size());
+		for(int i = 0; i < changed.size(); i++)
+			write(out, changedFrom.get(i), changed.get(i));
+
+		this.entities = current;
+		this.sequence++;
+		return out.toBuffer();
+	}
+
+	/**
+	 * Write the fields of an entity that changed, as a difference with the previous frame.
+	 *
+	 * @param previous The entity in the previous frame, null if it is new.
+	 */
+	private static void write(BinaryOutput out, SpectatedEntity previous, SpectatedEntity entity) {
+		int fields = difference(previous, entity);
+		if(previous == null)
+			previous = new SpectatedEntity(entity.id, entity.kind);
+
+		out.putVarLong(entity.id);
+		out.putByte(fields);
+		if((fields & DeltaFormat.NEW) != 0)
+			out.putByte(entity.kind);
+		if((fields & DeltaFormat.POSITION) != 0) {
+			out.putSignedVarLong(entity.x - previous.x);
+			out.putSignedVarLong(entity.y - previous.y);
+		}
+		if((fields & DeltaFormat.RADIUS) != 0)
+			out.putSignedVarLong(entity.radius - previous.radius);
+		if((fields & DeltaFormat.ANGLE) != 0)
+			out.putSignedVarLong(entity.angle - previous.angle);
+		if((fields & DeltaFormat.ACTION_POINTS) != 0)
+			out.putSignedVarLong(entity.actionPoints - previous.actionPoints);
+		if((fields & DeltaFormat.HIT_POINTS) != 0)
+			out.putSignedVarLong(entity.hitPoints - previous.hitPoints);
+		if((fields & DeltaFormat.NAME) != 0)
+			out.putString(entity.name);
+		if((fields & DeltaFormat.TEAM) != 0)
+			out.putString(entity.team == null ? "" : entity.team);
+	}
+
+	private static int kindOf(GameObject object) {
+		if(object instanceof Worm)
+			return DeltaFormat.WORM;
+		if(object instanceof Food)
+			return DeltaFormat.FOOD;
+		if(object instanceof Projectile)
+			return DeltaFormat.PROJECTILE;
+		return 0;
+	}
+
+	private static SpectatedEntity capture(int id, int kind, GameObject object) {
+		SpectatedEntity entity = new SpectatedEntity(id, kind);
+		entity.x = Math.round(object.getPosition().getX() * DeltaFormat.POSITION_SCALE);
+		entity.y = Math.round(object.getPosition().getY() * DeltaFormat.POSITION_SCALE);
+		entity.radius = Math.round(object.getRadius() * DeltaFormat.POSITION_SCALE);
+		if(object instanceof Worm) {
+			Worm worm = (Worm) object;
+			entity.angle = Math.round(worm.getAngle() * DeltaFormat.ANGLE_SCALE);
+			entity.actionPoints = worm.getCurrentActionPoints();
+			entity.hitPoints = worm.getCurrentHitPoints();
+			entity.name = worm.getName();
+			entity.team = worm.getTeam() == null ? null : worm.getTeam().getName();
+		}
+		return entity;
+	}
+
+	/**
+	 * Returns the bits of the fields of an entity that differ from the previous frame.
+	 */
+	private static int difference(SpectatedEntity previous, SpectatedEntity entity) {
+		if(previous == null) {
+			int fields = DeltaFormat.NEW | DeltaFormat.POSITION | DeltaFormat.RADIUS;
+			if(entity.kind == DeltaFormat.WORM)
+				fields |= DeltaFormat.ANGLE | DeltaFormat.ACTION_POINTS | DeltaFormat.HIT_POINTS | DeltaFormat.NAME
+						| DeltaFormat.TEAM;
+			return fields;
+		}
+
+		int fields = 0;
+		if(entity.x != previous.x || entity.y != previous.y)
+			fields |= DeltaFormat.POSITION;
+		if(entity.radius != previous.radius)
+			fields |= DeltaFormat.RADIUS;
+		if(entity.angle != previous.angle)
+			fields |= DeltaFormat.ANGLE;
+		if(entity.actionPoints != previous.actionPoints)
+			fields |= DeltaFormat.ACTION_POINTS;
+		if(entity.hitPoints != previous.hitPoints)
+			fields |= DeltaFormat.HIT_POINTS;
+		if(!equal(entity.name, previous.name))
+			fields |= DeltaFormat.NAME;
+		if(!equal(entity.team, previous.team))
+			fields |= DeltaFormat.TEAM;
+		return fields;
+	}
+
+	private static boolean equal(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
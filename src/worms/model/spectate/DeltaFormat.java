@@ -0,0 +1,53 @@
+package worms.model.spectate;
+
+/**
+ * The binary format of the frames written by a DeltaEncoder and read by a Spectator.
+ *
+ * Every frame starts with its type (byte), its sequence number, the turn count of the world, the ordinal of the state
+ * of the world (byte) and the id of the active worm plus one (0 if there is none). A keyframe follows with the width
+ * and height of the world (raw doubles) and its passable map (rows, columns and bits, row by row), a delta doesn't.
+ * Both follow with the ids of the entities that are gone since the previous frame, and the entities that changed:
+ * their id, the bits of the fields that changed (byte), their kind if they are new (byte), and the changed fields.
+ *
+ * A keyframe holds every entity as new, so a spectator can start from any keyframe. A delta only applies to the frame
+ * with the previous sequence number.
+ *
+ * Integers are varints (signed ones zigzag encoded), strings are a varint length followed by their UTF-8 bytes.
+ * Positions, radii and angles are fixed point numbers (see POSITION_SCALE and ANGLE_SCALE), written as the signed
+ * difference with the value of the previous frame. Action and hit points are written as the signed difference as well.
+ * Entities are identified by ids that stay the same for as long as they are in the world.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class DeltaFormat {
+
+	private DeltaFormat() {
+	}
+
+	/**
+	 * The types of the frames.
+	 */
+	public static final int KEYFRAME = 1, DELTA = 2;
+
+	/**
+	 * The kinds of the entities.
+	 */
+	public static final int WORM = 1, FOOD = 2, PROJECTILE = 3;
+
+	/**
+	 * The amount of fixed point units per metre, for positions and radii.
+	 */
+	public static final double POSITION_SCALE = 1024;
+
+	/**
+	 * The amount of fixed point units per radian.
+	 */
+	public static final double ANGLE_SCALE = 8192;
+
+	/**
+	 * The bits of the changed fields of an entity.
+	 */
+	static final int NEW = 0x01, POSITION = 0x02, RADIUS = 0x04, ANGLE = 0x08, ACTION_POINTS = 0x10,
+			HIT_POINTS = 0x20, NAME = 0x40, TEAM = 0x80;
+}
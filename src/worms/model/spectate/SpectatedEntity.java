@@ -0,0 +1,108 @@
+package worms.model.spectate;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * An entity of a world as a spectator sees it, see Spectator.
+ *
+ * Positions, radii and angles are kept in the fixed point units of DeltaFormat, so a spectator ends up with exactly
+ * the values the encoder sent, however many deltas were applied.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class SpectatedEntity {
+
+	SpectatedEntity(int id, int kind) {
+		this.id = id;
+		this.kind = kind;
+	}
+
+	/**
+	 * Returns the id of this entity, it stays the same for as long as this entity is in its world.
+	 */
+	@Basic
+	public int getId() {
+		return this.id;
+	}
+
+	final int id;
+
+	/**
+	 * Returns the kind of this entity, one of DeltaFormat.WORM, DeltaFormat.FOOD and DeltaFormat.PROJECTILE.
+	 */
+	@Basic
+	public int getKind() {
+		return this.kind;
+	}
+
+	final int kind;
+
+	/**
+	 * Returns the x-coordinate of this entity.
+	 */
+	public double getX() {
+		return this.x / DeltaFormat.POSITION_SCALE;
+	}
+
+	/**
+	 * Returns the y-coordinate of this entity.
+	 */
+	public double getY() {
+		return this.y / DeltaFormat.POSITION_SCALE;
+	}
+
+	/**
+	 * Returns the radius of this entity.
+	 */
+	public double getRadius() {
+		return this.radius / DeltaFormat.POSITION_SCALE;
+	}
+
+	/**
+	 * Returns the direction of this entity, 0 if it isn't a worm.
+	 */
+	public double getAngle() {
+		return this.angle / DeltaFormat.ANGLE_SCALE;
+	}
+
+	long x, y, radius, angle;
+
+	/**
+	 * Returns the action points of this entity, 0 if it isn't a worm.
+	 */
+	@Basic
+	public int getActionPoints() {
+		return this.actionPoints;
+	}
+
+	/**
+	 * Returns the hit points of this entity, 0 if it isn't a worm.
+	 */
+	@Basic
+	public int getHitPoints() {
+		return this.hitPoints;
+	}
+
+	int actionPoints, hitPoints;
+
+	/**
+	 * Returns the name of this entity, null if it isn't a worm.
+	 */
+	@Basic
+	public String getName() {
+		return this.name;
+	}
+
+	String name;
+
+	/**
+	 * Returns the name of the team of this entity, null if it isn't a worm in a team.
+	 */
+	@Basic
+	public String getTeam() {
+		return this.team;
+	}
+
+	String team;
+}
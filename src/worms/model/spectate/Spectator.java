@@ -0,0 +1,206 @@
+package worms.model.spectate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import worms.model.world.TerrainBitmap;
+import worms.model.world.TerrainBits;
+import worms.model.world.WorldState;
+import worms.util.BinaryInput;
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * Reconstructs the state of a world from the frames of a DeltaEncoder, e.g. for a remote viewer.
+ *
+ * A spectator starts out of sync and gets in sync with the first keyframe it is given. A delta that doesn't follow
+ * the previous frame (because a frame got lost) puts it out of sync again until the next keyframe.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class Spectator {
+
+	/**
+	 * Returns whether this spectator is in sync with the encoder.
+	 */
+	@Basic
+	public boolean isSynchronized() {
+		return this.inSync;
+	}
+
+	private boolean inSync = false;
+
+	/**
+	 * Returns the sequence number of the last frame applied.
+	 */
+	@Basic
+	public long getSequence() {
+		return this.sequence;
+	}
+
+	private long sequence = -1;
+
+	/**
+	 * Returns the turn count of the world.
+	 */
+	@Basic
+	public long getTurnCount() {
+		return this.turnCount;
+	}
+
+	private long turnCount;
+
+	/**
+	 * Returns the state of the world, null before the first keyframe.
+	 */
+	@Basic
+	public WorldState getState() {
+		return this.state;
+	}
+
+	private WorldState state;
+
+	/**
+	 * Returns the width of the world.
+	 */
+	@Basic
+	public double getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Returns the height of the world.
+	 */
+	@Basic
+	public double getHeight() {
+		return this.height;
+	}
+
+	private double width, height;
+
+	/**
+	 * Returns the terrain of the world, null before the first keyframe.
+	 */
+	@Basic
+	public TerrainBitmap getTerrain() {
+		return this.terrain;
+	}
+
+	private TerrainBitmap terrain;
+
+	/**
+	 * Returns a copy of the terrain of the world as a passable map, null before the first keyframe.
+	 */
+	public boolean[][] getPassableMap() {
+		return terrain == null ? null : terrain.toPassableMap();
+	}
+
+	/**
+	 * Returns the active worm, null if there is none.
+	 */
+	public SpectatedEntity getActiveWorm() {
+		return this.activeWorm == 0 ? null : entities.get(this.activeWorm - 1);
+	}
+
+	private int activeWorm;
+
+	/**
+	 * Returns the entity with the given id, null if there is none.
+	 */
+	public SpectatedEntity getEntity(int id) {
+		return entities.get(id);
+	}
+
+	/**
+	 * Returns the entities of the world, in the order they entered it.
+	 */
+	public Collection<SpectatedEntity> getEntities() {
+		return Collections.unmodifiableCollection(entities.values());
+	}
+
+	private final Map<Integer, SpectatedEntity> entities = new LinkedHashMap<>();
+
+	/**
+	 * Apply a frame.
+	 *
+	 * @param frame The frame, from its position to its limit.
+	 * @return Whether the frame was applied, a delta isn't applied when this spectator is out of sync.
+	 *
+	 * @throws IOException
+	 * 			When the frame is malformed, this spectator is out of sync afterwards.
+	 */
+	public boolean apply(ByteBuffer frame) throws IOException {
+		BinaryInput in = new BinaryInput(frame, "the frame");
+		int type = in.getByte();
+		if(type != DeltaFormat.KEYFRAME && type != DeltaFormat.DELTA)
+			throw new IOException("Unknown frame type " + type + ".");
+
+		long frameSequence = in.getVarLong();
+		if(type == DeltaFormat.DELTA && (!inSync || frameSequence != sequence + 1)) {
+			inSync = false;
+			return false;
+		}
+
+		inSync = false;
+		sequence = frameSequence;
+		turnCount = in.getVarLong();
+		int ordinal = in.getByte();
+		if(ordinal >= WorldState.values().length)
+			throw new IOException("Unknown world state " + ordinal + ".");
+		state = WorldState.values()[ordinal];
+		activeWorm = in.getVarInt();
+
+		if(type == DeltaFormat.KEYFRAME) {
+			width = in.getDouble();
+			height = in.getDouble();
+			terrain = TerrainBits.read(in);
+			entities.clear();
+		}
+		for(int count = in.getVarInt(); count > 0; count--) {
+			if(entities.remove(in.getVarInt()) == null)
+				throw new IOException("Removing an unknown entity.");
+		}
+		for(int count = in.getVarInt(); count > 0; count--)
+			readEntity(in);
+
+		inSync = true;
+		return true;
+	}
+
+	private void readEntity(BinaryInput in) throws IOException {
+		int id = in.getVarInt();
+		int fields = in.getByte();
+		SpectatedEntity entity;
+		if((fields & DeltaFormat.NEW) != 0) {
+			entity = new SpectatedEntity(id, in.getByte());
+			entities.put(id, entity);
+		} else {
+			entity = entities.get(id);
+			if(entity == null)
+				throw new IOException("Changing an unknown entity.");
+		}
+
+		if((fields & DeltaFormat.POSITION) != 0) {
+			entity.x += in.getSignedVarLong();
+			entity.y += in.getSignedVarLong();
+		}
+		if((fields & DeltaFormat.RADIUS) != 0)
+			entity.radius += in.getSignedVarLong();
+		if((fields & DeltaFormat.ANGLE) != 0)
+			entity.angle += in.getSignedVarLong();
+		if((fields & DeltaFormat.ACTION_POINTS) != 0)
+			entity.actionPoints += in.getSignedVarLong();
+		if((fields & DeltaFormat.HIT_POINTS) != 0)
+			entity.hitPoints += in.getSignedVarLong();
+		if((fields & DeltaFormat.NAME) != 0)
+			entity.name = in.getString();
+		if((fields & DeltaFormat.TEAM) != 0) {
+			String team = in.getString();
+			entity.team = team.isEmpty() ? null : team;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package worms.model.world;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A terrain that is materialised in chunks of CHUNK_SIZE by CHUNK_SIZE pixels, on first access, from another terrain:
+ * the bitmap of a mapped terrain file or a generator computing the passability of each pixel.
+ *
+ * A chunk in which every pixel is passable, or every pixel is impassable, is only stored as a flag and never
+ * materialised again. The other chunks are held as bitmaps, at most as many as fit in the memory budget. To make room
+ * for another one a chunk that wasn't accessed since the last round of the clock hand is evicted (second chance), it's
+ * materialised again when it's accessed after that.
+ *
+ * All methods are thread-safe. Reading a pixel of a uniform or resident chunk doesn't take the lock, only
+ * materialising a chunk and evicting another one do.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class ChunkedTerrain implements Terrain {
+
+	/**
+	 * The width and height of a chunk, in pixels.
+	 */
+	public static final int CHUNK_SIZE = 256;
+
+	/**
+	 * The memory taken by the bitmap of a chunk that isn't uniform, in bytes.
+	 */
+	public static final int CHUNK_BYTES = CHUNK_SIZE * CHUNK_SIZE / 8;
+
+	private static final int WORDS_PER_ROW = CHUNK_SIZE / 64;
+
+	/**
+	 * The states of a chunk.
+	 */
+	private static final byte UNKNOWN = 0, PASSABLE = 1, IMPASSABLE = 2, MIXED = 3;
+
+	/**
+	 * Initialize a chunked terrain on the given source.
+	 *
+	 * @param source The terrain to materialise the chunks from. It's queried once for every pixel of a chunk each time
+	 * 			the chunk is materialised.
+	 * @param memoryBudget The memory the bitmaps of the chunks may take, in bytes. At least one chunk is held.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| source == null || memoryBudget < 0
+	 */
+	public ChunkedTerrain(Terrain source, long memoryBudget) throws IllegalArgumentException {
+		if(source == null)
+			throw new IllegalArgumentException("The source musn't be a null reference.");
+		if(memoryBudget < 0)
+			throw new IllegalArgumentException("The memory budget can't be negative.");
+
+		this.source = source;
+		this.width = source.getWidth();
+		this.height = source.getHeight();
+		this.chunkColumns = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		this.chunkRows = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		this.states = new byte[chunkRows * chunkColumns];
+		this.bitmaps = new AtomicReferenceArray<>(states.length);
+		this.referenced = new boolean[states.length];
+		int maxResident = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / CHUNK_BYTES));
+		this.clock = new int[Math.max(1, Math.min(maxResident, states.length))];
+	}
+
+	private final Terrain source;
+
+	@Override
+	public int getWidth() {
+		return this.width;
+	}
+
+	private final int width;
+
+	@Override
+	public int getHeight() {
+		return this.height;
+	}
+
+	private final int height;
+
+	private final int chunkRows;
+	private final int chunkColumns;
+
+	/**
+	 * The state of every chunk, row by row. A uniform chunk never changes state again, so it can be read without
+	 * holding the lock; the other states are only acted on while holding it.
+	 */
+	private final byte[] states;
+
+	/**
+	 * The bitmap of every resident chunk that isn't uniform, null for the other chunks, by index in states. A bitmap
+	 * never changes once it's set, so a reader still holding the bitmap of an evicted chunk reads the right pixels.
+	 */
+	private final AtomicReferenceArray<long[]> bitmaps;
+
+	/**
+	 * Whether each chunk was accessed since the clock hand passed it. Set without holding the lock: a lost update only
+	 * makes the chunk lose its second chance.
+	 */
+	private final boolean[] referenced;
+
+	/**
+	 * The resident chunks in the order they are visited by the clock hand, the first nbResident slots are in use.
+	 */
+	private final int[] clock;
+	private int nbResident;
+	private int hand;
+
+	@Override
+	public boolean isPassable(int row, int column) throws IndexOutOfBoundsException {
+		if(row < 0 || row >= height || column < 0 || column >= width)
+			throw new IndexOutOfBoundsException("No pixel at row " + row + ", column " + column + ".");
+		int chunk = (row / CHUNK_SIZE) * chunkColumns + column / CHUNK_SIZE;
+		byte state = states[chunk];
+		if(state == PASSABLE)
+			return true;
+		if(state == IMPASSABLE)
+			return false;
+
+		long[] bits = bitmaps.get(chunk);
+		if(bits == null) {
+			synchronized(this) {
+				bits = bitmaps.get(chunk);
+				if(bits == null && states[chunk] != PASSABLE && states[chunk] != IMPASSABLE)
+					bits = materialise(chunk);
+				if(bits == null)
+					return states[chunk] == PASSABLE;
+			}
+		}
+		//Only written when not set yet, so readers of the same chunk don't keep writing to shared memory.
+		if(!referenced[chunk])
+			referenced[chunk] = true;
+
+		int chunkRow = row % CHUNK_SIZE;
+		int chunkColumn = column % CHUNK_SIZE;
+		return (bits[chunkRow * WORDS_PER_ROW + (chunkColumn >>> 6)] & (1L << chunkColumn)) != 0;
+	}
+
+	/**
+	 * Materialise the given chunk from the source, returns its bitmap or null if it's uniform.
+	 */
+	private long[] materialise(int chunk) {
+		int firstRow = (chunk / chunkColumns) * CHUNK_SIZE;
+		int firstColumn = (chunk % chunkColumns) * CHUNK_SIZE;
+		int rows = Math.min(CHUNK_SIZE, height - firstRow);
+		int columns = Math.min(CHUNK_SIZE, width - firstColumn);
+
+		long[] bits = new long[CHUNK_SIZE * WORDS_PER_ROW];
+		int nbPassable = 0;
+		for(int row = 0; row < rows; row++) {
+			for(int column = 0; column < columns; column++) {
+				if(source.isPassable(firstRow + row, firstColumn + column)) {
+					bits[row * WORDS_PER_ROW + (column >>> 6)] |= 1L << column;
+					nbPassable++;
+				}
+			}
+		}
+		nbMaterialised++;
+
+		if(nbPassable == 0 || nbPassable == rows * columns) {
+			states[chunk] = nbPassable == 0 ? IMPASSABLE : PASSABLE;
+			return null;
+		}
+		states[chunk] = MIXED;
+		if(nbResident < clock.length) {
+			clock[nbResident++] = chunk;
+		} else {
+			//Readers may set the flags again behind the hand, so it goes round at most once.
+			for(int i = 0; i < clock.length && referenced[clock[hand]]; i++) {
+				referenced[clock[hand]] = false;
+				hand = (hand + 1) % clock.length;
+			}
+			bitmaps.set(clock[hand], null);
+			nbEvicted++;
+			clock[hand] = chunk;
+			hand = (hand + 1) % clock.length;
+		}
+		referenced[chunk] = true;
+		bitmaps.set(chunk, bits);
+		return bits;
+	}
+
+	/**
+	 * Returns the number of times a chunk was materialised so far.
+	 */
+	public synchronized long getNbMaterialised() {
+		return this.nbMaterialised;
+	}
+
+	private long nbMaterialised;
+
+	/**
+	 * Returns the number of times a chunk was evicted so far.
+	 */
+	public synchronized long getNbEvicted() {
+		return this.nbEvicted;
+	}
+
+	private long nbEvicted;
+
+	/**
+	 * Returns the number of chunks whose bitmap is held now.
+	 */
+	public synchronized int getNbResident() {
+		return this.nbResident;
+	}
+
+	/**
+	 * Returns the number of chunks known to be uniform.
+	 */
+	public synchronized int getNbUniform() {
+		int result = 0;
+		for(byte state : states)
+			if(state == PASSABLE || state == IMPASSABLE)
+				result++;
+		return result;
+	}
+}
@@ -0,0 +1,380 @@
+package worms.model.world;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes the terrain of a PNG map image straight into a TerrainBitmap.
+ *
+ * The image data is inflated and unfiltered one scanline at a time and the alpha of every pixel is thresholded as
+ * it comes by: a pixel is passable when its alpha is below 16. Besides the bitmap, only the current and the previous
+ * scanline are held, the image itself never is.
+ *
+ * All color types and bit depths of PNG are supported, transparency of images without an alpha channel comes from
+ * their tRNS chunk. Interlaced images aren't supported.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class PngTerrainDecoder {
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+	private static final int GRAYSCALE = 0;
+	private static final int TRUECOLOR = 2;
+	private static final int INDEXED = 3;
+	private static final int GRAYSCALE_ALPHA = 4;
+	private static final int TRUECOLOR_ALPHA = 6;
+
+	/**
+	 * Pixels with an alpha below this are passable.
+	 */
+	private static final int PASSABLE_ALPHA = 16;
+
+	/**
+	 * Decode the terrain of the PNG image read from the given stream. The stream isn't closed.
+	 *
+	 * @param in The stream to read the image from.
+	 *
+	 * @throws IOException
+	 * 			When the stream can't be read or doesn't hold a PNG image this decoder supports.
+	 */
+	public static TerrainBitmap decode(InputStream in) throws IOException {
+		return new PngTerrainDecoder(in).decode();
+	}
+
+	private PngTerrainDecoder(InputStream in) {
+		this.in = new DataInputStream(in);
+	}
+
+	private final DataInputStream in;
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * The type of the current chunk and the number of bytes of its data that weren't read yet.
+	 */
+	private String chunkType;
+	private int chunkRemaining;
+
+	private int width, height, bitDepth, colorType;
+
+	/**
+	 * The alpha of each palette entry, 255 for the entries tRNS doesn't mention.
+	 */
+	private int[] paletteAlpha;
+
+	/**
+	 * The samples of the transparent color of a grayscale or truecolor image, null if there's none.
+	 */
+	private int[] transparentColor;
+
+	private TerrainBitmap decode() throws IOException {
+		byte[] signature = new byte[SIGNATURE.length];
+		in.readFully(signature);
+		if(!Arrays.equals(signature, SIGNATURE))
+			throw new IOException("Not a PNG image.");
+
+		nextChunk();
+		if(!"IHDR".equals(chunkType))
+			throw new IOException("The PNG image doesn't start with a header.");
+		readHeader(readChunk());
+
+		while(true) {
+			nextChunk();
+			if("IDAT".equals(chunkType))
+				return readImageData();
+			else if("PLTE".equals(chunkType))
+				readPalette(readChunk());
+			else if("tRNS".equals(chunkType))
+				readTransparency(readChunk());
+			else if("IEND".equals(chunkType))
+				throw new IOException("The PNG image has no image data.");
+			else
+				skipChunk();
+		}
+	}
+
+	private void readHeader(byte[] data) throws IOException {
+		if(data.length != 13)
+			throw new IOException("Invalid PNG header.");
+		width = readInt(data, 0);
+		height = readInt(data, 4);
+		bitDepth = data[8] & 0xff;
+		colorType = data[9] & 0xff;
+		if(width < 1 || height < 1)
+			throw new IOException("Invalid PNG image size " + width + "x" + height + ".");
+		if(data[10] != 0 || data[11] != 0)
+			throw new IOException("Unknown PNG compression or filter method.");
+		if(data[12] != 0)
+			throw new IOException("Interlaced PNG images aren't supported.");
+
+		boolean valid;
+		switch(colorType) {
+		case GRAYSCALE:
+			valid = bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8 || bitDepth == 16;
+			break;
+		case INDEXED:
+			valid = bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8;
+			break;
+		case TRUECOLOR:
+		case GRAYSCALE_ALPHA:
+		case TRUECOLOR_ALPHA:
+			valid = bitDepth == 8 || bitDepth == 16;
+			break;
+		default:
+			valid = false;
+		}
+		if(!valid)
+			throw new IOException("Invalid PNG color type " + colorType + " with bit depth " + bitDepth + ".");
+	}
+
+	private void readPalette(byte[] data) {
+		paletteAlpha = new int[data.length / 3];
+		Arrays.fill(paletteAlpha, 255);
+	}
+
+	private void readTransparency(byte[] data) throws IOException {
+		switch(colorType) {
+		case INDEXED:
+			if(paletteAlpha == null)
+				throw new IOException("The tRNS chunk of the PNG image comes before its palette.");
+			for(int i = 0; i < data.length && i < paletteAlpha.length; i++)
+				paletteAlpha[i] = data[i] & 0xff;
+			break;
+		case GRAYSCALE:
+		case TRUECOLOR:
+			transparentColor = new int[data.length / 2];
+			for(int i = 0; i < transparentColor.length; i++)
+				transparentColor[i] = ((data[2 * i] & 0xff) << 8) | (data[2 * i + 1] & 0xff);
+			break;
+		default:
+			// images with an alpha channel have no tRNS chunk
+		}
+	}
+
+	private TerrainBitmap readImageData() throws IOException {
+		if(colorType == INDEXED && paletteAlpha == null)
+			throw new IOException("The PNG image has no palette.");
+
+		int channels;
+		switch(colorType) {
+		case TRUECOLOR:
+			channels = 3;
+			break;
+		case GRAYSCALE_ALPHA:
+			channels = 2;
+			break;
+		case TRUECOLOR_ALPHA:
+			channels = 4;
+			break;
+		default:
+			channels = 1;
+		}
+		int bitsPerPixel = channels * bitDepth;
+		int bytesPerPixel = Math.max(1, bitsPerPixel / 8);
+		long lineLength = ((long) width * bitsPerPixel + 7) / 8;
+		if(lineLength > Integer.MAX_VALUE - 1)
+			throw new IOException("The PNG image is too wide.");
+
+		TerrainBitmap result = new TerrainBitmap(width, height);
+		byte[] line = new byte[(int) lineLength];
+		byte[] previous = new byte[(int) lineLength];
+		Inflater inflater = new Inflater();
+		try {
+			DataInputStream data = new DataInputStream(new InflaterInputStream(new ImageDataStream(), inflater));
+			for(int row = 0; row < height; row++) {
+				int filter = data.read();
+				if(filter < 0)
+					throw new EOFException("The image data of the PNG image ends early.");
+				data.readFully(line);
+				unfilter(filter, line, previous, bytesPerPixel);
+				for(int column = 0; column < width; column++) {
+					if(getAlpha(line, column) < PASSABLE_ALPHA)
+						result.setPassable(row, column);
+				}
+				byte[] swap = previous;
+				previous = line;
+				line = swap;
+			}
+		} finally {
+			inflater.end();
+		}
+		return result;
+	}
+
+	private static void unfilter(int filter, byte[] line, byte[] previous, int bytesPerPixel) throws IOException {
+		switch(filter) {
+		case 0:
+			break;
+		case 1:
+			for(int i = bytesPerPixel; i < line.length; i++)
+				line[i] += line[i - bytesPerPixel];
+			break;
+		case 2:
+			for(int i = 0; i < line.length; i++)
+				line[i] += previous[i];
+			break;
+		case 3:
+			for(int i = 0; i < line.length; i++) {
+				int left = i >= bytesPerPixel ? line[i - bytesPerPixel] & 0xff : 0;
+				line[i] += (left + (previous[i] & 0xff)) >>> 1;
+			}
+			break;
+		case 4:
+			for(int i = 0; i < line.length; i++) {
+				int left = i >= bytesPerPixel ? line[i - bytesPerPixel] & 0xff : 0;
+				int up = previous[i] & 0xff;
+				int upLeft = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xff : 0;
+				line[i] += paeth(left, up, upLeft);
+			}
+			break;
+		default:
+			throw new IOException("Unknown PNG filter type " + filter + ".");
+		}
+	}
+
+	private static int paeth(int left, int up, int upLeft) {
+		int estimate = left + up - upLeft;
+		int toLeft = Math.abs(estimate - left);
+		int toUp = Math.abs(estimate - up);
+		int toUpLeft = Math.abs(estimate - upLeft);
+		if(toLeft <= toUp && toLeft <= toUpLeft)
+			return left;
+		if(toUp <= toUpLeft)
+			return up;
+		return upLeft;
+	}
+
+	/**
+	 * The alpha of the pixel in the given column of an unfiltered scanline, from 0 to 255.
+	 */
+	private int getAlpha(byte[] line, int column) {
+		switch(colorType) {
+		case TRUECOLOR_ALPHA:
+			return line[column * (bitDepth / 2) + (bitDepth / 8) * 3] & 0xff;
+		case GRAYSCALE_ALPHA:
+			return line[column * (bitDepth / 4) + bitDepth / 8] & 0xff;
+		case INDEXED:
+			int index = getSample(line, column);
+			return index < paletteAlpha.length ? paletteAlpha[index] : 255;
+		case GRAYSCALE:
+			return transparentColor != null && transparentColor.length >= 1
+					&& getSample(line, column) == transparentColor[0] ? 0 : 255;
+		default:
+			if(transparentColor == null || transparentColor.length < 3)
+				return 255;
+			for(int channel = 0; channel < 3; channel++)
+				if(getSample(line, column * 3 + channel) != transparentColor[channel])
+					return 255;
+			return 0;
+		}
+	}
+
+	/**
+	 * The sample at the given index of a scanline of single samples of the bit depth of the image.
+	 */
+	private int getSample(byte[] line, int index) {
+		switch(bitDepth) {
+		case 16:
+			return ((line[2 * index] & 0xff) << 8) | (line[2 * index + 1] & 0xff);
+		case 8:
+			return line[index] & 0xff;
+		default:
+			int bit = index * bitDepth;
+			int shift = 8 - bitDepth - (bit & 7);
+			return ((line[bit >>> 3] & 0xff) >>> shift) & ((1 << bitDepth) - 1);
+		}
+	}
+
+	/**
+	 * Start reading the next chunk.
+	 */
+	private void nextChunk() throws IOException {
+		int length = in.readInt();
+		if(length < 0)
+			throw new IOException("Invalid PNG chunk length.");
+		byte[] type = new byte[4];
+		in.readFully(type);
+		crc.reset();
+		crc.update(type);
+		chunkType = new String(type, ASCII);
+		chunkRemaining = length;
+	}
+
+	/**
+	 * Read the data of the current chunk and check it.
+	 */
+	private byte[] readChunk() throws IOException {
+		byte[] data = new byte[chunkRemaining];
+		in.readFully(data);
+		crc.update(data);
+		chunkRemaining = 0;
+		checkChunk();
+		return data;
+	}
+
+	private void skipChunk() throws IOException {
+		byte[] buffer = new byte[4096];
+		while(chunkRemaining > 0) {
+			int read = in.read(buffer, 0, Math.min(buffer.length, chunkRemaining));
+			if(read < 0)
+				throw new EOFException("The PNG image ends in the middle of a chunk.");
+			crc.update(buffer, 0, read);
+			chunkRemaining -= read;
+		}
+		checkChunk();
+	}
+
+	private void checkChunk() throws IOException {
+		if(in.readInt() != (int) crc.getValue())
+			throw new IOException("The " + chunkType + " chunk of the PNG image is corrupt.");
+	}
+
+	private static int readInt(byte[] data, int offset) {
+		return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16) | ((data[offset + 2] & 0xff) << 8)
+				| (data[offset + 3] & 0xff);
+	}
+
+	/**
+	 * The data of consecutive IDAT chunks, as one stream.
+	 */
+	private class ImageDataStream extends InputStream {
+
+		private boolean ended;
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			while(chunkRemaining == 0) {
+				if(ended)
+					return -1;
+				checkChunk();
+				nextChunk();
+				if(!"IDAT".equals(chunkType)) {
+					ended = true;
+					return -1;
+				}
+			}
+			int read = in.read(buffer, offset, Math.min(length, chunkRemaining));
+			if(read < 0)
+				throw new EOFException("The PNG image ends in the middle of a chunk.");
+			crc.update(buffer, offset, read);
+			chunkRemaining -= read;
+			return read;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package worms.model.world;
+
+/**
+ * The passability of the pixels of the terrain of a world.
+ *
+ * Rows are in the orientation of a passable map given to World: row 0 is the top of the terrain. A terrain never
+ * changes once it's made and can be queried by several threads at once, so worlds can share it.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public interface Terrain {
+
+	/**
+	 * Returns the number of columns of this terrain.
+	 */
+	int getWidth();
+
+	/**
+	 * Returns the number of rows of this terrain.
+	 */
+	int getHeight();
+
+	/**
+	 * Returns whether the pixel at the given row and column is passable.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 * 			| row < 0 || row >= this.getHeight() || column < 0 || column >= this.getWidth()
+	 */
+	boolean isPassable(int row, int column) throws IndexOutOfBoundsException;
+}
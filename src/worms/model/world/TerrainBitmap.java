@@ -0,0 +1,210 @@
+package worms.model.world;
+
+import java.nio.LongBuffer;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Value;
+
+/**
+ * The passability of the pixels of a terrain, packed in one bit per pixel.
+ *
+ * Rows are in the orientation of a passable map given to World: row 0 is the top of the terrain. A bitmap never
+ * changes once it's made, so worlds can share it without copying it.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+@Value
+public final class TerrainBitmap implements Terrain {
+
+	/**
+	 * Initialize a bitmap of the given size in which every pixel is impassable.
+	 *
+	 * @param width The number of columns.
+	 * @param height The number of rows.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| width < 1 || height < 1 || getNbWords(width, height) > Integer.MAX_VALUE
+	 */
+	TerrainBitmap(int width, int height) throws IllegalArgumentException {
+		if(width < 1 || height < 1)
+			throw new IllegalArgumentException("A terrain has at least one row and one column.");
+		long words = getNbWords(width, height);
+		if(words > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("The terrain is too large.");
+
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) / 64;
+		this.bits = LongBuffer.allocate((int) words);
+	}
+
+	/**
+	 * Initialize a bitmap of the given size on the given bits, which are used without copying them.
+	 *
+	 * @param bits The bits of the pixels, see getNbWords(). Only its content from index 0 on is used.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| width < 1 || height < 1 || bits.capacity() < getNbWords(width, height)
+	 */
+	TerrainBitmap(int width, int height, LongBuffer bits) throws IllegalArgumentException {
+		if(width < 1 || height < 1)
+			throw new IllegalArgumentException("A terrain has at least one row and one column.");
+		if(bits.capacity() < getNbWords(width, height))
+			throw new IllegalArgumentException("There aren't enough bits for a terrain of this size.");
+
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) / 64;
+		this.bits = bits.duplicate();
+		this.bits.clear();
+		this.bits.limit((int) getNbWords(width, height));
+	}
+
+	/**
+	 * Returns the number of longs holding the bits of a bitmap of the given size: every row starts at a new long, the
+	 * pixel in column c of a row is bit c % 64 of long c / 64 of that row.
+	 */
+	public static long getNbWords(int width, int height) {
+		return (long) height * ((width + 63) / 64);
+	}
+
+	/**
+	 * Returns a bitmap with the passability of the given passable map.
+	 *
+	 * @param passableMap The passable map, true for passable pixels.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			When the map has no pixels or isn't rectangle shaped.
+	 * 			| passableMap == null || passableMap.length == 0 || !World.isRectangleDimension(passableMap)
+	 * 			|	|| passableMap[0].length == 0
+	 */
+	public static TerrainBitmap fromPassableMap(boolean[][] passableMap) throws IllegalArgumentException {
+		if(passableMap == null || passableMap.length == 0)
+			throw new IllegalArgumentException("The passableMap musn't be empty.");
+		TerrainBitmap result = new TerrainBitmap(passableMap[0].length, passableMap.length);
+		for(int row = 0; row < passableMap.length; row++) {
+			if(passableMap[row].length != result.width)
+				throw new IllegalArgumentException("The passableMap must be a rectangle shaped dimension.");
+			for(int column = 0; column < result.width; column++) {
+				if(passableMap[row][column])
+					result.setPassable(row, column);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a bitmap with the passability of the given terrain, which is read row by row.
+	 *
+	 * @return	| for each row, column in terrain
+	 * 			|	result.isPassable(row, column) == terrain.isPassable(row, column)
+	 * @throws IllegalArgumentException
+	 * 			| terrain == null
+	 */
+	public static TerrainBitmap copyOf(Terrain terrain) throws IllegalArgumentException {
+		if(terrain == null)
+			throw new IllegalArgumentException("The terrain musn't be a null reference.");
+		TerrainBitmap result = new TerrainBitmap(terrain.getWidth(), terrain.getHeight());
+		for(int row = 0; row < result.height; row++) {
+			for(int column = 0; column < result.width; column++) {
+				if(terrain.isPassable(row, column))
+					result.setPassable(row, column);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of columns of this bitmap.
+	 */
+	@Override @Basic @Immutable
+	public int getWidth() {
+		return this.width;
+	}
+
+	private final int width;
+
+	/**
+	 * Returns the number of rows of this bitmap.
+	 */
+	@Override @Basic @Immutable
+	public int getHeight() {
+		return this.height;
+	}
+
+	private final int height;
+
+	/**
+	 * The bits of the pixels, row by row, each row starting at a new word. A set bit is a passable pixel. Only read
+	 * with absolute gets, so a bitmap can be read by several threads at once.
+	 */
+	private final LongBuffer bits;
+	private final int wordsPerRow;
+
+	/**
+	 * Returns whether the pixel at the given row and column is passable.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 * 			| row < 0 || row >= this.getHeight() || column < 0 || column >= this.getWidth()
+	 */
+	@Override
+	public boolean isPassable(int row, int column) throws IndexOutOfBoundsException {
+		if(row < 0 || row >= height || column < 0 || column >= width)
+			throw new IndexOutOfBoundsException("No pixel at row " + row + ", column " + column + ".");
+		return (bits.get(row * wordsPerRow + (column >>> 6)) & (1L << column)) != 0;
+	}
+
+	/**
+	 * Make the pixel at the given row and column passable, only while the bitmap is being made.
+	 */
+	void setPassable(int row, int column) {
+		int index = row * wordsPerRow + (column >>> 6);
+		bits.put(index, bits.get(index) | (1L << column));
+	}
+
+	/**
+	 * Write the bits of this bitmap to the given buffer, see getNbWords().
+	 */
+	public void writeBits(LongBuffer buffer) {
+		buffer.put(bits.duplicate());
+	}
+
+	/**
+	 * Returns the number of passable pixels of this bitmap.
+	 */
+	public long getNbPassable() {
+		long result = 0;
+		for(int i = 0; i < bits.limit(); i++)
+			result += Long.bitCount(bits.get(i));
+		return result;
+	}
+
+	/**
+	 * Returns a new passable map with the passability of this bitmap.
+	 *
+	 * @return	| for each row, column in this bitmap
+	 * 			|	result[row][column] == this.isPassable(row, column)
+	 */
+	public boolean[][] toPassableMap() {
+		boolean[][] result = new boolean[height][width];
+		for(int row = 0; row < height; row++)
+			for(int column = 0; column < width; column++)
+				result[row][column] = isPassable(row, column);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof TerrainBitmap))
+			return false;
+		TerrainBitmap other = (TerrainBitmap) obj;
+		return width == other.width && height == other.height && bits.equals(other.bits);
+	}
+
+	@Override
+	public int hashCode() {
+		return bits.hashCode() * 31 + width;
+	}
+}
@@ -0,0 +1,65 @@
+package worms.model.world;
+
+import java.io.IOException;
+
+import worms.util.BinaryInput;
+import worms.util.BinaryOutput;
+
+/**
+ * Writes a terrain to replay logs and spectator frames and reads it back: its rows and columns as varints, followed by
+ * the bits of its pixels, row by row, see BinaryOutput.putBit(boolean).
+ *
+ * The terrain is written pixel by pixel without copying it, so a chunked terrain is read as it's written. A chunked
+ * terrain whose memory budget holds a row of chunks materialises every chunk once.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class TerrainBits {
+
+	private TerrainBits() {
+	}
+
+	/**
+	 * Write the given terrain to the given output.
+	 */
+	public static void write(Terrain terrain, BinaryOutput out) {
+		out.putVarInt(terrain.getHeight());
+		out.putVarInt(terrain.getWidth());
+		for(int row = 0; row < terrain.getHeight(); row++) {
+			for(int column = 0; column < terrain.getWidth(); column++)
+				out.putBit(terrain.isPassable(row, column));
+		}
+		out.endBits();
+	}
+
+	/**
+	 * Read a terrain from the given input, into a bitmap.
+	 *
+	 * @throws IOException
+	 * 			When the input ends before the terrain does or the terrain has no pixels.
+	 */
+	public static TerrainBitmap read(BinaryInput in) throws IOException {
+		int rows = in.getVarInt();
+		int columns = in.getVarInt();
+		if(rows == 0 || columns == 0)
+			throw new IOException("A terrain has at least one row and one column.");
+		if((long) rows * columns > 8L * in.remaining())
+			throw new IOException("The terrain is truncated.");
+
+		TerrainBitmap result;
+		try {
+			result = new TerrainBitmap(columns, rows);
+		} catch(IllegalArgumentException ex) {
+			throw new IOException(ex.getMessage(), ex);
+		}
+		for(int row = 0; row < rows; row++) {
+			for(int column = 0; column < columns; column++) {
+				if(in.getBit())
+					result.setPassable(row, column);
+			}
+		}
+		in.endBits();
+		return result;
+	}
+}
@@ -0,0 +1,336 @@
+package worms.model.world;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * A precompiled terrain, read from a memory-mapped file without copying it.
+ *
+ * A terrain file holds, in big-endian order:
+ * - a header: MAGIC, VERSION, the width and height in pixels, the scale in worm-meters per pixel, the flags of the
+ *   indices it holds and the SHA-256 hash of the map image it was converted from;
+ * - the passability bitmap, laid out as in TerrainBitmap, starting at a multiple of 8 bytes;
+ * - if flagged, the distance field: for every pixel, row by row, one byte with the Chebyshev distance in pixels to the
+ *   nearest impassable pixel, at most 255;
+ * - if flagged, the column floors: for every column, an int with the first impassable row from the top, the height if
+ *   there is none.
+ *
+ * The mapping is shared by every process that opens the same file, through the page cache.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public final class TerrainFile {
+
+	/**
+	 * The first four bytes of every terrain file, "WTRN".
+	 */
+	public static final int MAGIC = 0x5754524E;
+
+	/**
+	 * The version of the terrain files written by this class, only this version can be read.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The extension of terrain files.
+	 */
+	public static final String FILE_EXTENSION = ".wterrain";
+
+	/**
+	 * The flags of the optional indices.
+	 */
+	public static final int DISTANCE_FIELD = 1, COLUMN_FLOORS = 2;
+
+	private static final int HASH_LENGTH = 32;
+	private static final int HEADER_LENGTH = 64;
+
+	/**
+	 * The largest distance in a distance field.
+	 */
+	public static final int MAX_DISTANCE = 255;
+
+	private TerrainFile(ByteBuffer buffer, File file) throws IOException {
+		if(buffer.remaining() < HEADER_LENGTH || buffer.getInt(0) != MAGIC)
+			throw new IOException(file + " isn't a terrain file.");
+		if(buffer.getInt(4) != VERSION)
+			throw new IOException(file + " is a terrain file of version " + buffer.getInt(4) + ", not " + VERSION + ".");
+		this.width = buffer.getInt(8);
+		this.height = buffer.getInt(12);
+		this.scale = buffer.getDouble(16);
+		this.flags = buffer.getInt(24);
+		this.sourceHash = new byte[HASH_LENGTH];
+		for(int i = 0; i < HASH_LENGTH; i++)
+			this.sourceHash[i] = buffer.get(28 + i);
+		if(width < 1 || height < 1 || !(scale > 0))
+			throw new IOException(file + " has an invalid header.");
+
+		long bitmapLength = TerrainBitmap.getNbWords(width, height) * 8;
+		long distancesLength = hasDistanceField() ? (long) width * height : 0;
+		long floorsLength = hasColumnFloors() ? (long) width * 4 : 0;
+		if(buffer.remaining() != HEADER_LENGTH + bitmapLength + distancesLength + floorsLength)
+			throw new IOException(file + " is truncated or has trailing data.");
+
+		this.bitmap = new TerrainBitmap(width, height, slice(buffer, HEADER_LENGTH, bitmapLength).asLongBuffer());
+		this.distances = hasDistanceField() ? slice(buffer, HEADER_LENGTH + bitmapLength, distancesLength) : null;
+		this.floors = hasColumnFloors() ? slice(buffer, HEADER_LENGTH + bitmapLength + distancesLength, floorsLength) : null;
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, long offset, long length) {
+		ByteBuffer result = buffer.duplicate();
+		result.position((int) offset);
+		result.limit((int) (offset + length));
+		return result.slice();
+	}
+
+	/**
+	 * Open a terrain file, the file is memory-mapped.
+	 *
+	 * @param file The file to open.
+	 * @throws IOException
+	 * 			When the file can't be read or isn't a terrain file of this version.
+	 */
+	public static TerrainFile open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is too large to map.");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new TerrainFile(buffer, file);
+		}
+	}
+
+	/**
+	 * Write a terrain file.
+	 *
+	 * @param file The file to write, it is overwritten.
+	 * @param terrain The terrain.
+	 * @param scale The scale of the terrain, in worm-meters per pixel.
+	 * @param sourceHash The SHA-256 hash of the map image the terrain was converted from.
+	 * @param flags The indices to compute and write, see DISTANCE_FIELD and COLUMN_FLOORS.
+	 * @throws IOException
+	 * 			When the file can't be written.
+	 * @throws IllegalArgumentException
+	 * 			| terrain == null || !(scale > 0) || sourceHash == null || sourceHash.length != 32
+	 * 			|	|| (flags & ~(DISTANCE_FIELD | COLUMN_FLOORS)) != 0
+	 */
+	public static void write(File file, TerrainBitmap terrain, double scale, byte[] sourceHash, int flags)
+			throws IOException, IllegalArgumentException {
+		if(terrain == null)
+			throw new IllegalArgumentException("The terrain musn't be a null reference.");
+		if(!(scale > 0))
+			throw new IllegalArgumentException("The scale must be positive.");
+		if(sourceHash == null || sourceHash.length != HASH_LENGTH)
+			throw new IllegalArgumentException("The source hash must be a SHA-256 hash.");
+		if((flags & ~(DISTANCE_FIELD | COLUMN_FLOORS)) != 0)
+			throw new IllegalArgumentException("Unknown index flags " + flags + ".");
+
+		int width = terrain.getWidth();
+		int height = terrain.getHeight();
+		long length = HEADER_LENGTH + TerrainBitmap.getNbWords(width, height) * 8
+				+ ((flags & DISTANCE_FIELD) != 0 ? (long) width * height : 0)
+				+ ((flags & COLUMN_FLOORS) != 0 ? (long) width * 4 : 0);
+		if(length > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("The terrain is too large for a terrain file.");
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putDouble(scale).putInt(flags);
+			buffer.put(sourceHash);
+			buffer.position(HEADER_LENGTH);
+
+			LongBuffer bits = buffer.asLongBuffer();
+			terrain.writeBits(bits);
+			buffer.position(buffer.position() + bits.position() * 8);
+
+			if((flags & DISTANCE_FIELD) != 0)
+				buffer.put(computeDistanceField(terrain));
+			if((flags & COLUMN_FLOORS) != 0)
+				for(int floor : computeColumnFloors(terrain))
+					buffer.putInt(floor);
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Returns the Chebyshev distance in pixels from every pixel to the nearest impassable pixel, at most MAX_DISTANCE,
+	 * row by row.
+	 */
+	static byte[] computeDistanceField(TerrainBitmap terrain) {
+		int width = terrain.getWidth();
+		int height = terrain.getHeight();
+		int[] distances = new int[width * height];
+		// two passes over the 8 neighbours give the exact Chebyshev distance
+		for(int row = 0; row < height; row++) {
+			for(int column = 0; column < width; column++) {
+				int distance = MAX_DISTANCE;
+				if(!terrain.isPassable(row, column))
+					distance = 0;
+				else {
+					if(column > 0)
+						distance = Math.min(distance, distances[row * width + column - 1] + 1);
+					if(row > 0) {
+						for(int dc = -1; dc <= 1; dc++)
+							if(column + dc >= 0 && column + dc < width)
+								distance = Math.min(distance, distances[(row - 1) * width + column + dc] + 1);
+					}
+				}
+				distances[row * width + column] = distance;
+			}
+		}
+		for(int row = height - 1; row >= 0; row--) {
+			for(int column = width - 1; column >= 0; column--) {
+				int distance = distances[row * width + column];
+				if(column < width - 1)
+					distance = Math.min(distance, distances[row * width + column + 1] + 1);
+				if(row < height - 1) {
+					for(int dc = -1; dc <= 1; dc++)
+						if(column + dc >= 0 && column + dc < width)
+							distance = Math.min(distance, distances[(row + 1) * width + column + dc] + 1);
+				}
+				distances[row * width + column] = distance;
+			}
+		}
+		byte[] result = new byte[distances.length];
+		for(int i = 0; i < distances.length; i++)
+			result[i] = (byte) distances[i];
+		return result;
+	}
+
+	/**
+	 * Returns the first impassable row from the top of every column, the height for columns without one.
+	 */
+	static int[] computeColumnFloors(TerrainBitmap terrain) {
+		int[] result = new int[terrain.getWidth()];
+		for(int column = 0; column < result.length; column++) {
+			int row = 0;
+			while(row < terrain.getHeight() && terrain.isPassable(row, column))
+				row++;
+			result[column] = row;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the terrain of this file, backed by the mapping of the file.
+	 */
+	@Basic @Immutable
+	public TerrainBitmap getBitmap() {
+		return this.bitmap;
+	}
+
+	private final TerrainBitmap bitmap;
+
+	/**
+	 * Returns the width of the terrain, in pixels.
+	 */
+	@Basic @Immutable
+	public int getWidth() {
+		return this.width;
+	}
+
+	private final int width;
+
+	/**
+	 * Returns the height of the terrain, in pixels.
+	 */
+	@Basic @Immutable
+	public int getHeight() {
+		return this.height;
+	}
+
+	private final int height;
+
+	/**
+	 * Returns the scale of the terrain, in worm-meters per pixel.
+	 */
+	@Basic @Immutable
+	public double getScale() {
+		return this.scale;
+	}
+
+	private final double scale;
+
+	/**
+	 * Returns the width of a world on this terrain, in worm-meters.
+	 *
+	 * @return	| result == this.getWidth() * this.getScale()
+	 */
+	public double getWorldWidth() {
+		return width * scale;
+	}
+
+	/**
+	 * Returns the height of a world on this terrain, in worm-meters.
+	 *
+	 * @return	| result == this.getHeight() * this.getScale()
+	 */
+	public double getWorldHeight() {
+		return height * scale;
+	}
+
+	/**
+	 * Returns whether this terrain was converted from the map image with the given SHA-256 hash.
+	 */
+	public boolean isConvertedFrom(byte[] sourceHash) {
+		return Arrays.equals(this.sourceHash, sourceHash);
+	}
+
+	private final byte[] sourceHash;
+
+	private final int flags;
+
+	public boolean hasDistanceField() {
+		return (flags & DISTANCE_FIELD) != 0;
+	}
+
+	public boolean hasColumnFloors() {
+		return (flags & COLUMN_FLOORS) != 0;
+	}
+
+	/**
+	 * Returns the Chebyshev distance in pixels from the given pixel to the nearest impassable pixel, at most
+	 * MAX_DISTANCE.
+	 *
+	 * @throws IllegalStateException
+	 * 			| !this.hasDistanceField()
+	 * @throws IndexOutOfBoundsException
+	 * 			| row < 0 || row >= this.getHeight() || column < 0 || column >= this.getWidth()
+	 */
+	public int getDistance(int row, int column) throws IllegalStateException, IndexOutOfBoundsException {
+		if(distances == null)
+			throw new IllegalStateException("This terrain file has no distance field.");
+		if(row < 0 || row >= height || column < 0 || column >= width)
+			throw new IndexOutOfBoundsException("No pixel at row " + row + ", column " + column + ".");
+		return distances.get(row * width + column) & 0xff;
+	}
+
+	private final ByteBuffer distances;
+
+	/**
+	 * Returns the first impassable row from the top of the given column, the height if there is none.
+	 *
+	 * @throws IllegalStateException
+	 * 			| !this.hasColumnFloors()
+	 * @throws IndexOutOfBoundsException
+	 * 			| column < 0 || column >= this.getWidth()
+	 */
+	public int getColumnFloor(int column) throws IllegalStateException, IndexOutOfBoundsException {
+		if(floors == null)
+			throw new IllegalStateException("This terrain file has no column floors.");
+		if(column < 0 || column >= width)
+			throw new IndexOutOfBoundsException("No column " + column + ".");
+		return floors.getInt(column * 4);
+	}
+
+	private final ByteBuffer floors;
+}
@@ -0,0 +1,151 @@
+package worms.util;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the values written by a BinaryOutput from a buffer.
+ *
+ * Running out of data or a malformed value is reported as an IOException naming what is being read, e.g.
+ * "Unexpected end of the replay log.".
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class BinaryInput {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Initialize an input.
+	 *
+	 * @param buffer The values, from the position to the limit of the buffer.
+	 * @param name What is being read, as used in the messages of the exceptions, e.g. "the replay log".
+	 */
+	public BinaryInput(ByteBuffer buffer, String name) {
+		this.buffer = buffer;
+		this.name = name;
+	}
+
+	private final ByteBuffer buffer;
+	private final String name;
+
+	/**
+	 * The bits of the last byte read by getBit() that weren't read yet.
+	 */
+	private int bits;
+	private int bitCount;
+
+	public boolean hasRemaining() {
+		return buffer.hasRemaining();
+	}
+
+	public int remaining() {
+		return buffer.remaining();
+	}
+
+	public int position() {
+		return buffer.position();
+	}
+
+	public void position(int position) {
+		buffer.position(position);
+	}
+
+	private IOException truncated() {
+		return new IOException("Unexpected end of " + name + ".");
+	}
+
+	/**
+	 * Returns the next byte, unsigned.
+	 */
+	public int getByte() throws IOException {
+		try {
+			return buffer.get() & 0xFF;
+		} catch(BufferUnderflowException ex) {
+			throw truncated();
+		}
+	}
+
+	public int getInt() throws IOException {
+		try {
+			return buffer.getInt();
+		} catch(BufferUnderflowException ex) {
+			throw truncated();
+		}
+	}
+
+	public long getLong() throws IOException {
+		try {
+			return buffer.getLong();
+		} catch(BufferUnderflowException ex) {
+			throw truncated();
+		}
+	}
+
+	public double getDouble() throws IOException {
+		return Double.longBitsToDouble(getLong());
+	}
+
+	public long getVarLong() throws IOException {
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7) {
+			int b = getByte();
+			value |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed varint in " + name + ".");
+	}
+
+	/**
+	 * Returns the next varint, which has to fit a non-negative int.
+	 */
+	public int getVarInt() throws IOException {
+		long value = getVarLong();
+		if(value > Integer.MAX_VALUE)
+			throw new IOException("Value out of range in " + name + ".");
+		return (int) value;
+	}
+
+	public long getSignedVarLong() throws IOException {
+		long value = getVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public byte[] getBytes() throws IOException {
+		int length = getVarInt();
+		if(length > buffer.remaining())
+			throw truncated();
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	public String getString() throws IOException {
+		return new String(getBytes(), UTF8);
+	}
+
+	/**
+	 * Returns the next bit, see BinaryOutput.putBit(boolean).
+	 */
+	public boolean getBit() throws IOException {
+		if(bitCount == 0) {
+			bits = getByte();
+			bitCount = 8;
+		}
+		boolean result = (bits & 1) != 0;
+		bits >>>= 1;
+		bitCount--;
+		return result;
+	}
+
+	/**
+	 * Skip the bits of the last byte read by getBit() that weren't read, see BinaryOutput.endBits().
+	 */
+	public void endBits() {
+		bitCount = 0;
+	}
+}
@@ -0,0 +1,209 @@
+package worms.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Writes values in the compact binary encoding shared by replay logs, world snapshots and spectator frames, see
+ * BinaryInput. Fixed size values are big-endian, counts and small numbers are varints of 7 bits per byte.
+ *
+ * The values are written to a buffer, which either grows as needed or is written out to a channel whenever it is full,
+ * on flush() and on close(). When the channel fails while the buffer is written out because it is full, an
+ * IllegalStateException is thrown, as a caller writing values can't do anything about it.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class BinaryOutput {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Initialize an output to a buffer that grows as values are written to it, see toBuffer().
+	 *
+	 * @param capacity The initial capacity of the buffer, in bytes.
+	 */
+	public BinaryOutput(int capacity) {
+		this.buffer = ByteBuffer.allocate(Math.max(capacity, 64));
+		this.channel = null;
+	}
+
+	/**
+	 * Initialize an output to a channel, through a buffer of a fixed size.
+	 *
+	 * @param channel The channel to write to.
+	 * @param bufferSize The size of the buffer, in bytes.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			| channel == null || bufferSize < 16
+	 */
+	public BinaryOutput(WritableByteChannel channel, int bufferSize) throws IllegalArgumentException {
+		if(channel == null)
+			throw new IllegalArgumentException("The channel musn't be a null reference.");
+		if(bufferSize < 16)
+			throw new IllegalArgumentException("The buffer must hold at least 16 bytes.");
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.channel = channel;
+	}
+
+	private ByteBuffer buffer;
+	private final WritableByteChannel channel;
+
+	/**
+	 * The bits put so far that don't fill a byte yet, least significant bit first.
+	 */
+	private int bits;
+	private int bitCount;
+
+	/**
+	 * Make sure the buffer has room for the given amount of bytes, at most 16 when writing to a channel.
+	 */
+	private void ensure(int bytes) throws IllegalStateException {
+		if(buffer.remaining() >= bytes)
+			return;
+		if(channel != null) {
+			try {
+				drain();
+			} catch(IOException ex) {
+				throw new IllegalStateException("The values couldn't be written to the channel.", ex);
+			}
+		} else {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	public void putByte(int value) {
+		ensure(1);
+		buffer.put((byte) value);
+	}
+
+	public void putInt(int value) {
+		ensure(4);
+		buffer.putInt(value);
+	}
+
+	public void putLong(long value) {
+		ensure(8);
+		buffer.putLong(value);
+	}
+
+	public void putDouble(double value) {
+		ensure(8);
+		buffer.putDouble(value);
+	}
+
+	/**
+	 * Put a non-negative value as a varint, 7 bits per byte.
+	 */
+	public void putVarLong(long value) {
+		ensure(10);
+		while((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Put a value as an unsigned varint.
+	 */
+	public void putVarInt(int value) {
+		putVarLong(value & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Put a value as a zigzag encoded varint, so small negative values are short as well.
+	 */
+	public void putSignedVarLong(long value) {
+		putVarLong((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Put an array of bytes, preceded by its length.
+	 */
+	public void putBytes(byte[] bytes) {
+		putVarInt(bytes.length);
+		int offset = 0;
+		while(offset < bytes.length) {
+			ensure(Math.min(bytes.length - offset, 16));
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	public void putString(String value) {
+		putBytes(value.getBytes(UTF8));
+	}
+
+	/**
+	 * Put a single bit, eight bits are packed in a byte, least significant bit first. The last byte is only
+	 * written by endBits().
+	 */
+	public void putBit(boolean bit) {
+		if(bit)
+			bits |= 1 << bitCount;
+		if(++bitCount == 8) {
+			putByte(bits);
+			bits = 0;
+			bitCount = 0;
+		}
+	}
+
+	/**
+	 * Write the bits put so far that don't fill a byte, padded with zeros.
+	 */
+	public void endBits() {
+		if(bitCount > 0) {
+			putByte(bits);
+			bits = 0;
+			bitCount = 0;
+		}
+	}
+
+	/**
+	 * Returns the values written, from the position to the limit of the returned buffer.
+	 *
+	 * @throws IllegalStateException
+	 * 			When this output writes to a channel.
+	 */
+	public ByteBuffer toBuffer() throws IllegalStateException {
+		if(channel != null)
+			throw new IllegalStateException("The values were written to a channel.");
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Write the buffered values to the channel, if there is one.
+	 */
+	public void flush() throws IOException {
+		if(channel != null)
+			drain();
+	}
+
+	/**
+	 * Write the buffered values to the channel and close it, if there is one.
+	 */
+	public void close() throws IOException {
+		if(channel != null) {
+			try {
+				drain();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+}
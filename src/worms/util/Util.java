@@ -130,7 +130,7 @@ public class Util {
 	 * Returns the relative error |expected - actual|/|expected|
 	 */
 	public static double relativeError(double expected, double actual) {
-		if(excpected == 0)
+		if(expected == 0)
 			return Double.NaN;
 		return absoluteError(expected, actual) / Math.abs(expected);
 	}
@@ -0,0 +1,122 @@
+package worms.gui;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.world.TerrainFile;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class LevelCacheTest {
+
+	private LevelCache cache;
+	private URL simple;
+	private URL blocks;
+
+	@Before
+	public void setUp() throws IOException {
+		cache = new LevelCache();
+		simple = new File("levels/Simple.png").toURI().toURL();
+		blocks = new File("levels/Blocks.png").toURI().toURL();
+	}
+
+	@Test
+	public void testDecodedOnce() throws IOException {
+		LevelCache.Terrain terrain = cache.get(simple);
+		assertSame(terrain, cache.get(simple));
+		assertEquals(1, cache.getNbDecoded());
+
+		assertEquals(terrain.getImage().getHeight(), terrain.getBitmap()
+				.getHeight());
+		assertEquals(terrain.getImage().getWidth(), terrain.getBitmap()
+				.getWidth());
+	}
+
+	@Test
+	public void testKeyedByContent() throws IOException {
+		File copy = File.createTempFile("level", ".png");
+		try {
+			Files.copy(new File("levels/Simple.png").toPath(), copy.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			assertSame(cache.get(simple), cache.get(copy.toURI().toURL()));
+			assertNotSame(cache.get(simple), cache.get(blocks));
+			assertEquals(2, cache.getNbDecoded());
+		} finally {
+			copy.delete();
+		}
+	}
+
+	@Test
+	public void testPreload() throws IOException {
+		cache.preload(blocks);
+		LevelCache.Terrain terrain = cache.get(blocks);
+		assertSame(terrain, cache.get(blocks));
+		assertEquals(1, cache.getNbDecoded());
+	}
+
+	@Test
+	public void testMappedFromTerrainFile() throws IOException {
+		File directory = Files.createTempDirectory("level").toFile();
+		File image = new File(directory, "Simple.png");
+		File terrainFile = new File(directory, "Simple"
+				+ TerrainFile.FILE_EXTENSION);
+		try {
+			Files.copy(new File("levels/Simple.png").toPath(), image.toPath());
+			assertEquals(terrainFile, LevelCache.getTerrainFile(image.toURI()
+					.toURL()));
+			LevelCache.Terrain decoded = new LevelCache().get(simple);
+			TerrainFile.write(terrainFile, decoded.getBitmap(), 1.0,
+					decoded.getHash(), 0);
+
+			LevelCache.Terrain mapped = cache.get(image.toURI().toURL());
+			assertEquals(1, cache.getNbMapped());
+			assertEquals(0, cache.getNbDecoded());
+			assertEquals(decoded.getBitmap(), mapped.getBitmap());
+			assertEquals(mapped.getImage().getWidth(), mapped.getBitmap()
+					.getWidth());
+		} finally {
+			image.delete();
+			terrainFile.delete();
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void testStaleTerrainFile() throws IOException {
+		File directory = Files.createTempDirectory("level").toFile();
+		File image = new File(directory, "Simple.png");
+		File terrainFile = new File(directory, "Simple"
+				+ TerrainFile.FILE_EXTENSION);
+		try {
+			Files.copy(new File("levels/Simple.png").toPath(), image.toPath());
+			LevelCache.Terrain blocksTerrain = new LevelCache().get(blocks);
+			TerrainFile.write(terrainFile, blocksTerrain.getBitmap(), 1.0,
+					blocksTerrain.getHash(), 0);
+
+			LevelCache.Terrain terrain = cache.get(image.toURI().toURL());
+			assertEquals(0, cache.getNbMapped());
+			assertEquals(1, cache.getNbDecoded());
+			assertEquals(cache.get(simple).getBitmap(), terrain.getBitmap());
+		} finally {
+			image.delete();
+			terrainFile.delete();
+			directory.delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAnImage() throws IOException {
+		cache.get(new File("levels/levels.txt").toURI().toURL());
+	}
+}
@@ -0,0 +1,79 @@
+package worms.gui.game;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.Rectangle2D;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class CameraTest {
+
+	private static final double EPS = 1e-9;
+
+	private Camera camera;
+
+	@Before
+	public void setUp() {
+		// a world twice as wide as high on a 4:3 screen
+		camera = new Camera(100, 50, 800, 600);
+	}
+
+	@Test
+	public void testWholeWorldFits() {
+		assertEquals(1, camera.getZoom(), EPS);
+		assertEquals(0.125, camera.getScale(), EPS);
+		// centered vertically, as the whole level used to be drawn
+		assertEquals(0, camera.getScreenX(0), EPS);
+		assertEquals(800, camera.getScreenX(100), EPS);
+		assertEquals(100, camera.getScreenY(50), EPS);
+		assertEquals(500, camera.getScreenY(0), EPS);
+		assertEquals(30, camera.getLogicalX(camera.getScreenX(30)), EPS);
+		assertEquals(20, camera.getLogicalY(camera.getScreenY(20)), EPS);
+	}
+
+	@Test
+	public void testZoom() {
+		Camera zoomed = camera.zoomedBy(4);
+		assertEquals(4, zoomed.getZoom(), EPS);
+		assertEquals(400, zoomed.getScreenX(50), EPS);
+		assertEquals(40, zoomed.worldToScreenDistance(1.25), EPS);
+		Rectangle2D view = zoomed.getViewport();
+		assertEquals(25, view.getWidth(), EPS);
+		assertEquals(18.75, view.getHeight(), EPS);
+
+		assertEquals(Camera.MAX_ZOOM, camera.zoomedBy(1000).getZoom(), EPS);
+		assertEquals(1, zoomed.zoomedBy(0.001).getZoom(), EPS);
+	}
+
+	@Test
+	public void testPanStaysInWorld() {
+		Camera zoomed = camera.zoomedBy(4);
+		Camera panned = zoomed.pannedBy(80, 0);
+		assertEquals(52.5, panned.getCenterX(), EPS);
+		assertEquals(25, panned.getCenterY(), EPS);
+
+		Camera edge = zoomed.pannedBy(-100000, -100000);
+		assertEquals(0, edge.getViewport().getMinX(), EPS);
+		assertEquals(50, edge.getViewport().getMaxY(), EPS);
+
+		// at zoom 1 the world is centered, it can't be panned
+		assertEquals(camera, camera.pannedBy(100, 100));
+		assertEquals(camera, camera.centeredOn(0, 0));
+	}
+
+	@Test
+	public void testScreenSize() {
+		Camera zoomed = camera.zoomedBy(2).centeredOn(30, 20);
+		Camera resized = zoomed.withScreenSize(400, 300);
+		assertEquals(2, resized.getZoom(), EPS);
+		assertEquals(30, resized.getCenterX(), EPS);
+		assertEquals(400, resized.getScreenWidth());
+		assertFalse(zoomed.equals(resized));
+	}
+}
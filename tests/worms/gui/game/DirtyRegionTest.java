@@ -0,0 +1,94 @@
+package worms.gui.game;
+
+import static org.junit.Assert.*;
+
+import java.awt.Rectangle;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class DirtyRegionTest {
+
+	private static final Rectangle SCREEN = new Rectangle(0, 0, 800, 600);
+
+	private DirtyRegion region;
+	private Map<Object, Rectangle> bounds;
+	private Object worm, food;
+
+	@Before
+	public void setUp() {
+		region = new DirtyRegion();
+		bounds = new IdentityHashMap<Object, Rectangle>();
+		worm = new Object();
+		food = new Object();
+		bounds.put(worm, new Rectangle(100, 100, 20, 20));
+		bounds.put(food, new Rectangle(300, 300, 10, 10));
+
+		assertEquals(SCREEN, region.collect(bounds, SCREEN));
+		paintAll(null);
+	}
+
+	private void paintAll(Rectangle clip) {
+		for (Map.Entry<Object, Rectangle> entry : bounds.entrySet()) {
+			if (clip == null || clip.intersects(entry.getValue())) {
+				region.painted(entry.getKey(), entry.getValue(), clip);
+			}
+		}
+	}
+
+	@Test
+	public void testNothingChanged() {
+		assertNull(region.collect(bounds, SCREEN));
+	}
+
+	@Test
+	public void testMoved() {
+		bounds.put(worm, new Rectangle(110, 100, 20, 20));
+		assertEquals(new Rectangle(100, 100, 30, 20), region.collect(bounds, SCREEN));
+		paintAll(new Rectangle(100, 100, 30, 20));
+		assertNull(region.collect(bounds, SCREEN));
+	}
+
+	@Test
+	public void testInvalidated() {
+		region.invalidate(food);
+		assertEquals(new Rectangle(300, 300, 10, 10), region.collect(bounds, SCREEN));
+		assertNull(region.collect(bounds, SCREEN));
+	}
+
+	@Test
+	public void testRemovedAndAdded() {
+		Object projectile = new Object();
+		bounds.remove(food);
+		bounds.put(projectile, new Rectangle(790, 590, 20, 20));
+		Rectangle dirty = region.collect(bounds, SCREEN);
+		assertTrue(dirty.contains(new Rectangle(300, 300, 10, 10)));
+		assertTrue(dirty.contains(new Rectangle(790, 590, 10, 10)));
+		assertTrue(SCREEN.contains(dirty));
+	}
+
+	@Test
+	public void testMovedButPaintedInPart() {
+		bounds.put(worm, new Rectangle(110, 100, 20, 20));
+		region.collect(bounds, SCREEN);
+		paintAll(new Rectangle(0, 0, 120, 600));
+		Rectangle dirty = region.collect(bounds, SCREEN);
+		assertTrue(dirty.contains(new Rectangle(100, 100, 30, 20)));
+		paintAll(dirty);
+		assertNull(region.collect(bounds, SCREEN));
+	}
+
+	@Test
+	public void testInvalidateAll() {
+		region.invalidateAll();
+		assertNull(region.collect(bounds, new Rectangle()));
+		assertEquals(SCREEN, region.collect(bounds, SCREEN));
+	}
+}
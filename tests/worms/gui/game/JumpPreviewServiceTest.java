@@ -0,0 +1,165 @@
+package worms.gui.game;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.gui.GUIConstants;
+import worms.model.Facade;
+import worms.model.World;
+import worms.model.Worm;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class JumpPreviewServiceTest {
+
+	private Facade facade;
+	private World world;
+	private Worm worm;
+	private List<Runnable> tasks;
+	private List<Worm> completed;
+	private JumpPreviewService previews;
+
+	/**
+	 * Turns the worm while the first jump is computed, when set.
+	 */
+	private boolean turnWhileComputing;
+
+	/**
+	 * Fails computing the next jump, when set.
+	 */
+	private boolean failWhileComputing;
+
+	@Before
+	public void setUp() {
+		facade = new Facade() {
+
+			@Override
+			public double getJumpTime(Worm worm, double timeStep) {
+				if (failWhileComputing) {
+					failWhileComputing = false;
+					throw new IllegalStateException("Failing on purpose.");
+				}
+				double result = super.getJumpTime(worm, timeStep);
+				if (turnWhileComputing) {
+					turnWhileComputing = false;
+					turn(worm, 0.5);
+				}
+				return result;
+			}
+		};
+		boolean[][] map = new boolean[20][40];
+		for (int row = 0; row < map.length; row++)
+			for (int column = 0; column < map[row].length; column++)
+				map[row][column] = row < 16;
+		world = facade.createWorld(20.0, 10.0, map, new Random(7357));
+		facade.addEmptyTeam(world, "Red");
+		worm = facade.createWorm(world, 3.0, 3.0, 1.0, 0.5, "Worm", null);
+
+		tasks = new ArrayList<>();
+		completed = new ArrayList<>();
+		previews = new JumpPreviewService(facade, new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		}, new JumpPreviewService.Listener() {
+
+			@Override
+			public void previewCompleted(Worm worm) {
+				completed.add(worm);
+			}
+		});
+	}
+
+	private void runTasks() {
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+	}
+
+	private void assertJumpOfWorm(double[][] steps) {
+		double time = facade.getJumpTime(worm, GUIConstants.JUMP_TIME_STEP);
+		assertNotNull(steps);
+		double[] last = facade.getJumpStep(worm, time);
+		assertEquals(last[0], steps[steps.length - 1][0], 1e-9);
+		assertEquals(last[1], steps[steps.length - 1][1], 1e-9);
+	}
+
+	@Test
+	public void testComputedInBackground() {
+		assertNull(previews.getJumpSteps(worm));
+		assertEquals(1, tasks.size());
+		// asking again doesn't start another computation
+		assertNull(previews.getJumpSteps(worm));
+		assertEquals(1, tasks.size());
+
+		runTasks();
+		assertEquals(1, completed.size());
+		assertJumpOfWorm(previews.getJumpSteps(worm));
+		assertTrue(tasks.isEmpty());
+		assertEquals(1, previews.getNbCompleted());
+	}
+
+	@Test
+	public void testLastCompletedPreviewShownUntilNewOneIsDone() {
+		previews.getJumpSteps(worm);
+		runTasks();
+		double[][] old = previews.getJumpSteps(worm);
+
+		facade.turn(worm, 0.5);
+		assertSame(old, previews.getJumpSteps(worm));
+		assertEquals(1, tasks.size());
+
+		runTasks();
+		assertNotSame(old, previews.getJumpSteps(worm));
+		assertJumpOfWorm(previews.getJumpSteps(worm));
+	}
+
+	@Test
+	public void testStaleResultDiscarded() {
+		turnWhileComputing = true;
+		previews.getJumpSteps(worm);
+		runTasks();
+		assertEquals(1, previews.getNbDiscarded());
+		assertEquals(1, previews.getNbCompleted());
+		assertEquals(1, completed.size());
+		assertJumpOfWorm(previews.getJumpSteps(worm));
+	}
+
+	@Test
+	public void testFailedPreviewDiscarded() {
+		failWhileComputing = true;
+		previews.getJumpSteps(worm);
+		runTasks();
+		assertEquals(1, previews.getNbDiscarded());
+		assertTrue(completed.isEmpty());
+		// not retried until the worm changes
+		assertNull(previews.getJumpSteps(worm));
+		assertTrue(tasks.isEmpty());
+
+		facade.turn(worm, 0.5);
+		assertNull(previews.getJumpSteps(worm));
+		runTasks();
+		assertJumpOfWorm(previews.getJumpSteps(worm));
+	}
+
+	@Test
+	public void testForget() {
+		previews.getJumpSteps(worm);
+		previews.forget(worm);
+		runTasks();
+		assertTrue(completed.isEmpty());
+		assertNull(previews.getJumpSteps(worm));
+	}
+}
@@ -0,0 +1,72 @@
+package worms.gui.game;
+
+import static org.junit.Assert.*;
+
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class SpatialGridTest {
+
+	private SpatialGrid<Object> grid;
+
+	@Before
+	public void setUp() {
+		grid = new SpatialGrid<Object>(10);
+	}
+
+	@Test
+	public void testQuery() {
+		Object near = new Object();
+		Object far = new Object();
+		Object across = new Object();
+		grid.put(near, 5, 5, 1);
+		grid.put(far, 95, 95, 1);
+		grid.put(across, 19.5, 5, 1);
+
+		Set<Object> found = grid.query(0, 0, 19, 10);
+		assertEquals(2, found.size());
+		assertTrue(found.contains(near));
+		assertTrue(found.contains(across));
+		assertTrue(grid.query(30, 30, 80, 80).isEmpty());
+		assertEquals(3, grid.query(-1000, -1000, 1000, 1000).size());
+	}
+
+	@Test
+	public void testMoveAndRemove() {
+		Object worm = new Object();
+		grid.put(worm, 5, 5, 1);
+		grid.put(worm, 55, 55, 1);
+		assertEquals(1, grid.size());
+		assertTrue(grid.query(0, 0, 10, 10).isEmpty());
+		assertTrue(grid.query(50, 50, 60, 60).contains(worm));
+
+		grid.remove(worm);
+		grid.remove(worm);
+		assertEquals(0, grid.size());
+		assertFalse(grid.contains(worm));
+		assertTrue(grid.query(-1000, -1000, 1000, 1000).isEmpty());
+	}
+
+	@Test
+	public void testObjectsAreComparedByIdentity() {
+		String first = new String("food");
+		String second = new String("food");
+		grid.put(first, 5, 5, 1);
+		grid.put(second, 5, 5, 1);
+		assertEquals(2, grid.query(0, 0, 10, 10).size());
+		grid.remove(first);
+		assertSame(second, grid.query(0, 0, 10, 10).iterator().next());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCellSize() {
+		new SpatialGrid<Object>(0);
+	}
+}
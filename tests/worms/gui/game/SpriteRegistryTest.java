@@ -0,0 +1,155 @@
+package worms.gui.game;
+
+import static org.junit.Assert.*;
+
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class SpriteRegistryTest {
+
+	private static class TestSprite extends Sprite<Object> {
+
+		TestSprite(Object object) {
+			super(null);
+			this.object = object;
+		}
+
+		private final Object object;
+
+		@Override
+		public Object getObject() {
+			return object;
+		}
+
+		@Override
+		public boolean isObjectAlive() {
+			return true;
+		}
+
+		@Override
+		public void draw(Graphics2D g) {
+		}
+
+		@Override
+		public double getHeight(Graphics2D g) {
+			return 0;
+		}
+
+		@Override
+		public double getWidth(Graphics2D g) {
+			return 0;
+		}
+	}
+
+	private static class OtherSprite extends TestSprite {
+
+		OtherSprite(Object object) {
+			super(object);
+		}
+	}
+
+	private SpriteRegistry registry;
+
+	@Before
+	public void setUp() {
+		registry = new SpriteRegistry();
+	}
+
+	@Test
+	public void testLookups() {
+		Object food = new Object();
+		Object worm = new Object();
+		TestSprite foodSprite = new TestSprite(food);
+		OtherSprite wormSprite = new OtherSprite(worm);
+		TestSprite otherWormSprite = new TestSprite(worm);
+		registry.add(foodSprite);
+		registry.add(wormSprite);
+		registry.add(otherWormSprite);
+		registry.add(foodSprite);
+
+		assertEquals(3, registry.size());
+		assertSame(foodSprite, registry.getSpriteOfTypeFor(TestSprite.class, food));
+		assertSame(wormSprite, registry.getSpriteOfTypeFor(OtherSprite.class, worm));
+		assertNull(registry.getSpriteOfTypeFor(OtherSprite.class, food));
+		assertEquals(3, registry.getSpritesOfType(TestSprite.class).size());
+		assertEquals(1, registry.getSpritesOfType(OtherSprite.class).size());
+		assertEquals(2, registry.getSpritesFor(worm).size());
+
+		registry.remove(wormSprite);
+		registry.remove(wormSprite);
+		assertEquals(2, registry.size());
+		assertNull(registry.getSpriteOfTypeFor(OtherSprite.class, worm));
+		assertSame(otherWormSprite, registry.getSpriteOfTypeFor(TestSprite.class, worm));
+		registry.remove(otherWormSprite);
+		assertTrue(registry.getSpritesFor(worm).isEmpty());
+	}
+
+	/**
+	 * Looking up the sprite of every object the way PlayGameScreen used to: a
+	 * new set of all sprites of the type and a linear search per object.
+	 */
+	private static int linearFrame(List<Sprite<?>> sprites, List<Object> objects) {
+		int found = 0;
+		for (Object object : objects) {
+			Set<TestSprite> ofType = new HashSet<TestSprite>();
+			for (Sprite<?> sprite : sprites) {
+				if (TestSprite.class.isInstance(sprite)) {
+					ofType.add(TestSprite.class.cast(sprite));
+				}
+			}
+			for (TestSprite sprite : ofType) {
+				if (object.equals(sprite.getObject())) {
+					found++;
+					break;
+				}
+			}
+		}
+		return found;
+	}
+
+	private int registryFrame(List<Object> objects) {
+		int found = 0;
+		for (Object object : objects) {
+			if (registry.getSpriteOfTypeFor(TestSprite.class, object) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Test
+	public void testFrameTimeWithThousandFood() {
+		List<Object> food = new ArrayList<Object>();
+		List<Sprite<?>> sprites = new ArrayList<Sprite<?>>();
+		for (int i = 0; i < 1000; i++) {
+			food.add(new Object());
+			TestSprite sprite = new TestSprite(food.get(i));
+			sprites.add(sprite);
+			registry.add(sprite);
+		}
+
+		long linear = Long.MAX_VALUE;
+		long indexed = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			long start = System.nanoTime();
+			assertEquals(1000, linearFrame(sprites, food));
+			linear = Math.min(linear, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			assertEquals(1000, registryFrame(food));
+			indexed = Math.min(indexed, System.nanoTime() - start);
+		}
+		assertTrue(indexed * 10 < linear);
+	}
+}
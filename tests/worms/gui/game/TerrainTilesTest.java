@@ -0,0 +1,76 @@
+package worms.gui.game;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class TerrainTilesTest {
+
+	private BufferedImage level;
+	private BufferedImage screen;
+
+	@Before
+	public void setUp() {
+		level = new BufferedImage(2048, 1024, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = level.createGraphics();
+		g.setColor(Color.RED);
+		g.fillRect(0, 0, 1024, 1024);
+		g.setColor(Color.BLUE);
+		g.fillRect(1024, 0, 1024, 1024);
+		g.dispose();
+		screen = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	private void paint(TerrainTiles tiles, Camera camera) {
+		Graphics2D g = screen.createGraphics();
+		tiles.paint(g, camera);
+		g.dispose();
+	}
+
+	@Test
+	public void testPaintsLevel() {
+		TerrainTiles tiles = new TerrainTiles(level, 200, 100, 16);
+		Camera camera = new Camera(200, 100, 400, 300);
+		paint(tiles, camera);
+		assertEquals(Color.RED.getRGB(), screen.getRGB(100, 150));
+		assertEquals(Color.BLUE.getRGB(), screen.getRGB(300, 150));
+		// the level is centered vertically, the rest isn't painted
+		assertEquals(0, screen.getRGB(200, 10));
+		assertEquals(2, tiles.getNbTiles());
+	}
+
+	@Test
+	public void testOnlyTilesInViewAreScaled() {
+		TerrainTiles tiles = new TerrainTiles(level, 200, 100, 64);
+		Camera camera = new Camera(200, 100, 400, 300).zoomedBy(16)
+				.centeredOn(150, 50);
+		paint(tiles, camera);
+		assertEquals(Color.BLUE.getRGB(), screen.getRGB(200, 150));
+		// the level is 6400 by 3200 pixels at this zoom, but only the tiles
+		// on the screen are made
+		assertTrue(tiles.getNbTiles() <= 9);
+
+		paint(tiles, camera.pannedBy(0, 0));
+		assertTrue(tiles.getNbTiles() <= 9);
+	}
+
+	@Test
+	public void testKeepsLimitedTiles() {
+		TerrainTiles tiles = new TerrainTiles(level, 200, 100, 4);
+		Camera camera = new Camera(200, 100, 400, 300).zoomedBy(16);
+		for (int i = 0; i < 10; i++) {
+			paint(tiles, camera.centeredOn(i * 20, 50));
+		}
+		assertEquals(4, tiles.getNbTiles());
+	}
+}
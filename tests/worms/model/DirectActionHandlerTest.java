@@ -0,0 +1,82 @@
+package worms.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.programs.ParseOutcome;
+import worms.util.Util;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class DirectActionHandlerTest {
+
+	private static final double EPS = Util.DEFAULT_EPSILON;
+
+	private Facade facade;
+	private DirectActionHandler handler;
+	private World world;
+
+	// X X X X
+	// . . . .
+	// . . . .
+	// X X X X
+	@Before
+	public void setUp() {
+		facade = new Facade();
+		handler = new DirectActionHandler(facade);
+		world = facade.createWorld(4.0, 4.0, new boolean[][] {
+				{ false, false, false, false }, { true, true, true, true },
+				{ true, true, true, true }, { false, false, false, false } },
+				new Random(7357));
+	}
+
+	@Test
+	public void testMoveSameAsFacade() {
+		Worm worm = facade.createWorm(world, 1, 2, 0, 1, "Test", null);
+		assertTrue(handler.move(worm));
+		assertEquals(2, facade.getX(worm), EPS);
+		assertEquals(2, facade.getY(worm), EPS);
+	}
+
+	@Test
+	public void testTurn() {
+		Worm worm = facade.createWorm(world, 1, 2, 0, 1, "Test", null);
+		assertTrue(handler.turn(worm, 1));
+		assertEquals(1, facade.getOrientation(worm), EPS);
+	}
+
+	@Test
+	public void testFireResolvesProjectile() {
+		Worm worm = facade.createWorm(world, 1, 1.5, 0, 0.5, "Test", null);
+		facade.createWorm(world, 3, 1.5, 0, 0.5, "Other", null);
+		world.startGame();
+		assertSame(worm, facade.getCurrentWorm(world));
+		assertTrue(handler.fire(worm, 50));
+		Projectile projectile = facade.getActiveProjectile(world);
+		assertNotNull(projectile);
+		assertTrue(facade.getX(projectile) > 1.5);
+	}
+
+	@Test
+	public void testProgramRunsWithoutWaiting() {
+		ParseOutcome<?> outcome = facade.parseProgram(
+				"double x; while (x < 3) { turn 0.1; x := x + 1; }", handler);
+		assertTrue(outcome.isSuccess());
+		Program program = (Program) outcome.getResult();
+		Worm worm = facade.createWorm(world, 1, 2, 0, 1, "Test", program);
+		program.execute();
+		assertEquals(0.3, facade.getOrientation(worm), EPS);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoFacade() {
+		new DirectActionHandler(null);
+	}
+}
@@ -0,0 +1,81 @@
+package worms.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class FixedTimestepEngineTest {
+
+	/**
+	 * A falling body integrated with the tick length, any difference in the ticks shows up in its state.
+	 */
+	private static class Body implements FixedTimestepEngine.Simulation {
+
+		private double y = 100;
+		private double speed = 0;
+
+		@Override
+		public void tick(double tickLength) {
+			speed -= 9.80665 * tickLength;
+			y += speed * tickLength;
+		}
+	}
+
+	@Test
+	public void testReproducibleWithDifferentFrames() {
+		Body smooth = new Body();
+		FixedTimestepEngine smoothEngine = new FixedTimestepEngine(60, 1000, smooth);
+		for (int i = 0; i < 600; i++)
+			smoothEngine.advance(1.0 / 60);
+
+		Body jittery = new Body();
+		FixedTimestepEngine jitteryEngine = new FixedTimestepEngine(60, 1000, jittery);
+		Random random = new Random(7357);
+		while (jitteryEngine.getTickCount() < smoothEngine.getTickCount())
+			jitteryEngine.advance(random.nextDouble() / 20);
+
+		Body headless = new Body();
+		new FixedTimestepEngine(60, 1000, headless).run(smoothEngine.getTickCount());
+
+		assertEquals(smoothEngine.getTickCount(), jitteryEngine.getTickCount());
+		assertEquals(Double.doubleToLongBits(smooth.y), Double.doubleToLongBits(jittery.y));
+		assertEquals(Double.doubleToLongBits(smooth.y), Double.doubleToLongBits(headless.y));
+		assertEquals(Double.doubleToLongBits(smoothEngine.getTime()), Double.doubleToLongBits(jitteryEngine.getTime()));
+	}
+
+	@Test
+	public void testAccumulatorAndInterpolation() {
+		FixedTimestepEngine engine = new FixedTimestepEngine(10, 100, new Body());
+		assertEquals(0, engine.advance(0.05));
+		assertEquals(0.5, engine.getInterpolation(), 1e-9);
+		assertEquals(1, engine.advance(0.075));
+		assertEquals(0.25, engine.getInterpolation(), 1e-9);
+		assertEquals(3, engine.advance(0.3));
+		assertEquals(4, engine.getTickCount());
+	}
+
+	@Test
+	public void testMaxTicksPerAdvance() {
+		FixedTimestepEngine engine = new FixedTimestepEngine(10, 5, new Body());
+		assertEquals(5, engine.advance(1.05));
+		assertEquals(0.5, engine.getDroppedTime(), 1e-9);
+		assertEquals(0.5, engine.getInterpolation(), 1e-9);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeTime() {
+		new FixedTimestepEngine(10, 5, new Body()).advance(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalTickRate() {
+		new FixedTimestepEngine(0, 5, new Body());
+	}
+}
@@ -0,0 +1,28 @@
+package worms.model;
+
+/**
+ * The passable maps the tests create their worlds on.
+ */
+public class TestMaps {
+
+	private TestMaps() {
+	}
+
+	/**
+	 * A map of 40 by 20 pixels, see createMap(int, int).
+	 */
+	public static boolean[][] createMap() {
+		return createMap(20, 40);
+	}
+
+	/**
+	 * A map with a floor 4 pixels thick at the bottom, on which the lower half is split up by a pillar every 9 columns.
+	 */
+	public static boolean[][] createMap(int rows, int columns) {
+		boolean[][] map = new boolean[rows][columns];
+		for (int row = 0; row < rows; row++)
+			for (int column = 0; column < columns; column++)
+				map[row][column] = row < rows - 4 && (row < rows / 2 || column % 9 != 0);
+		return map;
+	}
+}
@@ -0,0 +1,170 @@
+package worms.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.world.entity.GameObject;
+import worms.util.Position;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class WorldListenerTest {
+
+	private Facade facade;
+	private World world;
+	private List<Object> events;
+	private WorldListener listener;
+
+	@Before
+	public void setUp() {
+		facade = new Facade();
+		boolean[][] map = new boolean[20][40];
+		for (int row = 0; row < map.length; row++)
+			for (int column = 0; column < map[row].length; column++)
+				map[row][column] = row < 16;
+		world = facade.createWorld(20.0, 10.0, map, new Random(7357));
+
+		events = new ArrayList<>();
+		listener = new WorldListener() {
+
+			@Override
+			public void objectAdded(GameObject object) {
+				events.add("added");
+				events.add(object);
+			}
+
+			@Override
+			public void objectRemoved(GameObject object) {
+				events.add("removed");
+				events.add(object);
+			}
+
+			@Override
+			public void objectMoved(GameObject object) {
+				events.add("moved");
+				events.add(object);
+			}
+
+			@Override
+			public void wormChanged(Worm worm) {
+				events.add("changed");
+				events.add(worm);
+			}
+
+			@Override
+			public void turnStarted(Worm worm) {
+				events.add("turn");
+				events.add(worm);
+			}
+
+			@Override
+			public void gameEnded() {
+				events.add("ended");
+			}
+		};
+		world.addListener(listener);
+	}
+
+	private Worm createWorm(String team, double x) {
+		facade.addEmptyTeam(world, team);
+		return facade.createWorm(world, x, 3.0, 0, 0.5, "Worm", null);
+	}
+
+	private int count(String event, Object object) {
+		int count = 0;
+		for (int i = 0; i < events.size(); i++)
+			if (events.get(i).equals(event) && (object == null || events.get(i + 1) == object))
+				count++;
+		return count;
+	}
+
+	@Test
+	public void testAddedAndTurns() {
+		Worm first = createWorm("Red", 3.0);
+		Worm second = createWorm("Blue", 15.0);
+		assertEquals(1, count("added", first));
+		assertEquals(1, count("added", second));
+
+		events.clear();
+		facade.startGame(world);
+		assertEquals(1, count("turn", facade.getCurrentWorm(world)));
+		events.clear();
+		facade.startNextTurn(world);
+		assertEquals(1, count("turn", facade.getCurrentWorm(world)));
+	}
+
+	@Test
+	public void testWormChanges() {
+		Worm worm = createWorm("Red", 3.0);
+		createWorm("Blue", 15.0);
+		facade.startGame(world);
+		events.clear();
+
+		facade.turn(facade.getCurrentWorm(world), 0.5);
+		assertTrue(count("changed", facade.getCurrentWorm(world)) >= 1);
+		assertEquals(0, count("moved", null));
+
+		events.clear();
+		facade.rename(worm, "Renamed");
+		assertEquals(1, count("changed", worm));
+		events.clear();
+		facade.rename(worm, "Renamed");
+		assertEquals(0, count("changed", worm));
+	}
+
+	@Test
+	public void testMovedAndEatenFood() {
+		Worm worm = createWorm("Red", 3.0);
+		createWorm("Blue", 15.0);
+		Food food = facade.createFood(world, 7.0, 3.0);
+		facade.startGame(world);
+		events.clear();
+
+		worm.setPosition(new Position(6.8, 3.0));
+		assertEquals(1, count("moved", worm));
+		assertEquals(1, count("removed", food));
+		assertTrue(count("changed", worm) >= 1);
+
+		//Cleaning up the eaten food doesn't report it again.
+		facade.startNextTurn(world);
+		facade.startNextTurn(world);
+		assertEquals(1, count("removed", food));
+	}
+
+	@Test
+	public void testDeadWormAndEnd() {
+		Worm first = createWorm("Red", 3.0);
+		Worm second = createWorm("Blue", 15.0);
+		facade.startGame(world);
+		events.clear();
+
+		Worm victim = facade.getCurrentWorm(world) == first ? second : first;
+		victim.inflictHitDamage(Integer.MAX_VALUE);
+		assertEquals(1, count("removed", victim));
+		facade.startNextTurn(world);
+		assertEquals(1, count("ended", null));
+		assertEquals(1, count("removed", victim));
+	}
+
+	@Test
+	public void testRemoveListener() {
+		world.removeListener(listener);
+		createWorm("Red", 3.0);
+		facade.addNewFood(world);
+		assertEquals(0, events.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullListener() {
+		world.addListener(null);
+	}
+}
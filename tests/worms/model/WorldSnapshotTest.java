@@ -0,0 +1,229 @@
+package worms.model;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.replay.WorldHasher;
+import worms.model.world.ChunkedTerrain;
+import worms.model.world.TerrainBitmap;
+import worms.model.world.WorldState;
+import worms.util.Position;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class WorldSnapshotTest {
+
+	private static final String PROGRAM = "double x; entity w; while (x < 1000) { turn 0.2; x := x + 1; w := self; }";
+
+	private Facade facade;
+	private DirectActionHandler handler;
+
+	@Before
+	public void setUp() {
+		facade = new Facade();
+		handler = new DirectActionHandler(facade);
+	}
+
+	/**
+	 * A world with a player and two worms controlled by a program, in the middle of their program.
+	 */
+	private World createPlayingWorld() {
+		World world = facade.createWorld(20.0, 10.0, TestMaps.createMap(), new Random(7357));
+		facade.addEmptyTeam(world, "Players");
+		facade.addNewWorm(world, null);
+		facade.addEmptyTeam(world, "Bots");
+		for (int i = 0; i < 2; i++)
+			facade.addNewWorm(world, (Program) facade.parseProgram(PROGRAM, handler).getResult());
+		facade.addNewFood(world);
+		facade.addNewFood(world);
+		facade.startGame(world);
+		facade.startNextTurn(world);
+		return world;
+	}
+
+	private World reload(World world) throws IOException {
+		return WorldSnapshot.read(WorldSnapshot.write(world), handler);
+	}
+
+	@Test
+	public void testSameState() throws IOException {
+		World world = createPlayingWorld();
+		World loaded = reload(world);
+
+		assertEquals(WorldHasher.hash(world), WorldHasher.hash(loaded));
+		assertEquals(WorldState.PLAYING, loaded.getState());
+		assertEquals(world.getTurnCount(), loaded.getTurnCount());
+		assertEquals(world.getTeamAmount(), loaded.getTeamAmount());
+		assertEquals(facade.getCurrentWorm(world).getName(), facade.getCurrentWorm(loaded).getName());
+		assertEquals(world.getRandom().nextLong(), loaded.getRandom().nextLong());
+	}
+
+	@Test
+	public void testProgramsResume() throws IOException {
+		World world = createPlayingWorld();
+		World loaded = reload(world);
+
+		for (int i = 0; i < 3; i++) {
+			facade.startNextTurn(world);
+			facade.startNextTurn(loaded);
+		}
+		assertEquals(WorldHasher.hash(world), WorldHasher.hash(loaded));
+		for (Worm worm : loaded.getWorms()) {
+			if (worm.hasProgram())
+				assertSame(worm, worm.getProgram().getGlobals().get("w").getValue());
+		}
+	}
+
+	@Test
+	public void testBytecodeProgramsResume() throws IOException {
+		facade.setBytecodeEnabled(true);
+		World world = createPlayingWorld();
+		World loaded = reload(world);
+		assertEquals(WorldHasher.hash(world), WorldHasher.hash(loaded));
+
+		for (int i = 0; i < 3; i++) {
+			facade.startNextTurn(world);
+			facade.startNextTurn(loaded);
+		}
+		assertEquals(WorldHasher.hash(world), WorldHasher.hash(loaded));
+	}
+
+	@Test
+	public void testLivingProjectile() throws IOException {
+		World world = facade.createWorld(4.0, 4.0, new boolean[][] {
+				{ true, true, true, true }, { true, true, true, true },
+				{ true, true, true, true }, { false, false, false, false } },
+				new Random(7357));
+		Worm worm = facade.createWorm(world, 1, 1.5, 0, 0.5, "Test", null);
+		facade.createWorm(world, 3, 1.5, 0, 0.5, "Other", null);
+		facade.startGame(world);
+		facade.shoot(worm, 50);
+
+		World loaded = reload(world);
+		assertNotNull(loaded.getLivingProjectile());
+		assertEquals(WorldHasher.hash(world), WorldHasher.hash(loaded));
+
+		facade.jump(facade.getActiveProjectile(world), 1e-4);
+		facade.jump(facade.getActiveProjectile(loaded), 1e-4);
+		assertEquals(WorldHasher.hash(world), WorldHasher.hash(loaded));
+	}
+
+	@Test
+	public void testChunkedTerrain() throws IOException {
+		TerrainBitmap bitmap = TerrainBitmap.fromPassableMap(TestMaps.createMap(300, 600));
+		World world = facade.createWorldOnTerrain(300.0, 150.0, new ChunkedTerrain(bitmap, 0), new Random(7357));
+		facade.createWorm(world, 10, 10, 0, 0.5, "Test", null);
+		World loaded = reload(world);
+		assertEquals(bitmap, loaded.getTerrain());
+		assertEquals(WorldHasher.hash(world), WorldHasher.hash(loaded));
+	}
+
+	@Test
+	public void testFile() throws IOException {
+		World world = createPlayingWorld();
+		File file = File.createTempFile("world", WorldSnapshot.FILE_EXTENSION);
+		try {
+			WorldSnapshot.save(world, file);
+			assertEquals(WorldHasher.hash(world), WorldHasher.hash(WorldSnapshot.load(file, handler)));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testFiveHundredWorms() throws IOException {
+		World world = facade.createWorld(1200.0, 10.0, TestMaps.createMap(20, 2400), new Random(7357));
+		facade.addEmptyTeam(world, "Bots");
+		for (int i = 0; i < 500; i++) {
+			Program program = (Program) facade.parseProgram(PROGRAM, handler).getResult();
+			world.getTeams().get(0).add(new Worm(world, new Position(1 + 2.2 * i, 6), 0, 0.5, "Bot", program));
+		}
+		for (int i = 0; i < 100; i++)
+			new Food(world, new Position(2 + 10 * i, 6));
+
+		//Warm up first, so the best time is that of code compiled by the JIT and not of the interpreter.
+		for (int i = 0; i < 200; i++)
+			WorldSnapshot.read(WorldSnapshot.write(world), handler);
+
+		long best = Long.MAX_VALUE;
+		World loaded = null;
+		for (int i = 0; i < 50; i++) {
+			long start = System.nanoTime();
+			loaded = WorldSnapshot.read(WorldSnapshot.write(world), handler);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		assertEquals(WorldHasher.hash(world), WorldHasher.hash(loaded));
+		assertTrue("Saving and loading 500 worms took " + best / 1e6 + " ms at best.", best < 10000000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOtherRandomNotSaved() {
+		WorldSnapshot.write(facade.createWorld(20.0, 10.0, TestMaps.createMap(), new SecureRandom()));
+	}
+
+	@Test(expected = IOException.class)
+	public void testOtherClassNotLoaded() throws IOException {
+		World world = createPlayingWorld();
+		byte[] snapshot = toBytes(WorldSnapshot.write(world));
+		byte[] random = serialize(world.getRandom());
+		byte[] other = serialize(new SecureRandom());
+		assertTrue(random.length < 128 && other.length > 127 && other.length < 1 << 14);
+
+		//Replace the serialized random generator, preceded by its length as a varint, by another class.
+		int at = indexOf(snapshot, random);
+		ByteArrayOutputStream crafted = new ByteArrayOutputStream();
+		crafted.write(snapshot, 0, at - 1);
+		crafted.write(other.length & 0x7F | 0x80);
+		crafted.write(other.length >>> 7);
+		crafted.write(other, 0, other.length);
+		crafted.write(snapshot, at + random.length, snapshot.length - at - random.length);
+		WorldSnapshot.read(ByteBuffer.wrap(crafted.toByteArray()), handler);
+	}
+
+	private static byte[] toBytes(ByteBuffer buffer) {
+		byte[] result = new byte[buffer.remaining()];
+		buffer.get(result);
+		return result;
+	}
+
+	private static byte[] serialize(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static int indexOf(byte[] array, byte[] part) {
+		for (int i = 0; i + part.length <= array.length; i++)
+			if (Arrays.equals(Arrays.copyOfRange(array, i, i + part.length), part))
+				return i;
+		throw new AssertionError("Not found.");
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotASnapshot() throws IOException {
+		WorldSnapshot.read(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }), handler);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		ByteBuffer snapshot = WorldSnapshot.write(createPlayingWorld());
+		snapshot.limit(snapshot.limit() / 2);
+		WorldSnapshot.read(snapshot, handler);
+	}
+}
@@ -0,0 +1,133 @@
+package worms.model.host;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.TestMaps;
+import worms.model.Worm;
+import worms.model.replay.WorldHasher;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class MatchHostTest {
+
+	private static final String BOT = "double x; x := x + 1; turn 0.3;";
+
+	private MatchHost host;
+
+	@Before
+	public void setUp() {
+		host = new MatchHost(4, 30, TimeUnit.SECONDS);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		host.shutdown(5, TimeUnit.SECONDS);
+	}
+
+	private Match createBotMatch(long seed) {
+		Match match = host.createMatch(20.0, 10.0, TestMaps.createMap(), seed);
+		match.addTeam("Red");
+		match.addBot("Bot", BOT);
+		match.addBot("Bot", BOT);
+		match.addTeam("Blue");
+		match.addBot("Bot", BOT);
+		match.addBot("Bot", BOT);
+		match.addFood();
+		return match;
+	}
+
+	@Test
+	public void testConcurrentMatchesAreIsolated() throws InterruptedException {
+		List<Match> matches = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			Match match = createBotMatch(7357);
+			match.setTurnLimit(100);
+			matches.add(match);
+		}
+		for (Match match : matches)
+			match.start();
+
+		long hash = 0;
+		for (Match match : matches) {
+			assertTrue(match.awaitOver(30, TimeUnit.SECONDS));
+			assertEquals(Match.Status.ENDED, match.getStatus());
+			if (match == matches.get(0))
+				hash = WorldHasher.hash(match.getWorld());
+			else
+				assertEquals(hash, WorldHasher.hash(match.getWorld()));
+		}
+		assertEquals(0, host.getMatchCount());
+	}
+
+	@Test
+	public void testPlayerActions() throws InterruptedException {
+		Match match = host.createMatch(20.0, 10.0, TestMaps.createMap(), 7357);
+		match.addTeam("Players");
+		Worm player = match.addPlayer("Player");
+		match.addTeam("Bots");
+		Worm bot = match.addBot("Bot", BOT);
+		match.setTurnLimit(3);
+		double angle = player.getAngle();
+		match.start();
+
+		//Ignored, the bot hasn't got the turn.
+		assertTrue(match.submit(Action.endTurn(bot)));
+		assertTrue(match.submit(Action.turn(player, 1)));
+		assertTrue(match.submit(Action.endTurn(player)));
+		assertTrue(match.awaitOver(5, TimeUnit.SECONDS));
+		assertEquals(Match.Status.ENDED, match.getStatus());
+		assertEquals(3, match.getTurnCount());
+		assertEquals(angle + 1, player.getAngle(), 1e-9);
+	}
+
+	@Test
+	public void testTurnTimeout() throws InterruptedException {
+		host = new MatchHost(1, 20, TimeUnit.MILLISECONDS);
+		Match match = host.createMatch(20.0, 10.0, TestMaps.createMap(), 7357);
+		match.addTeam("Players");
+		match.addPlayer("Player");
+		match.addTeam("Bots");
+		match.addBot("Bot", BOT);
+		match.setTurnLimit(5);
+		match.start();
+
+		assertTrue(match.awaitOver(5, TimeUnit.SECONDS));
+		assertEquals(5, match.getTurnCount());
+	}
+
+	@Test
+	public void testShutdownStopsMatches() throws InterruptedException {
+		Match running = createBotMatch(1);
+		running.start();
+		Match waiting = createBotMatch(2);
+
+		assertTrue(host.shutdown(5, TimeUnit.SECONDS));
+		assertTrue(running.isOver());
+		assertTrue(running.getStatus() != Match.Status.RUNNING);
+		assertEquals(Match.Status.STOPPED, waiting.getStatus());
+		assertFalse(running.submit(Action.endTurn(running.getWorld().getWorms().iterator().next())));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoSetupAfterStart() {
+		Match match = createBotMatch(1);
+		match.start();
+		match.addFood();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBotWithErrors() {
+		host.createMatch(20.0, 10.0, TestMaps.createMap(), 1).addBot("Bot", "move move;");
+	}
+}
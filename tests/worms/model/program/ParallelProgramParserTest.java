@@ -0,0 +1,90 @@
+package worms.model.program;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.Facade;
+import worms.model.SimpleActionHandler;
+import worms.model.programs.ParseOutcome;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ParallelProgramParserTest {
+
+    private Facade facade;
+    private SimpleActionHandler handler;
+    private ParallelProgramParser parser;
+
+    @Before
+    public void setUp() {
+        facade = new Facade();
+        handler = new SimpleActionHandler(facade);
+        parser = new ParallelProgramParser(facade, 4);
+    }
+
+    @After
+    public void tearDown() {
+        parser.shutdown();
+    }
+
+    @Test
+    public void testDirectorySameAsSequential() throws IOException {
+        List<ParallelProgramParser.Result> results = parser.parseDirectory(new File("programs"), handler);
+        assertTrue(parser.isWarmedUp());
+        assertFalse(results.isEmpty());
+
+        for (ParallelProgramParser.Result result : results) {
+            assertTrue(result.getName().endsWith(".txt"));
+            assertTrue(result.getNanos() > 0);
+        }
+        assertEquals("program.txt", results.get(0).getName());
+        assertTrue(results.get(0).getOutcome().isSuccess());
+    }
+
+    @Test
+    public void testOrderAndOutcomes() {
+        Map<String, String> programs = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++)
+            programs.put("valid" + i, "double x; x := " + i + "; while (x < 100) { x := x * 2 + 1; }");
+        programs.put("syntax", "double x; x := ;");
+        programs.put("type", "double x; x := true;");
+
+        parser.warmUp(Arrays.asList("double x; x := 1;"), handler);
+        List<ParallelProgramParser.Result> results = parser.parseAll(programs, handler);
+
+        assertEquals(programs.size(), results.size());
+        int i = 0;
+        for (String name : programs.keySet()) {
+            ParallelProgramParser.Result result = results.get(i++);
+            assertEquals(name, result.getName());
+            ParseOutcome<?> sequential = facade.parseProgram(programs.get(name), handler);
+            assertEquals(sequential.isSuccess(), result.getOutcome().isSuccess());
+        }
+        assertFalse(results.get(programs.size() - 2).getOutcome().isSuccess());
+        assertFalse(results.get(programs.size() - 1).getOutcome().isSuccess());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testShutdown() {
+        parser.shutdown();
+        parser.parseAll(new LinkedHashMap<String, String>(), handler);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new ParallelProgramParser(facade, 0);
+    }
+}
@@ -3,12 +3,22 @@ package worms.model.program;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import worms.model.Facade;
+import worms.model.Program;
 import worms.model.SimpleActionHandler;
+import worms.model.World;
+import worms.model.program.exceptions.IllegalArgException;
 import worms.model.program.expressions.BooleanExpression;
+import worms.model.program.expressions.BooleanLiteralExpression;
+import worms.model.program.expressions.DoubleLiteralExpression;
+import worms.model.program.expressions.Expression;
+import worms.model.program.expressions.NotExpression;
+import worms.model.programs.ParseOutcome;
 import worms.model.programs.ProgramParser;
 
 /**
@@ -43,4 +53,112 @@ public class ProgramFactoryImplTest {
         assertTrue(e instanceof BooleanExpression);
         assertFalse(e2 instanceof BooleanExpression);
     }
+    
+    @Test
+    public void testFoldArithmetic() {
+        Expression<?> e = factory.createAdd(0, 0, factory.createDoubleLiteral(0, 0, 0),
+                factory.createMul(0, 0, factory.createDoubleLiteral(0, 0, 2), factory.createDoubleLiteral(0, 0, -0.1)));
+        
+        assertTrue(e instanceof DoubleLiteralExpression);
+        assertEquals(-0.2, (Double) e.getResult(), 1e-12);
+    }
+    
+    @Test
+    public void testFoldLogic() {
+        Expression<?> e = factory.createOr(0, 0, factory.createBooleanLiteral(0, 0, false),
+                factory.createLessThan(0, 0, factory.createDoubleLiteral(0, 0, 1), factory.createDoubleLiteral(0, 0, 2)));
+        
+        assertTrue(e instanceof BooleanLiteralExpression);
+        assertTrue((Boolean) e.getResult());
+    }
+    
+    @Test
+    public void testDoubleNegation() {
+        Variable<Boolean> variable = factory.createBooleanType();
+        Expression<?> x = factory.createVariableAccess(0, 0, "x", variable);
+        
+        assertTrue(factory.createNot(0, 0, x) instanceof NotExpression);
+        assertSame(x, factory.createNot(0, 0, factory.createNot(0, 0, x)));
+    }
+    
+    /**
+     * if(true) keeps counting as a statement: the while costs 1, every iteration the if and the print cost 1 each.
+     */
+    @Test
+    public void testSimplifiedIfStillCounts() {
+        Facade facade = new Facade();
+        World world = facade.createWorld(4.0, 3.0, new boolean[][] {
+            { true, true, true, true }, { true, true, true, true }, { false, false, false, false } }, new Random(7357));
+        final int[] prints = new int[1];
+        ParseOutcome<?> outcome = Program.parseProgram("while (true) { if (true) { print (1 + 1); } else { print 0; } }",
+                new SimpleActionHandler(facade) {
+                    @Override
+                    public void print(String message) {
+                        prints[0]++;
+                    }
+                });
+        Program program = (Program) outcome.getResult();
+        facade.createWorm(world, 1, 1.5, 0, 0.5, "Test", program);
+        
+        program.execute();
+        
+        assertEquals(2, program.getOptimizations().size());
+        assertEquals((Program.MAX_STATEMENT_AMOUNT - 1) / 2, prints[0]);
+    }
+    
+    /**
+     * A branch that can never be executed is still checked, both when interpreted and when compiled to bytecode.
+     */
+    @Test
+    public void testDeadBranchesChecked() {
+        SimpleActionHandler handler = new SimpleActionHandler(new Facade());
+        String[] programs = {
+            "double x; if (false) { x := true; } else { skip; }",
+            "double x; if (true) { skip; } else { x := true; }",
+            "double x; while (false) { x := true; }",
+            "entity w; foreach(any, w) do { if (false) { move; } else { print 1; } }",
+            "entity w; foreach(any, w) do { while (false) { move; } }",
+        };
+        for (String program : programs) {
+            assertFalse(program, isAccepted(program, handler, false));
+            assertFalse(program, isAccepted(program, handler, true));
+        }
+    }
+    
+    /**
+     * Whether the program is parsed, or compiled to bytecode, without errors.
+     * A for-each loop with an action is refused with an exception.
+     */
+    private static boolean isAccepted(String program, SimpleActionHandler handler, boolean compile) {
+        try {
+            if (compile)
+                return Program.compileProgram(program, handler).isSuccess();
+            return Program.parseProgram(program, handler).isSuccess();
+        } catch (IllegalArgException ex) {
+            return false;
+        }
+    }
+    
+    @Test
+    public void testDeadBranchesSkipped() {
+        Facade facade = new Facade();
+        World world = facade.createWorld(4.0, 3.0, new boolean[][] {
+            { true, true, true, true }, { true, true, true, true }, { false, false, false, false } }, new Random(7357));
+        final StringBuilder prints = new StringBuilder();
+        ParseOutcome<?> outcome = Program.parseProgram("double x; if (false) { print 1; } else { print 2; } "
+                + "while (false) { print 3; } x := 4; print x;",
+                new SimpleActionHandler(facade) {
+                    @Override
+                    public void print(String message) {
+                        prints.append(message).append(' ');
+                    }
+                });
+        Program program = (Program) outcome.getResult();
+        facade.createWorm(world, 1, 1.5, 0, 0.5, "Test", program);
+        
+        program.execute();
+        
+        assertEquals(2, program.getOptimizations().size());
+        assertEquals("2.0 4.0 ", prints.toString());
+    }
 }
@@ -0,0 +1,122 @@
+package worms.model.program;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.Facade;
+import worms.model.Program;
+import worms.model.SimpleActionHandler;
+import worms.model.World;
+import worms.model.programs.ParseOutcome;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ProgramImageTest {
+
+    private Facade facade;
+
+    @Before
+    public void setUp() {
+        facade = new Facade();
+    }
+
+    private ProgramImage roundTrip(String text) throws IOException {
+        List<String> errors = new ArrayList<>();
+        ProgramImage image = ProgramImage.compile(text, errors);
+        assertNotNull(image);
+        assertTrue(errors.isEmpty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        image.write(out);
+        return ProgramImage.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private List<String> run(ParseOutcome<?> outcome, PrintingHandler handler) {
+        assertTrue(outcome.isSuccess());
+        Program program = (Program) outcome.getResult();
+        World world = facade.createWorld(4.0, 3.0, new boolean[][] {
+            { true, true, true, true }, { true, true, true, true },
+            { false, false, false, false } }, new Random(7357));
+        facade.createWorm(world, 1, 1.5, 0, 0.5, "Test", program);
+        program.execute();
+        return handler.printed;
+    }
+
+    @Test
+    public void testSameAsParsed() throws IOException {
+        String text = "double x; bool b := true; entity e;\n"
+                + "foreach(any, e) do { x := x + (getradius e); }\n"
+                + "while (x < 5 && b) { x := x * 2; if (!(x < 3)) then { print x; } else { print (x - 1); } }\n"
+                + "print sqrt(16) + sin(0); print b || false; print e == null;";
+        ProgramImage image = roundTrip(text);
+
+        PrintingHandler parsedHandler = new PrintingHandler(facade);
+        List<String> parsed = run(Program.parseProgram(text, parsedHandler), parsedHandler);
+        PrintingHandler loadedHandler = new PrintingHandler(facade);
+        List<String> loaded = run(Program.loadProgram(image, loadedHandler, false, null), loadedHandler);
+
+        assertFalse(parsed.isEmpty());
+        assertEquals(parsed, loaded);
+    }
+
+    @Test
+    public void testProgramFiles() throws IOException {
+        for (String file : new String[] { "programs/program.txt", "programs/program_example.txt" }) {
+            String text = new String(Files.readAllBytes(Paths.get(file)), Charset.forName("UTF-8"));
+            ProgramImage image = roundTrip(text);
+            assertTrue(Program.loadProgram(image, new SimpleActionHandler(facade), false, null).isSuccess());
+            assertTrue(Program.compileProgram(image, new SimpleActionHandler(facade)).isSuccess());
+        }
+    }
+
+    @Test
+    public void testStaleness() throws IOException {
+        ProgramImage image = roundTrip("double x; x := 1;");
+        assertTrue(image.isCompiledFrom("double x; x := 1;"));
+        assertTrue(image.isCompiledFrom("double x; x := 1;\r\n"));
+        assertFalse(image.isCompiledFrom("double x; x := 2;"));
+    }
+
+    @Test
+    public void testInvalidProgram() {
+        List<String> errors = new ArrayList<>();
+        assertNull(ProgramImage.compile("double x; x := true;", errors));
+        assertEquals(1, errors.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnImage() throws IOException {
+        byte[] text = "double x;".getBytes(Charset.forName("UTF-8"));
+        assertFalse(ProgramImage.isImage(text));
+        ProgramImage.read(new ByteArrayInputStream(text));
+    }
+
+    private static class PrintingHandler extends SimpleActionHandler {
+
+        public PrintingHandler(Facade facade) {
+            super(facade);
+        }
+
+        private final List<String> printed = new ArrayList<>();
+
+        @Override
+        public void print(String message) {
+            printed.add(message);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package worms.model.program;
+
+import static org.junit.Assert.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.Facade;
+import worms.model.Program;
+import worms.model.SimpleActionHandler;
+import worms.model.World;
+import worms.model.program.statements.ProfiledStatement;
+import worms.model.programs.ParseOutcome;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ProgramProfilerTest {
+
+    private Facade facade;
+    private World world;
+    private SimpleActionHandler handler;
+
+    @Before
+    public void setUp() {
+        facade = new Facade();
+        world = facade.createWorld(4.0, 3.0, new boolean[][] {
+            { true, true, true, true }, { true, true, true, true },
+            { false, false, false, false } }, new Random(7357));
+        handler = new SimpleActionHandler(facade);
+    }
+
+    private Program parse(String text, ProgramProfiler profiler) {
+        ParseOutcome<?> outcome = Program.parseProgram(text, handler, false, profiler);
+        assertTrue(outcome.isSuccess());
+        Program program = (Program) outcome.getResult();
+        facade.createWorm(world, 1, 1.5, 0, 0.5, "Test", program);
+        return program;
+    }
+
+    @Test
+    public void testCountsAndBudget() {
+        ProgramProfiler profiler = new ProgramProfiler();
+        Program program = parse("double x;\nwhile (x < 10) {\n  x := x + 1;\n}", profiler);
+        program.execute();
+
+        ProgramProfiler.Site loop = profiler.getSite("while", 2, 0);
+        ProgramProfiler.Site assignment = profiler.getSite("assignment", 3, 2);
+        assertEquals(1, loop.getCount());
+        assertEquals(11, loop.getBudget());
+        assertEquals(10, assignment.getCount());
+        assertEquals(10, assignment.getBudget());
+        assertTrue(loop.getTotalNanos() >= assignment.getTotalNanos());
+        assertEquals(1, profiler.getRuns());
+    }
+
+    @Test
+    public void testFoldedStacks() {
+        ProgramProfiler profiler = new ProgramProfiler();
+        parse("double x;\nwhile (x < 10) {\n  x := x + 1;\n}", profiler).execute();
+
+        StringWriter folded = new StringWriter();
+        profiler.writeFoldedStacks(new PrintWriter(folded));
+        assertTrue(folded.toString().contains("program;while@2:0;assignment@3:2 "));
+
+        StringWriter flat = new StringWriter();
+        profiler.writeFlatReport(new PrintWriter(flat));
+        assertTrue(flat.toString().startsWith("runs: 1; statements: 11"));
+    }
+
+    @Test
+    public void testNotWrappedWithoutProfiler() {
+        Program program = parse("double x; x := 1;", null);
+        assertFalse(program.getMainStatement() instanceof ProfiledStatement);
+        assertNull(program.getProfiler());
+    }
+}
@@ -0,0 +1,57 @@
+package worms.model.program;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import worms.model.Facade;
+import worms.model.Program;
+import worms.model.SimpleActionHandler;
+import worms.model.programs.ParseOutcome;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class TypeCheckerTest {
+
+    @BeforeClass
+    public static void setUpClass() {
+        handler = new SimpleActionHandler(new Facade());
+    }
+
+    static SimpleActionHandler handler;
+
+    @Test
+    public void testValidProgram() {
+        ParseOutcome<?> outcome = Program.parseProgram("double x; entity e; foreach(any, e) do { x := x + 1; } if (x > 0) then { x := 0; }", handler);
+        assertTrue(outcome.isSuccess());
+    }
+
+    @Test
+    public void testErrorNestedInWhile() {
+        ParseOutcome<?> outcome = Program.parseProgram("double x; bool b;\nwhile (b) {\n  if (true) then { x := b; }\n}", handler);
+        assertFalse(outcome.isSuccess());
+
+        List<?> errors = (List<?>) outcome.getResult();
+        assertEquals(1, errors.size());
+        assertTrue(((String) errors.get(0)).startsWith("3:19 type error:"));
+    }
+
+    @Test
+    public void testUnknownVariable() {
+        ParseOutcome<?> outcome = Program.parseProgram("double x; if (true) then { y := 1; } else { x := 2; }", handler);
+        assertFalse(outcome.isSuccess());
+        assertEquals(1, ((List<?>) outcome.getResult()).size());
+    }
+
+    @Test
+    public void testForEachVariableNotEntity() {
+        ParseOutcome<?> outcome = Program.parseProgram("double x; while (x > 0) { foreach(worm, x) do { print x; } }", handler);
+        assertFalse(outcome.isSuccess());
+    }
+}
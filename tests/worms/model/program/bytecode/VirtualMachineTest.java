@@ -0,0 +1,158 @@
+package worms.model.program.bytecode;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.gui.game.IActionHandler;
+import worms.model.Facade;
+import worms.model.Program;
+import worms.model.Worm;
+import worms.model.World;
+import worms.model.programs.ParseOutcome;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class VirtualMachineTest {
+
+    private Facade facade;
+    private World world;
+    private RecordingHandler handler;
+
+    // . . . .
+    // . . . .
+    // X X X X
+    private boolean[][] passableMap = new boolean[][] {
+        { true, true, true, true }, { true, true, true, true },
+        { false, false, false, false } };
+
+    @Before
+    public void setUp() {
+        facade = new Facade();
+        world = facade.createWorld(4.0, 3.0, passableMap, new Random(7357));
+        handler = new RecordingHandler();
+    }
+
+    private Program compile(String text) {
+        ParseOutcome<?> outcome = Program.compileProgram(text, handler);
+        assertTrue(outcome.isSuccess());
+        Program program = (Program) outcome.getResult();
+        facade.createWorm(world, 1, 1.5, 0, 0.5, "Test", program);
+        return program;
+    }
+
+    @Test
+    public void testArithmetic() {
+        Program program = compile("double x; double y := 2; x := (1 + y) * 3 - sqrt(16); print x;");
+        program.execute();
+
+        assertEquals(5.0, program.getMachine().getDouble(0), 1e-9);
+        assertEquals("5.0", handler.printed.get(0));
+        assertTrue(program.getMachine().isFinished());
+    }
+
+    @Test
+    public void testShortCircuit() {
+        Program program = compile("entity e; bool b; b := (e != null) && ((getx e) > 0); print b;");
+        program.execute();
+
+        assertEquals("false", handler.printed.get(0));
+    }
+
+    @Test
+    public void testBudgetSuspendsAndResumes() {
+        Program program = compile("double x; while (true) { x := x + 1; }");
+
+        program.execute();
+        assertEquals(Program.MAX_STATEMENT_AMOUNT - 1, program.getMachine().getDouble(0), 0);
+        assertFalse(program.getMachine().isFinished());
+
+        program.execute();
+        assertEquals(2 * Program.MAX_STATEMENT_AMOUNT - 1, program.getMachine().getDouble(0), 0);
+    }
+
+    @Test
+    public void testFailedActionIsRetried() {
+        Program program = compile("double x; x := x + 1; turn x; print x;");
+        handler.failures = 1;
+
+        program.execute();
+        assertTrue(handler.printed.isEmpty());
+        assertFalse(program.getMachine().isFinished());
+
+        program.execute();
+        assertEquals(1.0, handler.angles.get(0), 0);
+        assertEquals("1.0", handler.printed.get(0));
+        assertTrue(program.getMachine().isFinished());
+    }
+
+    @Test
+    public void testForEach() {
+        Program program = compile("entity w; double n; foreach(worm, w) do { n := n + 1; } print n;");
+        facade.createWorm(world, 2.5, 1.5, 0, 0.5, "Other", null);
+        program.execute();
+
+        assertEquals("2.0", handler.printed.get(0));
+    }
+
+    @Test
+    public void testAssignmentTypeError() {
+        ParseOutcome<?> outcome = Program.compileProgram("double x; x := true;", handler);
+        assertFalse(outcome.isSuccess());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForEachWithAction() {
+        Program.compileProgram("entity w; foreach(any, w) do { move; }", handler);
+    }
+
+    private static class RecordingHandler implements IActionHandler {
+
+        private final List<String> printed = new ArrayList<>();
+        private final List<Double> angles = new ArrayList<>();
+        private int failures = 0;
+
+        @Override
+        public boolean turn(Worm worm, double angle) {
+            if (failures > 0) {
+                failures--;
+                return false;
+            }
+            angles.add(angle);
+            return true;
+        }
+
+        @Override
+        public boolean move(Worm worm) {
+            return true;
+        }
+
+        @Override
+        public boolean jump(Worm worm) {
+            return true;
+        }
+
+        @Override
+        public boolean toggleWeapon(Worm worm) {
+            return true;
+        }
+
+        @Override
+        public boolean fire(Worm worm, int propulsion) {
+            return true;
+        }
+
+        @Override
+        public void print(String message) {
+            printed.add(message);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package worms.model.remote;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.Facade;
+import worms.model.TestMaps;
+import worms.model.World;
+import worms.model.Worm;
+import worms.util.Position;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class BotServerTest {
+
+	private Facade facade;
+	private World world;
+	private BotServer server;
+
+	@Before
+	public void setUp() {
+		facade = new Facade();
+		world = facade.createWorld(20.0, 10.0, TestMaps.createMap(), new Random(7357));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (server != null)
+			server.close();
+	}
+
+	private Worm addWorm(String team) {
+		facade.addEmptyTeam(world, team);
+		facade.addNewWorm(world, null);
+		List<Worm> worms = new ArrayList<>(facade.getWorms(world));
+		return worms.get(worms.size() - 1);
+	}
+
+	@Test
+	public void testBatchedActions() throws IOException, InterruptedException {
+		Worm red = addWorm("Red");
+		Worm blue = addWorm("Blue");
+		server = new BotServer(facade, world);
+		int redToken = server.claim(red);
+		int blueToken = server.claim(blue);
+		facade.startGame(world);
+		Worm first = facade.getCurrentWorm(world);
+		double angle = first.getAngle();
+		int actionPoints = facade.getActionPoints(first);
+		server.start();
+
+		try (StandInClient redClient = new StandInClient(server.getPort());
+				StandInClient blueClient = new StandInClient(server.getPort())) {
+			redClient.hello(redToken);
+			blueClient.hello(blueToken);
+			StandInClient active = first == red ? redClient : blueClient;
+			StandInClient waiting = first == red ? blueClient : redClient;
+
+			ByteBuffer state = active.receive();
+			assertEquals(BotProtocol.STATE, state.get());
+			long turn = state.getLong();
+			state.getShort();
+			assertEquals(2, state.get());
+			assertEquals("Red", StandInClient.readString(state));
+			assertEquals("Blue", StandInClient.readString(state));
+			assertEquals(2, state.getShort());
+
+			active.actions(turn, BotProtocol.TURN, 0.5, BotProtocol.TURN, -0.25, BotProtocol.TOGGLE_WEAPON);
+			ByteBuffer result = active.receive();
+			assertEquals(BotProtocol.RESULT, result.get());
+			assertEquals(turn, result.getLong());
+			assertEquals(3, result.getShort());
+			assertEquals(1, result.get());
+			assertEquals(1, result.get());
+			assertEquals(1, result.get());
+
+			state = waiting.receive();
+			assertEquals(BotProtocol.STATE, state.get());
+			assertEquals(turn + 1, state.getLong());
+			//The actions of an earlier turn are ignored.
+			waiting.actions(turn, BotProtocol.TURN, 1.0);
+			server.close();
+		}
+		assertEquals(angle + 0.25, first.getAngle(), 1e-9);
+		assertTrue(facade.getActionPoints(first) < actionPoints);
+	}
+
+	@Test
+	public void testEndOfGame() throws IOException, InterruptedException {
+		Worm worm = addWorm("Alone");
+		server = new BotServer(facade, world);
+		int token = server.claim(worm);
+		server.start();
+
+		try (StandInClient client = new StandInClient(server.getPort())) {
+			client.hello(token);
+			ByteBuffer end = client.receive();
+			assertEquals(BotProtocol.END, end.get());
+			assertEquals(facade.getWinner(world), StandInClient.readString(end));
+			assertTrue(client.isClosedByServer());
+		}
+		assertTrue(server.awaitEnd(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testTurnTimeout() throws IOException, InterruptedException {
+		Worm red = addWorm("Red");
+		addWorm("Blue");
+		server = new BotServer(facade, world, 20, TimeUnit.MILLISECONDS);
+		int token = server.claim(red);
+		server.start();
+
+		try (StandInClient client = new StandInClient(server.getPort())) {
+			client.hello(token);
+			ByteBuffer state = client.receive();
+			state.get();
+			long turn = state.getLong();
+			//The worm that isn't claimed ends its turn right away.
+			state = client.receive();
+			state.get();
+			assertTrue(state.getLong() >= turn + 2);
+		}
+	}
+
+	@Test
+	public void testDisconnectedControllerEndsTurnsRightAway() throws IOException, InterruptedException {
+		Worm red = addWorm("Red");
+		Worm blue = addWorm("Blue");
+		server = new BotServer(facade, world, 30, TimeUnit.SECONDS);
+		int redToken = server.claim(red);
+		int blueToken = server.claim(blue);
+		server.start();
+
+		try (StandInClient redClient = new StandInClient(server.getPort())) {
+			try (StandInClient blueClient = new StandInClient(server.getPort())) {
+				blueClient.hello(blueToken);
+			}
+			redClient.hello(redToken);
+			long start = System.nanoTime();
+			long previous = -1;
+			for (int i = 0; i < 3; i++) {
+				ByteBuffer state = redClient.receive();
+				assertEquals(BotProtocol.STATE, state.get());
+				long turn = state.getLong();
+				assertTrue(turn > previous);
+				previous = turn;
+				redClient.actions(turn);
+				assertEquals(BotProtocol.RESULT, redClient.receive().get());
+			}
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+		}
+	}
+
+	@Test
+	public void testWaitsWhenAllControllersDisconnected() throws IOException, InterruptedException {
+		Worm red = addWorm("Red");
+		Worm blue = addWorm("Blue");
+		server = new BotServer(facade, world, 20, TimeUnit.MILLISECONDS);
+		int redToken = server.claim(red);
+		int blueToken = server.claim(blue);
+		server.start();
+
+		long turn;
+		try (StandInClient redClient = new StandInClient(server.getPort());
+				StandInClient blueClient = new StandInClient(server.getPort())) {
+			redClient.hello(redToken);
+			blueClient.hello(blueToken);
+			StandInClient active = facade.getCurrentWorm(world) == red ? redClient : blueClient;
+			ByteBuffer state = active.receive();
+			state.get();
+			turn = state.getLong();
+		}
+		//Without any controller nothing changes, the turns aren't ended over and over.
+		assertFalse(server.awaitEnd(200, TimeUnit.MILLISECONDS));
+
+		try (StandInClient redClient = new StandInClient(server.getPort())) {
+			redClient.hello(redToken);
+			ByteBuffer state = redClient.receive();
+			assertEquals(BotProtocol.STATE, state.get());
+			assertTrue(state.getLong() <= turn + 2);
+		}
+		assertNull(server.getFailure());
+	}
+
+	@Test
+	public void testUnconnectedControllerTimesOut() throws IOException, InterruptedException {
+		Worm red = addWorm("Red");
+		Worm blue = addWorm("Blue");
+		server = new BotServer(facade, world, 20, TimeUnit.MILLISECONDS);
+		int redToken = server.claim(red);
+		server.claim(blue);
+		server.start();
+
+		try (StandInClient client = new StandInClient(server.getPort())) {
+			client.hello(redToken);
+			ByteBuffer state = client.receive();
+			state.get();
+			long turn = state.getLong();
+			state = client.receive();
+			state.get();
+			assertTrue(state.getLong() >= turn + 2);
+		}
+	}
+
+	@Test
+	public void testStopsWhenNothingCanProgress() throws IOException, InterruptedException {
+		addWorm("Red");
+		addWorm("Blue");
+		server = new BotServer(facade, world);
+		server.start();
+
+		assertTrue(server.awaitEnd(5, TimeUnit.SECONDS));
+		assertFalse(facade.isGameFinished(world));
+		assertNull(server.getFailure());
+	}
+
+	@Test
+	public void testMalformedFrameClosesConnection() throws IOException {
+		Worm worm = addWorm("Red");
+		addWorm("Blue");
+		server = new BotServer(facade, world);
+		server.claim(worm);
+		server.start();
+
+		try (StandInClient client = new StandInClient(server.getPort())) {
+			client.sendRaw(BotProtocol.MAX_FRAME_LENGTH + 1, ByteBuffer.allocate(0));
+			assertTrue(client.isClosedByServer());
+		}
+		try (StandInClient client = new StandInClient(server.getPort())) {
+			//An unknown token.
+			client.hello(0);
+			assertTrue(client.isClosedByServer());
+		}
+	}
+
+	@Test
+	public void testMalformedBatchNotPerformed() throws IOException, InterruptedException {
+		Worm red = addWorm("Red");
+		Worm blue = addWorm("Blue");
+		server = new BotServer(facade, world);
+		int redToken = server.claim(red);
+		int blueToken = server.claim(blue);
+		facade.startGame(world);
+		Worm first = facade.getCurrentWorm(world);
+		double angle = first.getAngle();
+		server.start();
+
+		try (StandInClient client = new StandInClient(server.getPort())) {
+			client.hello(first == red ? redToken : blueToken);
+			ByteBuffer state = client.receive();
+			state.get();
+			//A valid turn followed by an unknown action.
+			client.actions(state.getLong(), BotProtocol.TURN, 0.5, 99);
+			assertTrue(client.isClosedByServer());
+		}
+		server.close();
+		assertEquals(angle, first.getAngle(), 1e-9);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testStateTooLarge() throws IOException {
+		world = facade.createWorld(1200.0, 10.0, TestMaps.createMap(20, 2400), new Random(7357));
+		facade.addEmptyTeam(world, "Bots");
+		for (int i = 0; i < 1600; i++)
+			world.getTeams().get(0).add(new Worm(world, new Position(1 + 0.7 * i, 6), 0, 0.5, "Bot", null));
+		server = new BotServer(facade, world);
+		server.start();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoClaimAfterStart() throws IOException {
+		Worm worm = addWorm("Red");
+		server = new BotServer(facade, world);
+		server.start();
+		server.claim(worm);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testClaimTwice() {
+		Worm worm = addWorm("Red");
+		server = new BotServer(facade, world);
+		server.claim(worm);
+		server.claim(worm);
+	}
+}
@@ -0,0 +1,105 @@
+package worms.model.remote;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A blocking client of a BotServer, standing in for an external controller in the tests.
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class StandInClient implements AutoCloseable {
+
+	public StandInClient(int port) throws IOException {
+		channel = SocketChannel.open(new InetSocketAddress(InetAddress.getByName(null), port));
+	}
+
+	private final SocketChannel channel;
+
+	public void hello(int token) throws IOException {
+		ByteBuffer frame = ByteBuffer.allocate(9);
+		frame.putInt(5).put((byte) BotProtocol.HELLO).putInt(token);
+		send(frame);
+	}
+
+	/**
+	 * Send the actions of a turn, every action is its code followed by its argument for TURN and FIRE.
+	 */
+	public void actions(long turn, Object... actions) throws IOException {
+		ByteBuffer payload = ByteBuffer.allocate(BotProtocol.MAX_FRAME_LENGTH);
+		payload.put((byte) BotProtocol.ACTIONS).putLong(turn);
+		int countPosition = payload.position();
+		payload.putShort((short) 0);
+		short count = 0;
+		for (int i = 0; i < actions.length; i++) {
+			int action = (Integer) actions[i];
+			payload.put((byte) action);
+			if (action == BotProtocol.TURN)
+				payload.putDouble((Double) actions[++i]);
+			else if (action == BotProtocol.FIRE)
+				payload.putInt((Integer) actions[++i]);
+			count++;
+		}
+		payload.putShort(countPosition, count);
+		payload.flip();
+		sendRaw(payload.remaining(), payload);
+	}
+
+	public void sendRaw(int length, ByteBuffer payload) throws IOException {
+		ByteBuffer frame = ByteBuffer.allocate(4 + payload.remaining());
+		frame.putInt(length).put(payload);
+		send(frame);
+	}
+
+	private void send(ByteBuffer frame) throws IOException {
+		frame.flip();
+		while (frame.hasRemaining())
+			channel.write(frame);
+	}
+
+	/**
+	 * Receive a frame, the returned buffer starts with the type of the frame.
+	 */
+	public ByteBuffer receive() throws IOException {
+		ByteBuffer length = read(4);
+		return read(length.getInt());
+	}
+
+	private ByteBuffer read(int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0)
+				throw new EOFException();
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	public static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort()];
+		buffer.get(bytes);
+		return new String(bytes, Charset.forName("UTF-8"));
+	}
+
+	/**
+	 * Whether the server closed the connection.
+	 */
+	public boolean isClosedByServer() throws IOException {
+		try {
+			return channel.read(ByteBuffer.allocate(1)) < 0;
+		} catch (IOException ex) {
+			return true;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
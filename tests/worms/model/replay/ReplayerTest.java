@@ -0,0 +1,124 @@
+package worms.model.replay;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.DirectActionHandler;
+import worms.model.ModelException;
+import worms.model.Program;
+import worms.model.TestMaps;
+import worms.model.World;
+import worms.model.Worm;
+import worms.model.world.ChunkedTerrain;
+import worms.model.world.TerrainBitmap;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ReplayerTest {
+
+	private static final long SEED = 7357;
+
+	private ByteArrayOutputStream log;
+	private RecordingFacade facade;
+
+	@Before
+	public void setUp() {
+		log = new ByteArrayOutputStream();
+		facade = new RecordingFacade(Channels.newChannel(log), SEED);
+	}
+
+	/**
+	 * Record a match between a player and two worms controlled by a program.
+	 */
+	private World recordMatch() {
+		World world = facade.createWorld(20.0, 10.0, TestMaps.createMap(), new Random(SEED));
+		facade.addEmptyTeam(world, "Players");
+		facade.addNewWorm(world, null);
+		facade.addEmptyTeam(world, "Bots");
+		DirectActionHandler handler = new DirectActionHandler(facade);
+		for (int i = 0; i < 2; i++) {
+			Program program = (Program) facade.parseProgram(
+					"double x; while (x < 3) { turn 0.4; move; x := x + 1; } jump;", handler).getResult();
+			facade.addNewWorm(world, program);
+		}
+		facade.addNewFood(world);
+		facade.addNewFood(world);
+
+		facade.startGame(world);
+		for (int turn = 0; turn < 5 && !facade.isGameFinished(world); turn++) {
+			Worm player = facade.getCurrentWorm(world);
+			try {
+				facade.turn(player, -0.3);
+				facade.move(player);
+				facade.selectNextWeapon(player);
+				facade.shoot(player, 40);
+				facade.jump(facade.getActiveProjectile(world), 1e-4);
+			} catch (ModelException e) {
+			}
+			if (!facade.isGameFinished(world))
+				facade.startNextTurn(world);
+		}
+		return world;
+	}
+
+	private Replayer replay() throws IOException {
+		return new Replayer(ByteBuffer.wrap(log.toByteArray()));
+	}
+
+	@Test
+	public void testReplaySameState() throws IOException {
+		World recorded = recordMatch();
+		facade.close();
+		assertTrue(recorded.getTurnCount() > 5);
+
+		Replayer replayer = replay();
+		World replayed = replayer.run(true);
+		assertEquals(WorldHasher.hash(recorded), WorldHasher.hash(replayed));
+		assertEquals(Long.valueOf(WorldHasher.hash(recorded)), replayer.getRecordedHash());
+		assertEquals(recorded.getTurnCount(), replayed.getTurnCount());
+		assertEquals(recorded.getWorms().size(), replayed.getWorms().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testVerifyDetectsDifference() throws IOException {
+		World recorded = recordMatch();
+		//Changed without going through the facade, so it isn't recorded.
+		recorded.getWorms().iterator().next().setName("Unrecorded");
+		facade.close();
+
+		replay().run(true);
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		recordMatch();
+		facade.close();
+		assertTrue(log.size() < 2048);
+	}
+
+	@Test
+	public void testChunkedTerrain() throws IOException {
+		TerrainBitmap bitmap = TerrainBitmap.fromPassableMap(TestMaps.createMap(300, 600));
+		World recorded = facade.createWorldOnTerrain(300.0, 150.0, new ChunkedTerrain(bitmap, 0), new Random(SEED));
+		facade.close();
+		World replayed = replay().run(true);
+		assertEquals(bitmap, replayed.getTerrain());
+		assertEquals(WorldHasher.hash(recorded), WorldHasher.hash(replayed));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotALog() throws IOException {
+		new Replayer(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+	}
+}
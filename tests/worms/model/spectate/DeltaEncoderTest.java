@@ -0,0 +1,186 @@
+package worms.model.spectate;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.Facade;
+import worms.model.Food;
+import worms.model.ModelException;
+import worms.model.TestMaps;
+import worms.model.World;
+import worms.model.Worm;
+import worms.model.world.ChunkedTerrain;
+import worms.model.world.TerrainBitmap;
+import worms.model.world.entity.GameObject;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class DeltaEncoderTest {
+
+	private Facade facade;
+	private World world;
+
+	@Before
+	public void setUp() {
+		facade = new Facade();
+		world = facade.createWorld(20.0, 10.0, TestMaps.createMap(), new Random(7357));
+		facade.addEmptyTeam(world, "Red");
+		facade.addNewWorm(world, null);
+		facade.addEmptyTeam(world, "Blue");
+		facade.addNewWorm(world, null);
+		facade.addNewFood(world);
+		facade.addNewFood(world);
+	}
+
+	private void playTurn() {
+		Worm worm = facade.getCurrentWorm(world);
+		try {
+			facade.turn(worm, 0.3);
+			facade.move(worm);
+		} catch (ModelException e) {
+		}
+		facade.startNextTurn(world);
+	}
+
+	private static void assertSeen(World world, Spectator spectator) {
+		assertTrue(spectator.isSynchronized());
+		assertEquals(world.getTurnCount(), spectator.getTurnCount());
+		assertEquals(world.getState(), spectator.getState());
+		List<GameObject> objects = new ArrayList<>();
+		for (GameObject object : world.getGameObjects())
+			if (object.isAlive())
+				objects.add(object);
+		assertEquals(objects.size(), spectator.getEntities().size());
+
+		int index = 0;
+		for (SpectatedEntity entity : spectator.getEntities()) {
+			GameObject object = objects.get(index++);
+			double precision = 1 / DeltaFormat.POSITION_SCALE;
+			assertEquals(object.getPosition().getX(), entity.getX(), precision);
+			assertEquals(object.getPosition().getY(), entity.getY(), precision);
+			assertEquals(object.getRadius(), entity.getRadius(), precision);
+			if (object instanceof Worm) {
+				Worm worm = (Worm) object;
+				assertEquals(DeltaFormat.WORM, entity.getKind());
+				assertEquals(worm.getAngle(), entity.getAngle(), 1 / DeltaFormat.ANGLE_SCALE);
+				assertEquals(worm.getCurrentActionPoints(), entity.getActionPoints());
+				assertEquals(worm.getCurrentHitPoints(), entity.getHitPoints());
+				assertEquals(worm.getName(), entity.getName());
+				assertEquals(worm.getTeam().getName(), entity.getTeam());
+			} else if (object instanceof Food) {
+				assertEquals(DeltaFormat.FOOD, entity.getKind());
+			}
+		}
+		if (world.getActiveWorm() == null)
+			assertNull(spectator.getActiveWorm());
+		else
+			assertEquals(world.getActiveWorm().getName(), spectator.getActiveWorm().getName());
+	}
+
+	@Test
+	public void testChunkedTerrain() throws IOException {
+		TerrainBitmap bitmap = TerrainBitmap.fromPassableMap(TestMaps.createMap(300, 600));
+		World chunked = facade.createWorldOnTerrain(300.0, 150.0, new ChunkedTerrain(bitmap, 0), new Random(7357));
+		Spectator spectator = new Spectator();
+		assertTrue(spectator.apply(new DeltaEncoder(chunked, 0).nextFrame()));
+		assertEquals(bitmap, spectator.getTerrain());
+	}
+
+	@Test
+	public void testSpectatorFollowsWorld() throws IOException {
+		DeltaEncoder encoder = new DeltaEncoder(world, 0);
+		Spectator spectator = new Spectator();
+		assertTrue(spectator.apply(encoder.nextFrame()));
+		assertSeen(world, spectator);
+		assertTrue(Arrays.deepEquals(world.getPassableMap(), spectator.getPassableMap()));
+
+		facade.startGame(world);
+		for (int turn = 0; turn < 6; turn++) {
+			playTurn();
+			assertTrue(spectator.apply(encoder.nextFrame()));
+			assertSeen(world, spectator);
+		}
+	}
+
+	@Test
+	public void testRemovedEntities() throws IOException {
+		DeltaEncoder encoder = new DeltaEncoder(world, 0);
+		Spectator spectator = new Spectator();
+		spectator.apply(encoder.nextFrame());
+		assertEquals(4, spectator.getEntities().size());
+
+		Food food = world.getFood().iterator().next();
+		world.remove(food);
+		assertTrue(spectator.apply(encoder.nextFrame()));
+		assertEquals(3, spectator.getEntities().size());
+		assertSeen(world, spectator);
+	}
+
+	@Test
+	public void testDeltasAreSmall() {
+		DeltaEncoder encoder = new DeltaEncoder(world, 0);
+		ByteBuffer keyframe = encoder.nextFrame();
+		ByteBuffer unchanged = encoder.nextFrame();
+		assertTrue(unchanged.remaining() < 8);
+
+		Worm worm = world.getWorms().iterator().next();
+		facade.turn(worm, 0.1);
+		ByteBuffer turned = encoder.nextFrame();
+		assertTrue(turned.remaining() < 16);
+		assertTrue(turned.remaining() < keyframe.remaining() / 4);
+	}
+
+	@Test
+	public void testLostFrame() throws IOException {
+		DeltaEncoder encoder = new DeltaEncoder(world, 3);
+		Spectator spectator = new Spectator();
+		facade.startGame(world);
+		spectator.apply(encoder.nextFrame());
+
+		playTurn();
+		encoder.nextFrame();
+		playTurn();
+		assertFalse(spectator.apply(encoder.nextFrame()));
+		assertFalse(spectator.isSynchronized());
+
+		playTurn();
+		assertTrue(spectator.apply(encoder.nextFrame()));
+		assertSeen(world, spectator);
+	}
+
+	@Test
+	public void testLateSpectator() throws IOException {
+		DeltaEncoder encoder = new DeltaEncoder(world, 0);
+		facade.startGame(world);
+		encoder.nextFrame();
+		playTurn();
+		encoder.nextFrame();
+
+		Spectator spectator = new Spectator();
+		playTurn();
+		assertFalse(spectator.apply(encoder.nextFrame()));
+		encoder.requestKeyframe();
+		playTurn();
+		assertTrue(spectator.apply(encoder.nextFrame()));
+		assertSeen(world, spectator);
+	}
+
+	@Test(expected = IOException.class)
+	public void testMalformedFrame() throws IOException {
+		ByteBuffer frame = new DeltaEncoder(world, 0).nextFrame();
+		frame.limit(frame.limit() - 3);
+		new Spectator().apply(frame);
+	}
+}
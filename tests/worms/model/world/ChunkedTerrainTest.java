@@ -0,0 +1,195 @@
+package worms.model.world;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import worms.model.World;
+import worms.util.Position;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class ChunkedTerrainTest {
+
+	/**
+	 * A generated terrain of 1000 by 600 pixels: sky above row 300, rock below, with a hill of the height of the
+	 * column between 300 and 400. Counts the pixels it's asked for.
+	 */
+	private static class Hills implements Terrain {
+
+		int nbQueries;
+
+		@Override
+		public int getWidth() {
+			return 1000;
+		}
+
+		@Override
+		public int getHeight() {
+			return 600;
+		}
+
+		@Override
+		public boolean isPassable(int row, int column) {
+			nbQueries++;
+			if(column >= 300 && column < 400)
+				return row < 300 - (column - 300);
+			return row < 300;
+		}
+	}
+
+	@Test
+	public void testSameAsSource() {
+		Hills hills = new Hills();
+		ChunkedTerrain terrain = new ChunkedTerrain(hills, Long.MAX_VALUE);
+		assertEquals(1000, terrain.getWidth());
+		assertEquals(600, terrain.getHeight());
+		for(int row = 0; row < 600; row += 7)
+			for(int column = 0; column < 1000; column += 3)
+				assertEquals(hills.isPassable(row, column), terrain.isPassable(row, column));
+		assertEquals(599 - 300 + 1, countImpassable(terrain, 0));
+		assertFalse(terrain.isPassable(599, 999));
+	}
+
+	private static int countImpassable(Terrain terrain, int column) {
+		int result = 0;
+		for(int row = 0; row < terrain.getHeight(); row++)
+			if(!terrain.isPassable(row, column))
+				result++;
+		return result;
+	}
+
+	@Test
+	public void testMaterialisedOnFirstAccess() {
+		Hills hills = new Hills();
+		ChunkedTerrain terrain = new ChunkedTerrain(hills, Long.MAX_VALUE);
+		assertEquals(0, hills.nbQueries);
+
+		terrain.isPassable(0, 0);
+		assertEquals(ChunkedTerrain.CHUNK_SIZE * ChunkedTerrain.CHUNK_SIZE, hills.nbQueries);
+		terrain.isPassable(255, 255);
+		assertEquals(1, terrain.getNbMaterialised());
+	}
+
+	@Test
+	public void testUniformChunks() {
+		ChunkedTerrain terrain = new ChunkedTerrain(new Hills(), Long.MAX_VALUE);
+		// all sky
+		assertTrue(terrain.isPassable(0, 0));
+		// all rock, a partial chunk at the bottom right
+		assertFalse(terrain.isPassable(599, 999));
+		// the surface
+		assertTrue(terrain.isPassable(299, 0));
+		assertFalse(terrain.isPassable(300, 0));
+		assertEquals(2, terrain.getNbUniform());
+		assertEquals(1, terrain.getNbResident());
+	}
+
+	@Test
+	public void testEvictedUnderBudget() {
+		Hills hills = new Hills();
+		ChunkedTerrain terrain = new ChunkedTerrain(hills, ChunkedTerrain.CHUNK_BYTES * 2);
+		// the surface runs through the middle row of chunks, which are all mixed
+		for(int column = 0; column < 1000; column += ChunkedTerrain.CHUNK_SIZE)
+			assertEquals(hills.isPassable(299, column), terrain.isPassable(299, column));
+		assertEquals(4, terrain.getNbMaterialised());
+		assertEquals(2, terrain.getNbResident());
+		assertEquals(2, terrain.getNbEvicted());
+
+		// the most recently used chunks are still there, the first one is materialised again
+		terrain.isPassable(299, 999);
+		assertEquals(4, terrain.getNbMaterialised());
+		terrain.isPassable(299, 0);
+		assertEquals(5, terrain.getNbMaterialised());
+		assertTrue(terrain.isPassable(299, 0));
+	}
+
+	@Test
+	public void testConcurrentReaders() throws InterruptedException {
+		// a budget of two chunks, so the readers keep evicting each other's chunks
+		final ChunkedTerrain terrain = new ChunkedTerrain(new Hills(), ChunkedTerrain.CHUNK_BYTES * 2);
+		final AtomicInteger nbWrong = new AtomicInteger();
+		Thread[] readers = new Thread[4];
+		for(int i = 0; i < readers.length; i++) {
+			final Random random = new Random(i);
+			readers[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					Hills hills = new Hills();
+					for(int j = 0; j < 20000; j++) {
+						int row = 200 + random.nextInt(200);
+						int column = random.nextInt(1000);
+						if(terrain.isPassable(row, column) != hills.isPassable(row, column))
+							nbWrong.incrementAndGet();
+					}
+				}
+			});
+			readers[i].start();
+		}
+		for(Thread reader : readers)
+			reader.join();
+
+		assertEquals(0, nbWrong.get());
+		assertEquals(2, terrain.getNbResident());
+		assertEquals(terrain.getNbMaterialised() - terrain.getNbUniform() - 2, terrain.getNbEvicted());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		new ChunkedTerrain(new Hills(), 0).isPassable(600, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoSource() {
+		new ChunkedTerrain(null, 0);
+	}
+
+	@Test
+	public void testWorldOnChunkedTerrain() {
+		ChunkedTerrain terrain = new ChunkedTerrain(new Hills(), ChunkedTerrain.CHUNK_BYTES);
+		World world = new World(1000.0, 600.0, terrain, new Random(7357));
+		assertSame(terrain, world.getTerrain());
+
+		boolean[][] map = new boolean[600][1000];
+		Hills hills = new Hills();
+		for(int row = 0; row < 600; row++)
+			for(int column = 0; column < 1000; column++)
+				map[row][column] = hills.isPassable(row, column);
+		World expected = new World(1000.0, 600.0, map, new Random(7357));
+
+		for(double x = 5; x < 1000; x += 50) {
+			for(double y = 250; y < 450; y += 7) {
+				Position position = new Position(x, y);
+				assertEquals(expected.isImpassable(position, 3.0), world.isImpassable(position, 3.0));
+				assertEquals(expected.isAdjacent(position, 3.0), world.isAdjacent(position, 3.0));
+			}
+		}
+	}
+
+	@Test
+	public void testOnTerrainFile() throws IOException {
+		boolean[][] map = new boolean[300][300];
+		for(int row = 0; row < 300; row++)
+			for(int column = 0; column < 300; column++)
+				map[row][column] = (row + column) % 3 != 0;
+		File file = File.createTempFile("terrain", TerrainFile.FILE_EXTENSION);
+		try {
+			TerrainFile.write(file, TerrainBitmap.fromPassableMap(map), 1.0, new byte[32], 0);
+			ChunkedTerrain terrain = new ChunkedTerrain(TerrainFile.open(file).getBitmap(), 0);
+			for(int row = 0; row < 300; row++)
+				for(int column = 0; column < 300; column++)
+					assertEquals(map[row][column], terrain.isPassable(row, column));
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package worms.model.world;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class PngTerrainDecoderTest {
+
+	/**
+	 * The terrain as the GUI used to build it: passable where the alpha is below 16.
+	 */
+	private static boolean[][] passableMap(BufferedImage image) {
+		boolean[][] result = new boolean[image.getHeight()][image.getWidth()];
+		for(int row = 0; row < image.getHeight(); row++)
+			for(int column = 0; column < image.getWidth(); column++)
+				result[row][column] = ((image.getRGB(column, row) >>> 24) & 0xf0) == 0;
+		return result;
+	}
+
+	private static byte[] toPng(BufferedImage image) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(ImageIO.write(image, "png", out));
+		return out.toByteArray();
+	}
+
+	private static TerrainBitmap decode(byte[] png) throws IOException {
+		return PngTerrainDecoder.decode(new ByteArrayInputStream(png));
+	}
+
+	@Test
+	public void testLevels() throws IOException {
+		for(String name : new String[] { "Blocks", "Simple", "Skulls-lowres" }) {
+			File file = new File("levels/" + name + ".png");
+			TerrainBitmap bitmap;
+			InputStream in = new FileInputStream(file);
+			try {
+				bitmap = PngTerrainDecoder.decode(in);
+			} finally {
+				in.close();
+			}
+			assertEquals(name, TerrainBitmap.fromPassableMap(passableMap(ImageIO.read(file))), bitmap);
+		}
+	}
+
+	@Test
+	public void testAlphaChannel() throws IOException {
+		BufferedImage image = new BufferedImage(70, 3, BufferedImage.TYPE_INT_ARGB);
+		for(int column = 0; column < 70; column++) {
+			image.setRGB(column, 0, Math.min(255, column * 4) << 24);
+			image.setRGB(column, 1, 0x00ff0000);
+			image.setRGB(column, 2, 0xff00ff00);
+		}
+		TerrainBitmap bitmap = decode(toPng(image));
+		assertEquals(70, bitmap.getWidth());
+		assertEquals(3, bitmap.getHeight());
+		assertEquals(TerrainBitmap.fromPassableMap(passableMap(image)), bitmap);
+		assertTrue(bitmap.isPassable(0, 3));
+		assertFalse(bitmap.isPassable(0, 4));
+		assertTrue(bitmap.isPassable(1, 69));
+		assertEquals(4 + 70, bitmap.getNbPassable());
+	}
+
+	@Test
+	public void testPalette() throws IOException {
+		byte[] reds = { 0, (byte) 255, 0, 0 };
+		byte[] alphas = { 0, (byte) 255, 8, (byte) 200 };
+		IndexColorModel palette = new IndexColorModel(2, 4, reds, reds, reds, alphas);
+		BufferedImage image = new BufferedImage(13, 5, BufferedImage.TYPE_BYTE_BINARY, palette);
+		for(int row = 0; row < 5; row++)
+			for(int column = 0; column < 13; column++)
+				image.getRaster().setSample(column, row, 0, (row + column) % 4);
+		assertEquals(TerrainBitmap.fromPassableMap(passableMap(image)), decode(toPng(image)));
+	}
+
+	@Test
+	public void testNoAlpha() throws IOException {
+		BufferedImage image = new BufferedImage(9, 9, BufferedImage.TYPE_BYTE_GRAY);
+		assertEquals(0, decode(toPng(image)).getNbPassable());
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException {
+		BufferedImage image = new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB);
+		byte[] png = toPng(image);
+		png[png.length - 20] ^= 0x55;
+		decode(png);
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAPng() throws IOException {
+		decode("levels".getBytes("US-ASCII"));
+	}
+
+	@Test
+	public void testPassableMapRoundTrip() {
+		boolean[][] map = { { true, false, true }, { false, false, true } };
+		TerrainBitmap bitmap = TerrainBitmap.fromPassableMap(map);
+		assertTrue(bitmap.isPassable(0, 2));
+		assertFalse(bitmap.isPassable(1, 0));
+		assertEquals(3, bitmap.getNbPassable());
+		assertTrue(Arrays.deepEquals(map, bitmap.toPassableMap()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotRectangular() {
+		TerrainBitmap.fromPassableMap(new boolean[][] { { true }, { true, false } });
+	}
+}
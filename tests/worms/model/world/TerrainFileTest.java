@@ -0,0 +1,137 @@
+package worms.model.world;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import worms.model.World;
+
+/**
+ *
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class TerrainFileTest {
+
+	private static final byte[] HASH = new byte[32];
+
+	static {
+		Arrays.fill(HASH, (byte) 7);
+	}
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("terrain", TerrainFile.FILE_EXTENSION);
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * A map of 70 by 5 pixels, passable above a floor which is lower to the right.
+	 */
+	private static boolean[][] createMap() {
+		boolean[][] result = new boolean[5][70];
+		for(int row = 0; row < 5; row++)
+			for(int column = 0; column < 70; column++)
+				result[row][column] = row < (column < 35 ? 2 : 4);
+		return result;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		TerrainBitmap terrain = TerrainBitmap.fromPassableMap(createMap());
+		TerrainFile.write(file, terrain, 0.5, HASH, 0);
+		TerrainFile opened = TerrainFile.open(file);
+
+		assertEquals(terrain, opened.getBitmap());
+		assertEquals(70, opened.getWidth());
+		assertEquals(5, opened.getHeight());
+		assertEquals(35.0, opened.getWorldWidth(), 1e-12);
+		assertEquals(2.5, opened.getWorldHeight(), 1e-12);
+		assertTrue(opened.isConvertedFrom(HASH));
+		assertFalse(opened.isConvertedFrom(new byte[32]));
+		assertFalse(opened.hasDistanceField());
+		assertFalse(opened.hasColumnFloors());
+	}
+
+	@Test
+	public void testIndices() throws IOException {
+		TerrainBitmap terrain = TerrainBitmap.fromPassableMap(createMap());
+		TerrainFile.write(file, terrain, 1.0, HASH, TerrainFile.DISTANCE_FIELD | TerrainFile.COLUMN_FLOORS);
+		TerrainFile opened = TerrainFile.open(file);
+
+		assertEquals(terrain, opened.getBitmap());
+		assertEquals(2, opened.getColumnFloor(0));
+		assertEquals(4, opened.getColumnFloor(69));
+		assertEquals(0, opened.getDistance(2, 0));
+		assertEquals(2, opened.getDistance(0, 10));
+		assertEquals(1, opened.getDistance(1, 10));
+		// the step down at column 35 is one pixel away diagonally
+		assertEquals(1, opened.getDistance(2, 35));
+		assertEquals(2, opened.getDistance(2, 36));
+		assertEquals(4, opened.getDistance(0, 69));
+	}
+
+	@Test
+	public void testDistanceFieldCapped() {
+		boolean[][] map = new boolean[1][300];
+		for(int column = 1; column < 300; column++)
+			map[0][column] = true;
+		byte[] distances = TerrainFile.computeDistanceField(TerrainBitmap.fromPassableMap(map));
+		assertEquals(0, distances[0] & 0xff);
+		assertEquals(100, distances[100] & 0xff);
+		assertEquals(TerrainFile.MAX_DISTANCE, distances[299] & 0xff);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoDistanceField() throws IOException {
+		TerrainFile.write(file, TerrainBitmap.fromPassableMap(createMap()), 1.0, HASH, TerrainFile.COLUMN_FLOORS);
+		TerrainFile.open(file).getDistance(0, 0);
+	}
+
+	@Test
+	public void testWorldOnMappedTerrain() throws IOException {
+		TerrainBitmap terrain = TerrainBitmap.fromPassableMap(createMap());
+		TerrainFile.write(file, terrain, 1.0, HASH, 0);
+		TerrainFile opened = TerrainFile.open(file);
+
+		World world = new World(opened.getWorldWidth(), opened.getWorldHeight(), opened.getBitmap(), new Random(0));
+		assertSame(opened.getBitmap(), world.getTerrain());
+		assertTrue(Arrays.deepEquals(createMap(), world.getPassableMap()));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotATerrainFile() throws IOException {
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.write(new byte[128]);
+		}
+		TerrainFile.open(file);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		TerrainFile.write(file, TerrainBitmap.fromPassableMap(createMap()), 1.0, HASH, TerrainFile.COLUMN_FLOORS);
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.setLength(out.length() - 4);
+		}
+		TerrainFile.open(file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidHash() throws IOException {
+		TerrainFile.write(file, TerrainBitmap.fromPassableMap(createMap()), 1.0, new byte[16], 0);
+	}
+}
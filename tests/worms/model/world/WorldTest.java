@@ -11,11 +11,14 @@ import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
+import worms.model.DirectActionHandler;
 import worms.model.Entity;
+import worms.model.EntityCursor;
 import worms.model.Facade;
 import worms.model.Team;
 import worms.model.equipment.weapons.Bazooka;
 import worms.model.Food;
+import worms.model.Program;
 import worms.model.world.entity.GameObject;
 import worms.model.world.entity.WeaponProjectile;
 import worms.model.Worm;
@@ -707,4 +710,99 @@ public class WorldTest {
                 assertTrue(worm2 == obj);
         }
 
+
+	@Test
+	public void testEntityCursor_RemoveWhileIterating() {
+		World world = facade.createWorld(3.0, 4.0, new boolean[][] {
+				{ true, true, true },
+				{ true, true, true },
+				{ true, true, true },
+				{ false, false, false }
+		}, random);
+		Worm worm = facade.createWorm(world, 0.5, 2, 0, 0.5, "Test");
+		Food food1 = facade.createFood(world, 1, 1);
+		Food food2 = facade.createFood(world, 2, 1);
+		Food food3 = facade.createFood(world, 1, 2);
+
+		EntityCursor<Food> cursor = new EntityCursor<>(Food.class);
+		world.open(cursor);
+		assertTrue(cursor.next() == food1);
+		world.remove(worm);
+		world.remove(food1);
+		food2.setToEaten();
+		assertTrue(cursor.next() == food3);
+		assertTrue(cursor.next() == null);
+		cursor.close();
+
+		assertFalse(cursor.isOpen());
+		world.open(cursor);
+		assertTrue(cursor.next() == food3);
+		cursor.close();
+	}
+
+	/**
+	 * Test method for {@link worms.model.world.World#nextTurn()}.
+	 * Many consecutive worms with a program are given their turn by the scheduler loop, each exactly once.
+	 */
+	@Test
+	public void testNextTurn_ManyPrograms() {
+		World world = facade.createWorld(3.0, 4.0, new boolean[][] {
+				{ true, true, true },
+				{ true, true, true },
+				{ true, true, true },
+				{ false, false, false }
+		}, random);
+		Worm player = facade.createWorm(world, 1.5, 1.5, 0, 0.5, "Player");
+		DirectActionHandler handler = new DirectActionHandler(facade);
+		for (int i = 0; i < 500; i++)
+			facade.createWorm(world, 1.5, 1.5, 0, 0.5, "Bot", createProgram(handler, "double x; x := 1;"));
+
+		world.startGame();
+		assertTrue(world.getActiveWorm() == player);
+		long turns = world.getTurnCount();
+		world.nextTurn();
+		assertTrue(world.getActiveWorm() == player);
+		assertEquals(turns + 501, world.getTurnCount());
+		assertFalse(world.isNextTurnPending());
+	}
+
+	/**
+	 * Test method for {@link worms.model.world.World#nextTurn()}.
+	 * A program using up all action points of its worm ends the turn once, after the program is done.
+	 */
+	@Test
+	public void testNextTurn_ProgramUsesAllActionPoints() {
+		World world = facade.createWorld(3.0, 4.0, new boolean[][] {
+				{ true, true, true },
+				{ true, true, true },
+				{ true, true, true },
+				{ false, false, false }
+		}, random);
+		DirectActionHandler handler = new DirectActionHandler(facade);
+		Worm first = facade.createWorm(world, 1.5, 1.5, 0, 0.5, "First");
+		Worm bot = facade.createWorm(world, 1.5, 1.5, Math.PI / 2, 0.5, "Bot", createProgram(handler, "jump; print 1;"));
+		Worm third = facade.createWorm(world, 1.5, 1.5, 0, 0.5, "Third");
+
+		world.startGame();
+		assertTrue(world.getActiveWorm() == first);
+		world.nextTurn();
+		assertEquals(0, bot.getCurrentActionPoints());
+		assertTrue(world.getActiveWorm() == third);
+	}
+
+	private Program createProgram(DirectActionHandler handler, String text) {
+		return (Program) facade.parseProgram(text, handler).getResult();
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testEntityCursor_OpenTwice() {
+		World world = facade.createWorld(3.0, 4.0, new boolean[][] {
+				{ true, true, true },
+				{ false, false, false }
+		}, random);
+		EntityCursor<Entity> cursor = new EntityCursor<>(Entity.class);
+		world.open(cursor);
+		world.open(cursor);
+	}
+
 }
@@ -0,0 +1,86 @@
+package worms.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.Test;
+
+/**
+ * @author Derkinderen Vincent
+ * @author Coosemans Brent
+ */
+public class BinaryOutputTest {
+
+	private static void putValues(BinaryOutput out) {
+		out.putByte(200);
+		out.putInt(-7);
+		out.putLong(Long.MIN_VALUE);
+		out.putDouble(0.1);
+		out.putVarLong(300);
+		out.putVarInt(-1);
+		out.putSignedVarLong(-3);
+		out.putString("w\u00f6rm");
+		for (int i = 0; i < 10; i++)
+			out.putBit(i % 3 == 0);
+		out.endBits();
+		out.putBytes(new byte[100]);
+	}
+
+	private static void getValues(BinaryInput in) throws IOException {
+		assertEquals(200, in.getByte());
+		assertEquals(-7, in.getInt());
+		assertEquals(Long.MIN_VALUE, in.getLong());
+		assertEquals(0.1, in.getDouble(), 0);
+		assertEquals(300, in.getVarInt());
+		assertEquals(0xFFFFFFFFL, in.getVarLong());
+		assertEquals(-3, in.getSignedVarLong());
+		assertEquals("w\u00f6rm", in.getString());
+		for (int i = 0; i < 10; i++)
+			assertEquals(i % 3 == 0, in.getBit());
+		in.endBits();
+		assertEquals(100, in.getBytes().length);
+		assertFalse(in.hasRemaining());
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		BinaryOutput out = new BinaryOutput(1);
+		putValues(out);
+		getValues(new BinaryInput(out.toBuffer(), "the test"));
+	}
+
+	@Test
+	public void testRoundTripThroughChannel() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryOutput out = new BinaryOutput(Channels.newChannel(bytes), 16);
+		putValues(out);
+		out.flush();
+		getValues(new BinaryInput(ByteBuffer.wrap(bytes.toByteArray()), "the test"));
+	}
+
+	@Test
+	public void testSmallValuesAreShort() {
+		BinaryOutput out = new BinaryOutput(16);
+		out.putVarLong(127);
+		out.putSignedVarLong(-64);
+		assertEquals(2, out.toBuffer().remaining());
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		BinaryOutput out = new BinaryOutput(16);
+		out.putString("truncated");
+		ByteBuffer buffer = out.toBuffer();
+		buffer.limit(buffer.limit() - 1);
+		new BinaryInput(buffer, "the test").getString();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testToBufferOfChannel() {
+		new BinaryOutput(Channels.newChannel(new ByteArrayOutputStream()), 16).toBuffer();
+	}
+}